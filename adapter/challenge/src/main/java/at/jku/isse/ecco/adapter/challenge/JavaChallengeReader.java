@@ -10,6 +10,10 @@ import at.jku.isse.ecco.dao.EntityFactory;
 import at.jku.isse.ecco.service.listener.ReadListener;
 import at.jku.isse.ecco.tree.Node;
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Providers;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.*;
@@ -21,8 +25,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -30,8 +37,15 @@ public class JavaChallengeReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	protected static final Logger LOGGER = Logger.getLogger(DispatchWriter.class.getName());
 
+	/**
+	 * Parsers are not thread-safe, so every thread that parses files gets its own one, which it reuses for all files it parses.
+	 */
+	private static final ThreadLocal<JavaParser> PARSERS = ThreadLocal.withInitial(JavaParser::new);
+
 	private final EntityFactory entityFactory;
 
+	private boolean parallel = true;
+
 	@Inject
 	public JavaChallengeReader(EntityFactory entityFactory) {
 		checkNotNull(entityFactory);
@@ -39,6 +53,17 @@ public class JavaChallengeReader implements ArtifactReader<Path, Set<Node.Op>> {
 		this.entityFactory = entityFactory;
 	}
 
+	/**
+	 * @param parallel True if multiple files should be loaded and parsed concurrently (the default), false if they should be read one after the other.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public boolean isParallel() {
+		return this.parallel;
+	}
+
 	@Override
 	public String getPluginId() {
 		return JavaPlugin.class.getName();
@@ -63,141 +88,120 @@ public class JavaChallengeReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	@Override
 	public Set<Node.Op> read(Path base, Path[] input) {
-		Set<Node.Op> nodes = new HashSet<>();
-
-		long totalJavaParserTime = 0;
-
-		for (Path path : input) {
-			Path resolvedPath = base.resolve(path);
-
-			// create plugin artifact/node
-			Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
-			Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
-			nodes.add(pluginNode);
-
-			try {
-				// read raw file contents
-				String fileContent = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
-				String[] lines = fileContent.split("\\r?\\n");
-//				List<String> lines = new ArrayList<>();
-//				try (BufferedReader br = new BufferedReader(new InputStreamReader(Files.newInputStream(resolvedPath), StandardCharsets.UTF_8))) {
-//					String line;
-//					while ((line = br.readLine()) != null) {
-//						lines.add(line);
-//					}
-//				}
+		return this.read(base, input, new ArrayList<>());
+	}
 
-				long localStartTime = System.currentTimeMillis();
-				//CompilationUnit cu = JavaParser.parse(resolvedPath);
-				CompilationUnit cu = JavaParser.parse(fileContent);
-				totalJavaParserTime += (System.currentTimeMillis() - localStartTime);
-
-				// package name
-				String packageName = "";
-				if (cu.getPackageDeclaration().isPresent())
-					packageName = cu.getPackageDeclaration().get().getName().toString();
-
-				for (TypeDeclaration<?> typeDeclaration : cu.getTypes()) {
-					// create class artifact/node
-					String className = typeDeclaration.getName().toString();
-					Artifact.Op<ClassArtifactData> classArtifact = this.entityFactory.createArtifact(new ClassArtifactData(packageName + "." + className));
-					Node.Op classNode = this.entityFactory.createNode(classArtifact);
-					pluginNode.addChild(classNode);
-
-					// imports
-					Artifact.Op<AbstractArtifactData> importsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("IMPORTS"));
-					Node.Op importsGroupNode = this.entityFactory.createNode(importsGroupArtifact);
-					classNode.addChild(importsGroupNode);
-					for (ImportDeclaration importDeclaration : cu.getImports()) {
-						String importName = "import " + importDeclaration.getName().asString();
-						Artifact.Op<ImportArtifactData> importArtifact = this.entityFactory.createArtifact(new ImportArtifactData(importName));
-						Node.Op importNode = this.entityFactory.createNode(importArtifact);
-						importsGroupNode.addChild(importNode);
-					}
-					ArrayList<String> methods =  new ArrayList<>();
-					this.addClassChildren(typeDeclaration, classNode, lines, methods);
-				}
-			} catch (IOException e) {
-				e.printStackTrace();
-				throw new EccoException("Error parsing java file.", e);
-			}
+	/**
+	 * Reads the given files and adds the signatures of their methods and constructors (prefixed by their class) to the given list.
+	 * If the parallel mode is enabled the files are loaded and parsed concurrently. The plugin nodes and method signatures are nevertheless added in the order of the input.
+	 */
+	public Set<Node.Op> read(Path base, Path[] input, ArrayList<String> methods) {
+		List<FileNodes> fileNodes = this.readFiles(base, input, 0, input.length);
 
+		Set<Node.Op> nodes = new LinkedHashSet<>();
+		long totalJavaParserTime = 0;
+		for (FileNodes file : fileNodes) {
+			nodes.add(file.pluginNode);
+			methods.addAll(file.methods);
+			totalJavaParserTime += file.parseTime;
 		}
 
-		LOGGER.fine(JavaParser.class + ".parse(): " + totalJavaParserTime + "ms");
+		LOGGER.fine(JavaParser.class + ".parse(): " + (totalJavaParserTime / 1000000) + "ms");
 
 		return nodes;
 	}
 
+	/**
+	 * Number of files that {@link #read(Path, Path[], Consumer)} reads at once.
+	 */
+	private static final int BATCH_SIZE = 4 * Math.max(1, Runtime.getRuntime().availableProcessors());
 
+	/**
+	 * Reads the files in batches of a bounded size and passes the plugin node of every file of a batch to the sink before the next batch is read.
+	 * If the parallel mode is enabled the files of a batch are loaded and parsed concurrently.
+	 */
+	@Override
+	public void read(Path base, Path[] input, Consumer<? super Set<Node.Op>> sink) {
+		for (int from = 0; from < input.length; from += BATCH_SIZE) {
+			for (FileNodes file : this.readFiles(base, input, from, Math.min(input.length, from + BATCH_SIZE)))
+				sink.accept(Collections.singleton(file.pluginNode));
+		}
+	}
 
-	public Set<Node.Op> read(Path base, Path[] input, ArrayList<String> methods) {
-		Set<Node.Op> nodes = new HashSet<>();
-
-		long totalJavaParserTime = 0;
-
-		for (Path path : input) {
-			Path resolvedPath = base.resolve(path);
-
-			// create plugin artifact/node
-			Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
-			Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
-			nodes.add(pluginNode);
-
-			try {
-				// read raw file contents
-				String fileContent = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
-				String[] lines = fileContent.split("\\r?\\n");
-//				List<String> lines = new ArrayList<>();
-//				try (BufferedReader br = new BufferedReader(new InputStreamReader(Files.newInputStream(resolvedPath), StandardCharsets.UTF_8))) {
-//					String line;
-//					while ((line = br.readLine()) != null) {
-//						lines.add(line);
-//					}
-//				}
-
-				long localStartTime = System.currentTimeMillis();
-				//CompilationUnit cu = JavaParser.parse(resolvedPath);
-				CompilationUnit cu = JavaParser.parse(fileContent);
-				totalJavaParserTime += (System.currentTimeMillis() - localStartTime);
-
-				// package name
-				String packageName = "";
-				if (cu.getPackageDeclaration().isPresent())
-					packageName = cu.getPackageDeclaration().get().getName().toString();
-
-				for (TypeDeclaration<?> typeDeclaration : cu.getTypes()) {
-					// create class artifact/node
-					String className = typeDeclaration.getName().toString();
-					Artifact.Op<ClassArtifactData> classArtifact = this.entityFactory.createArtifact(new ClassArtifactData(packageName + "." + className));
-					Node.Op classNode = this.entityFactory.createNode(classArtifact);
-					pluginNode.addChild(classNode);
-
-					// imports
-					Artifact.Op<AbstractArtifactData> importsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("IMPORTS"));
-					Node.Op importsGroupNode = this.entityFactory.createNode(importsGroupArtifact);
-					classNode.addChild(importsGroupNode);
-					for (ImportDeclaration importDeclaration : cu.getImports()) {
-						String importName = "import " + importDeclaration.getName().asString();
-						Artifact.Op<ImportArtifactData> importArtifact = this.entityFactory.createArtifact(new ImportArtifactData(importName));
-						Node.Op importNode = this.entityFactory.createNode(importArtifact);
-						importsGroupNode.addChild(importNode);
-					}
+	private List<FileNodes> readFiles(Path base, Path[] input, int from, int to) {
+		IntStream indices = IntStream.range(from, to);
+		if (this.parallel && to - from > 1)
+			indices = indices.parallel();
+		return indices.mapToObj(i -> this.readFile(base, input[i])).collect(Collectors.toList());
+	}
 
-					this.addClassChildren(typeDeclaration, classNode, lines, methods);
+	private FileNodes readFile(Path base, Path path) {
+		Path resolvedPath = base.resolve(path);
+
+		// create plugin artifact/node
+		Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+		Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
+		FileNodes fileNodes = new FileNodes(pluginNode);
+
+		try {
+			// read raw file contents
+			String fileContent = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
+			String[] lines = fileContent.split("\\r?\\n");
+
+			long localStartTime = System.nanoTime();
+			ParseResult<CompilationUnit> parseResult = PARSERS.get().parse(ParseStart.COMPILATION_UNIT, Providers.provider(fileContent));
+			if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent())
+				throw new ParseProblemException(parseResult.getProblems());
+			CompilationUnit cu = parseResult.getResult().get();
+			fileNodes.parseTime = System.nanoTime() - localStartTime;
+			this.fireParsedEvent(path, fileNodes.parseTime);
+
+			// package name
+			String packageName = "";
+			if (cu.getPackageDeclaration().isPresent())
+				packageName = cu.getPackageDeclaration().get().getName().toString();
+
+			for (TypeDeclaration<?> typeDeclaration : cu.getTypes()) {
+				// create class artifact/node
+				String className = typeDeclaration.getName().toString();
+				Artifact.Op<ClassArtifactData> classArtifact = this.entityFactory.createArtifact(new ClassArtifactData(packageName + "." + className));
+				Node.Op classNode = this.entityFactory.createNode(classArtifact);
+				pluginNode.addChild(classNode);
+
+				// imports
+				Artifact.Op<AbstractArtifactData> importsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("IMPORTS"));
+				Node.Op importsGroupNode = this.entityFactory.createNode(importsGroupArtifact);
+				classNode.addChild(importsGroupNode);
+				for (ImportDeclaration importDeclaration : cu.getImports()) {
+					String importName = "import " + importDeclaration.getName().asString();
+					Artifact.Op<ImportArtifactData> importArtifact = this.entityFactory.createArtifact(new ImportArtifactData(importName));
+					Node.Op importNode = this.entityFactory.createNode(importArtifact);
+					importsGroupNode.addChild(importNode);
 				}
-			} catch (IOException e) {
-				e.printStackTrace();
-				throw new EccoException("Error parsing java file.", e);
-			}
 
+				this.addClassChildren(typeDeclaration, classNode, lines, fileNodes.methods);
+			}
+		} catch (IOException e) {
+			throw new EccoException("Error parsing java file " + path + ".", e);
 		}
 
-		LOGGER.fine(JavaParser.class + ".parse(): " + totalJavaParserTime + "ms");
+		return fileNodes;
+	}
 
-		return nodes;
+	/**
+	 * The plugin node and the method signatures of a single file.
+	 */
+	private static class FileNodes {
+		private final Node.Op pluginNode;
+		private final ArrayList<String> methods = new ArrayList<>();
+		private long parseTime = 0;
+
+		private FileNodes(Node.Op pluginNode) {
+			this.pluginNode = pluginNode;
+		}
 	}
 
+
 	private void addClassChildren(TypeDeclaration<?> typeDeclaration, Node.Op classNode, String[] lines, ArrayList<String> methods) {
 		// create methods artifact/node
 		Artifact.Op<AbstractArtifactData> methodsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("METHODS"));
@@ -324,7 +328,7 @@ public class JavaChallengeReader implements ArtifactReader<Path, Set<Node.Op>> {
 	}
 
 
-	private Collection<ReadListener> listeners = new ArrayList<>();
+	private Collection<ReadListener> listeners = new CopyOnWriteArrayList<>();
 
 	@Override
 	public void addListener(ReadListener listener) {
@@ -336,4 +340,10 @@ public class JavaChallengeReader implements ArtifactReader<Path, Set<Node.Op>> {
 		this.listeners.remove(listener);
 	}
 
+	private void fireParsedEvent(Path path, long durationNanos) {
+		for (ReadListener listener : this.listeners) {
+			listener.fileParsedEvent(path, this, durationNanos);
+		}
+	}
+
 }
@@ -0,0 +1,199 @@
+package at.jku.isse.ecco.adapter.cpp;
+
+import org.eclipse.cdt.core.dom.ast.IASTTranslationUnit;
+import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
+import org.eclipse.cdt.core.model.ILanguage;
+import org.eclipse.cdt.core.parser.*;
+import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
+import org.eclipse.cdt.internal.core.parser.SavedFilesProvider;
+import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
+import org.eclipse.core.runtime.CoreException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Parses C/C++ files with a single CDT parse per file.
+ * <p>
+ * Conditional directives (<code>#if</code>, <code>#ifdef</code>, <code>#ifndef</code>, <code>#elif</code>, <code>#else</code>, <code>#endif</code>) are masked by a lightweight lexer pass before parsing, so that the code of all branches is parsed.
+ * The contents of included headers are cached, so every header is read only once per parser.
+ * A parser can be used by several threads at the same time.
+ */
+public class CppParser {
+
+    private static final String[] CONDITIONAL_DIRECTIVES = {"ifdef", "ifndef", "if", "elif", "else", "endif"};
+
+    private final IScannerInfo scannerInfo = new ScannerInfo(new HashMap<>(), new String[0]);
+    private final IParserLogService log = new DefaultLogService();
+    private final Map<String, Optional<char[]>> headerCache = new ConcurrentHashMap<>();
+    private final IncludeFileContentProvider includeProvider = new SavedFilesProvider() {
+        @Override
+        public InternalFileContent getContentForInclusion(String path, IMacroDictionary macroDictionary) {
+            return headerCache.computeIfAbsent(path, CppParser::readHeader)
+                    .map(content -> (InternalFileContent) FileContent.create(path, content))
+                    .orElse(null);
+        }
+    };
+
+
+    /**
+     * The result of parsing a single file.
+     */
+    public static class ParsedFile {
+        private final String[] lines;
+        private final IASTTranslationUnit translationUnit;
+
+        private ParsedFile(String[] lines, IASTTranslationUnit translationUnit) {
+            this.lines = lines;
+            this.translationUnit = translationUnit;
+        }
+
+        /**
+         * @return The lines of the original (unmasked) file content.
+         */
+        public String[] getLines() {
+            return this.lines;
+        }
+
+        public IASTTranslationUnit getTranslationUnit() {
+            return this.translationUnit;
+        }
+    }
+
+
+    /**
+     * Reads the given file once and parses its masked content.
+     *
+     * @param path The file to parse.
+     * @return The lines of the file and its translation unit.
+     * @throws IOException   If the file could not be read.
+     * @throws CoreException If the file could not be parsed.
+     */
+    public ParsedFile parse(Path path) throws IOException, CoreException {
+        checkNotNull(path);
+
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        String[] lines = content.split("\\r?\\n");
+
+        FileContent fileContent = FileContent.create(path.toFile().getCanonicalPath(), maskConditionalDirectives(content).toCharArray());
+        int opts = ILanguage.OPTION_PARSE_INACTIVE_CODE | ILanguage.OPTION_IS_SOURCE_UNIT;
+        IASTTranslationUnit translationUnit = GPPLanguage.getDefault().getASTTranslationUnit(fileContent, this.scannerInfo, this.includeProvider, null, opts, this.log);
+
+        return new ParsedFile(lines, translationUnit);
+    }
+
+    private static Optional<char[]> readHeader(String path) {
+        try {
+            Path headerPath = Paths.get(path);
+            if (!Files.isRegularFile(headerPath))
+                return Optional.empty();
+            return Optional.of(new String(Files.readAllBytes(headerPath), StandardCharsets.UTF_8).toCharArray());
+        } catch (IOException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+
+    /**
+     * Comments out conditional directives by replacing the <code>#</code> and the character following it with <code>//</code>.
+     * The replacement does not change the length of the content, so offsets and line numbers of the masked content are the same as in the original content.
+     * Directives inside block comments are left untouched, and so are directives that merely appear somewhere inside a line.
+     *
+     * @param content The file content.
+     * @return The masked file content.
+     */
+    public static String maskConditionalDirectives(String content) {
+        char[] chars = content.toCharArray();
+        int length = chars.length;
+        boolean inBlockComment = false;
+        boolean lineStart = true;
+
+        for (int i = 0; i < length; i++) {
+            char c = chars[i];
+            if (inBlockComment) {
+                if (c == '*' && i + 1 < length && chars[i + 1] == '/') {
+                    inBlockComment = false;
+                    i++;
+                }
+                if (c == '\n')
+                    lineStart = true;
+            } else if (c == '\n') {
+                lineStart = true;
+            } else if (c == ' ' || c == '\t' || c == '\r' || c == '\f') {
+                // whitespace does not end the start of a line
+            } else if (c == '/' && i + 1 < length && chars[i + 1] == '*') {
+                inBlockComment = true;
+                i++;
+            } else if (c == '/' && i + 1 < length && chars[i + 1] == '/') {
+                i = skipLine(chars, i);
+                lineStart = true;
+            } else if (c == '#' && lineStart) {
+                if (isConditionalDirective(chars, i + 1)) {
+                    chars[i] = '/';
+                    chars[i + 1] = '/';
+                }
+                i = skipLine(chars, i);
+                lineStart = true;
+            } else {
+                lineStart = false;
+                if (c == '"' || c == '\'')
+                    i = skipLiteral(chars, i);
+            }
+        }
+
+        return new String(chars);
+    }
+
+    private static boolean isConditionalDirective(char[] chars, int start) {
+        int i = start;
+        while (i < chars.length && (chars[i] == ' ' || chars[i] == '\t'))
+            i++;
+        for (String directive : CONDITIONAL_DIRECTIVES) {
+            int end = i + directive.length();
+            if (end <= chars.length && new String(chars, i, directive.length()).equals(directive)
+                    && (end == chars.length || !Character.isJavaIdentifierPart(chars[end])))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the line break that ends the (logical) line containing the given index, following line continuations.
+     */
+    private static int skipLine(char[] chars, int i) {
+        while (i < chars.length && chars[i] != '\n') {
+            if (chars[i] == '\\' && i + 1 < chars.length && chars[i + 1] == '\n')
+                i++;
+            else if (chars[i] == '\\' && i + 2 < chars.length && chars[i + 1] == '\r' && chars[i + 2] == '\n')
+                i += 2;
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index of the closing quote of the string or character literal starting at the given index (or of the end of the line if the literal is not closed).
+     */
+    private static int skipLiteral(char[] chars, int start) {
+        char quote = chars[start];
+        int i = start + 1;
+        while (i < chars.length && chars[i] != quote && chars[i] != '\n') {
+            if (chars[i] == '\\')
+                i++;
+            i++;
+        }
+        if (i < chars.length && chars[i] == '\n')
+            return i - 1;
+        return i;
+    }
+
+}
@@ -12,21 +12,16 @@ import at.jku.isse.ecco.tree.Node;
 import com.google.inject.Inject;
 import org.eclipse.cdt.core.dom.ast.*;
 import org.eclipse.cdt.core.dom.ast.cpp.*;
-import org.eclipse.cdt.core.dom.ast.gnu.cpp.GPPLanguage;
-import org.eclipse.cdt.core.model.ILanguage;
-import org.eclipse.cdt.core.parser.*;
 import org.eclipse.cdt.internal.core.dom.parser.cpp.*;
-import org.eclipse.cdt.internal.core.parser.IMacroDictionary;
-import org.eclipse.cdt.internal.core.parser.SavedFilesProvider;
-import org.eclipse.cdt.internal.core.parser.scanner.InternalFileContent;
-import org.eclipse.core.runtime.CoreException;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -68,169 +63,181 @@ public class CppReader implements ArtifactReader<Path, Set<Node.Op>> {
     @Override
     public Set<Node.Op> read(Path base, Path[] input) {
         Set<Node.Op> nodes = new HashSet<>();
-        final List<String> headerFiles = new ArrayList<String>();
-        for (Path path : input) {
-            Path resolvedPath = base.resolve(path);
-            File file = resolvedPath.toFile();
-            //System.out.println(file.getName());
-            String fileCont = null;
-            try {
-                fileCont = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            String[] lines = fileCont.split("\\r?\\n");
-
-            Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
-            Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
-            nodes.add(pluginNode);
-
-            try {
-                FileContent fileContent = FileContent.createForExternalFileLocation(file.getAbsolutePath());
-
-                Map<String, String> definedSymbols = new HashMap<>();
-                String[] includePaths = headerFiles.toArray(new String[headerFiles.size()]);
-                IScannerInfo info = new ScannerInfo(definedSymbols, includePaths);
-                IParserLogService log = new DefaultLogService();
-
-                IncludeFileContentProvider emptyIncludes = new SavedFilesProvider() {
-                    @Override
-                    public InternalFileContent getContentForInclusion(String path, IMacroDictionary macroDictionary) {
-                        if (!getInclusionExists(path)) {
-//						if(!headerFiles.contains(path)){
-                            return null;
-                        }
-                        return (InternalFileContent) FileContent.createForExternalFileLocation(path);
-                    }
-                };
-
-                int opts = ILanguage.OPTION_PARSE_INACTIVE_CODE | ILanguage.OPTION_IS_SOURCE_UNIT;
+        this.readFiles(base, input, nodes::add);
+        return nodes;
+    }
 
-                IASTTranslationUnit translationUnit = GPPLanguage.getDefault().getASTTranslationUnit(fileContent, info, emptyIncludes, null, opts, log);
-                IASTPreprocessorStatement[] ppAllStatements = translationUnit.getAllPreprocessorStatements();
-                IASTPreprocessorStatement[] ppMacroStatements = translationUnit.getMacroDefinitions();
-                IASTPreprocessorStatement[] ppIncludeStatements = translationUnit.getIncludeDirectives();
-                Map<String, Integer> errorStatements = new HashMap<>();
-                ArrayList<String> macrosInsideFunctions = new ArrayList<>();
+    /**
+     * Passes the plugin node of every file to the sink as soon as it is created, while the following files are still parsed.
+     */
+    @Override
+    public void read(Path base, Path[] input, Consumer<? super Set<Node.Op>> sink) {
+        this.readFiles(base, input, pluginNode -> sink.accept(Collections.singleton(pluginNode)));
+    }
 
+    /**
+     * Number of files that are parsed in parallel.
+     */
+    private static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    private ExecutorService executor = null;
+
+    /**
+     * The parser threads are daemon threads that are kept for all following reads of this reader.
+     */
+    private synchronized ExecutorService getExecutor() {
+        if (this.executor == null) {
+            this.executor = Executors.newFixedThreadPool(PARALLELISM, r -> {
+                Thread thread = new Thread(r, "cpp-reader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return this.executor;
+    }
 
-                for (IASTPreprocessorStatement errorStatement : ppAllStatements) {
-                    if (errorStatement instanceof IASTPreprocessorErrorStatement) {
-                        errorStatements.put(errorStatement.getRawSignature(), errorStatement.getFileLocation().getStartingLineNumber() - 1);
-                    }
+    private void readFiles(Path base, Path[] input, Consumer<Node.Op> pluginNodeSink) {
+        CppParser parser = new CppParser();
+        ExecutorService executor = this.getExecutor();
+
+        // files are parsed in parallel, but nodes are created in input order on the calling thread
+        // at most a bounded number of parsed translation units is kept in memory ahead of node creation
+        Deque<Future<CppParser.ParsedFile>> pending = new ArrayDeque<>();
+        try {
+            int next = 0;
+            for (Path path : input) {
+                while (next < input.length && pending.size() < 2 * PARALLELISM) {
+                    Path resolvedPath = base.resolve(input[next++]);
+                    pending.add(executor.submit(() -> parser.parse(resolvedPath)));
                 }
 
-
-                //comment out preprocessor directives
+                CppParser.ParsedFile parsedFile;
                 try {
-                    String content = getFileContentWithoutIfdefs(file, ppAllStatements);
+                    parsedFile = pending.remove().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EccoException("Interrupted while parsing cpp files.", e);
+                } catch (ExecutionException e) {
+                    throw new EccoException("Error parsing cpp file " + path + ".", e);
+                }
 
-                    fileContent = FileContent.create(file.getCanonicalPath(), content.toCharArray());
+                Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+                Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
 
-                    //parse again
-                    translationUnit = GPPLanguage.getDefault().getASTTranslationUnit(fileContent, info, emptyIncludes, null, opts, log);
+                this.createNodes(pluginNode, parsedFile);
+                pluginNodeSink.accept(pluginNode);
+            }
+        } finally {
+            // the executor is kept for following reads, files that are still pending (e.g. after an error) are cancelled
+            for (Future<CppParser.ParsedFile> future : pending)
+                future.cancel(true);
+        }
+    }
 
-                } catch (IOException e) {
-                    e.printStackTrace();
-                }
+    private void createNodes(Node.Op pluginNode, CppParser.ParsedFile parsedFile) {
+        IASTTranslationUnit translationUnit = parsedFile.getTranslationUnit();
+        String[] lines = parsedFile.getLines();
+        IASTPreprocessorStatement[] ppAllStatements = translationUnit.getAllPreprocessorStatements();
+        IASTPreprocessorStatement[] ppMacroStatements = translationUnit.getMacroDefinitions();
+        IASTPreprocessorStatement[] ppIncludeStatements = translationUnit.getIncludeDirectives();
+        Map<String, Integer> errorStatements = new HashMap<>();
+        ArrayList<String> macrosInsideFunctions = new ArrayList<>();
 
-                // create includes artifact/node
-                Artifact.Op<AbstractArtifactData> includesGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("INCLUDES"));
-                Node.Op includesGroupNode = this.entityFactory.createOrderedNode(includesGroupArtifact);
-                pluginNode.addChild(includesGroupNode);
-                // create defines artifact/node
-                Artifact.Op<AbstractArtifactData> definesGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("DEFINES"));
-                Node.Op definesGroupNode = this.entityFactory.createOrderedNode(definesGroupArtifact);
-                pluginNode.addChild(definesGroupNode);
-                // create fields artifact/node
-                Artifact.Op<AbstractArtifactData> fieldsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("FIELDS"));
-                Node.Op fieldsGroupNode = this.entityFactory.createOrderedNode(fieldsGroupArtifact);
-                pluginNode.addChild(fieldsGroupNode);
-                // create functions artifact/node
-                Artifact.Op<AbstractArtifactData> functionsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("FUNCTIONS"));
-                Node.Op functionsGroupNode = this.entityFactory.createOrderedNode(functionsGroupArtifact);
-                pluginNode.addChild(functionsGroupNode);
 
+        for (IASTPreprocessorStatement errorStatement : ppAllStatements) {
+            if (errorStatement instanceof IASTPreprocessorErrorStatement) {
+                errorStatements.put(errorStatement.getRawSignature(), errorStatement.getFileLocation().getStartingLineNumber() - 1);
+            }
+        }
 
-                Map<String, Integer> macroPosition = new HashMap<>();
-                Map<String, Integer> definesPosition = new HashMap<>();
-                ArrayList<String> macros = new ArrayList<>();
-                ArrayList<Integer> lineNumbers = new ArrayList<>();
-                ArrayList<Integer> lineNumbersSwitchCase = new ArrayList<>();
-                if (ppMacroStatements != null) {
-                    for (IASTPreprocessorStatement macro : ppMacroStatements) {
-                        if (macro.getContainingFilename().equals(translationUnit.getContainingFilename())) {
-                            macroPosition.put(macro.getRawSignature(), macro.getFileLocation().getStartingLineNumber());
-                            macros.add(macro.getRawSignature());
-                        }
-                    }
+        // create includes artifact/node
+        Artifact.Op<AbstractArtifactData> includesGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("INCLUDES"));
+        Node.Op includesGroupNode = this.entityFactory.createOrderedNode(includesGroupArtifact);
+        pluginNode.addChild(includesGroupNode);
+        // create defines artifact/node
+        Artifact.Op<AbstractArtifactData> definesGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("DEFINES"));
+        Node.Op definesGroupNode = this.entityFactory.createOrderedNode(definesGroupArtifact);
+        pluginNode.addChild(definesGroupNode);
+        // create fields artifact/node
+        Artifact.Op<AbstractArtifactData> fieldsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("FIELDS"));
+        Node.Op fieldsGroupNode = this.entityFactory.createOrderedNode(fieldsGroupArtifact);
+        pluginNode.addChild(fieldsGroupNode);
+        // create functions artifact/node
+        Artifact.Op<AbstractArtifactData> functionsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("FUNCTIONS"));
+        Node.Op functionsGroupNode = this.entityFactory.createOrderedNode(functionsGroupArtifact);
+        pluginNode.addChild(functionsGroupNode);
+
+
+        Map<String, Integer> macroPosition = new HashMap<>();
+        Map<String, Integer> definesPosition = new HashMap<>();
+        ArrayList<String> macros = new ArrayList<>();
+        ArrayList<Integer> lineNumbers = new ArrayList<>();
+        ArrayList<Integer> lineNumbersSwitchCase = new ArrayList<>();
+        if (ppMacroStatements != null) {
+            for (IASTPreprocessorStatement macro : ppMacroStatements) {
+                if (macro.getContainingFilename().equals(translationUnit.getContainingFilename())) {
+                    macroPosition.put(macro.getRawSignature(), macro.getFileLocation().getStartingLineNumber());
+                    macros.add(macro.getRawSignature());
                 }
+            }
+        }
 
 
-                traverseAST(macrosInsideFunctions, translationUnit.getOriginalNode(), pluginNode, functionsGroupNode, fieldsGroupNode, true, "", lines, lineNumbers, lineNumbersSwitchCase, errorStatements);
+        traverseAST(macrosInsideFunctions, translationUnit.getOriginalNode(), pluginNode, functionsGroupNode, fieldsGroupNode, true, "", lines, lineNumbers, lineNumbersSwitchCase, errorStatements);
 
-                for (Map.Entry<String, Integer> macro : macroPosition.entrySet()) {
+        for (Map.Entry<String, Integer> macro : macroPosition.entrySet()) {
+            for (int i = 0; i < lineNumbers.size() - 1; i += 2) {
+                if (macro.getValue() >= lineNumbers.get(i) && macro.getValue() <= lineNumbers.get(i + 1)) {
+                    macros.remove(macro.getKey());
+                    break;
+                }
+            }
+            if (macros.contains(macro.getKey()))
+                definesPosition.put(macro.getKey(), macro.getValue());
+        }
+        for (IASTPreprocessorStatement preprocessorstatement : ppAllStatements) {
+            if (preprocessorstatement instanceof IASTPreprocessorUndefStatement) {
+                if (preprocessorstatement.getContainingFilename().equals(translationUnit.getContainingFilename())) {
+                    Boolean add = true;
                     for (int i = 0; i < lineNumbers.size() - 1; i += 2) {
-                        if (macro.getValue() >= lineNumbers.get(i) && macro.getValue() <= lineNumbers.get(i + 1)) {
-                            macros.remove(macro.getKey());
+                        if (preprocessorstatement.getFileLocation().getStartingLineNumber() >= lineNumbers.get(i) && preprocessorstatement.getFileLocation().getStartingLineNumber() <= lineNumbers.get(i + 1)) {
+                            add = false;
                             break;
                         }
                     }
-                    if (macros.contains(macro.getKey()))
-                        definesPosition.put(macro.getKey(), macro.getValue());
-                }
-                for (IASTPreprocessorStatement preprocessorstatement : ppAllStatements) {
-                    if (preprocessorstatement instanceof IASTPreprocessorUndefStatement) {
-                        if (preprocessorstatement.getContainingFilename().equals(translationUnit.getContainingFilename())) {
-                            Boolean add = true;
-                            for (int i = 0; i < lineNumbers.size() - 1; i += 2) {
-                                if (preprocessorstatement.getFileLocation().getStartingLineNumber() >= lineNumbers.get(i) && preprocessorstatement.getFileLocation().getStartingLineNumber() <= lineNumbers.get(i + 1)) {
-                                    add = false;
-                                    break;
-                                }
-                            }
-                            if (add)
-                                definesPosition.put(preprocessorstatement.getRawSignature(), preprocessorstatement.getFileLocation().getStartingLineNumber());
-                        }
-                    }
+                    if (add)
+                        definesPosition.put(preprocessorstatement.getRawSignature(), preprocessorstatement.getFileLocation().getStartingLineNumber());
                 }
-                List<Map.Entry<String, Integer>> list = new ArrayList<>(definesPosition.entrySet());
-                list.sort(Map.Entry.comparingByValue());
+            }
+        }
+        List<Map.Entry<String, Integer>> list = new ArrayList<>(definesPosition.entrySet());
+        list.sort(Map.Entry.comparingByValue());
 
-                for (Map.Entry<String, Integer> entry : list) {
-                    Artifact.Op<LineArtifactData> lineArtifact = this.entityFactory.createArtifact(new LineArtifactData(entry.getKey()));
-                    Node.Op lineNode = this.entityFactory.createOrderedNode(lineArtifact);
-                    definesGroupNode.addChild(lineNode);
-                }
+        for (Map.Entry<String, Integer> entry : list) {
+            Artifact.Op<LineArtifactData> lineArtifact = this.entityFactory.createArtifact(new LineArtifactData(entry.getKey()));
+            Node.Op lineNode = this.entityFactory.createOrderedNode(lineArtifact);
+            definesGroupNode.addChild(lineNode);
+        }
 
-                if (ppIncludeStatements != null) {
-                    for (IASTPreprocessorStatement preprocessorStatement : ppIncludeStatements) {
-                        if (preprocessorStatement.getContainingFilename().equals(translationUnit.getContainingFilename()) && preprocessorStatement instanceof IASTPreprocessorIncludeStatement) {
-                            Boolean add = true;
-                            for (int i = 0; i < lineNumbers.size() - 1; i += 2) {
-                                if (preprocessorStatement.getFileLocation().getStartingLineNumber() >= lineNumbers.get(i) && preprocessorStatement.getFileLocation().getStartingLineNumber() <= lineNumbers.get(i + 1)) {
-                                    add = false;
-                                    break;
-                                }
-                            }
-                            if (add) {
-                                String includeName = preprocessorStatement.getRawSignature();
-                                Artifact.Op<IncludeArtifactData> includesArtifact = this.entityFactory.createArtifact(new IncludeArtifactData(includeName));
-                                Node.Op includeNode = this.entityFactory.createOrderedNode(includesArtifact);
-                                includesGroupNode.addChild(includeNode);
-                            }
+        if (ppIncludeStatements != null) {
+            for (IASTPreprocessorStatement preprocessorStatement : ppIncludeStatements) {
+                if (preprocessorStatement.getContainingFilename().equals(translationUnit.getContainingFilename()) && preprocessorStatement instanceof IASTPreprocessorIncludeStatement) {
+                    Boolean add = true;
+                    for (int i = 0; i < lineNumbers.size() - 1; i += 2) {
+                        if (preprocessorStatement.getFileLocation().getStartingLineNumber() >= lineNumbers.get(i) && preprocessorStatement.getFileLocation().getStartingLineNumber() <= lineNumbers.get(i + 1)) {
+                            add = false;
+                            break;
                         }
                     }
+                    if (add) {
+                        String includeName = preprocessorStatement.getRawSignature();
+                        Artifact.Op<IncludeArtifactData> includesArtifact = this.entityFactory.createArtifact(new IncludeArtifactData(includeName));
+                        Node.Op includeNode = this.entityFactory.createOrderedNode(includesArtifact);
+                        includesGroupNode.addChild(includeNode);
+                    }
                 }
-
-            } catch (CoreException e) {
-                e.printStackTrace();
-                throw new EccoException("Error parsing java file.", e);
             }
-
         }
-
-        return nodes;
     }
 
 
@@ -1017,38 +1024,6 @@ public class CppReader implements ArtifactReader<Path, Set<Node.Op>> {
 
     }
 
-    private static String getFileContentWithoutIfdefs(File f, IASTPreprocessorStatement[] ppStatements) throws
-            IOException {
-        StringBuffer content = new StringBuffer();
-        BufferedReader reader = new BufferedReader(new FileReader(f));
-
-        String line = reader.readLine();
-        while (line != null) {
-
-            for (IASTPreprocessorStatement ppStatement : ppStatements) {
-                if (ppStatement instanceof IASTPreprocessorIfdefStatement ||
-                        ppStatement instanceof IASTPreprocessorIfndefStatement ||
-                        ppStatement instanceof IASTPreprocessorIfStatement ||
-                        ppStatement instanceof IASTPreprocessorElseStatement ||
-                        ppStatement instanceof IASTPreprocessorElifStatement ||
-                        ppStatement instanceof IASTPreprocessorEndifStatement) {
-
-                    if (line.contains(ppStatement.getRawSignature())) {
-                        line = line.replace(ppStatement.getRawSignature(), "//" + ppStatement.getRawSignature().substring(2));
-                        break;
-                    }
-                }
-            }
-            content.append(line + "\n");
-
-            line = reader.readLine();
-        }
-
-        reader.close();
-
-        return content.toString();
-    }
-
     private Collection<ReadListener> listeners = new ArrayList<>();
 
     @Override
@@ -1,9 +1,10 @@
 package at.jku.isse.ecco.adapter.file;
 
 import at.jku.isse.ecco.artifact.ArtifactData;
+import at.jku.isse.ecco.storage.BlobReference;
+import at.jku.isse.ecco.storage.BlobStore;
 
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.math.BigInteger;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -13,7 +14,15 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.Objects;
 
-public class FileArtifactData implements ArtifactData {
+/**
+ * Artifact data of a whole file, identified by the SHA-1 checksum of its content.
+ * The content is either held inline (artifacts created without a {@link BlobStore} and artifacts of older repositories) or stored once in the blob store of the repository, keyed by the hex checksum, in which case only the checksum is kept in memory and in the repository database.
+ * The content of a file that was read is only copied into the blob store when the artifact is committed (see {@link #storeBlob(BlobStore)}); until then it is read from the file.
+ */
+public class FileArtifactData implements ArtifactData, BlobReference {
+
+	// computed from the class before the content could be stored in a blob store, so that existing repositories can still be read
+	private static final long serialVersionUID = -4646503848120457212L;
 
 	private static byte[] getSHADigest(Path path) throws IOException, NoSuchAlgorithmException {
 		MessageDigest complete = MessageDigest.getInstance("SHA1");
@@ -55,19 +64,35 @@ public class FileArtifactData implements ArtifactData {
 	private byte[] checksum;
 	private String hexChecksum;
 	private byte[] data;
+	private long size;
 
 	private transient Path path = null;
 	private String pathString = null;
 
+	// the file the content is read from until it is stored in the blob store
+	private transient Path source = null;
+
 	protected FileArtifactData() throws IOException {
 		this.path = null;
 		this.pathString = null;
 		this.checksum = null;
 		this.hexChecksum = null;
 		this.data = null;
+		this.size = 0;
 	}
 
+	/**
+	 * Creates file artifact data that holds the content of the file inline.
+	 */
 	public FileArtifactData(Path base, Path path) throws IOException {
+		this(base, path, null);
+	}
+
+	/**
+	 * Creates file artifact data whose content is stored in the given blob store when it is committed.
+	 * If no blob store is given (or no checksum could be computed) the content is held inline.
+	 */
+	public FileArtifactData(Path base, Path path, BlobStore blobStore) throws IOException {
 		//this.path = file.toPath().relativize(new File(".").toPath());
 		//this.path = base.relativize(path);
 		//this.path = path;
@@ -81,7 +106,14 @@ public class FileArtifactData implements ArtifactData {
 			this.checksum = null;
 			this.hexChecksum = null;
 		}
-		this.data = FileArtifactData.getData(resolvedPath);
+		if (blobStore != null && this.hexChecksum != null) {
+			this.source = resolvedPath;
+			this.data = null;
+			this.size = Files.size(resolvedPath);
+		} else {
+			this.data = FileArtifactData.getData(resolvedPath);
+			this.size = this.data.length;
+		}
 	}
 
 	public byte[] getChecksum() {
@@ -121,10 +153,91 @@ public class FileArtifactData implements ArtifactData {
 		return this.hexChecksum;
 	}
 
+	/**
+	 * @return The content of the file if it is held inline, null if it is stored in a blob store.
+	 * @see #openStream(BlobStore)
+	 */
 	public byte[] getData() {
 		return data;
 	}
 
+	public boolean isInline() {
+		return this.data != null;
+	}
+
+	/**
+	 * @return The size of the file content in bytes.
+	 */
+	public long getSize() {
+		if (this.data != null)
+			return this.data.length;
+		return this.size;
+	}
+
+	@Override
+	public String getBlobKey() {
+		return this.data == null ? this.hexChecksum : null;
+	}
+
+	/**
+	 * Copies the content of the file that was read into the given blob store, unless it is held inline or already stored.
+	 */
+	@Override
+	public void storeBlob(BlobStore blobStore) throws IOException {
+		if (this.source == null)
+			return;
+		blobStore.put(this.hexChecksum, this.source);
+		this.source = null;
+	}
+
+	/**
+	 * Opens the content of the file, either from the inline data, from the file that was read (if it is not committed yet) or from the given blob store.
+	 *
+	 * @param blobStore The blob store of the repository the artifact belongs to.
+	 * @return Stream of the file content that must be closed by the caller.
+	 * @throws IOException If the content is not held inline and is not contained in the given blob store.
+	 */
+	public InputStream openStream(BlobStore blobStore) throws IOException {
+		if (this.data != null)
+			return new ByteArrayInputStream(this.data);
+		if (this.source != null)
+			return Files.newInputStream(this.source);
+		if (blobStore == null)
+			throw new IOException("Content of file " + this.pathString + " is not held inline and no blob store is available.");
+		return blobStore.open(this.hexChecksum);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		// inline blobs when the artifact is transferred to another repository
+		BlobStore transferStore = BlobStore.getTransferStore();
+		byte[] outData = this.data;
+		if (outData == null && this.source != null)
+			outData = Files.readAllBytes(this.source);
+		else if (outData == null && transferStore != null && this.hexChecksum != null)
+			outData = transferStore.read(this.hexChecksum);
+
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("checksum", this.checksum);
+		fields.put("hexChecksum", this.hexChecksum);
+		fields.put("data", outData);
+		fields.put("size", this.getSize());
+		fields.put("pathString", this.pathString);
+		out.writeFields();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if (this.data != null) {
+			this.size = this.data.length;
+			// move transferred content into the blob store of the receiving repository
+			BlobStore transferStore = BlobStore.getTransferStore();
+			if (transferStore != null && this.hexChecksum != null) {
+				transferStore.put(this.hexChecksum, this.data);
+				this.data = null;
+			}
+		}
+	}
+
 	public String getIdentifier() {
 		return this.hexChecksum;
 	}
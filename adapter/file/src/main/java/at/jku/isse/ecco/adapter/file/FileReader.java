@@ -5,6 +5,7 @@ import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.dao.EntityFactory;
 import at.jku.isse.ecco.service.listener.ReadListener;
+import at.jku.isse.ecco.storage.BlobStore;
 import at.jku.isse.ecco.tree.Node;
 import com.google.inject.Inject;
 
@@ -20,12 +21,21 @@ i would say we include the folder structure in our artifact tree! that way we ca
 public class FileReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	private final EntityFactory entityFactory;
+	private final BlobStore blobStore;
 
-	@Inject
 	public FileReader(EntityFactory entityFactory) {
+		this(entityFactory, null);
+	}
+
+	/**
+	 * @param blobStore The blob store the file contents are stored in, or null to keep them inline in the artifacts.
+	 */
+	@Inject
+	public FileReader(EntityFactory entityFactory, BlobStore blobStore) {
 		com.google.common.base.Preconditions.checkNotNull(entityFactory);
 
 		this.entityFactory = entityFactory;
+		this.blobStore = blobStore;
 	}
 
 	@Override
@@ -59,7 +69,7 @@ public class FileReader implements ArtifactReader<Path, Set<Node.Op>> {
 				Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
 				nodes.add(pluginNode);
 
-				FileArtifactData fileArtifactData = new FileArtifactData(base, path);
+				FileArtifactData fileArtifactData = new FileArtifactData(base, path, this.blobStore);
 				Node.Op fileNode = this.entityFactory.createNode(this.entityFactory.createArtifact(fileArtifactData));
 				pluginNode.addChild(fileNode);
 			} catch (IOException e) {
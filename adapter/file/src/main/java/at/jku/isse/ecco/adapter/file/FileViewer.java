@@ -35,7 +35,7 @@ public class FileViewer extends BorderPane implements ArtifactViewer {
 		fileBox.getChildren().add(new Label("Identifier: " + fad.getIdentifier()));
 		fileBox.getChildren().add(new Label("Checksum: " + fad.getHexChecksum()));
 		fileBox.getChildren().add(new Label("Path: " + fad.getPath().toString()));
-		fileBox.getChildren().add(new Label("Size: " + String.valueOf(fad.getData().length) + " bytes"));
+		fileBox.getChildren().add(new Label("Size: " + String.valueOf(fad.getSize()) + " bytes"));
 
 		return fileBox;
 	}
@@ -3,12 +3,16 @@ package at.jku.isse.ecco.adapter.file;
 import at.jku.isse.ecco.service.listener.WriteListener;
 import at.jku.isse.ecco.adapter.ArtifactWriter;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
+import at.jku.isse.ecco.storage.BlobStore;
 import at.jku.isse.ecco.tree.Node;
+import com.google.inject.Inject;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -16,8 +20,18 @@ import java.util.Set;
 
 public class FileWriter implements ArtifactWriter<Set<Node>, Path> {
 
+	private final BlobStore blobStore;
+
 	public FileWriter() {
+		this(null);
+	}
 
+	/**
+	 * @param blobStore The blob store file contents that are not held inline are streamed from.
+	 */
+	@Inject
+	public FileWriter(BlobStore blobStore) {
+		this.blobStore = blobStore;
 	}
 
 	@Override
@@ -49,9 +63,9 @@ public class FileWriter implements ArtifactWriter<Set<Node>, Path> {
 			} else {
 				for (Node childNode : node.getChildren()) {
 					FileArtifactData fileArtifact = (FileArtifactData) childNode.getArtifact().getData(); // TODO: node type must have Type parameter for artifact type it contains?
-					try {
+					try (InputStream in = fileArtifact.openStream(this.blobStore)) {
 						// Path path = Files.write(artifact.getPath(), artifact.getData());
-						Files.write(outputPath, fileArtifact.getData());
+						Files.copy(in, outputPath, StandardCopyOption.REPLACE_EXISTING);
 					} catch (IOException e) {
 						e.printStackTrace();
 					}
@@ -0,0 +1,157 @@
+package at.jku.isse.ecco.adapter.lilypond.test;
+
+import at.jku.isse.ecco.adapter.lilypond.LilypondNode;
+import at.jku.isse.ecco.adapter.lilypond.LilypondParser;
+import at.jku.isse.ecco.adapter.lilypond.LilypondParserPool;
+import at.jku.isse.ecco.adapter.lilypond.parce.ParceToken;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+public class LilypondParserPoolTest {
+
+    /**
+     * Parser that creates a token per word and, like the gateway parsers, reuses its nodes for every parse.
+     */
+    private static class ReusingParser implements LilypondParser<ParceToken> {
+        private final List<LilypondNode<ParceToken>> nodes = new ArrayList<>();
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public LilypondNode<ParceToken> parse(Path path) {
+            return parse(path, null);
+        }
+
+        @Override
+        public LilypondNode<ParceToken> parse(Path path, HashMap<String, Integer> tokenMetric) {
+            String[] words;
+            try {
+                words = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim().split("\\s+");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            // overwrite the nodes of the previous parse
+            while (nodes.size() < words.length) {
+                LilypondNode<ParceToken> n = new LilypondNode<>("Token", new ParceToken(nodes.size(), "", "Token"));
+                n.setLevel(0);
+                nodes.add(n);
+            }
+            for (int i = 0; i < words.length; i++) {
+                nodes.get(i).getData().setText(words[i]);
+                nodes.get(i).setNext(i + 1 < words.length ? nodes.get(i + 1) : null);
+                nodes.get(i).setPrev(i > 0 ? nodes.get(i - 1) : null);
+            }
+            return nodes.get(0);
+        }
+
+        @Override
+        public void shutdown() {
+            shutdowns++;
+        }
+    }
+
+    private static int shutdowns = 0;
+
+    private static List<String> texts(LilypondNode<ParceToken> head) {
+        List<String> texts = new ArrayList<>();
+        for (LilypondNode<ParceToken> n = head; n != null; n = n.getNext()) {
+            texts.add(n.getData().getText());
+        }
+        return texts;
+    }
+
+    @Test(groups = {"integration", "lilypond"})
+    public void ParserPool_SingleWorker() throws IOException {
+        Path dir = Files.createTempDirectory("lilypond");
+        Path first = Files.write(dir.resolve("first.ly"), "c d e".getBytes(StandardCharsets.UTF_8));
+        Path second = Files.write(dir.resolve("second.ly"), "f g".getBytes(StandardCharsets.UTF_8));
+
+        LilypondParserPool pool = new LilypondParserPool(ReusingParser::new, 1);
+        try {
+            List<LilypondNode<ParceToken>> heads = pool.parseAll(Arrays.asList(first, second, first), null);
+
+            Assert.assertEquals(texts(heads.get(0)), Arrays.asList("c", "d", "e"));
+            Assert.assertEquals(texts(heads.get(1)), Arrays.asList("f", "g"));
+            Assert.assertEquals(texts(heads.get(2)), Arrays.asList("c", "d", "e"));
+
+            LilypondNode<ParceToken> head = pool.parse(second);
+            pool.parse(first);
+            Assert.assertEquals(texts(head), Arrays.asList("f", "g"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(groups = {"integration", "lilypond"})
+    public void ParserPool_Streaming() throws IOException {
+        Path dir = Files.createTempDirectory("lilypond");
+        List<Path> paths = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            paths.add(Files.write(dir.resolve(i + ".ly"), ("c" + i + " d" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        Path missing = dir.resolve("missing.ly");
+        paths.add(3, missing);
+
+        LilypondParserPool pool = new LilypondParserPool(ReusingParser::new, 2);
+        try {
+            // the results are passed in the order of the paths, also if more files are parsed than fit into the window
+            List<List<String>> results = new ArrayList<>();
+            pool.parseAll(paths, null, head -> results.add(head == null ? null : texts(head)));
+
+            Assert.assertEquals(results.size(), paths.size());
+            for (int i = 0; i < paths.size(); i++) {
+                int n = i < 3 ? i : i - 1;
+                Assert.assertEquals(results.get(i), i == 3 ? null : Arrays.asList("c" + n, "d" + n));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test(groups = {"integration", "lilypond"})
+    public void ParserPool_Release() throws IOException {
+        Path dir = Files.createTempDirectory("lilypond");
+        Path file = Files.write(dir.resolve("file.ly"), "c d".getBytes(StandardCharsets.UTF_8));
+
+        LilypondParserPool pool = new LilypondParserPool(ReusingParser::new, 1);
+        try {
+            pool.retain();
+            pool.retain();
+            pool.parseAll(Arrays.asList(file), null);
+            Assert.assertTrue(pool.isInitialized());
+
+            // the workers are only shut down when the last user releases the pool
+            int shutdownsBefore = shutdowns;
+            pool.release();
+            Assert.assertTrue(pool.isInitialized());
+            pool.release();
+            Assert.assertFalse(pool.isInitialized());
+            Assert.assertEquals(shutdowns, shutdownsBefore + 1);
+
+            Assert.assertThrows(IllegalStateException.class, pool::release);
+
+            // a released pool is initialized again when it is used
+            pool.retain();
+            Assert.assertEquals(texts(pool.parseAll(Arrays.asList(file), null).get(0)), Arrays.asList("c", "d"));
+            Assert.assertTrue(pool.isInitialized());
+            pool.release();
+            Assert.assertFalse(pool.isInitialized());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+}
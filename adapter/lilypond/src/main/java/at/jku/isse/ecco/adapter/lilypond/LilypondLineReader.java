@@ -72,8 +72,8 @@ public class LilypondLineReader implements ArtifactReader<Path, Set<Node.Op>> {
                     DefaultTokenArtifactData ad = new DefaultTokenArtifactData(new ParceToken(i, line, "unknown"));
                     Artifact.Op<DefaultTokenArtifactData> lineArtifact = this.entityFactory.createArtifact(ad);
                     Node.Op lineNode = this.entityFactory.createNode(lineArtifact);
-                    lineNode.putProperty(PROPERTY_LINE_START, i);
-                    lineNode.putProperty(PROPERTY_LINE_END, i);
+                    lineNode.putIntProperty(PROPERTY_LINE_START, i);
+                    lineNode.putIntProperty(PROPERTY_LINE_END, i);
                     pluginNode.addChild(lineNode);
                 }
 
@@ -8,6 +8,7 @@ import at.jku.isse.ecco.adapter.lilypond.view.CodeViewer;
 import at.jku.isse.ecco.adapter.lilypond.view.ImageViewer;
 import at.jku.isse.ecco.tree.Node;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 import com.google.inject.multibindings.Multibinder;
 
@@ -40,4 +41,12 @@ public class LilypondModule extends AbstractModule {
             viewerMultibinder.addBinding().to(ImageViewer.class);
         }
     }
+
+    /**
+     * The readers of all services share the default pool, which is shut down when the readers are closed.
+     */
+    @Provides
+    LilypondParserPool provideParserPool() {
+        return LilypondParserPool.getDefault();
+    }
 }
@@ -0,0 +1,296 @@
+package at.jku.isse.ecco.adapter.lilypond;
+
+import at.jku.isse.ecco.adapter.lilypond.parce.ParceToken;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Pool of warm parsers. Parsers are created on demand (up to the size of the pool), initialized once and reused for
+ * every following parse until the pool is shut down. The {@link #getDefault() default pool} is shared by all readers
+ * of the process (it is also the pool bound in the {@link LilypondModule}). Readers {@link #retain() retain} the pool
+ * when they are created and {@link #release() release} it when they are closed, and the workers are shut down when
+ * the last reader is released. Pools that are not shut down explicitly are shut down when the JVM exits.
+ * The number of workers defaults to the number of available processors and can be set with the system property
+ * {@value #WORKERS_PROPERTY}.
+ * Parsers may reuse their nodes for the next parse, so the pool returns copies of the parse results that are made
+ * before the worker is released.
+ */
+public class LilypondParserPool implements LilypondParser<ParceToken> {
+    private static final Logger LOGGER = Logger.getLogger(LilypondPlugin.class.getName());
+    public static final String WORKERS_PROPERTY = "ecco.lilypond.parserWorkers";
+
+    private static LilypondParserPool defaultPool;
+
+    private final Supplier<LilypondParser<ParceToken>> parserFactory;
+    private final int size;
+    private final List<LilypondParser<ParceToken>> workers = new ArrayList<>();
+    private final BlockingQueue<LilypondParser<ParceToken>> idleWorkers = new LinkedBlockingQueue<>();
+    private ExecutorService executor;
+    private Thread shutdownHook;
+    private int users;
+
+    public LilypondParserPool() {
+        this(ParserFactory::getParser, getDefaultSize());
+    }
+
+    public LilypondParserPool(Supplier<LilypondParser<ParceToken>> parserFactory, int size) {
+        checkNotNull(parserFactory);
+        checkArgument(size > 0, "pool size must be positive");
+
+        this.parserFactory = parserFactory;
+        this.size = size;
+    }
+
+    /**
+     * @return The pool shared by all readers of the process, which is created on first use.
+     */
+    public static synchronized LilypondParserPool getDefault() {
+        if (defaultPool == null) {
+            defaultPool = new LilypondParserPool();
+        }
+        return defaultPool;
+    }
+
+    private static int getDefaultSize() {
+        return Math.max(1, Integer.getInteger(WORKERS_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public synchronized boolean isInitialized() {
+        return executor != null;
+    }
+
+    /**
+     * Initializes the pool and starts the first worker. Does nothing if the pool is already initialized.
+     *
+     * @throws IOException Thrown if no parser is available or the first worker could not be initialized.
+     */
+    @Override
+    public synchronized void init() throws IOException {
+        if (executor != null) {
+            return;
+        }
+
+        idleWorkers.add(createWorker());
+        executor = Executors.newFixedThreadPool(size, r -> {
+            Thread t = new Thread(r, "lilypond-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        shutdownHook = new Thread(this::shutdownWorkers, "lilypond-parser-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private LilypondParser<ParceToken> createWorker() throws IOException {
+        LilypondParser<ParceToken> parser = parserFactory.get();
+        if (parser == null) {
+            throw new IOException("no parser found");
+        }
+        parser.init();
+        synchronized (workers) {
+            workers.add(parser);
+        }
+        LOGGER.log(Level.FINE, "started parser worker {0}/{1}", new Object[]{ workers.size(), size });
+
+        return parser;
+    }
+
+    private LilypondParser<ParceToken> acquire() throws IOException, InterruptedException {
+        LilypondParser<ParceToken> parser = idleWorkers.poll();
+        if (parser != null) {
+            return parser;
+        }
+
+        synchronized (workers) {
+            if (workers.size() < size) {
+                return createWorker();
+            }
+        }
+
+        return idleWorkers.take();
+    }
+
+    @Override
+    public LilypondNode<ParceToken> parse(Path path) {
+        return parse(path, null);
+    }
+
+    @Override
+    public LilypondNode<ParceToken> parse(Path path, HashMap<String, Integer> tokenMetric) {
+        LilypondParser<ParceToken> parser;
+        try {
+            parser = acquire();
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "could not start parser worker", e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+
+        try {
+            // the worker reuses its nodes for the next parse, so the result must not leave the pool
+            return copy(parser.parse(path, tokenMetric));
+        } finally {
+            idleWorkers.add(parser);
+        }
+    }
+
+    /**
+     * Copies the given list of nodes and their tokens.
+     *
+     * @param head The first node of the list, or null.
+     * @return The first node of the copy, or null.
+     */
+    static LilypondNode<ParceToken> copy(LilypondNode<ParceToken> head) {
+        LilypondNode<ParceToken> copyHead = null;
+        LilypondNode<ParceToken> copyPrev = null;
+        for (LilypondNode<ParceToken> n = head; n != null; n = n.getNext()) {
+            ParceToken token = n.getData();
+            LilypondNode<ParceToken> c = new LilypondNode<>(n.getName(), token == null ? null :
+                    new ParceToken(token.getPos(), token.getText(), token.getAction(), token.getTransformationData()));
+            c.setLevel(n.getLevel());
+            if (copyPrev == null) {
+                copyHead = c;
+            } else {
+                copyPrev.setNext(c);
+                c.setPrev(copyPrev);
+            }
+            copyPrev = c;
+        }
+        return copyHead;
+    }
+
+    /**
+     * Parses the given files concurrently on the workers of the pool.
+     *
+     * @param paths       The files to parse.
+     * @param tokenMetric Map the token counts of all files are added to, or null.
+     * @return The parsed nodes in the order of the given paths. Entries are null if a file could not be parsed.
+     * @throws IOException Thrown if the pool could not be initialized.
+     */
+    public List<LilypondNode<ParceToken>> parseAll(List<Path> paths, HashMap<String, Integer> tokenMetric) throws IOException {
+        List<LilypondNode<ParceToken>> results = new ArrayList<>(paths.size());
+        parseAll(paths, tokenMetric, results::add);
+        return results;
+    }
+
+    /**
+     * Parses the given files concurrently on the workers of the pool and passes the parsed nodes to the given consumer
+     * in the order of the given paths as soon as they are available. At most twice as many files as the pool has
+     * workers are parsed ahead of the consumer.
+     *
+     * @param paths       The files to parse.
+     * @param tokenMetric Map the token counts of all files are added to, or null.
+     * @param consumer    Consumer that is called on the calling thread with the parsed nodes of every file, or with null if a file could not be parsed.
+     * @throws IOException Thrown if the pool could not be initialized or parsing was interrupted.
+     */
+    public void parseAll(List<Path> paths, HashMap<String, Integer> tokenMetric, Consumer<LilypondNode<ParceToken>> consumer) throws IOException {
+        init();
+
+        Deque<Future<LilypondNode<ParceToken>>> futures = new ArrayDeque<>();
+        Deque<HashMap<String, Integer>> metrics = new ArrayDeque<>();
+        try {
+            int next = 0;
+            for (Path path : paths) {
+                while (next < paths.size() && futures.size() < 2 * size) {
+                    Path nextPath = paths.get(next++);
+                    HashMap<String, Integer> metric = tokenMetric == null ? null : new HashMap<>();
+                    if (metric != null) {
+                        metrics.add(metric);
+                    }
+                    futures.add(executor.submit(() -> parse(nextPath, metric)));
+                }
+
+                LilypondNode<ParceToken> result;
+                try {
+                    result = futures.remove().get();
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.SEVERE, "could not parse " + path, e.getCause());
+                    result = null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("parsing interrupted", e);
+                }
+
+                if (tokenMetric != null) {
+                    metrics.remove().forEach((k, v) -> tokenMetric.merge(k, v, Integer::sum));
+                }
+
+                consumer.accept(result);
+            }
+        } finally {
+            // files that are still pending (e.g. if the consumer failed) are cancelled
+            futures.forEach(f -> f.cancel(true));
+        }
+    }
+
+    /**
+     * Registers a user (e.g. a reader) of the pool, which must {@link #release() release} the pool when it does not
+     * use it anymore.
+     */
+    public synchronized void retain() {
+        users++;
+    }
+
+    /**
+     * Unregisters a user of the pool. The workers are shut down when the last user is released. The pool is
+     * initialized again when it is used afterwards.
+     */
+    public synchronized void release() {
+        checkState(users > 0, "pool is not retained");
+
+        users--;
+        if (users == 0) {
+            shutdown();
+        }
+    }
+
+    /**
+     * Shuts down all workers. The pool can be initialized again afterwards.
+     */
+    @Override
+    public synchronized void shutdown() {
+        if (executor == null) {
+            return;
+        }
+
+        executor.shutdownNow();
+        executor = null;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException ignored) {
+            // JVM is already shutting down
+        }
+        shutdownHook = null;
+        shutdownWorkers();
+    }
+
+    private void shutdownWorkers() {
+        synchronized (workers) {
+            for (LilypondParser<ParceToken> parser : workers) {
+                try {
+                    parser.shutdown();
+                } catch (RuntimeException e) {
+                    LOGGER.log(Level.WARNING, "could not shut down parser worker", e);
+                }
+            }
+            workers.clear();
+            idleWorkers.clear();
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,18 +25,44 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class LilypondReader implements ArtifactReader<Path, Set<Node.Op>> {
     private static final Logger LOGGER = Logger.getLogger(LilypondPlugin.class.getName());
     protected final EntityFactory entityFactory;
+    private final LilypondParserPool parserPool;
     private HashMap<String, Integer> tokenMetric;
+    private boolean closed;
 
     public static Logger getLogger() {
         return LOGGER;
     }
     public final static String PARSER_ACTION_LINEBREAK = "__LineBreak";
 
-    @Inject
+    /**
+     * Creates a reader that uses the {@link LilypondParserPool#getDefault() default pool}, which is also injected.
+     */
     public LilypondReader(EntityFactory entityFactory) {
+        this(entityFactory, LilypondParserPool.getDefault());
+    }
+
+    /**
+     * The reader retains the given pool until it is closed.
+     */
+    @Inject
+    public LilypondReader(EntityFactory entityFactory, LilypondParserPool parserPool) {
         checkNotNull(entityFactory);
+        checkNotNull(parserPool);
 
         this.entityFactory = entityFactory;
+        this.parserPool = parserPool;
+        parserPool.retain();
+    }
+
+    /**
+     * Releases the parser pool, whose workers are shut down if no other reader uses it.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            parserPool.release();
+        }
     }
 
     @Override
@@ -75,39 +102,50 @@ public class LilypondReader implements ArtifactReader<Path, Set<Node.Op>> {
     @Override
     public Set<Node.Op> read(Path base, Path[] input) {
         Set<Node.Op> nodes = new HashSet<>();
+        readFiles(base, input, nodes::add);
+        return nodes;
+    }
+
+    /**
+     * Passes the plugin node of every file to the sink as soon as it is created, while the following files are still
+     * parsed by the parser pool.
+     */
+    @Override
+    public void read(Path base, Path[] input, Consumer<? super Set<Node.Op>> sink) {
+        readFiles(base, input, pluginNode -> sink.accept(Collections.singleton(pluginNode)));
+    }
 
-        LilypondParser<ParceToken> parser = ParserFactory.getParser();
+    private void readFiles(Path base, Path[] input, Consumer<Node.Op> pluginNodeSink) {
+        List<Path> resolvedPaths = new ArrayList<>(input.length);
+        for (Path path : input) {
+            resolvedPaths.add(base.resolve(path));
+        }
+
+        // the parsed files are passed in the order of the input
+        Iterator<Path> inputIterator = Arrays.asList(input).iterator();
         try {
-            if (parser == null) {
-                throw new IOException("no parser found");
-            }
-            parser.init();
+            // workers of the pool stay alive after the read and are reused by following reads
+            parserPool.parseAll(resolvedPaths, tokenMetric, head -> {
+                Path path = inputIterator.next();
+                Path resolvedPath = base.resolve(path);
+                Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+                Node.Op pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
+
+                if (head == null) {
+                    LOGGER.log(Level.SEVERE, "parser returned no node, file {0}", resolvedPath);
+                } else {
+                    head = LilyEccoTransformer.transform(head);
+                    generateEccoTree(head, pluginNode);
+                }
+
+                listeners.forEach(l -> l.fileReadEvent(resolvedPath, this));
+                pluginNodeSink.accept(pluginNode);
+            });
 
         } catch (IOException e) {
             LOGGER.log(Level.SEVERE, "could not initialize parser", e);
             throw new RuntimeException("could not initialize parser", e);
         }
-
-        for (Path path : input) {
-            Path resolvedPath = base.resolve(path);
-            Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
-            Node.Op pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
-            nodes.add(pluginNode);
-
-            LilypondNode<ParceToken> head = parser.parse(resolvedPath, tokenMetric);
-            if (head == null) {
-                LOGGER.log(Level.SEVERE, "parser returned no node, file {0}", resolvedPath);
-            } else {
-                head = LilyEccoTransformer.transform(head);
-                generateEccoTree(head, pluginNode);
-            }
-
-            listeners.forEach(l -> l.fileReadEvent(resolvedPath, this));
-        }
-
-        parser.shutdown();
-
-        return nodes;
     }
 
     public void generateEccoTree(LilypondNode<ParceToken> head, Node.Op node) {
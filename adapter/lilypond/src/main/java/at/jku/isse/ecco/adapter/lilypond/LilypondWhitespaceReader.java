@@ -69,8 +69,8 @@ public class LilypondWhitespaceReader implements ArtifactReader<Path, Set<Node>>
                     DefaultTokenArtifactData dtad = new DefaultTokenArtifactData(new ParceToken(i, tk, "unknown"));
                     Artifact.Op<DefaultTokenArtifactData> lpaf = this.entityFactory.createArtifact(dtad);
                     Node.Op lpNode = this.entityFactory.createNode(lpaf);
-                    lpNode.putProperty("TOKEN_START", i);
-                    lpNode.putProperty("TOKEN_END", i + tk.length());
+                    lpNode.putIntProperty("TOKEN_START", i);
+                    lpNode.putIntProperty("TOKEN_END", i + tk.length());
 
                     pluginNode.addChild(lpNode);
                 }
@@ -8,45 +8,88 @@ import py4j.GatewayServerListener;
 import py4j.Py4JServerConnection;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
-import java.util.StringJoiner;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Parses files with a long-lived python worker process running Parce. The worker is started once in {@link #init()},
+ * connects to the gateway of this parser and then parses every file path written to its standard input.
+ * Instances do not share state, so several parsers can work concurrently (see {@link at.jku.isse.ecco.adapter.lilypond.LilypondParserPool}).
+ */
 public class FileParser implements LilypondParser<ParceToken> {
     public static final int MAX_SCRIPT_TIMEOUT_SECONDS = 10;
-    public static final String PARSER_SCRIPT_NAME = "LilypondParser_1.py";
+    public static final String PARSER_SCRIPT_NAME = "LilypondParserWorker.py";
     protected static final Logger LOGGER = Logger.getLogger(LilypondPlugin.class.getName());
     protected static final GatewayServerListener gatewayListener = getGatewayListener();
-    private String pythonScript;
+    private static final String WORKER_TERMINATED = "ERROR worker process terminated";
+    private Gateway gateway;
+    private Path pythonScript;
+    private Process process;
+    private BufferedWriter processInput;
+    private BlockingQueue<String> processOutput;
 
     public void init() throws IOException {
-        Gateway.getInstance().addListener(gatewayListener);
-        Gateway.getInstance().start();
+        gateway = new Gateway();
+        gateway.addListener(gatewayListener);
+        gateway.start();
 
-        Path tempDir = Path.of(System.getProperty("java.io.tmpdir"));
-        Path file = tempDir.resolve(PARSER_SCRIPT_NAME);
-        pythonScript = file.toString();
+        try (InputStream is = ClassLoader.getSystemResourceAsStream(PARSER_SCRIPT_NAME)) {
+            if (is == null) {
+                throw new IOException("no resource '" + PARSER_SCRIPT_NAME + "' found");
+            }
+            pythonScript = Files.createTempFile("LilypondParserWorker", ".py");
+            pythonScript.toFile().deleteOnExit();
+            Files.write(pythonScript, is.readAllBytes());
 
-        if (!Files.exists(file)) {
-            try (InputStream is = ClassLoader.getSystemResourceAsStream(PARSER_SCRIPT_NAME);
-                OutputStream os = Files.newOutputStream(file, StandardOpenOption.CREATE)) {
+            startWorker();
 
-                if (is != null) {
-                    os.write(is.readAllBytes());
-                } else {
-                    throw new IOException("no resource '" + PARSER_SCRIPT_NAME + "' found");
-                }
+        } catch (IOException e) {
+            LOGGER.log(Level.SEVERE, "could not initialize parser", e);
+            shutdown();
+            throw e;
+        }
+    }
 
+    private void startWorker() throws IOException {
+        ProcessBuilder lilyparce = new ProcessBuilder("python", pythonScript.toString(), String.valueOf(gateway.getPort()));
+        lilyparce.redirectError(ProcessBuilder.Redirect.INHERIT);
+        process = lilyparce.start();
+        processInput = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+
+        final BlockingQueue<String> output = new LinkedBlockingQueue<>();
+        final BufferedReader parceStdRd = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        Thread outputReader = new Thread(() -> {
+            try {
+                String line;
+                while ((line = parceStdRd.readLine()) != null) {
+                    output.add(line);
+                }
             } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, "could not initialize parser", e);
-                shutdown();
-                throw e;
+                LOGGER.log(Level.FINE, "worker output closed", e);
             }
+            output.add(WORKER_TERMINATED);
+        }, "lilypond-parser-output");
+        outputReader.setDaemon(true);
+        outputReader.start();
+        processOutput = output;
+
+        LOGGER.log(Level.FINE, "started parser worker (gateway port {0})", gateway.getPort());
+    }
+
+    private void stopWorker() {
+        if (process != null) {
+            try {
+                processInput.close();
+            } catch (IOException ignored) {}
+            process.destroy();
+            process = null;
         }
     }
 
@@ -56,39 +99,38 @@ public class FileParser implements LilypondParser<ParceToken> {
 
     public LilypondNode<ParceToken> parse(Path path, HashMap<String, Integer> tokenMetric) {
         LOGGER.log(Level.INFO, "start parsing {0}", path);
-        Gateway.getInstance().reset();
-        ProcessBuilder lilyparce = new ProcessBuilder("python", pythonScript, path.toString());
-        Process process = null;
+        gateway.reset();
         try {
-            process = lilyparce.start();
-            long tm = System.nanoTime();
-            final BufferedReader parceErrRd = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            StringJoiner sjErr = new StringJoiner(System.getProperty("line.separator"));
-            parceErrRd.lines().iterator().forEachRemaining(sjErr::add);
-
-            if (LOGGER.isLoggable(Level.FINE)) {
-                final BufferedReader parceStdRd = new BufferedReader(new InputStreamReader(process.getInputStream()));
-                StringJoiner sj = new StringJoiner(System.getProperty("line.separator"));
-                parceStdRd.lines().iterator().forEachRemaining(sj::add);
-
-                if (sj.length() > 0) {
-                    LOGGER.fine("** Output **");
-                    LOGGER.fine(sj.toString());
-                    LOGGER.fine("** END - Output **");
-                }
+            if (process == null || !process.isAlive()) {
+                LOGGER.warning("parser worker not running, restarting");
+                stopWorker();
+                startWorker();
             }
 
-            int exitCode = -1;
-            if (process.waitFor(MAX_SCRIPT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
-                exitCode = process.exitValue();
-            } else {
-                LOGGER.severe("parsing process timed out after " + MAX_SCRIPT_TIMEOUT_SECONDS + " seconds");
+            long tm = System.nanoTime();
+            processInput.write(path.toAbsolutePath().toString());
+            processInput.newLine();
+            processInput.flush();
+
+            String result = null;
+            long deadline = tm + TimeUnit.SECONDS.toNanos(MAX_SCRIPT_TIMEOUT_SECONDS);
+            while (result == null) {
+                String line = processOutput.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (line == null) {
+                    LOGGER.severe("parsing process timed out after " + MAX_SCRIPT_TIMEOUT_SECONDS + " seconds");
+                    stopWorker();
+                    return null;
+                } else if (line.equals("OK") || line.startsWith("ERROR")) {
+                    result = line;
+                } else {
+                    LOGGER.fine(line);
+                }
             }
 
-            if (exitCode == 0) {
-                LOGGER.log(Level.FINE, "Parce exited normal, code: {0}, {1}ms", new Object[] { exitCode, (System.nanoTime() - tm) / 1000000 });
+            if (result.equals("OK")) {
+                LOGGER.log(Level.FINE, "Parce finished, {0}ms", (System.nanoTime() - tm) / 1000000);
                 if (tokenMetric != null) {
-                    LilypondNode<ParceToken> n = Gateway.getInstance().getRoot();
+                    LilypondNode<ParceToken> n = gateway.getRoot();
                     while (n != null) {
                         if (n.getData() != null) {
                             tokenMetric.put(n.getData().getAction(),
@@ -98,28 +140,40 @@ public class FileParser implements LilypondParser<ParceToken> {
                     }
                 }
                 LOGGER.log(Level.INFO, "created {0} nodes (maxDepth: {1})",
-                        new Object[] { Gateway.getInstance().getNodesCount(),
-                        Gateway.getInstance().getMaxDepth()});
+                        new Object[] { gateway.getNodesCount(), gateway.getMaxDepth()});
 
-                return Gateway.getInstance().getRoot();
+                return gateway.getRoot();
 
             } else {
-                LOGGER.severe("Parce exited with code " + exitCode + ":\n" + sjErr);
+                LOGGER.severe("Parce failed on " + path + ": " + result);
             }
 
-        } catch (IOException | InterruptedException e) {
+        } catch (IOException e) {
             LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            stopWorker();
 
-        } finally {
-            if (process != null) process.destroy();
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.SEVERE, e.getMessage(), e);
+            stopWorker();
+            Thread.currentThread().interrupt();
         }
 
         return null;
     }
 
     public void shutdown() {
-        Gateway.getInstance().shutdown();
-        Gateway.getInstance().removeListener(gatewayListener);
+        stopWorker();
+        if (gateway != null) {
+            gateway.shutdown();
+            gateway.removeListener(gatewayListener);
+            gateway = null;
+        }
+        if (pythonScript != null) {
+            try {
+                Files.deleteIfExists(pythonScript);
+            } catch (IOException ignored) {}
+            pythonScript = null;
+        }
     }
 
     private static GatewayServerListener getGatewayListener() {
@@ -5,41 +5,40 @@ import at.jku.isse.ecco.adapter.lilypond.parce.ParceToken;
 import py4j.GatewayServer;
 import py4j.GatewayServerListener;
 
+/**
+ * Gateway server with its own {@link EntryPoint}. Every parser worker owns one gateway, which listens on an
+ * ephemeral port, such that several workers can be connected to their python processes at the same time.
+ */
 public class Gateway {
-    private static Gateway instance;
     private final GatewayServer server;
     private final EntryPoint entrypoint;
 
-    private Gateway() {
+    public Gateway() {
         entrypoint = new EntryPoint();
-        server = new GatewayServer(entrypoint);
-    }
-
-    public static Gateway getInstance() {
-        if (instance == null) {
-            instance = new Gateway();
-        }
-        return instance;
+        server = new GatewayServer(entrypoint, 0);
     }
 
     public void reset() {
-        if (instance != null) {
-            instance.entrypoint.reset();
-        }
+        entrypoint.reset();
     }
 
     public LilypondNode<ParceToken> getRoot() {
-        if (instance == null) return null;
-
-        return instance.entrypoint.getRoot();
+        return entrypoint.getRoot();
     }
 
     public int getNodesCount() {
-        return instance.entrypoint.getNodesCount();
+        return entrypoint.getNodesCount();
     }
 
     public int getMaxDepth() {
-        return instance.entrypoint.getMaxDepth();
+        return entrypoint.getMaxDepth();
+    }
+
+    /**
+     * @return The port the gateway server is listening on (only valid after {@link #start()}).
+     */
+    public int getPort() {
+        return server.getListeningPort();
     }
 
     /**
@@ -51,7 +50,6 @@ public class Gateway {
 
     public void shutdown() {
         server.shutdown();
-        instance = null;
     }
 
     public void addListener(GatewayServerListener l) {
@@ -0,0 +1,47 @@
+from py4j.java_gateway import JavaGateway, GatewayParameters
+import sys
+import parce
+from parce.lang.lilypond import LilyPond
+
+# long-lived worker: connects to the gateway on the given port and parses every file path read from stdin.
+# each parsed file is acknowledged on stdout with "OK" or "ERROR <message>".
+gateway = JavaGateway(gateway_parameters=GatewayParameters(port=int(sys.argv[1])))
+ep = gateway.entry_point
+
+
+def parse(path):
+    f = open(path, "r", -1, "UTF-8")
+    s = f.read()
+    f.close()
+
+    lastPos = 0
+    for e in parce.events(LilyPond.root, s):
+        if e.target:
+            ep.popContext(e.target.pop)
+            first = e.lexemes[0]
+            if first[0] > lastPos:
+                ep.addWhitespace(lastPos, s[lastPos:first[0]])
+                lastPos = first[0] + len(first[1])
+            for c in e.target.push:
+                ep.pushContext(c.fullname)
+
+        for tpl in e.lexemes:
+            if tpl[0] > lastPos:
+                ep.addWhitespace(lastPos, s[lastPos:tpl[0]])
+            ep.addToken(tpl[0], tpl[1], str(tpl[2]))
+            lastPos = tpl[0] + len(tpl[1])
+
+    ep.addWhitespace(lastPos, s[lastPos:])
+
+
+for line in sys.stdin:
+    path = line.rstrip("\r\n")
+    if not path:
+        continue
+    try:
+        parse(path)
+        print("OK", flush=True)
+    except Exception as ex:
+        print("ERROR " + str(ex).replace("\n", " "), flush=True)
+
+gateway.shutdown()
@@ -10,6 +10,10 @@ import at.jku.isse.ecco.dao.EntityFactory;
 import at.jku.isse.ecco.service.listener.ReadListener;
 import at.jku.isse.ecco.tree.Node;
 import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParseStart;
+import com.github.javaparser.Providers;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.ImportDeclaration;
 import com.github.javaparser.ast.body.*;
@@ -22,8 +26,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -31,16 +38,34 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
 
     protected static final Logger LOGGER = Logger.getLogger(DispatchWriter.class.getName());
 
+    /**
+     * Parsers are not thread-safe, so every thread that parses files gets its own one, which it reuses for all files it parses.
+     */
+    private static final ThreadLocal<JavaParser> PARSERS = ThreadLocal.withInitial(JavaParser::new);
+
     private final EntityFactory entityFactory;
 
     public ArrayList<String> methods = new ArrayList<>();
 
+    private boolean parallel = true;
+
     @Inject
     public RuntimeReader(EntityFactory entityFactory) {
         checkNotNull(entityFactory);
         this.entityFactory = entityFactory;
     }
 
+    /**
+     * @param parallel True if multiple files should be loaded and parsed concurrently (the default), false if they should be read one after the other.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isParallel() {
+        return this.parallel;
+    }
+
 
     @Override
     public String getPluginId() {
@@ -68,75 +93,28 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
 
     int count = 0;
 
+    /**
+     * Reads the given java files together with their runtime traces (java files without trace are skipped).
+     * If the parallel mode is enabled the files are loaded and parsed concurrently. The plugin nodes and method signatures are nevertheless added in the order of the input.
+     */
     @Override
     public Set<Node.Op> read(Path base, Path[] input) {
-        Set<Node.Op> nodes = new HashSet<>();
+        dirsAux = base + "\\";
 
-        long totalJavaParserTime = 0;
-
-        for (Path path : input) {
-            String pathway = path.toString().replace(".java", ".runtime");
-            dirsAux = base + "\\";
-            String packageDir = pathway.replace("\\", ".");
-            String dirs = base.toString().replace("\\src", "\\") + packageDir;
-            if (new File(dirs).exists()) {
-                Path resolvedPath = base.resolve(path);
-                // create plugin artifact/node
-                Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
-                Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
-                nodes.add(pluginNode);
-                try {
-                    // read btrace file contents
-                    String btraceFileContent = new String(Files.readAllBytes(Paths.get(dirs)), StandardCharsets.UTF_8);
-                    String[] linesBtraceFile = btraceFileContent.split("\\r?\\n");
-                    // read java file contents
-                    String fileContent = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
-                    String[] lines = fileContent.split("\\r?\\n");
-
-                    long localStartTime = System.currentTimeMillis();
-                    CompilationUnit cu = JavaParser.parse(fileContent);
-                    totalJavaParserTime += (System.currentTimeMillis() - localStartTime);
-
-                    // package name
-                    String packageName = "";
-                    if (cu.getPackageDeclaration().isPresent())
-                        packageName = cu.getPackageDeclaration().get().getName().toString();
-
-                    for (TypeDeclaration<?> typeDeclaration : cu.getTypes()) {
-                        // create class artifact/node
-                        String aux = String.valueOf(typeDeclaration.getName().getRange().get().begin.line);
-                        String classdeclaration = lines[Integer.valueOf(aux) - 1];
-                        String className = typeDeclaration.getName().toString();
-                        Artifact.Op<ClassArtifactData> classArtifact = this.entityFactory.createArtifact(new ClassArtifactData(packageName + "." + className, classdeclaration));
-                        Node.Op classNode = this.entityFactory.createNode(classArtifact);
-                        pluginNode.addChild(classNode);
-
-                        // imports
-                        Artifact.Op<AbstractArtifactData> importsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("IMPORTS"));
-                        Node.Op importsGroupNode = this.entityFactory.createNode(importsGroupArtifact);
-                        classNode.addChild(importsGroupNode);
-                        for (ImportDeclaration importDeclaration : cu.getImports()) {
-                            if (!importDeclaration.getName().asString().contains("jacoco")) {//&& !importDeclaration.getName().asString().toLowerCase().contains("deploymentdiagram") && !importDeclaration.getName().asString().toLowerCase().contains("statediagram") && !importDeclaration.getName().asString().toLowerCase().contains("collaborationdiagram") && !importDeclaration.getName().asString().toLowerCase().contains("sequencediagram") && !importDeclaration.getName().asString().toLowerCase().contains("usecasediagram") && !importDeclaration.getName().asString().toLowerCase().contains("java.io.printstream")) {
-                                String importName = "import " + importDeclaration.getName().asString();
-                                Artifact.Op<ImportArtifactData> importArtifact = this.entityFactory.createArtifact(new ImportArtifactData(importName));
-                                Node.Op importNode = this.entityFactory.createNode(importArtifact);
-                                importsGroupNode.addChild(importNode);
-                            }
-                        }
-
-                        this.addClassChildren(typeDeclaration, classNode, lines, linesBtraceFile);
-                    }
-                } catch (IOException e) {
-                    e.printStackTrace();
-                    throw new EccoException("Error parsing java file.", e);
-                }
-
-            }
-
-            LOGGER.fine(JavaParser.class + ".parse(): " + totalJavaParserTime + "ms");
+        List<FileNodes> fileNodes = this.readFiles(base, input, 0, input.length);
 
+        Set<Node.Op> nodes = new LinkedHashSet<>();
+        long totalJavaParserTime = 0;
+        for (FileNodes file : fileNodes) {
+            if (file == null)
+                continue;
+            nodes.add(file.pluginNode);
+            methods.addAll(file.methods);
+            totalJavaParserTime += file.parseTime;
         }
 
+        LOGGER.fine(JavaParser.class + ".parse(): " + (totalJavaParserTime / 1000000) + "ms");
+
         //these lines were added to compute the results at method level
         //try {
         //    Files.write(Paths.get(("C:\\Users\\gabil\\Desktop\\teste\\ActualECCO\\Method_comparison\\results\\methods.txt")), methods.stream().map(Object::toString).collect(Collectors.toList()));
@@ -144,12 +122,117 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
         //     e.printStackTrace();
         // }
         return nodes;
+    }
+
+    /**
+     * Number of files that {@link #read(Path, Path[], Consumer)} reads at once.
+     */
+    private static final int BATCH_SIZE = 4 * Math.max(1, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Reads the files in batches of a bounded size and passes the plugin node of every file of a batch to the sink before the next batch is read.
+     * If the parallel mode is enabled the files of a batch are loaded and parsed concurrently.
+     */
+    @Override
+    public void read(Path base, Path[] input, Consumer<? super Set<Node.Op>> sink) {
+        dirsAux = base + "\\";
+
+        for (int from = 0; from < input.length; from += BATCH_SIZE) {
+            for (FileNodes file : this.readFiles(base, input, from, Math.min(input.length, from + BATCH_SIZE))) {
+                if (file == null)
+                    continue;
+                methods.addAll(file.methods);
+                sink.accept(Collections.singleton(file.pluginNode));
+            }
+        }
+    }
+
+    private List<FileNodes> readFiles(Path base, Path[] input, int from, int to) {
+        IntStream indices = IntStream.range(from, to);
+        if (this.parallel && to - from > 1)
+            indices = indices.parallel();
+        return indices.mapToObj(i -> this.readFile(base, input[i])).collect(Collectors.toList());
+    }
 
+    private FileNodes readFile(Path base, Path path) {
+        String pathway = path.toString().replace(".java", ".runtime");
+        String packageDir = pathway.replace("\\", ".");
+        String dirs = base.toString().replace("\\src", "\\") + packageDir;
+        if (!new File(dirs).exists())
+            return null;
+
+        Path resolvedPath = base.resolve(path);
+        // create plugin artifact/node
+        Artifact.Op<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(this.getPluginId(), path));
+        Node.Op pluginNode = this.entityFactory.createNode(pluginArtifact);
+        FileNodes fileNodes = new FileNodes(pluginNode);
+        try {
+            // read btrace file contents
+            String btraceFileContent = new String(Files.readAllBytes(Paths.get(dirs)), StandardCharsets.UTF_8);
+            String[] linesBtraceFile = btraceFileContent.split("\\r?\\n");
+            // read java file contents
+            String fileContent = new String(Files.readAllBytes(resolvedPath), StandardCharsets.UTF_8);
+            String[] lines = fileContent.split("\\r?\\n");
+
+            long localStartTime = System.nanoTime();
+            ParseResult<CompilationUnit> parseResult = PARSERS.get().parse(ParseStart.COMPILATION_UNIT, Providers.provider(fileContent));
+            if (!parseResult.isSuccessful() || !parseResult.getResult().isPresent())
+                throw new ParseProblemException(parseResult.getProblems());
+            CompilationUnit cu = parseResult.getResult().get();
+            fileNodes.parseTime = System.nanoTime() - localStartTime;
+            this.fireParsedEvent(path, fileNodes.parseTime);
+
+            // package name
+            String packageName = "";
+            if (cu.getPackageDeclaration().isPresent())
+                packageName = cu.getPackageDeclaration().get().getName().toString();
+
+            for (TypeDeclaration<?> typeDeclaration : cu.getTypes()) {
+                // create class artifact/node
+                String aux = String.valueOf(typeDeclaration.getName().getRange().get().begin.line);
+                String classdeclaration = lines[Integer.valueOf(aux) - 1];
+                String className = typeDeclaration.getName().toString();
+                Artifact.Op<ClassArtifactData> classArtifact = this.entityFactory.createArtifact(new ClassArtifactData(packageName + "." + className, classdeclaration));
+                Node.Op classNode = this.entityFactory.createNode(classArtifact);
+                pluginNode.addChild(classNode);
+
+                // imports
+                Artifact.Op<AbstractArtifactData> importsGroupArtifact = this.entityFactory.createArtifact(new AbstractArtifactData("IMPORTS"));
+                Node.Op importsGroupNode = this.entityFactory.createNode(importsGroupArtifact);
+                classNode.addChild(importsGroupNode);
+                for (ImportDeclaration importDeclaration : cu.getImports()) {
+                    if (!importDeclaration.getName().asString().contains("jacoco")) {//&& !importDeclaration.getName().asString().toLowerCase().contains("deploymentdiagram") && !importDeclaration.getName().asString().toLowerCase().contains("statediagram") && !importDeclaration.getName().asString().toLowerCase().contains("collaborationdiagram") && !importDeclaration.getName().asString().toLowerCase().contains("sequencediagram") && !importDeclaration.getName().asString().toLowerCase().contains("usecasediagram") && !importDeclaration.getName().asString().toLowerCase().contains("java.io.printstream")) {
+                        String importName = "import " + importDeclaration.getName().asString();
+                        Artifact.Op<ImportArtifactData> importArtifact = this.entityFactory.createArtifact(new ImportArtifactData(importName));
+                        Node.Op importNode = this.entityFactory.createNode(importArtifact);
+                        importsGroupNode.addChild(importNode);
+                    }
+                }
+
+                this.addClassChildren(typeDeclaration, classNode, lines, linesBtraceFile, fileNodes.methods);
+            }
+        } catch (IOException e) {
+            throw new EccoException("Error parsing java file " + path + ".", e);
+        }
 
+        return fileNodes;
+    }
+
+    /**
+     * The plugin node and the method signatures of a single file.
+     */
+    private static class FileNodes {
+        private final Node.Op pluginNode;
+        private final List<String> methods = new ArrayList<>();
+        private long parseTime = 0;
+
+        private FileNodes(Node.Op pluginNode) {
+            this.pluginNode = pluginNode;
+        }
     }
 
     //This method contains the code to the ArgoUML Benchmark traces
-    private void addClassChildren(TypeDeclaration<?> typeDeclaration, Node.Op classNode, String[] lines, String[] linesBtraceFile) throws IOException {
+    private void addClassChildren(TypeDeclaration<?> typeDeclaration, Node.Op classNode, String[] lines, String[] linesBtraceFile, List<String> methods) throws IOException {
         if (linesBtraceFile.length > 0) {
             ArrayList<String> justLineNumbers = new ArrayList<String>();
             List<Integer> array = new ArrayList<>();
@@ -208,7 +291,7 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
                         Artifact.Op<ClassArtifactData> nestedClassArtifact = this.entityFactory.createArtifact(new ClassArtifactData(classNode.toString() + "." + ((ClassOrInterfaceDeclaration) node).getName().toString()));
                         Node.Op nestedClassNode = this.entityFactory.createNode(nestedClassArtifact);
                         classNode.addChild(nestedClassNode);
-                        addClassChildren((ClassOrInterfaceDeclaration) node, nestedClassNode, lines, newLines);
+                        addClassChildren((ClassOrInterfaceDeclaration) node, nestedClassNode, lines, newLines, methods);
                     } else {
                         String init;
                         String fin;
@@ -232,7 +315,7 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
                             for (int i = 0; i < justLineNumbers.size(); i++) {
                                 newLines[i] = String.valueOf(justLineNumbers.get(i));
                             }
-                            addClassChildren((ClassOrInterfaceDeclaration) node, nestedClassNode, lines, newLines);
+                            addClassChildren((ClassOrInterfaceDeclaration) node, nestedClassNode, lines, newLines, methods);
 
                         }
                     }
@@ -768,15 +851,21 @@ public class RuntimeReader implements ArtifactReader<Path, Set<Node.Op>> {
     }*/
 
 
-    private Collection<ReadListener> listeners = new ArrayList<>();
+    private Collection<ReadListener> listeners = new CopyOnWriteArrayList<>();
 
     @Override
     public void addListener(ReadListener listener) {
-
+        this.listeners.add(listener);
     }
 
     @Override
     public void removeListener(ReadListener listener) {
+        this.listeners.remove(listener);
+    }
 
+    private void fireParsedEvent(Path path, long durationNanos) {
+        for (ReadListener listener : this.listeners) {
+            listener.fileParsedEvent(path, this, durationNanos);
+        }
     }
 }
@@ -0,0 +1,135 @@
+package at.jku.isse.ecco.adapter.text.test;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.adapter.text.LineArtifactData;
+import at.jku.isse.ecco.adapter.text.TextReader;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+public class TextReaderTest {
+
+	private static final Path FILE = Paths.get("file.txt");
+
+	private Path baseDir;
+
+
+	@BeforeMethod(alwaysRun = true)
+	public void createBaseDir() throws IOException {
+		this.baseDir = Files.createTempDirectory("ecco-text");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void deleteBaseDir() throws IOException {
+		Files.deleteIfExists(this.baseDir.resolve(FILE));
+		Files.deleteIfExists(this.baseDir);
+	}
+
+
+	@Test(groups = {"integration", "text"})
+	public void TextReader_LineTerminators() throws IOException {
+		this.assertLines("a\nb\rc\r\nd\n", 16, Arrays.asList("a", "b", "c", "d"), 0, 2, 4, 7);
+		this.assertLines("\n\r\r\nx", 16, Arrays.asList("", "", "", "x"), 0, 1, 2, 4);
+	}
+
+	@Test(groups = {"integration", "text"})
+	public void TextReader_CrAtRegionBoundary() throws IOException {
+		// the second region starts after the LF that follows the CR ending the first region
+		this.assertLines("a\nbc\r\nd", 5, Arrays.asList("a", "bc", "d"), 0, 2, 6);
+		this.assertLines("abcd\r\nxy", 5, Arrays.asList("abcd", "xy"), 0, 6);
+		// a CR ending the first region that is not followed by an LF
+		this.assertLines("a\nbc\rd", 5, Arrays.asList("a", "bc", "d"), 0, 2, 5);
+		this.assertLines("abcd\r\r\n", 5, Arrays.asList("abcd", ""), 0, 5);
+	}
+
+	@Test(groups = {"integration", "text"})
+	public void TextReader_FinalLineWithoutTerminator() throws IOException {
+		this.assertLines("a\nb", 2, Arrays.asList("a", "b"), 0, 2);
+		this.assertLines("a\n", 2, Collections.singletonList("a"), 0);
+		this.assertLines("abc", 4, Collections.singletonList("abc"), 0);
+	}
+
+	@Test(groups = {"integration", "text"})
+	public void TextReader_EmptyFile() throws IOException {
+		this.assertLines("", 2, Collections.emptyList());
+	}
+
+	@Test(groups = {"integration", "text"})
+	public void TextReader_SharedLineData() throws IOException {
+		Files.write(this.baseDir.resolve(FILE), "x\ny\nx\n".getBytes(StandardCharsets.US_ASCII));
+
+		Node.Op pluginNode = this.read(new TextReader(new MemEntityFactory()));
+		List<? extends Node.Op> children = pluginNode.getChildren();
+		Assert.assertSame(children.get(2).getArtifact().getData(), children.get(0).getArtifact().getData());
+		Assert.assertNotSame(children.get(1).getArtifact().getData(), children.get(0).getArtifact().getData());
+	}
+
+	@Test(groups = {"integration", "text"}, expectedExceptions = EccoException.class)
+	public void TextReader_LineLongerThanRegion() throws IOException {
+		Files.write(this.baseDir.resolve(FILE), "abcdefgh\nx".getBytes(StandardCharsets.US_ASCII));
+
+		TextReader reader = new TextReader(new MemEntityFactory());
+		reader.setMappingThreshold(0);
+		reader.setMaxRegionSize(5);
+		this.read(reader);
+	}
+
+	@Test(groups = {"integration", "text"}, expectedExceptions = EccoException.class)
+	public void TextReader_MissingFile() {
+		this.read(new TextReader(new MemEntityFactory()));
+	}
+
+
+	/**
+	 * Reads the given content with the file read into the heap, mapped as a whole, mapped in regions of the given size and read line by line, and checks the lines and (except for the line by line mode) their offsets.
+	 */
+	private void assertLines(String content, int regionSize, List<String> lines, long... offsets) throws IOException {
+		Files.write(this.baseDir.resolve(FILE), content.getBytes(StandardCharsets.US_ASCII));
+
+		TextReader heapReader = new TextReader(new MemEntityFactory());
+		heapReader.setMappingThreshold(Long.MAX_VALUE);
+		TextReader mappedReader = new TextReader(new MemEntityFactory());
+		mappedReader.setMappingThreshold(0);
+		TextReader regionReader = new TextReader(new MemEntityFactory());
+		regionReader.setMappingThreshold(0);
+		regionReader.setMaxRegionSize(regionSize);
+
+		for (TextReader reader : Arrays.asList(heapReader, mappedReader, regionReader)) {
+			Node.Op pluginNode = this.read(reader);
+			Assert.assertEquals(this.lines(pluginNode), lines);
+			Assert.assertEquals(Arrays.toString(pluginNode.<long[]>getProperty(TextReader.PROPERTY_LINE_OFFSETS).orElse(null)), Arrays.toString(offsets));
+		}
+
+		TextReader lineReader = new TextReader(new MemEntityFactory());
+		lineReader.setMemoryMapped(false);
+		Assert.assertEquals(this.lines(this.read(lineReader)), lines);
+	}
+
+	private Node.Op read(TextReader reader) {
+		Set<Node.Op> nodes = reader.read(this.baseDir, new Path[]{FILE});
+		Assert.assertEquals(nodes.size(), 1);
+		return nodes.iterator().next();
+	}
+
+	private List<String> lines(Node.Op pluginNode) {
+		List<String> lines = new ArrayList<>();
+		for (Node.Op lineNode : pluginNode.getChildren())
+			lines.add(((LineArtifactData) lineNode.getArtifact().getData()).getLine());
+		return lines;
+	}
+
+}
@@ -1,5 +1,6 @@
 package at.jku.isse.ecco.adapter.text;
 
+import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.adapter.ArtifactReader;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
 import at.jku.isse.ecco.artifact.Artifact;
@@ -11,10 +12,17 @@ import com.google.inject.Inject;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
@@ -22,8 +30,27 @@ public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
 	public static final String PROPERTY_LINE_START = "LINE_START";
 	public static final String PROPERTY_LINE_END = "LINE_END";
 
+	/**
+	 * Property of the plugin node of a file that was read in the memory-mapped mode: the byte offsets (long[]) of the lines in the file, in the order of the line nodes.
+	 */
+	public static final String PROPERTY_LINE_OFFSETS = "LINE_OFFSETS";
+
+	/**
+	 * Default size in bytes from which files are mapped into memory instead of being read into the heap.
+	 */
+	public static final long DEFAULT_MAPPING_THRESHOLD = 64L << 20;
+
+	/**
+	 * Default maximum number of bytes of a file that are mapped at once.
+	 */
+	public static final long DEFAULT_MAX_REGION_SIZE = 1L << 30;
+
 	private final EntityFactory entityFactory;
 
+	private boolean memoryMapped = true;
+	private long mappingThreshold = DEFAULT_MAPPING_THRESHOLD;
+	private long maxRegionSize = DEFAULT_MAX_REGION_SIZE;
+
 	@Inject
 	public TextReader(EntityFactory entityFactory) {
 		checkNotNull(entityFactory);
@@ -31,6 +58,52 @@ public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
 		this.entityFactory = entityFactory;
 	}
 
+	/**
+	 * In the memory-mapped mode (the default) files are split into lines (terminated by LF, CR or CRLF) at the byte level. Lines are decoded with the platform charset, like in the other mode.
+	 * Files of at least {@link #setMappingThreshold(long) the mapping threshold} are mapped into memory, smaller files are read into the heap.
+	 * Identical lines within a file share their artifact data, which is only created for the first occurrence.
+	 * Instead of the line properties of every line node the plugin node of a file gets the offsets of all lines ({@link #PROPERTY_LINE_OFFSETS}); the line number of a line node is its position among the children of the plugin node.
+	 * Otherwise, or if the platform charset does not encode line terminators like ASCII, files are read line by line and every line node gets the {@link #PROPERTY_LINE_START} and {@link #PROPERTY_LINE_END} properties.
+	 *
+	 * @param memoryMapped True if files should be split at the byte level.
+	 */
+	public void setMemoryMapped(boolean memoryMapped) {
+		this.memoryMapped = memoryMapped;
+	}
+
+	public boolean isMemoryMapped() {
+		return this.memoryMapped;
+	}
+
+	/**
+	 * Sets the size from which files are mapped into memory in the memory-mapped mode.
+	 * Mapped regions are only released when they are garbage collected, and on some platforms (e.g. Windows) a file cannot be truncated or deleted while a region of it is mapped. Therefore only large files, for which reading them into the heap is expensive, are mapped.
+	 *
+	 * @param mappingThreshold The size in bytes from which files are mapped.
+	 */
+	public void setMappingThreshold(long mappingThreshold) {
+		checkArgument(mappingThreshold >= 0, "The mapping threshold must not be negative.");
+		this.mappingThreshold = mappingThreshold;
+	}
+
+	public long getMappingThreshold() {
+		return this.mappingThreshold;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of a file that are mapped at once. Lines (including their terminator) must not be longer than that.
+	 *
+	 * @param maxRegionSize The maximum region size in bytes.
+	 */
+	public void setMaxRegionSize(long maxRegionSize) {
+		checkArgument(maxRegionSize > 1 && maxRegionSize <= Integer.MAX_VALUE, "The maximum region size must be between 2 and %s.", Integer.MAX_VALUE);
+		this.maxRegionSize = maxRegionSize;
+	}
+
+	public long getMaxRegionSize() {
+		return this.maxRegionSize;
+	}
+
 	@Override
 	public String getPluginId() {
 		return TextPlugin.class.getName();
@@ -55,6 +128,9 @@ public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	@Override
 	public Set<Node.Op> read(Path base, Path[] input) {
+		Charset charset = Charset.defaultCharset();
+		boolean splitBytes = this.memoryMapped && isAsciiCompatible(charset);
+
 		Set<Node.Op> nodes = new HashSet<>();
 		for (Path path : input) {
 			Path resolvedPath = base.resolve(path);
@@ -62,6 +138,20 @@ public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
 			Node.Op pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
 			nodes.add(pluginNode);
 
+			if (splitBytes) {
+				try {
+					LineSplitter splitter = new LineSplitter(pluginNode, charset);
+					if (Files.size(resolvedPath) >= this.mappingThreshold)
+						this.readMapped(resolvedPath, splitter);
+					else
+						splitter.split(ByteBuffer.wrap(Files.readAllBytes(resolvedPath)), 0, -1);
+					splitter.finish();
+				} catch (IOException e) {
+					throw new EccoException("Error reading file " + resolvedPath + ".", e);
+				}
+				continue;
+			}
+
 			try (BufferedReader br = new BufferedReader(new FileReader(resolvedPath.toFile()))) {
 				String line;
 				int i = 0;
@@ -69,18 +159,182 @@ public class TextReader implements ArtifactReader<Path, Set<Node.Op>> {
 					i++;
 					Artifact.Op<LineArtifactData> lineArtifact = this.entityFactory.createArtifact(new LineArtifactData(line));
 					Node.Op lineNode = this.entityFactory.createNode(lineArtifact);
-					lineNode.putProperty(PROPERTY_LINE_START, i);
-					lineNode.putProperty(PROPERTY_LINE_END, i);
+					lineNode.putIntProperty(PROPERTY_LINE_START, i);
+					lineNode.putIntProperty(PROPERTY_LINE_END, i);
 					pluginNode.addChild(lineNode);
 				}
 			} catch (IOException e) {
-				e.printStackTrace();
+				throw new EccoException("Error reading file " + resolvedPath + ".", e);
 			}
 
 		}
 		return nodes;
 	}
 
+	/**
+	 * @return True if the given charset encodes CR and LF like ASCII and uses no other bytes of that value, so that lines can be split before decoding them.
+	 */
+	private static boolean isAsciiCompatible(Charset charset) {
+		return Arrays.equals("\r\nA".getBytes(charset), new byte[]{'\r', '\n', 'A'}) && !charset.name().toUpperCase().startsWith("UTF-16") && !charset.name().toUpperCase().startsWith("UTF-32");
+	}
+
+	/**
+	 * Maps the given file region by region and splits every region into lines.
+	 * Regions always start at the beginning of a line, so that no line is split across regions.
+	 */
+	private void readMapped(Path file, LineSplitter splitter) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			long regionOffset = 0;
+			while (regionOffset < size) {
+				int regionSize = (int) Math.min(this.maxRegionSize, size - regionOffset);
+				boolean lastRegion = regionOffset + regionSize == size;
+				MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionOffset, regionSize);
+
+				// a CR at the end of the region could be followed by an LF in the next one
+				int nextByte = -1;
+				if (!lastRegion) {
+					ByteBuffer next = ByteBuffer.allocate(1);
+					if (channel.read(next, regionOffset + regionSize) == 1)
+						nextByte = next.get(0);
+				}
+
+				int consumed = splitter.split(region, regionOffset, nextByte);
+				if (lastRegion)
+					break;
+				if (consumed == 0)
+					throw new EccoException("Line at offset " + regionOffset + " of file " + file + " is longer than " + this.maxRegionSize + " bytes.");
+				regionOffset += consumed;
+			}
+		}
+	}
+
+
+	/**
+	 * Splits the bytes of a file into lines and adds a line node for every line to the plugin node of the file.
+	 */
+	private class LineSplitter {
+		private final Node.Op pluginNode;
+		private final Charset charset;
+		private final Map<Line, LineArtifactData> lineData = new HashMap<>();
+		private long[] offsets = new long[64];
+		private int numLines = 0;
+
+		private LineSplitter(Node.Op pluginNode, Charset charset) {
+			this.pluginNode = pluginNode;
+			this.charset = charset;
+		}
+
+		/**
+		 * Adds the lines of the given region of the file.
+		 * If the region is not the end of the file (the next byte is given) only the lines whose terminator is contained in the region are added.
+		 *
+		 * @param region       The bytes of the region.
+		 * @param regionOffset The offset of the region in the file.
+		 * @param nextByte     The byte following the region, or -1 if the region ends the file.
+		 * @return The number of bytes of the region (plus the following byte, if it is the LF of a CRLF terminator at the end of the region) that belong to added lines.
+		 */
+		private int split(ByteBuffer region, long regionOffset, int nextByte) {
+			int regionSize = region.limit();
+			int lineStart = 0;
+			int hash = 1;
+			int position = 0;
+			while (position < regionSize) {
+				byte b = region.get(position);
+				if (b != '\n' && b != '\r') {
+					hash = 31 * hash + b;
+					position++;
+					continue;
+				}
+
+				this.addLine(regionOffset + lineStart, new Line(region, lineStart, position - lineStart, hash, this.charset));
+
+				if (b == '\r') {
+					int following = position + 1 < regionSize ? region.get(position + 1) : nextByte;
+					if (following == '\n')
+						position++;
+				}
+				position++;
+				lineStart = position;
+				hash = 1;
+			}
+
+			// last line without line terminator
+			if (nextByte == -1 && lineStart < regionSize) {
+				this.addLine(regionOffset + lineStart, new Line(region, lineStart, regionSize - lineStart, hash, this.charset));
+				lineStart = regionSize;
+			}
+
+			return lineStart;
+		}
+
+		private void addLine(long offset, Line line) {
+			if (this.numLines == this.offsets.length)
+				this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+			this.offsets[this.numLines++] = offset;
+
+			LineArtifactData data = this.lineData.get(line);
+			if (data == null) {
+				data = new LineArtifactData(line.decode());
+				this.lineData.put(line, data);
+			}
+			Artifact.Op<LineArtifactData> lineArtifact = TextReader.this.entityFactory.createArtifact(data);
+			Node.Op lineNode = TextReader.this.entityFactory.createNode(lineArtifact);
+			this.pluginNode.addChild(lineNode);
+		}
+
+		private void finish() {
+			this.pluginNode.putProperty(PROPERTY_LINE_OFFSETS, Arrays.copyOf(this.offsets, this.numLines));
+		}
+	}
+
+
+	/**
+	 * The bytes of a line in a region of a file, compared byte by byte without decoding them.
+	 */
+	private static class Line {
+		private final ByteBuffer region;
+		private final int offset;
+		private final int length;
+		private final int hash;
+		private final Charset charset;
+
+		private Line(ByteBuffer region, int offset, int length, int hash, Charset charset) {
+			this.region = region;
+			this.offset = offset;
+			this.length = length;
+			this.hash = hash;
+			this.charset = charset;
+		}
+
+		private String decode() {
+			byte[] bytes = new byte[this.length];
+			this.region.get(this.offset, bytes);
+			return new String(bytes, this.charset);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Line))
+				return false;
+			Line other = (Line) obj;
+			if (this.hash != other.hash || this.length != other.length)
+				return false;
+			for (int i = 0; i < this.length; i++) {
+				if (this.region.get(this.offset + i) != other.region.get(other.offset + i))
+					return false;
+			}
+			return true;
+		}
+	}
+
 
 	private Collection<ReadListener> listeners = new ArrayList<>();
 
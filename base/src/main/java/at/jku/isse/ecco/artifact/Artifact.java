@@ -4,10 +4,12 @@ import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.dao.Persistable;
 import at.jku.isse.ecco.pog.PartialOrderGraph;
 import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.PropertyMap;
 
 import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -205,6 +207,41 @@ public interface Artifact<DataType extends ArtifactData> extends Persistable {
 		this.getProperties().put(name, property);
 	}
 
+	/**
+	 * Returns the integer property with the given name without boxing it if the properties are a {@link PropertyMap} (see {@link PropertyMap#INT_KEYS}).
+	 *
+	 * @param name The name of the property that should be retrieved.
+	 * @return An optional which contains the value of the property, or nothing if there is no such property or it is not an integer.
+	 */
+	public default OptionalInt getIntProperty(final String name) {
+		checkNotNull(name);
+		checkArgument(!name.isEmpty(), "Expected non-empty name, but was empty.");
+
+		final Map<String, Object> properties = this.getProperties();
+		if (properties instanceof PropertyMap)
+			return ((PropertyMap) properties).getInt(name);
+		final Object obj = properties.get(name);
+		return obj instanceof Integer ? OptionalInt.of((Integer) obj) : OptionalInt.empty();
+	}
+
+	/**
+	 * Adds a new integer property to this artifact without boxing it if the properties are a {@link PropertyMap} (see {@link PropertyMap#INT_KEYS}).
+	 * These properties are volatile, i.e. they are not persisted!
+	 *
+	 * @param name     The name of the property.
+	 * @param property The value of the property.
+	 */
+	public default void putIntProperty(final String name, final int property) {
+		checkNotNull(name);
+		checkArgument(!name.isEmpty(), "Expected non-empty name, but was empty.");
+
+		final Map<String, Object> properties = this.getProperties();
+		if (properties instanceof PropertyMap)
+			((PropertyMap) properties).putInt(name, property);
+		else
+			properties.put(name, property);
+	}
+
 	/**
 	 * Removes the property with the given name. If the name could not be found in the map it does nothing.
 	 *
@@ -256,6 +293,14 @@ public interface Artifact<DataType extends ArtifactData> extends Persistable {
 		public void setSequenceNumber(int sequenceNumber);
 
 
+		/**
+		 * Releases memory this artifact reserved for future modifications (e.g. unused capacity of its lists of references).
+		 * The artifact can still be modified afterwards, which may allocate the memory again.
+		 */
+		public default void trimToSize() {
+		}
+
+
 		// TODO: document these! make clear where a check is performed for "already existing" or "null" etc.
 
 		public default void checkConsistency() {
@@ -277,6 +322,11 @@ public interface Artifact<DataType extends ArtifactData> extends Persistable {
 
 		public Artifact.Op<?> getReplacingArtifact();
 
+		/**
+		 * Sets the artifact that replaces this artifact in tree operations, or removes it if null is given.
+		 *
+		 * @param replacingArtifact The replacing artifact, which must not have a replacing artifact itself, or null.
+		 */
 		public void setReplacingArtifact(Artifact.Op<?> replacingArtifact);
 
 		public default void updateArtifactReferences() {
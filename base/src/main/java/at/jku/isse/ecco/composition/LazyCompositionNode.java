@@ -3,7 +3,7 @@ package at.jku.isse.ecco.composition;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.tree.Node;
-import org.eclipse.collections.impl.factory.Maps;
+import at.jku.isse.ecco.util.PropertyMap;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -152,7 +152,7 @@ public class LazyCompositionNode implements Node {
 	@Override
 	public Map<String, Object> getProperties() {
 		if (this.properties == null)
-			this.properties = Maps.mutable.empty();
+			this.properties = new PropertyMap();
 		return this.properties;
 	}
 
@@ -8,7 +8,9 @@ import at.jku.isse.ecco.module.Condition;
 import at.jku.isse.ecco.module.Module;
 import at.jku.isse.ecco.module.ModuleRevision;
 import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.tree.Node;
 import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.Trees;
 
 /**
  * Represents a trace between a presence condition and an artifact tree. An association can have a set of parents.
@@ -36,6 +38,16 @@ public interface Association extends Persistable {
 	 */
 	public RootNode getRootNode();
 
+	/**
+	 * Returns the root node of the artifact tree for reading only, or null if no artifacts are stored.
+	 * The returned tree must not be modified. This allows implementations to return a view of a frozen tree (see {@link Op#freeze()}) instead of thawing it like {@link #getRootNode()}.
+	 *
+	 * @return The root of the artifact tree for reading.
+	 */
+	public default RootNode getReadOnlyRootNode() {
+		return this.getRootNode();
+	}
+
 
 	// TODO: make use of this! use it to check added modules that do not already exist in counter.
 	public Repository getContainingRepository();
@@ -71,6 +83,20 @@ public interface Association extends Persistable {
 		 */
 		public void setRootNode(RootNode.Op root);
 
+		@Override
+		public default RootNode.Op getReadOnlyRootNode() {
+			return this.getRootNode();
+		}
+
+		/**
+		 * Signals that the artifact tree is not going to be modified until it is sliced again, so that it can be stored in a compact form.
+		 * By default the tree is compacted (see {@link Trees#compact(Node.Op)}). Implementations may instead freeze the tree into an immutable encoding that is thawed again by {@link #getRootNode()}.
+		 */
+		public default void freeze() {
+			if (this.getRootNode() != null)
+				this.getRootNode().compact();
+		}
+
 
 		public Repository.Op getContainingRepository();
 
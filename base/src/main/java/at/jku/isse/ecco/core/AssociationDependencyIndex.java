@@ -0,0 +1,121 @@
+package at.jku.isse.ecco.core;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.ArtifactReference;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Index of the cross reference dependencies between associations (association to referenced associations with the number of artifact references as weight).
+ * <p>
+ * In contrast to the {@link DependencyGraph} the index is kept across operations. The dependencies of an association are computed when they are first requested and kept until the association is invalidated.
+ * An association must be invalidated whenever its artifact tree changes. Invalidating an association also invalidates all associations that reference it, as the targets of their references may have been moved to other associations.
+ */
+public class AssociationDependencyIndex {
+
+	private final Map<Association, Map<Association, Integer>> dependencies = new HashMap<>();
+	private final Map<Association, Set<Association>> dependents = new HashMap<>();
+
+
+	/**
+	 * Returns the associations referenced by the given association together with the number of artifact references.
+	 *
+	 * @param association The association.
+	 * @return Unmodifiable map from referenced association to weight.
+	 */
+	public synchronized Map<Association, Integer> getDependencies(Association association) {
+		checkNotNull(association);
+
+		Map<Association, Integer> associationDependencies = this.dependencies.get(association);
+		if (associationDependencies == null) {
+			associationDependencies = new HashMap<>();
+			RootNode rootNode = association.getReadOnlyRootNode();
+			if (rootNode != null)
+				this.computeRec(association, rootNode, associationDependencies);
+			this.dependencies.put(association, associationDependencies);
+			for (Association to : associationDependencies.keySet())
+				this.dependents.computeIfAbsent(to, k -> new HashSet<>()).add(association);
+		}
+		return Collections.unmodifiableMap(associationDependencies);
+	}
+
+	private void computeRec(Association fromA, Node node, Map<Association, Integer> associationDependencies) {
+		if (node.isUnique() && node.getArtifact() != null) {
+			for (ArtifactReference ar : node.getArtifact().getUses()) {
+				Association toA = ar.getTarget().getContainingNode().getContainingAssociation();
+				if (toA == null)
+					throw new EccoException("Artifacts must be contained in an association.");
+				if (toA != fromA)
+					associationDependencies.merge(toA, 1, Integer::sum);
+			}
+		}
+
+		for (Node child : node.getChildren()) {
+			this.computeRec(fromA, child, associationDependencies);
+		}
+	}
+
+	/**
+	 * Returns the associations that are referenced by the given associations but are not contained in them.
+	 * This is the same set of associations that {@link DependencyGraph.ReferencesResolveMode#INCLUDE_ALL_REFERENCED_ASSOCIATIONS} adds to a dependency graph.
+	 *
+	 * @param associations The associations.
+	 * @return The referenced associations that are not contained in the given associations.
+	 */
+	public synchronized Set<Association> getReferencedAssociations(Collection<? extends Association> associations) {
+		checkNotNull(associations);
+
+		Set<Association> selected = new HashSet<>(associations);
+		Set<Association> referenced = new HashSet<>();
+		for (Association association : selected) {
+			for (Association to : this.getDependencies(association).keySet()) {
+				if (!selected.contains(to))
+					referenced.add(to);
+			}
+		}
+		return referenced;
+	}
+
+	/**
+	 * Invalidates the dependencies of the given association and of all associations referencing it.
+	 *
+	 * @param association The association whose artifact tree changed.
+	 */
+	public synchronized void invalidate(Association association) {
+		checkNotNull(association);
+
+		this.remove(association);
+		Set<Association> associationDependents = this.dependents.remove(association);
+		if (associationDependents != null) {
+			for (Association dependent : associationDependents)
+				this.remove(dependent);
+		}
+	}
+
+	private void remove(Association association) {
+		Map<Association, Integer> associationDependencies = this.dependencies.remove(association);
+		if (associationDependencies != null) {
+			for (Association to : associationDependencies.keySet()) {
+				Set<Association> toDependents = this.dependents.get(to);
+				if (toDependents != null) {
+					toDependents.remove(association);
+					if (toDependents.isEmpty())
+						this.dependents.remove(to);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Invalidates all associations.
+	 */
+	public synchronized void clear() {
+		this.dependencies.clear();
+		this.dependents.clear();
+	}
+
+}
@@ -0,0 +1,252 @@
+package at.jku.isse.ecco.core;
+
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Index of compact signatures of the artifact trees of associations that is used to skip associations a new artifact tree cannot overlap with (see {@link at.jku.isse.ecco.util.Trees#overlaps(Node.Op, Node.Op)}).
+ * <p>
+ * The signature of an association is a Bloom filter of the paths (the hashes of the nodes from the root to the node) of its unique and atomic nodes.
+ * A tree can only overlap with an association if the path of one of its nodes is contained in the signature of the association. False positives are possible, false negatives are not.
+ * <p>
+ * Like the {@link AssociationDependencyIndex} the index is kept across operations. The signature of an association is computed when it is first requested and kept until the association is invalidated.
+ * An association must be invalidated whenever its artifact tree changes. Signatures may be requested concurrently.
+ */
+public class AssociationSignatureIndex {
+
+	/**
+	 * Number of bits of a signature per contained path.
+	 */
+	private static final int BITS_PER_PATH = 8;
+
+	/**
+	 * Number of bits of a signature that are set per contained path.
+	 */
+	private static final int NUM_HASHES = 3;
+
+
+	private final Map<Association, Signature> signatures = new ConcurrentHashMap<>();
+
+
+	/**
+	 * Computes the paths of all nodes of the given tree (except the root itself) to be checked against signatures with {@link #mayOverlap(Association, long[])}.
+	 *
+	 * @param rootNode The root of the tree.
+	 * @return The paths of the nodes of the tree.
+	 */
+	public static long[] computePaths(Node rootNode) {
+		checkNotNull(rootNode);
+
+		Collection<Long> paths = new ArrayList<>();
+		for (Node child : rootNode.getChildren())
+			collectPathsRec(child, 0, false, paths);
+		return paths.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Computes the path of the given node, i.e. the hashes of the nodes from the root of its tree (excluding the root itself, which has no artifact) to the node.
+	 *
+	 * @param node The node.
+	 * @return The path of the node.
+	 */
+	public static long computePath(Node node) {
+		checkNotNull(node);
+
+		Deque<Node> ancestors = new ArrayDeque<>();
+		for (Node current = node; current != null && current.getArtifact() != null; current = current.getParent())
+			ancestors.push(current);
+
+		long path = 0;
+		for (Node ancestor : ancestors)
+			path = 31 * path + ancestor.hashCode();
+		return path;
+	}
+
+	private static void collectPathsRec(Node node, long parentPath, boolean uniqueAndAtomicOnly, Collection<Long> paths) {
+		long path = 31 * parentPath + node.hashCode();
+		if (!uniqueAndAtomicOnly || node.isUnique() || node.isAtomic())
+			paths.add(path);
+
+		// a match of an atomic node already is an overlap, so the nodes below it do not matter
+		if (uniqueAndAtomicOnly && node.isAtomic())
+			return;
+
+		for (Node child : node.getChildren())
+			collectPathsRec(child, path, uniqueAndAtomicOnly, paths);
+	}
+
+
+	/**
+	 * Checks whether a tree with the given paths may overlap with the artifact tree of the given association.
+	 *
+	 * @param association The association.
+	 * @param paths       The paths of the nodes of the tree (see {@link #computePaths(Node)}).
+	 * @return False if the tree cannot overlap with the association, true if it may.
+	 */
+	public boolean mayOverlap(Association association, long[] paths) {
+		checkNotNull(association);
+		checkNotNull(paths);
+
+		Signature signature = this.signatures.get(association);
+		if (signature == null) {
+			signature = this.computeSignature(association);
+			Signature existing = this.signatures.putIfAbsent(association, signature);
+			if (existing != null)
+				signature = existing;
+		}
+
+		for (long path : paths) {
+			if (signature.mightContain(path))
+				return true;
+		}
+		return false;
+	}
+
+	private Signature computeSignature(Association association) {
+		Collection<Long> paths = new ArrayList<>();
+		RootNode rootNode = association.getReadOnlyRootNode();
+		if (rootNode != null) {
+			for (Node child : rootNode.getChildren())
+				collectPathsRec(child, 0, true, paths);
+		}
+
+		Signature signature = new Signature(paths.size());
+		for (long path : paths)
+			signature.add(path);
+		return signature;
+	}
+
+	/**
+	 * Creates a collector of the given associations a tree that is built incrementally may overlap with.
+	 *
+	 * @param associations The associations to be checked.
+	 * @param <A>          The type of the associations.
+	 * @return The collector.
+	 */
+	public <A extends Association> Candidates<A> candidates(Collection<? extends A> associations) {
+		checkNotNull(associations);
+
+		return new Candidates<>(associations);
+	}
+
+	/**
+	 * Collects the associations a tree may overlap with while the tree is built (e.g. while its files are read), so that the signatures are checked part by part instead of after the whole tree was built.
+	 * Every node of the tree must be added, either on its own or as part of a subtree, once it is added to the tree. Parts may be added in any order.
+	 *
+	 * @param <A> The type of the associations.
+	 */
+	public class Candidates<A extends Association> {
+		private final List<A> remaining;
+		private final List<A> candidates = new ArrayList<>();
+
+		private Candidates(Collection<? extends A> associations) {
+			this.remaining = new ArrayList<>(associations);
+		}
+
+		/**
+		 * Adds the given node without its children.
+		 *
+		 * @param node The node, which must already be added to its parent.
+		 */
+		public void addNode(Node node) {
+			this.check(new long[]{computePath(node)});
+		}
+
+		/**
+		 * Adds the given node together with all nodes below it.
+		 *
+		 * @param node The root of the subtree, which must already be added to its parent.
+		 */
+		public void addSubtree(Node node) {
+			Collection<Long> paths = new ArrayList<>();
+			long parentPath = node.getParent() != null ? computePath(node.getParent()) : 0;
+			collectPathsRec(node, parentPath, false, paths);
+			this.check(paths.stream().mapToLong(Long::longValue).toArray());
+		}
+
+		private void check(long[] paths) {
+			this.remaining.removeIf(association -> {
+				if (mayOverlap(association, paths)) {
+					this.candidates.add(association);
+					return true;
+				}
+				return false;
+			});
+		}
+
+		/**
+		 * @return The associations the tree may overlap with.
+		 */
+		public List<A> getCandidates() {
+			return Collections.unmodifiableList(this.candidates);
+		}
+	}
+
+
+	/**
+	 * Invalidates the signature of the given association.
+	 *
+	 * @param association The association whose artifact tree changed.
+	 */
+	public void invalidate(Association association) {
+		checkNotNull(association);
+
+		this.signatures.remove(association);
+	}
+
+	/**
+	 * Invalidates all associations.
+	 */
+	public void clear() {
+		this.signatures.clear();
+	}
+
+
+	private static class Signature {
+		private final long[] bits;
+		private final int mask;
+
+		private Signature(int numPaths) {
+			int numBits = Integer.highestOneBit(Math.max(64, numPaths * BITS_PER_PATH) - 1) << 1;
+			this.bits = new long[numBits >>> 6];
+			this.mask = numBits - 1;
+		}
+
+		private void add(long path) {
+			long hash = mix(path);
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < NUM_HASHES; i++) {
+				int bit = (h1 + i * h2) & this.mask;
+				this.bits[bit >>> 6] |= 1L << bit;
+			}
+		}
+
+		private boolean mightContain(long path) {
+			long hash = mix(path);
+			int h1 = (int) hash;
+			int h2 = (int) (hash >>> 32);
+			for (int i = 0; i < NUM_HASHES; i++) {
+				int bit = (h1 + i * h2) & this.mask;
+				if ((this.bits[bit >>> 6] & (1L << bit)) == 0)
+					return false;
+			}
+			return true;
+		}
+
+		private static long mix(long hash) {
+			hash ^= hash >>> 33;
+			hash *= 0xff51afd7ed558ccdL;
+			hash ^= hash >>> 33;
+			hash *= 0xc4ceb9fe1a85ec53L;
+			hash ^= hash >>> 33;
+			return hash;
+		}
+	}
+
+}
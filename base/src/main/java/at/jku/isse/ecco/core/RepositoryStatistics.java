@@ -0,0 +1,163 @@
+package at.jku.isse.ecco.core;
+
+import at.jku.isse.ecco.module.Module;
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Statistics of the artifact trees and conditions of the associations of a repository, e.g. for charts of the repository.
+ * <p>
+ * The number of artifacts of every association and its artifacts per depth are computed once and added to running totals, which are kept until the association is invalidated.
+ * Like the {@link AssociationSignatureIndex} the statistics are kept across operations and an association must be invalidated whenever it is added, removed or its artifact tree changes.
+ * Statistics of the conditions (modules per order) are computed from the associations whenever a snapshot is taken, because the conditions of all associations depend on the module counts of the whole repository, which change with every commit.
+ */
+public class RepositoryStatistics {
+
+	private final Map<Association, AssociationStatistics> associationStatistics = new HashMap<>();
+
+	// totals of all associations in associationStatistics
+	private long numArtifacts = 0;
+	private final SortedMap<Integer, Long> artifactsPerDepth = new TreeMap<>();
+
+
+	/**
+	 * Takes a snapshot of the statistics of the given associations, computing the artifact statistics of those associations that are new or were invalidated since the last snapshot.
+	 *
+	 * @param associations All associations of the repository.
+	 * @return The snapshot.
+	 */
+	public synchronized Snapshot getSnapshot(Collection<? extends Association> associations) {
+		checkNotNull(associations);
+
+		// associations that were neither added nor invalidated since the last snapshot are not traversed again
+		List<Association> missing = associations.stream().filter(association -> !this.associationStatistics.containsKey(association)).collect(Collectors.toList());
+		Map<Association, AssociationStatistics> computed = missing.parallelStream().collect(Collectors.toMap(association -> association, AssociationStatistics::new));
+		for (Association association : missing)
+			this.add(association, computed.get(association));
+
+		Map<String, Integer> artifactsPerAssociation = new LinkedHashMap<>();
+		SortedMap<Integer, Integer> modulesPerOrder = new TreeMap<>();
+		for (Association association : associations) {
+			artifactsPerAssociation.put(association.getId(), this.associationStatistics.get(association).numArtifacts);
+			for (Module module : association.computeCondition().getModules().keySet())
+				modulesPerOrder.merge(module.getOrder(), 1, Integer::sum);
+		}
+
+		return new Snapshot(associations.size(), this.numArtifacts, this.artifactsPerDepth, artifactsPerAssociation, modulesPerOrder);
+	}
+
+	private void add(Association association, AssociationStatistics statistics) {
+		this.associationStatistics.put(association, statistics);
+		this.numArtifacts += statistics.numArtifacts;
+		for (int depth = 0; depth < statistics.artifactsPerDepth.length; depth++) {
+			if (statistics.artifactsPerDepth[depth] > 0)
+				this.artifactsPerDepth.merge(depth, (long) statistics.artifactsPerDepth[depth], Long::sum);
+		}
+	}
+
+	/**
+	 * Removes the statistics of the given association from the totals.
+	 *
+	 * @param association The association that was added or removed or whose artifact tree changed.
+	 */
+	public synchronized void invalidate(Association association) {
+		checkNotNull(association);
+
+		AssociationStatistics statistics = this.associationStatistics.remove(association);
+		if (statistics == null)
+			return;
+
+		this.numArtifacts -= statistics.numArtifacts;
+		for (int depth = 0; depth < statistics.artifactsPerDepth.length; depth++) {
+			long removed = statistics.artifactsPerDepth[depth];
+			if (removed > 0)
+				this.artifactsPerDepth.computeIfPresent(depth, (key, value) -> value == removed ? null : value - removed);
+		}
+	}
+
+	/**
+	 * Invalidates all associations.
+	 */
+	public synchronized void clear() {
+		this.associationStatistics.clear();
+		this.numArtifacts = 0;
+		this.artifactsPerDepth.clear();
+	}
+
+
+	/**
+	 * Number of artifacts and artifacts per depth of a single association (see {@link Node#countArtifacts()} and {@link Node#countArtifactsPerDepth()}).
+	 */
+	private static class AssociationStatistics {
+		private final int numArtifacts;
+		private final int[] artifactsPerDepth;
+
+		private AssociationStatistics(Association association) {
+			Map<Integer, Integer> artifactsPerDepth = association.getReadOnlyRootNode() == null ? Collections.emptyMap() : association.getReadOnlyRootNode().countArtifactsPerDepth();
+			this.artifactsPerDepth = new int[artifactsPerDepth.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+			int numArtifacts = 0;
+			for (Map.Entry<Integer, Integer> entry : artifactsPerDepth.entrySet()) {
+				this.artifactsPerDepth[entry.getKey()] = entry.getValue();
+				numArtifacts += entry.getValue();
+			}
+			this.numArtifacts = numArtifacts;
+		}
+	}
+
+
+	/**
+	 * Immutable statistics of a repository at the time they were taken.
+	 */
+	public static class Snapshot {
+		private final int numAssociations;
+		private final long numArtifacts;
+		private final SortedMap<Integer, Long> artifactsPerDepth;
+		private final Map<String, Integer> artifactsPerAssociation;
+		private final SortedMap<Integer, Integer> modulesPerOrder;
+
+		private Snapshot(int numAssociations, long numArtifacts, SortedMap<Integer, Long> artifactsPerDepth, Map<String, Integer> artifactsPerAssociation, SortedMap<Integer, Integer> modulesPerOrder) {
+			this.numAssociations = numAssociations;
+			this.numArtifacts = numArtifacts;
+			this.artifactsPerDepth = Collections.unmodifiableSortedMap(new TreeMap<>(artifactsPerDepth));
+			this.artifactsPerAssociation = Collections.unmodifiableMap(artifactsPerAssociation);
+			this.modulesPerOrder = Collections.unmodifiableSortedMap(modulesPerOrder);
+		}
+
+		public int getNumAssociations() {
+			return this.numAssociations;
+		}
+
+		/**
+		 * @return The number of artifacts of all associations.
+		 */
+		public long getNumArtifacts() {
+			return this.numArtifacts;
+		}
+
+		/**
+		 * @return The number of artifacts (value) per depth (key) in the artifact trees of all associations.
+		 */
+		public SortedMap<Integer, Long> getArtifactsPerDepth() {
+			return this.artifactsPerDepth;
+		}
+
+		/**
+		 * @return The number of artifacts (value) per association id (key) in the order of the associations of the repository.
+		 */
+		public Map<String, Integer> getArtifactsPerAssociation() {
+			return this.artifactsPerAssociation;
+		}
+
+		/**
+		 * @return The number of modules (value) per order (key) in the conditions of all associations.
+		 */
+		public SortedMap<Integer, Integer> getModulesPerOrder() {
+			return this.modulesPerOrder;
+		}
+	}
+
+}
@@ -1,5 +1,9 @@
 package at.jku.isse.ecco.dao;
 
+import at.jku.isse.ecco.repository.Repository;
+
+import java.io.Serializable;
+
 public interface TransactionStrategy {
 
 	public enum TRANSACTION {
@@ -18,4 +22,35 @@ public interface TransactionStrategy {
 
 	public void rollback();
 
+
+	/**
+	 * Returns a number that changes whenever the repository may have changed, either in a read/write transaction of this strategy or by another process (detected when a transaction begins).
+	 * It can be used to invalidate data derived from the repository.
+	 * Versions are obtained from the {@link VersionCounter}, so the same version is never returned for a different state, even after the strategy was closed and opened again on the same or another repository.
+	 *
+	 * @return The version of the repository, or -1 if the strategy does not keep track of changes.
+	 */
+	public default long getVersion() {
+		return -1;
+	}
+
+
+	/**
+	 * A modification of the repository that can be applied again to a repository in the state before the modification to reproduce it.
+	 */
+	public interface Change extends Serializable {
+		public void apply(Repository.Op repository);
+	}
+
+	/**
+	 * Records a change of the current read/write transaction before it is applied to the repository.
+	 * Strategies may persist a transaction that only consists of recorded changes by storing the changes instead of the whole repository.
+	 * The recorded change must comprise all modifications of the transaction.
+	 * Strategies that always store the whole repository ignore recorded changes.
+	 *
+	 * @param change The change that is about to be applied.
+	 */
+	public default void record(Change change) {
+	}
+
 }
@@ -0,0 +1,28 @@
+package at.jku.isse.ecco.dao;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Source of the repository versions returned by {@link TransactionStrategy#getVersion()}.
+ * <p>
+ * The versions are shared by all transaction strategies of the process and start at a random value, so a version is never reused after a repository was closed and opened again or another repository was opened, and is unlikely to match a version of a previous process (e.g. in an ETag a client cached).
+ */
+public final class VersionCounter {
+
+	// leaves room for incrementing without reaching the negative "unknown" versions
+	private static final AtomicLong VERSION = new AtomicLong(new Random().nextLong() >>> 2);
+
+
+	private VersionCounter() {
+	}
+
+
+	/**
+	 * @return A new version that is greater than all versions returned before in this process.
+	 */
+	public static long next() {
+		return VERSION.incrementAndGet();
+	}
+
+}
@@ -0,0 +1,29 @@
+package at.jku.isse.ecco.metrics;
+
+/**
+ * Listener for timings and counters recorded in a {@link MetricsRegistry}.
+ */
+public interface MetricsListener {
+
+	/**
+	 * Fired when the duration of a phase has been recorded.
+	 *
+	 * @param phase         The name of the phase (e.g. {@link MetricsRegistry#PHASE_EXTRACT}).
+	 * @param durationNanos The duration of the phase in nanoseconds.
+	 */
+	public default void timingRecordedEvent(String phase, long durationNanos) {
+		// do nothing
+	}
+
+	/**
+	 * Fired when a counter has been incremented.
+	 *
+	 * @param counter The name of the counter (e.g. {@link MetricsRegistry#COUNTER_ARTIFACTS_READ}).
+	 * @param delta   The amount by which the counter was incremented.
+	 * @param value   The new value of the counter.
+	 */
+	public default void counterIncrementedEvent(String counter, long delta, long value) {
+		// do nothing
+	}
+
+}
@@ -0,0 +1,226 @@
+package at.jku.isse.ecco.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Registry of phase timings and counters of the operations on a repository.
+ * <p>
+ * The operations of a repository (e.g. {@link at.jku.isse.ecco.repository.Repository.Op#extract(at.jku.isse.ecco.core.Association.Op, at.jku.isse.ecco.core.Commit)}) record into the registry of the repository (see {@link at.jku.isse.ecco.repository.Repository.Op#getMetrics()}), which is the registry of the service that opened the repository.
+ * Operations that have no repository (e.g. the alignment of partial order graphs) and repositories that were not opened by a service record into the {@link #getDefault() default registry} of the process.
+ * The registry is thread safe.
+ */
+public class MetricsRegistry {
+
+	// phases
+	public static final String PHASE_READ = "read";
+	public static final String PHASE_EXTRACT = "extract";
+	public static final String PHASE_SLICE = "slice";
+	public static final String PHASE_SEQUENCE = "sequence";
+	public static final String PHASE_COMPOSE = "compose";
+	public static final String PHASE_WRITE = "write";
+	public static final String PHASE_LOAD = "load";
+	public static final String PHASE_STORE = "store";
+	public static final String PHASE_OPEN = "open";
+	public static final String PHASE_PLUGIN_INIT = "plugin.init";
+
+	// counters
+	public static final String COUNTER_ARTIFACTS_READ = "artifacts.read";
+	public static final String COUNTER_ASSOCIATIONS_SLICED = "associations.sliced";
+	public static final String COUNTER_ASSOCIATIONS_SKIPPED = "associations.skipped";
+	public static final String COUNTER_ASSOCIATIONS_ADDED = "associations.added";
+	public static final String COUNTER_ASSOCIATIONS_REMOVED = "associations.removed";
+	public static final String COUNTER_ARTIFACTS_COMPOSED = "artifacts.composed";
+	public static final String COUNTER_COMPOSE_CACHE_HITS = "compose.cache.hits";
+	public static final String COUNTER_COMPOSE_CACHE_MISSES = "compose.cache.misses";
+	public static final String COUNTER_POG_ALIGNMENTS = "pog.alignments";
+	public static final String COUNTER_POG_ALIGNMENT_NODES = "pog.alignment.nodes";
+	public static final String COUNTER_POG_ALIGNMENT_CELLS = "pog.alignment.cells";
+	public static final String COUNTER_BYTES_LOADED = "bytes.loaded";
+	public static final String COUNTER_BYTES_STORED = "bytes.stored";
+
+
+	private static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+	/**
+	 * @return The registry used by operations of this process that are not performed by a service.
+	 */
+	public static MetricsRegistry getDefault() {
+		return DEFAULT;
+	}
+
+
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+	private final Collection<MetricsListener> listeners = new CopyOnWriteArrayList<>();
+
+
+	/**
+	 * Records the time elapsed since the given start time for the given phase.
+	 *
+	 * @param phase      The name of the phase.
+	 * @param startNanos The start time as returned by {@link System#nanoTime()}.
+	 * @return The recorded duration in nanoseconds.
+	 */
+	public long recordSince(String phase, long startNanos) {
+		long durationNanos = System.nanoTime() - startNanos;
+		this.record(phase, durationNanos);
+		return durationNanos;
+	}
+
+	/**
+	 * Records the given duration for the given phase.
+	 *
+	 * @param phase         The name of the phase.
+	 * @param durationNanos The duration in nanoseconds.
+	 */
+	public void record(String phase, long durationNanos) {
+		checkNotNull(phase);
+
+		this.timers.computeIfAbsent(phase, k -> new Timer()).record(durationNanos);
+
+		for (MetricsListener listener : this.listeners) {
+			listener.timingRecordedEvent(phase, durationNanos);
+		}
+	}
+
+	/**
+	 * Increments the given counter by the given amount.
+	 *
+	 * @param counter The name of the counter.
+	 * @param delta   The amount to add.
+	 */
+	public void increment(String counter, long delta) {
+		checkNotNull(counter);
+
+		long value = this.counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(delta);
+
+		for (MetricsListener listener : this.listeners) {
+			listener.counterIncrementedEvent(counter, delta, value);
+		}
+	}
+
+	public void increment(String counter) {
+		this.increment(counter, 1);
+	}
+
+
+	/**
+	 * @param phase The name of the phase.
+	 * @return The timer of the given phase or null if nothing was recorded for it yet.
+	 */
+	public Timer getTimer(String phase) {
+		return this.timers.get(phase);
+	}
+
+	/**
+	 * @param counter The name of the counter.
+	 * @return The current value of the given counter.
+	 */
+	public long getCounter(String counter) {
+		AtomicLong value = this.counters.get(counter);
+		return value == null ? 0 : value.get();
+	}
+
+	/**
+	 * @return Sorted snapshot of all timers.
+	 */
+	public SortedMap<String, Timer> getTimers() {
+		SortedMap<String, Timer> snapshot = new TreeMap<>();
+		this.timers.forEach((phase, timer) -> snapshot.put(phase, timer.copy()));
+		return snapshot;
+	}
+
+	/**
+	 * @return Sorted snapshot of all counters.
+	 */
+	public SortedMap<String, Long> getCounters() {
+		SortedMap<String, Long> snapshot = new TreeMap<>();
+		this.counters.forEach((counter, value) -> snapshot.put(counter, value.get()));
+		return snapshot;
+	}
+
+	/**
+	 * Removes all recorded timings and counters.
+	 */
+	public void reset() {
+		this.timers.clear();
+		this.counters.clear();
+	}
+
+
+	public void addListener(MetricsListener listener) {
+		this.listeners.add(listener);
+	}
+
+	public void removeListener(MetricsListener listener) {
+		this.listeners.remove(listener);
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		this.getTimers().forEach((phase, timer) -> sb.append(phase).append(": ").append(timer).append(System.lineSeparator()));
+		this.getCounters().forEach((counter, value) -> sb.append(counter).append(": ").append(value).append(System.lineSeparator()));
+		return sb.toString();
+	}
+
+
+	/**
+	 * Accumulated durations of a phase.
+	 */
+	public static class Timer {
+		private long count;
+		private long totalNanos;
+		private long maxNanos;
+		private long lastNanos;
+
+		private synchronized void record(long durationNanos) {
+			this.count++;
+			this.totalNanos += durationNanos;
+			this.maxNanos = Math.max(this.maxNanos, durationNanos);
+			this.lastNanos = durationNanos;
+		}
+
+		private synchronized Timer copy() {
+			Timer copy = new Timer();
+			copy.count = this.count;
+			copy.totalNanos = this.totalNanos;
+			copy.maxNanos = this.maxNanos;
+			copy.lastNanos = this.lastNanos;
+			return copy;
+		}
+
+		public synchronized long getCount() {
+			return this.count;
+		}
+
+		public synchronized long getTotalNanos() {
+			return this.totalNanos;
+		}
+
+		public synchronized long getMaxNanos() {
+			return this.maxNanos;
+		}
+
+		public synchronized long getLastNanos() {
+			return this.lastNanos;
+		}
+
+		public synchronized long getMeanNanos() {
+			return this.count == 0 ? 0 : this.totalNanos / this.count;
+		}
+
+		@Override
+		public synchronized String toString() {
+			return String.format("count=%d, total=%.3fms, mean=%.3fms, max=%.3fms, last=%.3fms", this.count, this.totalNanos / 1e6, this.getMeanNanos() / 1e6, this.maxNanos / 1e6, this.lastNanos / 1e6);
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ package at.jku.isse.ecco.pog;
 import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.dao.Persistable;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import org.eclipse.collections.api.map.primitive.IntObjectMap;
 import org.eclipse.collections.api.map.primitive.MutableIntObjectMap;
 import org.eclipse.collections.impl.factory.Maps;
@@ -204,8 +205,14 @@ public interface PartialOrderGraph extends Persistable {
 			IntObjectMap<Node.Op> result = this.backtrackingRec(leftState, rightState, matrix);
 
 			// set sequence number of matched artifacts
-			other.collectNodes().stream().filter(op -> op.getArtifact() != null).forEach(op -> op.getArtifact().setSequenceNumber(NOT_MATCHED_SEQUENCE_NUMBER));
+			List<Node.Op> otherNodes = other.collectNodes();
+			otherNodes.stream().filter(op -> op.getArtifact() != null).forEach(op -> op.getArtifact().setSequenceNumber(NOT_MATCHED_SEQUENCE_NUMBER));
 			result.forEachKeyValue((key, value) -> value.getArtifact().setSequenceNumber(key));
+
+			MetricsRegistry metrics = MetricsRegistry.getDefault();
+			metrics.increment(MetricsRegistry.COUNTER_POG_ALIGNMENTS);
+			metrics.increment(MetricsRegistry.COUNTER_POG_ALIGNMENT_NODES, otherNodes.size());
+			metrics.increment(MetricsRegistry.COUNTER_POG_ALIGNMENT_CELLS, matrix.size());
 		}
 
 		//private
@@ -601,8 +608,8 @@ public interface PartialOrderGraph extends Persistable {
 
 
 		public default void copy(PartialOrderGraph.Op other) {
-			//if (this.getHead().getNext().size() != 1 || this.getHead().getNext().iterator().next() != this.getTail())
-			if (!this.getHead().getNext().isEmpty())
+			// an empty partial order graph only consists of the head followed by the tail
+			if (this.getHead().getNext().size() != 1 || this.getHead().getNext().iterator().next() != this.getTail())
 				throw new EccoException("Partial order graph must be empty to copy another.");
 
 			this.getHead().removeChild(this.getTail());
@@ -12,6 +12,7 @@ import at.jku.isse.ecco.dao.Persistable;
 import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.module.Condition;
 import at.jku.isse.ecco.module.EmptyModule;
 import at.jku.isse.ecco.module.Module;
@@ -19,10 +20,12 @@ import at.jku.isse.ecco.module.ModuleRevision;
 import at.jku.isse.ecco.pog.PartialOrderGraph;
 import at.jku.isse.ecco.tree.Node;
 import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.IdGenerator;
 import at.jku.isse.ecco.util.Trees;
 
 import java.io.ObjectInputFilter;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -33,6 +36,12 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public interface Repository extends Persistable {
 
+	/**
+	 * System property that disables skipping the associations a committed association does not overlap with in {@link Op#extract(Association.Op, Commit, Collection)} if it is set to true, so that every association is sliced.
+	 * The result is the same, only slower. It can be used to verify the skip.
+	 */
+	public static final String SLICE_ALL_PROPERTY = "ecco.extract.sliceAll";
+
 	public Collection<? extends Feature> getFeatures();
 
 	public Collection<? extends Association> getAssociations();
@@ -116,6 +125,49 @@ public interface Repository extends Persistable {
 
 		public EntityFactory getEntityFactory();
 
+		/**
+		 * Returns the index of dependencies between the associations of this repository.
+		 * Implementations that keep the index across operations must invalidate associations when they are added or removed.
+		 * The default implementation returns a new, empty index on every call.
+		 *
+		 * @return The association dependency index.
+		 */
+		public default AssociationDependencyIndex getDependencyIndex() {
+			return new AssociationDependencyIndex();
+		}
+
+		/**
+		 * Returns the index of signatures of the artifact trees of the associations of this repository, which is used to skip associations when extracting.
+		 * Implementations that keep the index across operations must invalidate associations when they are added or removed.
+		 * The default implementation returns a new, empty index on every call.
+		 *
+		 * @return The association signature index.
+		 */
+		public default AssociationSignatureIndex getSignatureIndex() {
+			return new AssociationSignatureIndex();
+		}
+
+		/**
+		 * Returns the statistics of the associations of this repository, e.g. for charts.
+		 * Implementations that keep the statistics across operations must invalidate associations when they are added or removed.
+		 * The default implementation returns new, empty statistics on every call.
+		 *
+		 * @return The repository statistics.
+		 */
+		public default RepositoryStatistics getStatistics() {
+			return new RepositoryStatistics();
+		}
+
+		/**
+		 * Returns the registry into which the operations of this repository (e.g. extraction and composition) record their timings and counters.
+		 * The default implementation returns the default registry of the process.
+		 *
+		 * @return The metrics registry.
+		 */
+		public default MetricsRegistry getMetrics() {
+			return MetricsRegistry.getDefault();
+		}
+
 
 		/**
 		 * Retrieves the module instance with given positive and negative features from the repository.
@@ -186,6 +238,10 @@ public interface Repository extends Persistable {
 
 		/**
 		 * Adds new modules to the repository that contain the new feature negatively.
+		 * <p>
+		 * Every association that observed an existing module revision also observes the corresponding new module revision with the same count.
+		 * The new module revisions are first created for all modules. Then every association's counter is inverted once into the list of new module revisions it observes, instead of probing every association for every module revision.
+		 * Associations are updated in parallel, as every association's counter is only modified by a single thread.
 		 *
 		 * @param feature The new feature.
 		 */
@@ -193,6 +249,7 @@ public interface Repository extends Persistable {
 			checkNotNull(feature);
 
 			// add new modules to the repository that contain the new feature negatively. copies every existing module and adds the new feature negatively.
+			Map<ModuleRevision, ModuleRevision> newModuleRevisions = new HashMap<>();
 			for (int currentOrder = this.getMaxOrder() - 1; currentOrder >= 0; currentOrder--) {
 				Collection<? extends Module> modules = this.getModules(currentOrder);
 				for (Module module : modules) {
@@ -210,20 +267,29 @@ public interface Repository extends Persistable {
 							// create copy of module revision with new feature negative
 							ModuleRevision newModuleRevision = newModule.addRevision(moduleRevision.getPos(), negFeatures);
 							newModuleRevision.setCount(moduleRevision.getCount());
-							// update existing associations that have matching old module with the new module
-							for (Association.Op association : this.getAssociations()) {
-								ModuleCounter existingModuleCounter = association.getCounter().getChild(moduleRevision.getModule());
-								if (existingModuleCounter != null) {
-									ModuleRevisionCounter existingModuleRevisionCounter = existingModuleCounter.getChild(moduleRevision);
-									if (existingModuleRevisionCounter != null) {
-										association.addObservation(newModuleRevision, existingModuleRevisionCounter.getCount());
-									}
-								}
-							}
+							newModuleRevisions.put(moduleRevision, newModuleRevision);
 						}
 					}
 				}
 			}
+
+			if (newModuleRevisions.isEmpty())
+				return;
+
+			// update existing associations that have matching old module revisions with the new module revisions
+			this.getAssociations().parallelStream().forEach(association -> {
+				// collect the observations first, as adding them modifies the counter
+				List<Map.Entry<ModuleRevision, Integer>> observations = new ArrayList<>();
+				for (ModuleCounter moduleCounter : association.getCounter().getChildren()) {
+					for (ModuleRevisionCounter moduleRevisionCounter : moduleCounter.getChildren()) {
+						ModuleRevision newModuleRevision = newModuleRevisions.get(moduleRevisionCounter.getObject());
+						if (newModuleRevision != null)
+							observations.add(new AbstractMap.SimpleEntry<>(newModuleRevision, moduleRevisionCounter.getCount()));
+					}
+				}
+				for (Map.Entry<ModuleRevision, Integer> observation : observations)
+					association.addObservation(observation.getKey(), observation.getValue());
+			});
 		}
 
 		/**
@@ -390,6 +456,18 @@ public interface Repository extends Persistable {
 		 * @return The commit object.
 		 */
 		public default Commit extract(Configuration configuration, Set<Node.Op> nodes) {
+			return this.extract(configuration, nodes, null);
+		}
+
+		/**
+		 * Extracts new associations and refines existing associations in this repository like {@link #extract(Configuration, Set)}, but only considers the given candidate associations for slicing (see {@link #extract(Association.Op, Commit, Collection)}).
+		 *
+		 * @param configuration The configuration describing the given artifact tree.
+		 * @param nodes         The root node of the artifact tree representing the implementation of the given configuration.
+		 * @param candidates    The associations of this repository the artifact tree may overlap with, or null if all associations must be considered.
+		 * @return The commit object.
+		 */
+		public default Commit extract(Configuration configuration, Set<Node.Op> nodes, Collection<? extends Association.Op> candidates) {
 			checkNotNull(configuration);
 			checkNotNull(nodes);
 
@@ -420,7 +498,7 @@ public interface Repository extends Persistable {
 
 			// create and initialize new association
 			Association.Op association = this.getEntityFactory().createAssociation(nodes);
-			association.setId(UUID.randomUUID().toString());
+			association.setId(IdGenerator.newId());
 			association.getCounter().setCount(1);
 			for (ModuleRevision moduleRevision : moduleRevisions) {
 				association.addObservation(moduleRevision);
@@ -432,7 +510,7 @@ public interface Repository extends Persistable {
 			addCommit(commit);
 
 			// do actual extraction
-			this.extract(association, commit);
+			this.extract(association, commit, candidates);
 
 			return commit;
 		}
@@ -452,35 +530,82 @@ public interface Repository extends Persistable {
 
 		/**
 		 * When an association is committed directly then the corresponding configuration must be added manually first!
+		 * The association is only sliced with the associations it overlaps with (see {@link Trees#overlaps(Node.Op, Node.Op)}), which are determined in parallel.
+		 * Associations whose signature (see {@link AssociationSignatureIndex}) rules out an overlap are skipped without comparing their trees.
 		 *
 		 * @param association The association to be committed.
+		 * @param commit      The commit to which new associations are added, or null if the association is not committed as part of a commit (e.g. when merging repositories).
 		 */
 		public default void extract(Association.Op association, Commit commit) {
+			this.extract(association, commit, null);
+		}
+
+		/**
+		 * Commits the given association like {@link #extract(Association.Op, Commit)}, but only slices it with the given candidate associations it overlaps with.
+		 * The candidates must contain every association of this repository the association may overlap with (e.g. as collected with {@link AssociationSignatureIndex.Candidates} while the artifact tree was read).
+		 *
+		 * @param association The association to be committed.
+		 * @param commit      The commit to which new associations are added, or null if the association is not committed as part of a commit.
+		 * @param candidates  The associations of this repository the association may overlap with, or null if all associations must be considered.
+		 */
+		public default void extract(Association.Op association, Commit commit, Collection<? extends Association.Op> candidates) {
 			checkNotNull(association);
 
+			MetricsRegistry metrics = this.getMetrics();
+			long extractStartTime = System.nanoTime();
+			long sliceTime = 0;
+
 			Trees.checkConsistency(association.getRootNode());
 
 			Collection<? extends Association.Op> originalAssociations = this.getAssociations();
+			AssociationDependencyIndex dependencyIndex = this.getDependencyIndex();
+			AssociationSignatureIndex signatureIndex = this.getSignatureIndex();
+			RepositoryStatistics statistics = this.getStatistics();
+
+			// slicing an association the new association does not overlap with moves no artifacts, so only overlapping associations are sliced
+			// the associations are sliced in the order of the repository, also when candidates are given
+			Predicate<Association.Op> mayOverlap;
+			if (candidates != null) {
+				Set<Association.Op> candidateSet = Collections.newSetFromMap(new IdentityHashMap<>());
+				candidateSet.addAll(candidates);
+				mayOverlap = candidateSet::contains;
+			} else {
+				long[] paths = AssociationSignatureIndex.computePaths(association.getRootNode());
+				mayOverlap = origA -> signatureIndex.mayOverlap(origA, paths);
+			}
+			// without the skip (see SLICE_ALL_PROPERTY) every association is sliced
+			boolean sliceAll = Boolean.getBoolean(SLICE_ALL_PROPERTY);
+			List<Association.Op> overlappingAssociations = originalAssociations.parallelStream()
+					.filter(origA -> sliceAll || mayOverlap.test(origA) && Trees.overlaps(origA.getReadOnlyRootNode(), association.getRootNode()))
+					.collect(Collectors.toList());
 
 			Collection<Association.Op> toAdd = new ArrayList<>();
 			Collection<Association.Op> toRemove = new ArrayList<>();
+			Collection<Association.Op> sliced = new ArrayList<>();
 
-			// slice new association with every original association
-			for (Association.Op origA : originalAssociations) {
+			// slice new association with every overlapping original association
+			for (Association.Op origA : overlappingAssociations) {
 				// ASSOCIATION
 				// slice the associations. the order matters here! the "left" association's featuers and artifacts are maintained. the "right" association's features and artifacts are replaced by the "left" association's.
 				Association.Op intA = this.getEntityFactory().createAssociation();
-				intA.setId(UUID.randomUUID().toString());
+				intA.setId(IdGenerator.newId());
 
 				// ARTIFACT TREE
 				//intA.setRootNode(origA.getRootNode().slice(association.getRootNode()));
+				long sliceStartTime = System.nanoTime();
 				intA.setRootNode((RootNode.Op) Trees.slice(origA.getRootNode(), association.getRootNode()));
+				sliceTime += System.nanoTime() - sliceStartTime;
 
 				// INTERSECTION
 				if (!intA.getRootNode().getChildren().isEmpty()) { // if the intersection association has artifacts store it
 					toAdd.add(intA);
+					sliced.add(origA);
+					dependencyIndex.invalidate(origA); // artifacts were moved from the original association to the intersection
+					signatureIndex.invalidate(origA);
+					statistics.invalidate(origA);
 
-					commit.addAssociation(intA);		// add association to new commit
+					if (commit != null)
+						commit.addAssociation(intA);		// add association to new commit
 					for (Commit c : getCommits()) {		// updates associations in previous commits
 						if (c.containsAssociation(origA)) {
 							c.addAssociation(intA);
@@ -498,7 +623,8 @@ public interface Repository extends Persistable {
 				} else {
 					toRemove.add(origA);
 
-					commit.deleteAssociation(origA);			// delete association from new commit		//TODO can there even be any?
+					if (commit != null)
+						commit.deleteAssociation(origA);			// delete association from new commit		//TODO can there even be any?
 					for (Commit c : getCommits()) {				// updates associations in previous commits
 						if (c.containsAssociation(origA)) {
 							c.deleteAssociation(origA);
@@ -511,9 +637,12 @@ public interface Repository extends Persistable {
 			// REMAINDER
 			if (!association.getRootNode().getChildren().isEmpty()) { // if the remainder is not empty store it
 				toAdd.add(association);
-				commit.addAssociation(association);
+				if (commit != null)
+					commit.addAssociation(association);
 
+				long sequenceStartTime = System.nanoTime();
 				Trees.sequence(association.getRootNode());
+				metrics.recordSince(MetricsRegistry.PHASE_SEQUENCE, sequenceStartTime);
 				Trees.updateArtifactReferences(association.getRootNode());
 				Trees.checkConsistency(association.getRootNode());
 			}
@@ -527,6 +656,22 @@ public interface Repository extends Persistable {
 			for (Association.Op newA : toAdd) {
 				this.addAssociation(newA);
 			}
+
+			// the trees of the new and sliced associations are not modified until they are sliced again, so they are frozen
+			for (Association.Op newA : toAdd) {
+				newA.freeze();
+			}
+			for (Association.Op origA : sliced) {
+				if (!toRemove.contains(origA))
+					origA.freeze();
+			}
+
+			metrics.record(MetricsRegistry.PHASE_SLICE, sliceTime);
+			metrics.increment(MetricsRegistry.COUNTER_ASSOCIATIONS_SLICED, overlappingAssociations.size());
+			metrics.increment(MetricsRegistry.COUNTER_ASSOCIATIONS_SKIPPED, originalAssociations.size() - overlappingAssociations.size());
+			metrics.increment(MetricsRegistry.COUNTER_ASSOCIATIONS_ADDED, toAdd.size());
+			metrics.increment(MetricsRegistry.COUNTER_ASSOCIATIONS_REMOVED, toRemove.size());
+			metrics.recordSince(MetricsRegistry.PHASE_EXTRACT, extractStartTime);
 		}
 
 
@@ -638,6 +783,8 @@ public interface Repository extends Persistable {
 		public default Checkout compose(Configuration configuration, boolean lazy) {
 			checkNotNull(configuration);
 
+			long composeStartTime = System.nanoTime();
+
 			Set<Association.Op> selectedAssociations = new HashSet<>();
 			for (Association.Op association : this.getAssociations()) {
 				if (association.computeCondition().holds(configuration)) {
@@ -645,7 +792,7 @@ public interface Repository extends Persistable {
 				}
 			}
 
-			Checkout checkout = this.compose(selectedAssociations, lazy);
+			Checkout checkout = this.composeAssociations(selectedAssociations, lazy);
 			checkout.setConfiguration(configuration);
 
 			//Set<ModuleRevision> desiredModules = configuration.computeModules(this.repository.getMaxOrder());
@@ -689,18 +836,34 @@ public interface Repository extends Persistable {
 			checkout.setSurplusModules(surplusModules);
 			checkout.getMissing().addAll(missingModules);
 
+			this.getMetrics().recordSince(MetricsRegistry.PHASE_COMPOSE, composeStartTime);
+
 			return checkout;
 		}
 
-
+		/**
+		 * Composes an artifact tree from the given associations of this repository. The configuration, missing and surplus modules of the returned checkout are not set.
+		 *
+		 * @param selectedAssociations The associations to compose.
+		 * @param lazy                 Whether the tree is composed lazily.
+		 * @return The checkout object.
+		 */
 		public default Checkout compose(Collection<? extends Association.Op> selectedAssociations, boolean lazy) {
+			long composeStartTime = System.nanoTime();
+			Checkout checkout = this.composeAssociations(selectedAssociations, lazy);
+			this.getMetrics().recordSince(MetricsRegistry.PHASE_COMPOSE, composeStartTime);
+			return checkout;
+		}
+
+		//private
+		default Checkout composeAssociations(Collection<? extends Association.Op> selectedAssociations, boolean lazy) {
 			Node compRootNode;
 			Collection<Artifact<?>> orderWarnings;
 			if (lazy) {
 				LazyCompositionRootNode lazyCompRootNode = new LazyCompositionRootNode();
 
 				for (Association.Op association : selectedAssociations) {
-					lazyCompRootNode.addOrigNode(association.getRootNode());
+					lazyCompRootNode.addOrigNode(association.getReadOnlyRootNode());
 				}
 
 				orderWarnings = lazyCompRootNode.getOrderSelector().getUncertainOrders();
@@ -712,9 +875,7 @@ public interface Repository extends Persistable {
 			}
 
 			// compute unresolved dependencies
-			DependencyGraph dg = new DependencyGraph(selectedAssociations, DependencyGraph.ReferencesResolveMode.INCLUDE_ALL_REFERENCED_ASSOCIATIONS);
-			Set<Association> unresolvedAssociations = new HashSet<>(dg.getAssociations());
-			unresolvedAssociations.removeAll(selectedAssociations);
+			Set<Association> unresolvedAssociations = this.getDependencyIndex().getReferencedAssociations(selectedAssociations);
 
 			// put together result
 			Checkout checkout = new Checkout();
@@ -736,9 +897,19 @@ public interface Repository extends Persistable {
 		 * @param rootNode The root node of the artifact tree to be mapped.
 		 */
 		public default void map(RootNode.Op rootNode) {
-			Collection<? extends Association.Op> associations = this.getAssociations();
+			this.map(rootNode, this.getAssociations());
+		}
+
+		/**
+		 * Maps the artifacts in the given tree to the artifacts of the given associations of this repository only (see {@link Trees#map(Node.Op, Node.Op)}).
+		 * Associations that contain none of the artifacts in the tree can be left out without changing the result.
+		 *
+		 * @param rootNode     The root of the tree to map.
+		 * @param associations The associations of this repository to map the tree to.
+		 */
+		public default void map(RootNode.Op rootNode, Collection<? extends Association.Op> associations) {
 			for (Association.Op association : associations) {
-				Trees.map(association.getRootNode(), rootNode);
+				Trees.map(association.getReadOnlyRootNode(), rootNode);
 			}
 		}
 
@@ -869,6 +1040,18 @@ public interface Repository extends Persistable {
 			return newRepository;
 		}
 
+		/**
+		 * Creates a subset repository of this repository by (optionally) deselecting some feature revisions and (optionally) reducing the maximum order of modules. This repository is not changed.
+		 * <p>
+		 * The conditions of the associations are computed, the sequence graphs of the copied trees are trimmed and the copied trees are checked in parallel.
+		 * The artifact trees are copied one after the other, and the subset repository is built completely in memory before it is returned.
+		 * A fork, pull or push therefore needs the heap of the subset repository in addition to the heap of this repository while the subset is built and sent.
+		 *
+		 * @param deselected    The feature revisions to be deselected.
+		 * @param maxOrder      The maximum order of modules to be copied over into the subset repository.
+		 * @param entityFactory The entity factory used for creating the subset repository.
+		 * @return The subset repository.
+		 */
 		public default Repository.Op subset(Collection<FeatureRevision> deselected, int maxOrder, EntityFactory entityFactory) {
 			checkNotNull(deselected);
 			checkArgument(maxOrder <= this.getMaxOrder());
@@ -895,11 +1078,32 @@ public interface Repository extends Persistable {
 				}
 			}
 
+			// compute the conditions of all associations in parallel (they only read the counters of the associations)
+			List<Association.Op> associations = new ArrayList<>(this.getAssociations());
+			List<Condition> conditions = associations.parallelStream().map(Association.Op::computeCondition).collect(Collectors.toList());
+
+			try {
+				this.subsetAssociations(associations, conditions, newRepository, entityFactory);
+			} finally {
+				// the copied artifacts are set as replacing artifacts of the artifacts of this repository. remove them so that this repository does not keep the subset repository alive and the next subset does not reuse them.
+				associations.parallelStream().forEach(association -> association.getRootNode().traverse((Node.Op node) -> {
+					if (node.getArtifact() != null && node.getArtifact().hasReplacingArtifact())
+						node.getArtifact().setReplacingArtifact(null);
+				}));
+			}
+
+			return newRepository;
+		}
+
+		private void subsetAssociations(List<Association.Op> associations, List<Condition> conditions, Repository.Op newRepository, EntityFactory entityFactory) {
 			// for every association in this repository: trim condition, use it to check if matching association already exists, if not create it, add observations based on trimmed condition, copy artifact tree and trim order graphs. (basically current merge implementation)
+			// the artifact trees are copied sequentially, because artifacts are shared between associations (non-unique nodes, references, sequence graphs) and their copies are found via the replacing artifacts of the originals.
+			// copying them in parallel would need a separate pass that copies the artifacts of every association before the trees, references and sequence graphs are linked.
 			Map<Set<ModuleRevision>, Association.Op> andConditionAssociationMap = new HashMap<>();
 			Map<Set<ModuleRevision>, Association.Op> orConditionAssociationMap = new HashMap<>();
-			for (Association.Op association : this.getAssociations()) {
-				Condition condition = association.computeCondition();
+			for (int i = 0; i < associations.size(); i++) {
+				Association.Op association = associations.get(i);
+				Condition condition = conditions.get(i);
 
 				// compute set of module revisions that need to be added to the new repository and associations
 				Set<ModuleRevision> newModuleRevisions = new HashSet<>();
@@ -948,7 +1152,7 @@ public interface Repository extends Persistable {
 						if (newAssociation == null) {
 							newAssoc = true;
 							newAssociation = this.getEntityFactory().createAssociation();
-							newAssociation.setId(UUID.randomUUID().toString());
+							newAssociation.setId(IdGenerator.newId());
 							andConditionAssociationMap.put(newModuleRevisions, newAssociation);
 							newAssociation.getCounter().setCount(1);
 						}
@@ -959,7 +1163,7 @@ public interface Repository extends Persistable {
 						if (newAssociation == null) {
 							newAssoc = true;
 							newAssociation = this.getEntityFactory().createAssociation();
-							newAssociation.setId(UUID.randomUUID().toString());
+							newAssociation.setId(IdGenerator.newId());
 							orConditionAssociationMap.put(newModuleRevisions, newAssociation);
 							newAssociation.getCounter().setCount(2);
 						}
@@ -995,9 +1199,12 @@ public interface Repository extends Persistable {
 			}
 
 			Collection<? extends Association.Op> newAssociations = newRepository.getAssociations();
+			// associations use identity equality, so an identity set gives constant time lookups for the symbols of all sequence graphs
+			Set<Association> newAssociationSet = Collections.newSetFromMap(new IdentityHashMap<>());
+			newAssociationSet.addAll(newAssociations);
 
-			// trim sequence graphs to only contain artifacts from the selected associations
-			for (Association.Op newAssociation : newAssociations) {
+			// trim sequence graphs to only contain artifacts from the selected associations. unique nodes (and their sequence graphs) belong to exactly one association, so the associations are trimmed in parallel.
+			newAssociations.parallelStream().forEach(newAssociation -> {
 				newAssociation.getRootNode().traverse((Node.Op node) -> {
 					if (node.getArtifact() != null && node.getArtifact().isOrdered() && node.getArtifact().isSequenced() && node.getArtifact().getSequenceGraph() != null) {
 						if (node.isUnique() && node.getArtifact() != null && node.getArtifact().getSequenceGraph() != null) {
@@ -1005,28 +1212,23 @@ public interface Repository extends Persistable {
 							Collection<? extends Artifact.Op<?>> symbols = node.getArtifact().getSequenceGraph().collectNodes().stream().map(PartialOrderGraph.Node.Op::getArtifact).collect(Collectors.toList());
 
 							// remove symbols that are not contained in the given associations
-							symbols.removeIf(symbol -> symbol != null && !newAssociations.contains(symbol.getContainingNode().getContainingAssociation()));
+							symbols.removeIf(symbol -> symbol != null && !newAssociationSet.contains(symbol.getContainingNode().getContainingAssociation()));
 
 							// trim sequence graph
 							node.getArtifact().getSequenceGraph().trim(symbols);
 						}
 					}
 				});
-			}
+			});
 
 			// check consistency of copied trees
-			for (Association.Op newAssociation : newAssociations) {
-				Trees.checkConsistency(newAssociation.getRootNode());
-			}
+			newAssociations.parallelStream().forEach(newAssociation -> Trees.checkConsistency(newAssociation.getRootNode()));
 
 			// compute dependency graph for selected associations and check if there are any unresolved dependencies.
 			DependencyGraph dg = new DependencyGraph(newAssociations, DependencyGraph.ReferencesResolveMode.LEAVE_REFERENCES_UNRESOLVED); // we do not trim unresolved references. instead we abort.
 			if (!dg.getUnresolvedDependencies().isEmpty()) {
 				throw new EccoException("Unresolved dependencies in selection.");
 			}
-
-
-			return newRepository;
 		}
 
 		/**
@@ -1076,6 +1278,9 @@ public interface Repository extends Persistable {
 			}
 
 			// add modules and module revisions (i.e. add new ones and increase the counters of existing ones)
+			// the modules and module revisions of this repository are indexed by the corresponding objects of the other repository, so the association counters below do not have to look them up again
+			Map<Module, Module> moduleIndex = new IdentityHashMap<>();
+			Map<ModuleRevision, ModuleRevision> moduleRevisionIndex = new IdentityHashMap<>();
 			for (int order = 0; order <= this.getMaxOrder(); order++) {
 				for (final Module otherModule : otherRepository.getModules(order)) {
 					// check if module contains any negative features without any revisions
@@ -1086,59 +1291,75 @@ public interface Repository extends Persistable {
 							repoModule = this.addModule(Arrays.stream(otherModule.getPos()).map(feature -> this.getFeature(feature.getId())).toArray(Feature[]::new), Arrays.stream(otherModule.getNeg()).map(feature -> this.getFeature(feature.getId())).toArray(Feature[]::new));
 						}
 						repoModule.incCount(otherModule.getCount());
+						moduleIndex.put(otherModule, repoModule);
 						for (final ModuleRevision otherModuleRevision : otherModule.getRevisions()) {
 							ModuleRevision repoModuleRevision = repoModule.getRevision(otherModuleRevision.getPos(), otherModuleRevision.getNeg());
 							if (repoModuleRevision == null) {
 								repoModuleRevision = repoModule.addRevision(Arrays.stream(otherModuleRevision.getPos()).map(featureRevision -> this.getFeature(featureRevision.getFeature().getId()).getRevision(featureRevision.getId())).toArray(FeatureRevision[]::new), repoModule.getNeg());
 							}
 							repoModuleRevision.incCount(otherModuleRevision.getCount());
+							moduleRevisionIndex.put(otherModuleRevision, repoModuleRevision);
 						}
 					}
 				}
 			}
 
 			// for every association in other repository
-			for (Association.Op otherAssociation : otherRepository.getAssociations()) {
-				// prepare new associations for commit
-				Association.Op association = this.getEntityFactory().createAssociation();
-				association.setId(UUID.randomUUID().toString());
+			// the associations are copied and extracted one after the other, because artifacts are shared between associations: the copies of shared artifacts are found via the replacing artifacts of the originals, and extracting a copy may replace it again with an artifact of this repository.
+			Collection<? extends Association.Op> otherAssociations = otherRepository.getAssociations();
+			try {
+				for (Association.Op otherAssociation : otherAssociations) {
+					// prepare new associations for commit
+					Association.Op association = this.getEntityFactory().createAssociation();
+					association.setId(IdGenerator.newId());
 
-				// copy artifact tree
-				RootNode.Op copiedRootNode = this.getEntityFactory().createRootNode();
-				association.setRootNode(copiedRootNode); // TODO: have association implementation take care of creating root node in constructor.
-				// clone tree
-				for (Node.Op otherChildNode : otherAssociation.getRootNode().getChildren()) {
-					Node.Op copiedChildNode = EccoUtil.deepCopyTree(otherChildNode, this.getEntityFactory());
-					copiedRootNode.addChild(copiedChildNode);
-					copiedChildNode.setParent(copiedRootNode);
-				}
+					// copy artifact tree
+					RootNode.Op copiedRootNode = this.getEntityFactory().createRootNode();
+					association.setRootNode(copiedRootNode); // TODO: have association implementation take care of creating root node in constructor.
+					// clone tree
+					for (Node.Op otherChildNode : otherAssociation.getRootNode().getChildren()) {
+						Node.Op copiedChildNode = EccoUtil.deepCopyTree(otherChildNode, this.getEntityFactory());
+						copiedRootNode.addChild(copiedChildNode);
+						copiedChildNode.setParent(copiedRootNode);
+					}
 
 
-				// set association counter
-				association.getCounter().setCount(otherAssociation.getCounter().getCount());
+					// set association counter
+					association.getCounter().setCount(otherAssociation.getCounter().getCount());
 
-				for (ModuleCounter otherModuleCounter : otherAssociation.getCounter().getChildren()) {
-					// set module counter
-					Module otherModule = otherModuleCounter.getObject();
-					Module module = this.getModule(otherModule.getPos(), otherModule.getNeg());
+					for (ModuleCounter otherModuleCounter : otherAssociation.getCounter().getChildren()) {
+						// set module counter
+						Module otherModule = otherModuleCounter.getObject();
+						Module module = moduleIndex.get(otherModule);
+						if (module == null)
+							module = this.getModule(otherModule.getPos(), otherModule.getNeg());
 
-					if (module == null)
-						throw new EccoException("Association to be merged into this repository contains module " + module + " which is not part of this repository.");
+						if (module == null)
+							throw new EccoException("Association to be merged into this repository contains module " + otherModule + " which is not part of this repository.");
 
-					ModuleCounter moduleCounter = association.getCounter().addChild(module);
-					moduleCounter.setCount(otherModuleCounter.getCount());
+						ModuleCounter moduleCounter = association.getCounter().addChild(module);
+						moduleCounter.setCount(otherModuleCounter.getCount());
 
-					for (ModuleRevisionCounter otherModuleRevisionCounter : otherModuleCounter.getChildren()) {
-						// set module revision counter
-						ModuleRevision otherModuleRevision = otherModuleRevisionCounter.getObject();
-						ModuleRevision moduleRevision = module.getRevision(otherModuleRevision.getPos(), otherModuleRevision.getNeg());
-						ModuleRevisionCounter moduleRevisionCounter = moduleCounter.addChild(moduleRevision);
-						moduleRevisionCounter.setCount(otherModuleRevisionCounter.getCount());
+						for (ModuleRevisionCounter otherModuleRevisionCounter : otherModuleCounter.getChildren()) {
+							// set module revision counter
+							ModuleRevision otherModuleRevision = otherModuleRevisionCounter.getObject();
+							ModuleRevision moduleRevision = moduleRevisionIndex.get(otherModuleRevision);
+							if (moduleRevision == null)
+								moduleRevision = module.getRevision(otherModuleRevision.getPos(), otherModuleRevision.getNeg());
+							ModuleRevisionCounter moduleRevisionCounter = moduleCounter.addChild(moduleRevision);
+							moduleRevisionCounter.setCount(otherModuleRevisionCounter.getCount());
+						}
 					}
-				}
 
-				// commit association to this repository
-				this.extract(association, null);
+					// commit association to this repository (it is only sliced with the associations it overlaps with)
+					this.extract(association, null);
+				}
+			} finally {
+				// remove the copied artifacts from the artifacts of other repository again so that it does not keep them alive
+				otherAssociations.parallelStream().forEach(otherAssociation -> otherAssociation.getRootNode().traverse((Node.Op node) -> {
+					if (node.getArtifact() != null && node.getArtifact().hasReplacingArtifact())
+						node.getArtifact().setReplacingArtifact(null);
+				}));
 			}
 		}
 
@@ -3,12 +3,14 @@ package at.jku.isse.ecco.tree;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.dao.Persistable;
+import at.jku.isse.ecco.util.PropertyMap;
 import at.jku.isse.ecco.util.Trees;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -185,6 +187,41 @@ public interface Node extends Persistable {
 		this.getProperties().put(name, property);
 	}
 
+	/**
+	 * Returns the integer property with the given name without boxing it if the properties are a {@link PropertyMap} (see {@link PropertyMap#INT_KEYS}).
+	 *
+	 * @param name The name of the property that should be retrieved.
+	 * @return An optional which contains the value of the property, or nothing if there is no such property or it is not an integer.
+	 */
+	public default OptionalInt getIntProperty(final String name) {
+		checkNotNull(name);
+		checkArgument(!name.isEmpty(), "Expected non-empty name, but was empty.");
+
+		final Map<String, Object> properties = this.getProperties();
+		if (properties instanceof PropertyMap)
+			return ((PropertyMap) properties).getInt(name);
+		final Object obj = properties.get(name);
+		return obj instanceof Integer ? OptionalInt.of((Integer) obj) : OptionalInt.empty();
+	}
+
+	/**
+	 * Adds a new integer property to this node without boxing it if the properties are a {@link PropertyMap} (see {@link PropertyMap#INT_KEYS}).
+	 * These properties are volatile, i.e. they are not persisted!
+	 *
+	 * @param name     The name of the property.
+	 * @param property The value of the property.
+	 */
+	public default void putIntProperty(final String name, final int property) {
+		checkNotNull(name);
+		checkArgument(!name.isEmpty(), "Expected non-empty name, but was empty.");
+
+		final Map<String, Object> properties = this.getProperties();
+		if (properties instanceof PropertyMap)
+			((PropertyMap) properties).putInt(name, property);
+		else
+			properties.put(name, property);
+	}
+
 	/**
 	 * Removes the property with the given name. If the name could not be found in the map it does nothing.
 	 *
@@ -340,6 +377,20 @@ public interface Node extends Persistable {
 			Trees.checkConsistency(this);
 		}
 
+		/**
+		 * See {@link at.jku.isse.ecco.util.Trees#compact(Node.Op)}
+		 */
+		public default void compact() {
+			Trees.compact(this);
+		}
+
+		/**
+		 * Releases memory this node reserved for future modifications (e.g. unused capacity of its list of children).
+		 * The node can still be modified afterwards, which may allocate the memory again.
+		 */
+		public default void trimToSize() {
+		}
+
 	}
 
 }
@@ -0,0 +1,64 @@
+package at.jku.isse.ecco.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates the ids of the entities a repository creates (e.g. associations and commits).
+ * <p>
+ * Ids are random UUIDs, unless an operation is run with {@link #derive(String, Runnable)}: then the ids it generates are derived from the given seed, so that running the operation again with the same seed on the same repository state generates the same ids in the same order (e.g. when a logged commit is applied again to a snapshot of the repository).
+ * Deriving only affects ids generated on the calling thread.
+ */
+public final class IdGenerator {
+
+	private static final class Sequence {
+		private final String seed;
+		private long next = 0;
+
+		private Sequence(String seed) {
+			this.seed = seed;
+		}
+	}
+
+	private static final ThreadLocal<Sequence> SEQUENCE = new ThreadLocal<>();
+
+
+	private IdGenerator() {
+	}
+
+
+	/**
+	 * @return A new random id, or the next id derived from the seed of the operation the current thread runs with {@link #derive(String, Runnable)}.
+	 */
+	public static String newId() {
+		Sequence sequence = SEQUENCE.get();
+		if (sequence == null)
+			return UUID.randomUUID().toString();
+		return UUID.nameUUIDFromBytes((sequence.seed + ":" + sequence.next++).getBytes(StandardCharsets.UTF_8)).toString();
+	}
+
+	/**
+	 * Runs the given operation so that the ids it generates on the current thread are derived from the given seed.
+	 *
+	 * @param seed      The seed, which should be unique for every operation (e.g. a random UUID that is stored with the operation).
+	 * @param operation The operation to run.
+	 */
+	public static void derive(String seed, Runnable operation) {
+		checkNotNull(seed);
+		checkNotNull(operation);
+
+		Sequence previous = SEQUENCE.get();
+		SEQUENCE.set(new Sequence(seed));
+		try {
+			operation.run();
+		} finally {
+			if (previous != null)
+				SEQUENCE.set(previous);
+			else
+				SEQUENCE.remove();
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+package at.jku.isse.ecco.util;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import org.eclipse.collections.impl.factory.Maps;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Map of the transient properties of a node or artifact that stores the most common properties without a map entry or boxing.
+ * <p>
+ * Integer values of the well-known keys {@link #INT_KEYS} (the line, token and position properties set by readers for every node or artifact they create) are stored in an int array and the {@link Artifact#PROPERTY_MAPPED_ARTIFACT} property (set by {@link Trees#map} for every mapped artifact) in a field.
+ * All other properties (and values of other types for the well-known keys) are stored in a generic map, which is only created when the first of them is added.
+ * Use {@link #getInt(String)} and {@link #putInt(String, int)} to avoid boxing of integer values.
+ * <p>
+ * The map is not thread-safe.
+ */
+public class PropertyMap extends AbstractMap<String, Object> {
+
+	/**
+	 * The keys whose integer values are stored without boxing.
+	 */
+	public static final List<String> INT_KEYS = Collections.unmodifiableList(Arrays.asList("LINE_START", "LINE_END", "TOKEN_START", "TOKEN_END", "pos", "line", "col"));
+
+	private static final String[] INT_KEY_ARRAY = INT_KEYS.toArray(new String[0]);
+
+
+	private int intKeyMask = 0;
+	private int[] intValues = null;
+
+	private Object mappedArtifact = null;
+
+	private Map<String, Object> others = null;
+
+
+	private static int intKeyIndex(Object key) {
+		for (int i = 0; i < INT_KEY_ARRAY.length; i++) {
+			if (INT_KEY_ARRAY[i].equals(key))
+				return i;
+		}
+		return -1;
+	}
+
+
+	/**
+	 * Returns the integer value of the given property without boxing it if it is stored as int.
+	 *
+	 * @param key The name of the property.
+	 * @return The integer value of the property, or an empty optional if there is no such property or its value is not an integer.
+	 */
+	public OptionalInt getInt(String key) {
+		int index = intKeyIndex(key);
+		if (index >= 0 && (this.intKeyMask & (1 << index)) != 0)
+			return OptionalInt.of(this.intValues[index]);
+		Object value = this.others == null ? null : this.others.get(key);
+		return value instanceof Integer ? OptionalInt.of((Integer) value) : OptionalInt.empty();
+	}
+
+	/**
+	 * Sets the given property to the given integer value, without boxing it if the key is one of the {@link #INT_KEYS}.
+	 *
+	 * @param key   The name of the property.
+	 * @param value The integer value.
+	 */
+	public void putInt(String key, int value) {
+		checkNotNull(key);
+
+		int index = intKeyIndex(key);
+		if (index < 0) {
+			this.getOthers().put(key, value);
+			return;
+		}
+		if (this.intValues == null)
+			this.intValues = new int[INT_KEY_ARRAY.length];
+		this.intValues[index] = value;
+		this.intKeyMask |= 1 << index;
+		if (this.others != null)
+			this.others.remove(key);
+	}
+
+	private Map<String, Object> getOthers() {
+		if (this.others == null)
+			this.others = Maps.mutable.empty();
+		return this.others;
+	}
+
+
+	@Override
+	public Object get(Object key) {
+		int index = intKeyIndex(key);
+		if (index >= 0 && (this.intKeyMask & (1 << index)) != 0)
+			return this.intValues[index];
+		if (Artifact.PROPERTY_MAPPED_ARTIFACT.equals(key))
+			return this.mappedArtifact;
+		return this.others == null ? null : this.others.get(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		int index = intKeyIndex(key);
+		if (index >= 0 && (this.intKeyMask & (1 << index)) != 0)
+			return true;
+		if (Artifact.PROPERTY_MAPPED_ARTIFACT.equals(key))
+			return this.mappedArtifact != null;
+		return this.others != null && this.others.containsKey(key);
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		checkNotNull(key);
+		checkNotNull(value);
+
+		Object previous = this.get(key);
+		int index = intKeyIndex(key);
+		if (index >= 0 && value instanceof Integer) {
+			this.putInt(key, (Integer) value);
+		} else if (Artifact.PROPERTY_MAPPED_ARTIFACT.equals(key)) {
+			this.mappedArtifact = value;
+		} else {
+			if (index >= 0)
+				this.intKeyMask &= ~(1 << index);
+			this.getOthers().put(key, value);
+		}
+		return previous;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		Object previous = this.get(key);
+		int index = intKeyIndex(key);
+		if (index >= 0)
+			this.intKeyMask &= ~(1 << index);
+		if (Artifact.PROPERTY_MAPPED_ARTIFACT.equals(key))
+			this.mappedArtifact = null;
+		else if (this.others != null)
+			this.others.remove(key);
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return Integer.bitCount(this.intKeyMask) + (this.mappedArtifact != null ? 1 : 0) + (this.others == null ? 0 : this.others.size());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	@Override
+	public void clear() {
+		this.intKeyMask = 0;
+		this.mappedArtifact = null;
+		this.others = null;
+	}
+
+	/**
+	 * @return A view of the entries whose iterator iterates over a snapshot of the properties.
+	 */
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<Entry<String, Object>> iterator() {
+				List<Entry<String, Object>> entries = new ArrayList<>();
+				for (int i = 0; i < INT_KEY_ARRAY.length; i++) {
+					if ((PropertyMap.this.intKeyMask & (1 << i)) != 0)
+						entries.add(new SimpleImmutableEntry<>(INT_KEY_ARRAY[i], PropertyMap.this.intValues[i]));
+				}
+				if (PropertyMap.this.mappedArtifact != null)
+					entries.add(new SimpleImmutableEntry<>(Artifact.PROPERTY_MAPPED_ARTIFACT, PropertyMap.this.mappedArtifact));
+				if (PropertyMap.this.others != null)
+					PropertyMap.this.others.forEach((key, value) -> entries.add(new SimpleImmutableEntry<>(key, value)));
+
+				Iterator<Entry<String, Object>> iterator = entries.iterator();
+				return new Iterator<>() {
+					private Entry<String, Object> current = null;
+
+					@Override
+					public boolean hasNext() {
+						return iterator.hasNext();
+					}
+
+					@Override
+					public Entry<String, Object> next() {
+						this.current = iterator.next();
+						return this.current;
+					}
+
+					@Override
+					public void remove() {
+						if (this.current == null)
+							throw new IllegalStateException();
+						PropertyMap.this.remove(this.current.getKey());
+						this.current = null;
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return PropertyMap.this.size();
+			}
+		};
+	}
+
+}
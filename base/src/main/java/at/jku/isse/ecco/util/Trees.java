@@ -6,6 +6,7 @@ import at.jku.isse.ecco.artifact.ArtifactReference;
 import at.jku.isse.ecco.tree.Node;
 import at.jku.isse.ecco.tree.RootNode;
 
+import java.io.PrintStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -152,6 +153,51 @@ public class Trees {
 		return intersection;
 	}
 
+	/**
+	 * Checks whether slicing the two given trees (see {@link #slice(Node.Op, Node.Op)}) would move any artifacts from the left tree into the intersection.
+	 * This is the case if a unique or atomic node of the left tree is equal to the node of the right tree at the same position.
+	 * Neither tree is modified, so trees can be checked concurrently.
+	 * <p>
+	 * If the trees do not overlap, slicing them only replaces artifacts of the right tree by the equal artifacts of non-unique left nodes.
+	 * Slicing the right tree with the association that contains the unique nodes of these artifacts does the same.
+	 *
+	 * @param left  The left (original) node.
+	 * @param right The right (new) node.
+	 * @return True if the slice of the trees would not be empty.
+	 */
+	public static boolean overlaps(Node.Op left, Node.Op right) {
+		Deque<Node.Op[]> stack = new ArrayDeque<>();
+		stack.push(new Node.Op[]{left, right});
+		while (!stack.isEmpty()) {
+			Node.Op[] pair = stack.pop();
+			List<? extends Node.Op> rightChildren = pair[1].getChildren();
+			if (rightChildren.isEmpty())
+				continue;
+			Map<Node.Op, Node.Op> rightChildrenIndex = null;
+			if (rightChildren.size() > MAP_INDEX_THRESHOLD) {
+				rightChildrenIndex = new HashMap<>(rightChildren.size() * 2);
+				for (Node.Op rightChild : rightChildren) {
+					rightChildrenIndex.putIfAbsent(rightChild, rightChild);
+				}
+			}
+			for (Node.Op leftChild : pair[0].getChildren()) {
+				Node.Op rightChild;
+				if (rightChildrenIndex != null) {
+					rightChild = rightChildrenIndex.get(leftChild);
+				} else {
+					int ri = rightChildren.indexOf(leftChild);
+					rightChild = ri == -1 ? null : rightChildren.get(ri);
+				}
+				if (rightChild == null)
+					continue;
+				if (leftChild.isUnique() || leftChild.isAtomic())
+					return true;
+				stack.push(new Node.Op[]{leftChild, rightChild});
+			}
+		}
+		return false;
+	}
+
 	private static void matchAtomicArtifacts(Node.Op left, Node.Op right) {
 		//right.getArtifact().putProperty(Artifact.PROPERTY_REPLACING_ARTIFACT, left.getArtifact());
 		right.getArtifact().setReplacingArtifact(left.getArtifact());
@@ -423,6 +469,11 @@ public class Trees {
 	}
 
 
+	/**
+	 * Number of children above which {@link #map(Node.Op, Node.Op)} and {@link #overlaps(Node.Op, Node.Op)} look up matching children in a hash map instead of searching the list of children.
+	 */
+	private static final int MAP_INDEX_THRESHOLD = 16;
+
 	/**
 	 * Maps artifacts in tree rooted at right to artifacts in tree rooted at left.
 	 * Does not merge or update artifact references. The left tree is not modified.
@@ -470,14 +521,28 @@ public class Trees {
 		}
 
 
-		for (Node.Op leftChild : left.getChildren()) {
-			int ri = right.getChildren().indexOf(leftChild);
-			if (ri == -1)
-				continue;
+		List<? extends Node.Op> rightChildren = right.getChildren();
+		if (rightChildren.size() > MAP_INDEX_THRESHOLD) {
+			// index the right children (keeping the first of equal children like indexOf) instead of searching them for every left child
+			Map<Node.Op, Node.Op> rightChildrenIndex = new HashMap<>(rightChildren.size() * 2);
+			for (Node.Op rightChild : rightChildren) {
+				rightChildrenIndex.putIfAbsent(rightChild, rightChild);
+			}
+			for (Node.Op leftChild : left.getChildren()) {
+				Node.Op rightChild = rightChildrenIndex.get(leftChild);
+				if (rightChild != null)
+					Trees.map(leftChild, rightChild);
+			}
+		} else {
+			for (Node.Op leftChild : left.getChildren()) {
+				int ri = rightChildren.indexOf(leftChild);
+				if (ri == -1)
+					continue;
 
-			Node.Op rightChild = right.getChildren().get(ri);
+				Node.Op rightChild = rightChildren.get(ri);
 
-			Trees.map(leftChild, rightChild);
+				Trees.map(leftChild, rightChild);
+			}
 		}
 
 
@@ -592,20 +657,54 @@ public class Trees {
 	 * @param node The root of the tree.
 	 */
 	public static void print(Node node) {
-		printRec(node, "");
+		print(node, System.out);
+	}
+
+	/**
+	 * Prints the tree to the given stream.
+	 *
+	 * @param node The root of the tree.
+	 * @param out  The stream to print to.
+	 */
+	public static void print(Node node, PrintStream out) {
+		printRec(node, "", out);
 	}
 
-	private static void printRec(Node node, String indent) {
-		System.out.println(indent + node.toString());
+	private static void printRec(Node node, String indent, PrintStream out) {
+		out.println(indent + node.toString());
 		String newIndent = indent + " ";
 		if (node.isAtomic())
 			return;
 		for (Node child : node.getChildren()) {
-			printRec(child, newIndent);
+			printRec(child, newIndent, out);
 		}
 	}
 
 
+	/**
+	 * Releases the memory that the nodes of the tree and the artifacts they contain reserved for future modifications (see {@link Node.Op#trimToSize()} and {@link Artifact.Op#trimToSize()}).
+	 * This is meant for trees that are not modified for a while, such as the artifact trees of associations after an extraction.
+	 * The tree can still be modified afterwards, in which case the modified nodes allocate their memory again.
+	 * <p>
+	 * The nodes and artifacts are kept as they are, i.e. the tree is not converted into a frozen encoding (e.g. arrays of parent and child indexes) that would have to be thawed before a modification.
+	 * Nodes and artifacts are referenced by identity from outside of their tree (e.g. by containing nodes, artifact references, sequence graphs and replacing artifacts), which such an encoding would have to preserve.
+	 * Only the per-node overhead of unused and empty lists is removed.
+	 *
+	 * @param node The root of the artifact tree.
+	 */
+	public static void compact(Node.Op node) {
+		Deque<Node.Op> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (!stack.isEmpty()) {
+			Node.Op current = stack.pop();
+			current.trimToSize();
+			if (current.isUnique() && current.getArtifact() != null)
+				current.getArtifact().trimToSize();
+			for (Node.Op child : current.getChildren())
+				stack.push(child);
+		}
+	}
+
 	/**
 	 * Checks the state of the artifact tree for inconsistencies.
 	 *
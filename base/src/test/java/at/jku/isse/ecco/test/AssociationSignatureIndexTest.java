@@ -0,0 +1,90 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.AssociationSignatureIndex;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.Trees;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class AssociationSignatureIndexTest {
+
+	private static final String[] IDENTIFIERS = {"a", "b", "c", "d", "e", "f"};
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+
+	/**
+	 * Checks on random trees whose artifacts have colliding hash codes that the signatures never rule out an association a tree overlaps with, neither when the tree is checked as a whole nor when it is checked node by node or subtree by subtree.
+	 */
+	@Test(groups = {"unit", "base", "index"})
+	public void AssociationSignatureIndex_NoFalseNegatives() {
+		Random random = new Random(42);
+		int numOverlaps = 0;
+
+		for (int i = 0; i < 500; i++) {
+			Association.Op association = this.ef.createAssociation();
+			association.setId(String.valueOf(i));
+			RootNode.Op associationRoot = this.randomTree(random, true);
+			association.setRootNode(associationRoot);
+			RootNode.Op tree = this.randomTree(random, false);
+
+			if (!Trees.overlaps(associationRoot, tree))
+				continue;
+			numOverlaps++;
+
+			AssociationSignatureIndex index = new AssociationSignatureIndex();
+			Assert.assertTrue(index.mayOverlap(association, AssociationSignatureIndex.computePaths(tree)));
+
+			AssociationSignatureIndex.Candidates<Association.Op> nodeCandidates = index.candidates(Collections.singletonList(association));
+			tree.traverse((Node.Op node) -> {
+				if (node != tree)
+					nodeCandidates.addNode(node);
+			});
+			Assert.assertEquals(nodeCandidates.getCandidates(), Collections.singletonList(association));
+
+			AssociationSignatureIndex.Candidates<Association.Op> subtreeCandidates = index.candidates(Collections.singletonList(association));
+			for (Node.Op child : tree.getChildren())
+				subtreeCandidates.addSubtree(child);
+			Assert.assertEquals(subtreeCandidates.getCandidates(), Collections.singletonList(association));
+		}
+
+		Assert.assertTrue(numOverlaps > 100);
+	}
+
+
+	/**
+	 * Creates a random tree of at most three levels. The artifacts of every level have one of two hash codes, so that different artifacts at the same path and equal artifacts at different paths are likely.
+	 * Nodes of association trees are non-unique with a chance of a half (like the nodes above the artifacts an association contains) and atomic with a small chance.
+	 */
+	private RootNode.Op randomTree(Random random, boolean association) {
+		RootNode.Op root = this.ef.createRootNode();
+		this.addRandomChildren(random, root, 3, association);
+		return root;
+	}
+
+	private void addRandomChildren(Random random, Node.Op parent, int depth, boolean association) {
+		if (depth == 0)
+			return;
+		List<String> identifiers = new ArrayList<>(Arrays.asList(IDENTIFIERS));
+		Collections.shuffle(identifiers, random);
+		int numChildren = random.nextInt(4);
+		for (String identifier : identifiers.subList(0, numChildren)) {
+			Node.Op child = this.ef.createNode(new CollidingArtifactData(identifier, identifier.charAt(0) % 2));
+			parent.addChild(child);
+			if (association && random.nextInt(8) == 0) {
+				child.getArtifact().setAtomic(true);
+			} else {
+				if (association && random.nextBoolean())
+					child.setUnique(false);
+				this.addRandomChildren(random, child, depth - 1, association);
+			}
+		}
+	}
+
+}
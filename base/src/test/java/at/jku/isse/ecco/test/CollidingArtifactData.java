@@ -0,0 +1,44 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.artifact.ArtifactData;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Artifact data with a given hash code, so that artifacts that are not equal can have colliding hash codes.
+ * Data with the same identifier must be created with the same hash code.
+ */
+public class CollidingArtifactData implements ArtifactData {
+
+	private String identifier;
+
+	private int hash;
+
+	public CollidingArtifactData(String identifier, int hash) {
+		checkNotNull(identifier);
+
+		this.identifier = identifier;
+		this.hash = hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof CollidingArtifactData)) return false;
+
+		CollidingArtifactData that = (CollidingArtifactData) o;
+
+		return identifier.equals(that.identifier);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public String toString() {
+		return this.identifier;
+	}
+
+}
@@ -0,0 +1,102 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.mem.tree.MemNode;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.Trees;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.util.HashSet;
+import java.util.Set;
+
+public class ContainingAssociationTest {
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+	@BeforeMethod(alwaysRun = true)
+	public void enableValidation() {
+		MemNode.setContainingAssociationValidation(true);
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void disableValidation() {
+		MemNode.setContainingAssociationValidation(false);
+	}
+
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void ContainingAssociation_Slice() {
+		Association.Op a1 = this.createAssociation("shared", "only1");
+		Association.Op a2 = this.createAssociation("shared", "only2");
+
+		Node.Op shared1 = this.findLeaf(a1.getRootNode(), "shared");
+		Node.Op only2 = this.findLeaf(a2.getRootNode(), "only2");
+		Assert.assertSame(shared1.getContainingAssociation(), a1);
+		Assert.assertSame(only2.getContainingAssociation(), a2);
+
+		Association.Op intA = this.ef.createAssociation();
+		intA.setRootNode((RootNode.Op) Trees.slice(a1.getRootNode(), a2.getRootNode()));
+
+		Node.Op sharedInt = this.findLeaf(intA.getRootNode(), "shared");
+		Assert.assertNotNull(sharedInt);
+		Assert.assertSame(sharedInt.getContainingAssociation(), intA);
+		Assert.assertSame(this.findLeaf(a1.getRootNode(), "only1").getContainingAssociation(), a1);
+		Assert.assertSame(only2.getContainingAssociation(), a2);
+
+		// detached subtrees are not contained in any association
+		Node.Op parent = only2.getParent();
+		parent.getParent().removeChild(parent);
+		Assert.assertNull(only2.getContainingAssociation());
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void ContainingAssociation_Serialization() throws IOException, ClassNotFoundException {
+		Association.Op a1 = this.createAssociation("a", "b");
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(a1);
+		}
+		Association.Op copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			copy = (Association.Op) ois.readObject();
+		}
+
+		Assert.assertSame(this.findLeaf(copy.getRootNode(), "b").getContainingAssociation(), copy);
+	}
+
+
+	/**
+	 * root - file - block - leaf (one block per given leaf)
+	 */
+	private Association.Op createAssociation(String... leaves) {
+		Node.Op file = this.ef.createNode(new TestArtifactData("file"));
+		for (String leaf : leaves) {
+			Node.Op block = this.ef.createNode(new TestArtifactData("block-" + leaf));
+			block.addChild(this.ef.createNode(new TestArtifactData(leaf)));
+			file.addChild(block);
+		}
+		Set<Node.Op> nodes = new HashSet<>();
+		nodes.add(file);
+		return this.ef.createAssociation(nodes);
+	}
+
+	private Node.Op findLeaf(Node.Op node, String identifier) {
+		if (node.getArtifact() != null && node.getArtifact().getData().toString().equals(identifier))
+			return node;
+		for (Node.Op child : node.getChildren()) {
+			Node.Op found = this.findLeaf(child, identifier);
+			if (found != null)
+				return found;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,194 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.storage.mem.core.MemAssociation;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.mem.repository.MemRepository;
+import at.jku.isse.ecco.storage.mem.tree.FrozenNode;
+import at.jku.isse.ecco.storage.mem.tree.MemNode;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.Trees;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Checks that frozen artifact trees (see {@link Association.Op#freeze()}) read like the trees they were frozen from and thaw back into the same trees.
+ */
+public class FrozenTreeTest {
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void FrozenTree_Views() {
+		Association.Op association = this.createAssociation();
+		String tree = this.describe(association.getRootNode());
+		int artifacts = association.getRootNode().countArtifacts();
+
+		association.freeze();
+		Assert.assertTrue(((MemAssociation) association).isFrozen());
+
+		RootNode.Op root = association.getReadOnlyRootNode();
+		Assert.assertTrue(root instanceof FrozenNode);
+		Assert.assertEquals(this.describe(root), tree);
+		Assert.assertEquals(root.countArtifacts(), artifacts);
+		Assert.assertTrue(((MemAssociation) association).isFrozen());
+
+		// the artifacts resolve to views of their nodes
+		root.traverse((Node.Op node) -> {
+			Assert.assertSame(node.getContainingAssociation(), association);
+			if (node.getParent() != null)
+				Assert.assertTrue(node.getParent().getChildren().contains(node));
+			if (node.getArtifact() != null && node.isUnique()) {
+				Node.Op containingNode = node.getArtifact().getContainingNode();
+				Assert.assertTrue(containingNode instanceof FrozenNode);
+				Assert.assertSame(containingNode.getArtifact(), node.getArtifact());
+				Assert.assertEquals(containingNode.getParent(), node.getParent());
+			}
+		});
+
+		// views cannot be modified
+		Node.Op file = root.getChildren().get(0);
+		Assert.assertThrows(EccoException.class, () -> file.addChild(this.node("other")));
+		Assert.assertThrows(EccoException.class, () -> file.setUnique(false));
+		Assert.assertThrows(UnsupportedOperationException.class, () -> file.getChildren().remove(0));
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void FrozenTree_Thaw() {
+		Association.Op association = this.createAssociation();
+		String tree = this.describe(association.getRootNode());
+
+		association.freeze();
+		RootNode.Op root = association.getRootNode();
+		Assert.assertFalse(((MemAssociation) association).isFrozen());
+		Assert.assertFalse(root instanceof FrozenNode);
+		Assert.assertSame(association.getReadOnlyRootNode(), root);
+		Assert.assertEquals(this.describe(root), tree);
+		Trees.checkConsistency(root);
+
+		// the artifacts reference the thawed nodes again
+		root.traverse((Node.Op node) -> {
+			Assert.assertTrue(node instanceof MemNode);
+			Assert.assertSame(node.getContainingAssociation(), association);
+			if (node.getArtifact() != null && node.isUnique())
+				Assert.assertSame(node.getArtifact().getContainingNode(), node);
+		});
+
+		// the thawed tree can be modified and frozen again
+		root.getChildren().get(0).addChild(this.node("added"));
+		association.freeze();
+		Assert.assertEquals(this.describe(association.getReadOnlyRootNode()), this.describe(association.getRootNode()));
+		Assert.assertTrue(this.describe(association.getRootNode()).contains("added"));
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void FrozenTree_Serialization() throws IOException, ClassNotFoundException {
+		Association.Op association = this.createAssociation();
+		String tree = this.describe(association.getRootNode());
+		association.freeze();
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(association);
+		}
+		Association.Op copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			copy = (Association.Op) ois.readObject();
+		}
+
+		Assert.assertEquals(this.describe(copy.getReadOnlyRootNode()), tree);
+		Node.Op leaf = copy.getReadOnlyRootNode().getChildren().get(0).getChildren().get(0);
+		Assert.assertSame(leaf.getArtifact().getContainingNode().getContainingAssociation(), copy);
+		Assert.assertEquals(this.describe(copy.getRootNode()), tree);
+		Trees.checkConsistency(copy.getRootNode());
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void FrozenTree_Extract() {
+		Repository.Op repository = new MemRepository();
+		this.commit(repository, "A", this.node("file", this.node("common"), this.node("a")));
+		this.commit(repository, "B", this.node("file", this.node("common"), this.node("b")));
+		this.commit(repository, "C", this.node("other", this.node("c")));
+
+		// the associations are frozen after extraction and the non-unique nodes resolve their artifacts in other associations
+		Assert.assertEquals(repository.getAssociations().size(), 4);
+		for (Association.Op association : repository.getAssociations()) {
+			Assert.assertTrue(((MemAssociation) association).isFrozen());
+			association.getReadOnlyRootNode().traverse((Node.Op node) -> {
+				if (node.getArtifact() != null) {
+					Node.Op containingNode = node.getArtifact().getContainingNode();
+					Assert.assertEquals(containingNode, node);
+					Assert.assertTrue(containingNode.isUnique());
+					Assert.assertEquals(containingNode.getContainingAssociation() == association, node.isUnique());
+				}
+			});
+		}
+
+		// the frozen associations are thawed when they are sliced
+		this.commit(repository, "C", this.node("other", this.node("c"), this.node("d")));
+		Assert.assertEquals(repository.getAssociations().size(), 5);
+		for (Association.Op association : repository.getAssociations())
+			Trees.checkConsistency(association.getRootNode());
+	}
+
+
+	/**
+	 * root - file - block (ordered) - line (atomic) - leaf, and a non-unique directory with a unique child.
+	 */
+	private Association.Op createAssociation() {
+		Node.Op file = this.node("file");
+		Node.Op block = this.ef.createOrderedNode(new TestArtifactData("block"));
+		for (int i = 0; i < 5; i++) {
+			Node.Op line = this.node("line" + i, this.node("leaf" + i));
+			line.getArtifact().setAtomic(true);
+			block.addChild(line);
+		}
+		file.addChild(block);
+
+		// the artifact of the non-unique directory is contained in another association
+		Node.Op dir = this.node("dir", this.node("in-dir"));
+		dir.setUnique(false);
+		this.ef.createAssociation(Collections.singleton(this.ef.createNode(dir.getArtifact())));
+
+		Set<Node.Op> nodes = new LinkedHashSet<>();
+		nodes.add(file);
+		nodes.add(dir);
+		return this.ef.createAssociation(nodes);
+	}
+
+	private void commit(Repository.Op repository, String feature, Node.Op... files) {
+		Configuration configuration = this.ef.createConfiguration(new FeatureRevision[]{this.ef.createFeature(feature, feature).addRevision("1")});
+		repository.extract(configuration, new HashSet<>(Arrays.asList(files)));
+	}
+
+	private Node.Op node(String identifier, Node.Op... children) {
+		Node.Op node = this.ef.createNode(new TestArtifactData(identifier));
+		node.addChildren(children);
+		return node;
+	}
+
+	/**
+	 * @return The given tree with its children in order and the uniqueness and atomicity of its nodes.
+	 */
+	private String describe(Node node) {
+		StringBuilder sb = new StringBuilder();
+		if (node.getArtifact() != null)
+			sb.append(node.getArtifact().getData()).append(node.isUnique() ? "" : "~").append(node.isAtomic() ? "!" : "");
+		sb.append("[");
+		for (Node child : node.getChildren())
+			sb.append(this.describe(child));
+		sb.append("]");
+		return sb.toString();
+	}
+
+}
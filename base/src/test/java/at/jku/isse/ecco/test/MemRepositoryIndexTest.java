@@ -0,0 +1,73 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.core.Variant;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.storage.mem.core.MemVariant;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.mem.repository.MemRepository;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.*;
+
+/**
+ * Checks that the variant lookups of the memory repository find variants whose configurations were changed without going through the repository.
+ */
+public class MemRepositoryIndexTest {
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+
+	@Test(groups = {"unit", "base", "repository"})
+	public void MemRepositoryIndex_Variants() throws IOException, ClassNotFoundException {
+		MemRepository repository = new MemRepository();
+		Configuration a = this.configuration(repository, "A");
+		Configuration b = this.configuration(repository, "B");
+		Configuration c = this.configuration(repository, "C");
+
+		Variant variant = new MemVariant("variant", a, "1");
+		repository.addVariant(variant);
+		Assert.assertSame(repository.getVariant(a), variant);
+		Assert.assertSame(repository.getVariant("1"), variant);
+
+		// through the repository
+		repository.updateVariant(variant, b, "variant");
+		Assert.assertNull(repository.getVariant(a));
+		Assert.assertSame(repository.getVariant(b), variant);
+
+		// in place
+		variant.setConfiguration(c);
+		variant.setId("2");
+		Assert.assertNull(repository.getVariant(b));
+		Assert.assertSame(repository.getVariant(c), variant);
+		Assert.assertNull(repository.getVariant("1"));
+		Assert.assertSame(repository.getVariant("2"), variant);
+
+		// added to the list of variants
+		Variant other = new MemVariant("other", a, "3");
+		repository.getVariants().add(other);
+		Assert.assertSame(repository.getVariant(a), other);
+		Assert.assertSame(repository.getVariant("3"), other);
+
+		// after serialization
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(repository);
+		}
+		MemRepository copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			copy = (MemRepository) ois.readObject();
+		}
+		Assert.assertEquals(copy.getVariant("2").getName(), "variant");
+		Assert.assertEquals(copy.getVariant(copy.getVariant("3").getConfiguration()).getId(), "3");
+	}
+
+
+	private Configuration configuration(MemRepository repository, String feature) {
+		FeatureRevision featureRevision = repository.addFeature(feature, feature).addRevision("1");
+		return this.ef.createConfiguration(new FeatureRevision[]{featureRevision});
+	}
+
+}
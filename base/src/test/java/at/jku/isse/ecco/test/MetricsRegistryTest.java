@@ -0,0 +1,51 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.metrics.MetricsListener;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MetricsRegistryTest {
+
+	@Test(groups = {"unit", "base", "metrics"})
+	public void MetricsRegistry_Record() {
+		MetricsRegistry metrics = new MetricsRegistry();
+
+		List<String> events = new ArrayList<>();
+		metrics.addListener(new MetricsListener() {
+			@Override
+			public void timingRecordedEvent(String phase, long durationNanos) {
+				events.add(phase + "=" + durationNanos);
+			}
+
+			@Override
+			public void counterIncrementedEvent(String counter, long delta, long value) {
+				events.add(counter + "+" + delta + "=" + value);
+			}
+		});
+
+		metrics.record(MetricsRegistry.PHASE_EXTRACT, 10);
+		metrics.record(MetricsRegistry.PHASE_EXTRACT, 30);
+		metrics.increment(MetricsRegistry.COUNTER_ARTIFACTS_READ, 5);
+		metrics.increment(MetricsRegistry.COUNTER_ARTIFACTS_READ);
+
+		MetricsRegistry.Timer timer = metrics.getTimers().get(MetricsRegistry.PHASE_EXTRACT);
+		Assert.assertEquals(timer.getCount(), 2);
+		Assert.assertEquals(timer.getTotalNanos(), 40);
+		Assert.assertEquals(timer.getMeanNanos(), 20);
+		Assert.assertEquals(timer.getMaxNanos(), 30);
+		Assert.assertEquals(timer.getLastNanos(), 30);
+		Assert.assertEquals(metrics.getCounter(MetricsRegistry.COUNTER_ARTIFACTS_READ), 6);
+		Assert.assertEquals(metrics.getCounter(MetricsRegistry.COUNTER_BYTES_STORED), 0);
+		Assert.assertEquals(events.size(), 4);
+		Assert.assertEquals(events.get(3), MetricsRegistry.COUNTER_ARTIFACTS_READ + "+1=6");
+
+		metrics.reset();
+		Assert.assertNull(metrics.getTimer(MetricsRegistry.PHASE_EXTRACT));
+		Assert.assertTrue(metrics.getCounters().isEmpty());
+	}
+
+}
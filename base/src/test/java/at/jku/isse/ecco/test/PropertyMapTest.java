@@ -0,0 +1,64 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.util.PropertyMap;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+
+public class PropertyMapTest {
+
+	@Test(groups = {"unit", "base", "properties"})
+	public void PropertyMap_Int() {
+		PropertyMap properties = new PropertyMap();
+
+		properties.putInt("LINE_START", 3);
+		properties.putInt("LINE_END", 4);
+		properties.putInt("other", 5);
+
+		Assert.assertEquals(properties.getInt("LINE_START"), OptionalInt.of(3));
+		Assert.assertEquals(properties.getInt("other"), OptionalInt.of(5));
+		Assert.assertEquals(properties.getInt("missing"), OptionalInt.empty());
+		Assert.assertEquals(properties.get("LINE_END"), 4);
+		Assert.assertEquals(properties.size(), 3);
+
+		// a value of another type replaces the int value of a well-known key
+		properties.put("LINE_END", "end");
+		Assert.assertEquals(properties.get("LINE_END"), "end");
+		Assert.assertEquals(properties.getInt("LINE_END"), OptionalInt.empty());
+		Assert.assertEquals(properties.size(), 3);
+
+		properties.remove("LINE_START");
+		Assert.assertFalse(properties.containsKey("LINE_START"));
+		Assert.assertEquals(properties.size(), 2);
+	}
+
+	@Test(groups = {"unit", "base", "properties"})
+	public void PropertyMap_Map() {
+		PropertyMap properties = new PropertyMap();
+		Object mapped = new Object();
+
+		Assert.assertEquals(properties.put("line", 1), null);
+		Assert.assertEquals(properties.put("line", 2), 1);
+		properties.put(Artifact.PROPERTY_MAPPED_ARTIFACT, mapped);
+		properties.put(Artifact.PROPERTY_MARKED_FOR_EXTRACTION, true);
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put("line", 2);
+		expected.put(Artifact.PROPERTY_MAPPED_ARTIFACT, mapped);
+		expected.put(Artifact.PROPERTY_MARKED_FOR_EXTRACTION, true);
+		Assert.assertEquals(properties, expected);
+		Assert.assertEquals(new HashMap<>(properties), expected);
+
+		properties.entrySet().removeIf(entry -> entry.getKey().equals(Artifact.PROPERTY_MAPPED_ARTIFACT));
+		Assert.assertNull(properties.get(Artifact.PROPERTY_MAPPED_ARTIFACT));
+		Assert.assertEquals(properties.size(), 2);
+
+		properties.clear();
+		Assert.assertTrue(properties.isEmpty());
+	}
+
+}
@@ -0,0 +1,216 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.AssociationSignatureIndex;
+import at.jku.isse.ecco.core.Commit;
+import at.jku.isse.ecco.counter.ModuleCounter;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.mem.repository.MemRepository;
+import at.jku.isse.ecco.tree.Node;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Checks that skipping the associations a committed association does not overlap with (see {@link Repository#SLICE_ALL_PROPERTY}) leads to the same associations, artifact trees and commits as slicing every association.
+ */
+public class RepositoryExtractTest {
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+	private boolean collectCandidates = false;
+
+
+	@Test(groups = {"unit", "base", "repository"})
+	public void Repository_ExtractSkip() {
+		List<String> skipped = this.describe(this.sliced(false, this::commitAll));
+		List<String> slicedAll = this.describe(this.sliced(true, this::commitAll));
+
+		Assert.assertEquals(skipped, slicedAll);
+	}
+
+	@Test(groups = {"unit", "base", "repository"})
+	public void Repository_MergeSkip() {
+		List<String> skipped = this.describe(this.sliced(false, this::mergeAll));
+		List<String> slicedAll = this.describe(this.sliced(true, this::mergeAll));
+
+		Assert.assertEquals(skipped, slicedAll);
+	}
+
+	@Test(groups = {"unit", "base", "repository"})
+	public void Repository_ExtractCollidingSignatures() {
+		List<String> skipped = this.describe(this.sliced(false, this::commitColliding));
+		List<String> candidates;
+		this.collectCandidates = true;
+		try {
+			candidates = this.describe(this.sliced(false, this::commitColliding));
+		} finally {
+			this.collectCandidates = false;
+		}
+		List<String> slicedAll = this.describe(this.sliced(true, this::commitColliding));
+
+		Assert.assertEquals(skipped, slicedAll);
+		Assert.assertEquals(candidates, slicedAll);
+	}
+
+
+	/**
+	 * Commits variants whose trees share unique, atomic and non-unique nodes at the same paths (the file nodes end up in several associations) as well as variants that do not overlap with the others.
+	 */
+	private void commitAll(Repository.Op repository) {
+		this.commit(repository, new String[]{"A"}, this.node("file", this.node("common"), this.node("a"), this.atomic("atom", this.node("x"), this.node("y"))), this.node("other", this.node("o1")));
+		this.commit(repository, new String[]{"B"}, this.node("file", this.node("common"), this.node("b"), this.atomic("atom", this.node("x"), this.node("y"))));
+		this.commit(repository, new String[]{"A", "B"}, this.node("file", this.node("common"), this.node("a"), this.node("b"), this.atomic("atom", this.node("x"), this.node("y"))));
+		// does not overlap with any association
+		this.commit(repository, new String[]{"C"}, this.node("dir", this.node("sub", this.node("leaf"))));
+		// only the non-unique file nodes overlap with the associations of B
+		this.commit(repository, new String[]{"A"}, this.node("file", this.node("common"), this.node("a")), this.node("other", this.node("o2")));
+		// more children than looked up by searching the list of children
+		Node.Op[] lines = new Node.Op[24];
+		for (int i = 0; i < lines.length; i++)
+			lines[i] = this.node("line" + i);
+		this.commit(repository, new String[]{"D"}, this.node("file", lines), this.node("dir", this.node("sub", this.node("leaf2"))));
+		lines = new Node.Op[24];
+		for (int i = 0; i < lines.length; i++)
+			lines[i] = this.node(i % 2 == 0 ? "line" + i : "other" + i);
+		this.commit(repository, new String[]{"D", "C"}, this.node("file", lines), this.node("dir", this.node("sub", this.node("leaf"))));
+	}
+
+	/**
+	 * Commits variants whose artifacts all have the same hash code, with different artifacts at the same paths and equal artifacts at different paths, so that the signatures of the associations (see {@link AssociationSignatureIndex}) cannot tell their paths apart.
+	 */
+	private void commitColliding(Repository.Op repository) {
+		this.commit(repository, new String[]{"A"}, this.colliding("file", this.colliding("x", this.colliding("p")), this.colliding("y")));
+		this.commit(repository, new String[]{"B"}, this.colliding("file", this.colliding("y", this.colliding("p")), this.colliding("z")));
+		this.commit(repository, new String[]{"C"}, this.colliding("dir", this.colliding("x"), this.colliding("y", this.colliding("q"))));
+		this.commit(repository, new String[]{"A", "B"}, this.colliding("file", this.colliding("x", this.colliding("p")), this.colliding("y", this.colliding("p"))), this.colliding("dir", this.colliding("y")));
+		this.commit(repository, new String[]{"C", "B"}, this.colliding("file", this.colliding("z", this.colliding("x"))), this.colliding("dir", this.colliding("x"), this.colliding("y", this.colliding("q"))));
+		this.commit(repository, new String[]{"D"}, this.colliding("p", this.colliding("file")), this.colliding("q"));
+	}
+
+	/**
+	 * Merges a repository with overlapping and non-overlapping associations into a repository.
+	 */
+	private void mergeAll(Repository.Op repository) {
+		this.commit(repository, new String[]{"A"}, this.node("file", this.node("common"), this.node("a"), this.atomic("atom", this.node("x"), this.node("y"))));
+		this.commit(repository, new String[]{"B"}, this.node("file", this.node("common"), this.node("b"), this.atomic("atom", this.node("x"), this.node("y"))));
+
+		Repository.Op other = new MemRepository();
+		this.commit(other, new String[]{"A"}, this.node("file", this.node("common"), this.node("a2"), this.atomic("atom", this.node("x"), this.node("y"))));
+		this.commit(other, new String[]{"C"}, this.node("file", this.node("common"), this.node("c")), this.node("dir", this.node("sub", this.node("leaf"))));
+		this.commit(other, new String[]{"E"}, this.node("elsewhere", this.node("e")));
+
+		repository.merge(other);
+	}
+
+
+	private Repository.Op sliced(boolean sliceAll, Consumer<Repository.Op> operation) {
+		Repository.Op repository = new MemRepository();
+		if (sliceAll)
+			System.setProperty(Repository.SLICE_ALL_PROPERTY, "true");
+		try {
+			operation.accept(repository);
+		} finally {
+			System.clearProperty(Repository.SLICE_ALL_PROPERTY);
+		}
+		return repository;
+	}
+
+	private void commit(Repository.Op repository, String[] features, Node.Op... files) {
+		FeatureRevision[] featureRevisions = new FeatureRevision[features.length];
+		for (int i = 0; i < features.length; i++)
+			featureRevisions[i] = this.ef.createFeature(features[i], features[i]).addRevision("1");
+		Configuration configuration = this.ef.createConfiguration(featureRevisions);
+
+		if (this.collectCandidates) {
+			AssociationSignatureIndex.Candidates<Association.Op> candidates = repository.getSignatureIndex().candidates(repository.getAssociations());
+			for (Node.Op file : files)
+				candidates.addSubtree(file);
+			repository.extract(configuration, new HashSet<>(Arrays.asList(files)), candidates.getCandidates());
+		} else {
+			repository.extract(configuration, new HashSet<>(Arrays.asList(files)));
+		}
+	}
+
+	private Node.Op node(String identifier, Node.Op... children) {
+		Node.Op node = this.ef.createNode(new TestArtifactData(identifier));
+		node.addChildren(children);
+		return node;
+	}
+
+	private Node.Op colliding(String identifier, Node.Op... children) {
+		Node.Op node = this.ef.createNode(new CollidingArtifactData(identifier, 0));
+		node.addChildren(children);
+		return node;
+	}
+
+	private Node.Op atomic(String identifier, Node.Op... children) {
+		Node.Op node = this.node(identifier, children);
+		node.getArtifact().setAtomic(true);
+		return node;
+	}
+
+
+	/**
+	 * @return A description of the associations, artifact trees and commits of the given repository that does not depend on the generated ids or on the order of associations and children.
+	 */
+	private List<String> describe(Repository.Op repository) {
+		List<String> description = new ArrayList<>();
+		for (Association.Op association : repository.getAssociations()) {
+			List<String> modules = new ArrayList<>();
+			for (ModuleCounter moduleCounter : association.getCounter().getChildren())
+				modules.add(moduleCounter.getObject() + ":" + moduleCounter.getCount());
+			Collections.sort(modules);
+			description.add("association " + this.name(association) + " " + modules + " " + this.tree(association.getRootNode()));
+		}
+		for (Commit commit : repository.getCommits()) {
+			List<String> associations = new ArrayList<>();
+			for (Association association : commit.getAssociations())
+				associations.add(this.name((Association.Op) association));
+			Collections.sort(associations);
+			description.add("commit " + associations);
+		}
+		Collections.sort(description);
+		return description;
+	}
+
+	/**
+	 * @return The sorted unique artifacts and the count of the given association.
+	 */
+	private String name(Association.Op association) {
+		List<String> artifacts = new ArrayList<>();
+		association.getRootNode().traverse((Node.Op node) -> {
+			if (node.isUnique() && node.getArtifact() != null)
+				artifacts.add(node.getArtifact().getData().toString());
+		});
+		Collections.sort(artifacts);
+		return artifacts + "#" + association.getCounter().getCount();
+	}
+
+	/**
+	 * @return The given tree with sorted children, where non-unique nodes name the association that contains their artifact.
+	 */
+	private String tree(Node node) {
+		List<String> children = new ArrayList<>();
+		for (Node child : node.getChildren())
+			children.add(this.tree(child));
+		Collections.sort(children);
+
+		String artifact = "";
+		if (node.getArtifact() != null) {
+			artifact = node.getArtifact().getData().toString();
+			if (node.isAtomic())
+				artifact += "!";
+			if (!node.isUnique())
+				artifact += "~" + this.name((Association.Op) node.getArtifact().getContainingNode().getContainingAssociation());
+		}
+		return artifact + children;
+	}
+
+}
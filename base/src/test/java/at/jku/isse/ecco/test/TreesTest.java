@@ -10,8 +10,13 @@ import org.testng.annotations.AfterTest;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import java.util.function.Supplier;
+
 public class TreesTest {
 
+	private final EntityFactory ef = new MemEntityFactory();
+
+
 	@Test(groups = {"unit", "base", "tree"})
 	public void Trees_Full() {
 		EntityFactory ef = new MemEntityFactory();
@@ -54,6 +59,128 @@ public class TreesTest {
 
 	}
 
+	@Test(groups = {"unit", "base", "tree"})
+	public void Trees_Overlaps() {
+		// unique nodes at the same path
+		this.assertOverlaps(true, () -> this.root(this.node("file", this.node("a"))), () -> this.root(this.node("file", this.node("b"))));
+		// only non-unique nodes at the same path
+		this.assertOverlaps(false, () -> this.root(this.nonUnique("file", this.node("a"))), () -> this.root(this.node("file", this.node("b"))));
+		this.assertOverlaps(false, () -> this.root(this.nonUnique("file", this.nonUnique("dir", this.node("a")))), () -> this.root(this.node("file", this.node("dir", this.node("b")))));
+		// a unique node below non-unique nodes at the same path
+		this.assertOverlaps(true, () -> this.root(this.nonUnique("file", this.nonUnique("dir", this.node("a")))), () -> this.root(this.node("file", this.node("dir", this.node("a")))));
+		// a unique node at another path
+		this.assertOverlaps(false, () -> this.root(this.nonUnique("file", this.node("a"))), () -> this.root(this.node("other", this.node("a"))));
+		// an atomic node at the same path
+		this.assertOverlaps(true, () -> this.root(this.nonUnique("file", this.atomic(this.node("atom", this.node("x"))))), () -> this.root(this.node("file", this.atomic(this.node("atom", this.node("x"))))));
+		// atomic nodes of associations are always unique. a non-unique one still counts as overlapping, because slicing removes it from the left tree
+		Assert.assertTrue(Trees.overlaps(this.root(this.nonUnique("file", this.atomic(this.nonUnique("atom", this.node("x"))))), this.root(this.node("file", this.atomic(this.node("atom", this.node("x")))))));
+		// disjoint trees
+		this.assertOverlaps(false, () -> this.root(this.node("a")), () -> this.root(this.node("b")));
+		this.assertOverlaps(false, () -> this.root(this.node("a")), () -> this.root());
+		// more children than looked up by searching the list of children
+		this.assertOverlaps(true, () -> this.root(this.nonUnique("file", this.children("line", 40, 17))), () -> this.root(this.node("file", this.children("line", 40, 17))));
+		this.assertOverlaps(false, () -> this.root(this.nonUnique("file", this.children("line", 40, 17))), () -> this.root(this.node("file", this.children("line", 40, -1))));
+		this.assertOverlaps(false, () -> this.root(this.nonUnique("file", this.children("line", 40, -1))), () -> this.root(this.node("file", this.children("line", 40, 17))));
+	}
+
+	@Test(groups = {"unit", "base", "tree"})
+	public void Trees_Compact() {
+		Node.Op root1 = this.createTestTree1();
+		Node.Op root2 = this.createTestTree2();
+		String tree1 = this.describe(root1);
+
+		// compacting keeps the tree as it is
+		Trees.compact(root1);
+		Trees.checkConsistency(root1);
+		Assert.assertEquals(this.describe(root1), tree1);
+
+		// slicing a compacted tree moves the same artifacts as slicing the tree that was not compacted
+		Node.Op intersection = Trees.slice(root1, root2);
+		Node.Op uncompactedRoot1 = this.createTestTree1();
+		Node.Op uncompactedIntersection = Trees.slice(uncompactedRoot1, this.createTestTree2());
+		Assert.assertEquals(this.describe(root1), this.describe(uncompactedRoot1));
+		Assert.assertEquals(this.describe(intersection), this.describe(uncompactedIntersection));
+
+		// compacted leaves and artifacts can still be modified
+		Trees.compact(root1);
+		Trees.compact(intersection);
+		Node.Op parent = root1.getChildren().get(0);
+		Node.Op leaf = parent;
+		while (!leaf.getChildren().isEmpty())
+			leaf = leaf.getChildren().get(0);
+		leaf.addChild(this.node("child"));
+		Assert.assertEquals(leaf.getChildren().size(), 1);
+		leaf.getArtifact().addUses(parent.getArtifact());
+		Assert.assertEquals(leaf.getArtifact().getUses().size(), 1);
+		Assert.assertEquals(parent.getArtifact().getUsedBy().size(), 1);
+		Trees.checkConsistency(root1);
+	}
+
+	/**
+	 * @return The given tree with its children in order and the uniqueness of its nodes.
+	 */
+	private String describe(Node node) {
+		StringBuilder sb = new StringBuilder();
+		if (node.getArtifact() != null)
+			sb.append(node.getArtifact().getData()).append(node.isUnique() ? "" : "~");
+		sb.append("[");
+		for (Node child : node.getChildren())
+			sb.append(this.describe(child));
+		sb.append("]");
+		return sb.toString();
+	}
+
+	/**
+	 * Checks that the given trees overlap if and only if slicing them results in a non-empty intersection, and that checking the overlap does not modify the trees.
+	 * The trees are created for every check, because slicing modifies them.
+	 */
+	private void assertOverlaps(boolean expected, Supplier<Node.Op> left, Supplier<Node.Op> right) {
+		Node.Op leftRoot = left.get();
+		Node.Op rightRoot = right.get();
+		int leftArtifacts = Trees.countArtifacts(leftRoot);
+		int rightArtifacts = Trees.countArtifacts(rightRoot);
+
+		Assert.assertEquals(Trees.overlaps(leftRoot, rightRoot), expected);
+		Assert.assertEquals(Trees.countArtifacts(leftRoot), leftArtifacts);
+		Assert.assertEquals(Trees.countArtifacts(rightRoot), rightArtifacts);
+
+		Node.Op intersection = Trees.slice(left.get(), right.get());
+		Assert.assertEquals(!intersection.getChildren().isEmpty(), expected);
+	}
+
+	private RootNode.Op root(Node.Op... children) {
+		RootNode.Op root = this.ef.createRootNode();
+		root.addChildren(children);
+		return root;
+	}
+
+	private Node.Op node(String identifier, Node.Op... children) {
+		Node.Op node = this.ef.createNode(new TestArtifactData(identifier));
+		node.addChildren(children);
+		return node;
+	}
+
+	private Node.Op nonUnique(String identifier, Node.Op... children) {
+		Node.Op node = this.node(identifier, children);
+		node.setUnique(false);
+		return node;
+	}
+
+	private Node.Op atomic(Node.Op node) {
+		node.getArtifact().setAtomic(true);
+		return node;
+	}
+
+	/**
+	 * @return The given number of non-unique children, of which only the one at the given index (if any) has a unique child.
+	 */
+	private Node.Op[] children(String prefix, int count, int uniqueIndex) {
+		Node.Op[] children = new Node.Op[count];
+		for (int i = 0; i < count; i++)
+			children[i] = i == uniqueIndex ? this.nonUnique(prefix + i, this.node("unique")) : this.nonUnique(prefix + i);
+		return children;
+	}
+
 
 	/**
 	 * root
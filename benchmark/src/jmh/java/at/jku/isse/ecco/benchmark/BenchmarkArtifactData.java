@@ -0,0 +1,42 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.artifact.ArtifactData;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Artifact data used by the synthetic variants of the {@link VariantGenerator}.
+ */
+public class BenchmarkArtifactData implements ArtifactData {
+
+	public static final long serialVersionUID = 1L;
+
+	private final String identifier;
+
+	public BenchmarkArtifactData(String identifier) {
+		checkNotNull(identifier);
+
+		this.identifier = identifier;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof BenchmarkArtifactData)) return false;
+
+		BenchmarkArtifactData that = (BenchmarkArtifactData) o;
+
+		return this.identifier.equals(that.identifier);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.identifier.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.identifier;
+	}
+
+}
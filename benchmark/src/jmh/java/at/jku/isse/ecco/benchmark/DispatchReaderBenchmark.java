@@ -0,0 +1,76 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.adapter.ArtifactReader;
+import at.jku.isse.ecco.adapter.dispatch.DispatchReader;
+import at.jku.isse.ecco.adapter.text.TextReader;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks {@link DispatchReader#read(Path, Path[])} of a base directory containing the text files of a synthetic variant.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DispatchReaderBenchmark {
+
+	private static final int DIRECTORIES = 4;
+
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	public VariantGenerator.Scale scale;
+
+	private Path tempDir;
+	private Path baseDir;
+	private DispatchReader reader;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		this.tempDir = Files.createTempDirectory("ecco-benchmark");
+		this.baseDir = this.tempDir.resolve("base");
+		Path repositoryDir = this.tempDir.resolve("repo");
+		Files.createDirectories(repositoryDir);
+
+		// spread the files of the variant over a few directories
+		VariantGenerator generator = new VariantGenerator(this.scale);
+		for (int i = 0; i < DIRECTORIES; i++) {
+			generator.writeFiles(this.baseDir.resolve("dir" + i), 0);
+		}
+
+		EntityFactory entityFactory = new MemEntityFactory();
+		Set<ArtifactReader<Path, Set<Node.Op>>> readers = new HashSet<>();
+		readers.add(new TextReader(entityFactory));
+		this.reader = new DispatchReader(entityFactory, readers, repositoryDir);
+		this.reader.init();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() throws IOException {
+		try (Stream<Path> paths = Files.walk(this.tempDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new EccoException("Error deleting benchmark directory.", e);
+				}
+			});
+		}
+	}
+
+
+	@Benchmark
+	public Set<Node.Op> read() {
+		return this.reader.read(this.baseDir, new Path[]{Paths.get("")});
+	}
+
+}
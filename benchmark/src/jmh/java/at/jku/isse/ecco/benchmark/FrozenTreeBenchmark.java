@@ -0,0 +1,90 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks reading the artifact trees of a memory repository whose associations are frozen after extraction (see {@link Association.Op#freeze()}) against reading them after they were thawed into nodes again.
+ * The heap retained by the repository is reported as the secondary result {@code retainedBytes} next to the number of nodes {@code nodes}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FrozenTreeBenchmark {
+
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	public VariantGenerator.Scale scale;
+
+	@Param({"16"})
+	public int variants;
+
+	@Param({"true", "false"})
+	public boolean frozen;
+
+	private Repository.Op repository;
+	private long retainedBytes;
+	private long nodes;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		VariantGenerator generator = new VariantGenerator(this.scale);
+		EntityFactory entityFactory = new MemEntityFactory();
+
+		long usedBefore = usedHeap();
+		this.repository = RepositoryBenchmark.createRepository(generator, entityFactory, this.variants);
+		this.nodes = 0;
+		for (Association.Op association : this.repository.getAssociations()) {
+			// the trees are frozen by the extraction, getting their root nodes thaws them
+			Node.Op rootNode = this.frozen ? association.getReadOnlyRootNode() : association.getRootNode();
+			this.nodes += countNodes(rootNode);
+		}
+		this.retainedBytes = usedHeap() - usedBefore;
+	}
+
+	/**
+	 * @return The used heap after collecting garbage.
+	 */
+	static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++)
+			System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	static long countNodes(Node node) {
+		long count = 1;
+		for (Node child : node.getChildren())
+			count += countNodes(child);
+		return count;
+	}
+
+
+	/**
+	 * The heap retained by the repository, reported once per iteration.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Footprint {
+		public long retainedBytes;
+		public long nodes;
+	}
+
+
+	@Benchmark
+	public long traverse(Footprint footprint) {
+		footprint.retainedBytes = this.retainedBytes;
+		footprint.nodes = this.nodes;
+
+		long artifacts = 0;
+		for (Association.Op association : this.repository.getAssociations())
+			artifacts += association.getReadOnlyRootNode().countArtifacts();
+		return artifacts;
+	}
+
+}
@@ -0,0 +1,71 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.pog.PartialOrderGraph;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link PartialOrderGraph.Op#align(List)} and {@link PartialOrderGraph.Op#merge(List)} of the line sequence of one file.
+ * The partial order graph is built from the first variants and the sequence of another variant is aligned to or merged into it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PartialOrderGraphBenchmark {
+
+	private static final int GRAPH_VARIANTS = 3;
+
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	public VariantGenerator.Scale scale;
+
+	private VariantGenerator generator;
+	private EntityFactory entityFactory;
+
+	private PartialOrderGraph.Op graph;
+	private List<Artifact.Op<?>> sequence;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		this.generator = new VariantGenerator(this.scale);
+		this.entityFactory = new MemEntityFactory();
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		// aligning assigns sequence numbers to the artifacts and merging changes the graph, so both are created anew
+		Artifact.Op<?> fileArtifact = this.entityFactory.createArtifact(new BenchmarkArtifactData(this.generator.getFileName(0)));
+		fileArtifact.setOrdered(true);
+		this.graph = fileArtifact.createSequenceGraph();
+		for (int variant = 0; variant < GRAPH_VARIANTS; variant++) {
+			this.graph.merge(this.createSequence(variant));
+		}
+		this.sequence = this.createSequence(GRAPH_VARIANTS);
+	}
+
+	private List<Artifact.Op<?>> createSequence(int variant) {
+		List<Artifact.Op<?>> artifacts = new ArrayList<>();
+		for (String line : this.generator.generateLines(variant, 0)) {
+			artifacts.add(this.entityFactory.createArtifact(new BenchmarkArtifactData(line)));
+		}
+		return artifacts;
+	}
+
+	@Benchmark
+	public PartialOrderGraph.Op align() {
+		this.graph.align(this.sequence);
+		return this.graph;
+	}
+
+	@Benchmark
+	public PartialOrderGraph.Op merge() {
+		this.graph.merge(this.sequence);
+		return this.graph;
+	}
+
+}
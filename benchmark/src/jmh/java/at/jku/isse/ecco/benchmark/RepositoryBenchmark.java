@@ -0,0 +1,119 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.core.Checkout;
+import at.jku.isse.ecco.core.Commit;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.module.ModuleRevision;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the {@link Repository.Op} operations {@link Repository.Op#extract(Configuration, Set)}, {@link Repository.Op#compose(Configuration)} and {@link Repository.Op#addConfigurationModules(Configuration)} on a memory repository containing a number of synthetic variants.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RepositoryBenchmark {
+
+	/**
+	 * Creates a memory repository containing the given number of variants.
+	 *
+	 * @param generator     The variant generator.
+	 * @param entityFactory The entity factory.
+	 * @param variants      The number of variants to commit.
+	 * @return The populated repository.
+	 */
+	static Repository.Op createRepository(VariantGenerator generator, EntityFactory entityFactory, int variants) {
+		Repository.Op repository = entityFactory.createRepository();
+		populateRepository(repository, generator, entityFactory, variants);
+		return repository;
+	}
+
+	static void populateRepository(Repository.Op repository, VariantGenerator generator, EntityFactory entityFactory, int variants) {
+		for (int variant = 0; variant < variants; variant++) {
+			repository.extract(generator.createConfiguration(entityFactory, variant), generator.createNodes(entityFactory, variant));
+		}
+	}
+
+
+	/**
+	 * Extraction changes the repository, which is why the repository and the committed variant are created anew for every invocation.
+	 */
+	@State(Scope.Thread)
+	public static class ExtractState {
+		@Param({"SMALL", "MEDIUM", "LARGE"})
+		public VariantGenerator.Scale scale;
+
+		@Param({"4", "16"})
+		public int variants;
+
+		private VariantGenerator generator;
+		private EntityFactory entityFactory;
+
+		private Repository.Op repository;
+		private Configuration configuration;
+		private Set<Node.Op> nodes;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			this.generator = new VariantGenerator(this.scale);
+			this.entityFactory = new MemEntityFactory();
+		}
+
+		@Setup(Level.Invocation)
+		public void setupInvocation() {
+			this.repository = createRepository(this.generator, this.entityFactory, this.variants);
+			this.configuration = this.generator.createConfiguration(this.entityFactory, this.variants);
+			this.nodes = this.generator.createNodes(this.entityFactory, this.variants);
+		}
+	}
+
+	/**
+	 * Composition and module computation do not change the structure of the repository, which is why it is only created once.
+	 */
+	@State(Scope.Thread)
+	public static class PopulatedState {
+		@Param({"SMALL", "MEDIUM", "LARGE"})
+		public VariantGenerator.Scale scale;
+
+		@Param({"4", "16"})
+		public int variants;
+
+		private Repository.Op repository;
+		private Configuration configuration;
+
+		@Setup(Level.Trial)
+		public void setupTrial() {
+			VariantGenerator generator = new VariantGenerator(this.scale);
+			EntityFactory entityFactory = new MemEntityFactory();
+			this.repository = createRepository(generator, entityFactory, this.variants);
+			// use the repository instances of the feature revisions, like the commit operation does
+			Collection<FeatureRevision> featureRevisions = this.repository.addConfigurationFeatures(generator.createConfiguration(entityFactory, this.variants - 1));
+			this.configuration = entityFactory.createConfiguration(featureRevisions.toArray(new FeatureRevision[0]));
+		}
+	}
+
+
+	@Benchmark
+	public Commit extract(ExtractState state) {
+		return state.repository.extract(state.configuration, state.nodes);
+	}
+
+	@Benchmark
+	public Checkout compose(PopulatedState state) {
+		return state.repository.compose(state.configuration);
+	}
+
+	@Benchmark
+	public Collection<ModuleRevision> addConfigurationModules(PopulatedState state) {
+		return state.repository.addConfigurationModules(state.configuration);
+	}
+
+}
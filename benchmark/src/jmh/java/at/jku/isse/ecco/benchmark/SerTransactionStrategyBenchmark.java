@@ -0,0 +1,82 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.storage.mem.dao.Database;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.ser.dao.SerTransactionStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmarks loading and storing the database of a repository containing a number of synthetic variants with the {@link SerTransactionStrategy}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SerTransactionStrategyBenchmark {
+
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	public VariantGenerator.Scale scale;
+
+	@Param({"4", "16"})
+	public int variants;
+
+	private Path repositoryDir;
+	private SerTransactionStrategy strategy;
+
+	@Setup(Level.Trial)
+	public void setupTrial() throws IOException {
+		this.repositoryDir = Files.createTempDirectory("ecco-benchmark");
+		this.strategy = new SerTransactionStrategy(this.repositoryDir);
+		this.strategy.open();
+
+		VariantGenerator generator = new VariantGenerator(this.scale);
+		this.strategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
+		RepositoryBenchmark.populateRepository(this.strategy.getDatabase().getRepository(), generator, new MemEntityFactory(), this.variants);
+		this.strategy.end();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() throws IOException {
+		this.strategy.close();
+		try (Stream<Path> paths = Files.walk(this.repositoryDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new EccoException("Error deleting benchmark repository.", e);
+				}
+			});
+		}
+	}
+
+
+	@Benchmark
+	public Database load() {
+		// a new strategy does not reuse the previously loaded database
+		SerTransactionStrategy loadStrategy = new SerTransactionStrategy(this.repositoryDir);
+		loadStrategy.open();
+		loadStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+		Database database = loadStrategy.getDatabase();
+		loadStrategy.end();
+		loadStrategy.close();
+		return database;
+	}
+
+	@Benchmark
+	public Database store() {
+		// the database is reused across transactions, so ending the write transaction only serializes it
+		this.strategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
+		Database database = this.strategy.getDatabase();
+		this.strategy.end();
+		return database;
+	}
+
+}
@@ -0,0 +1,48 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.Trees;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks {@link Trees#slice(Node.Op, Node.Op)} of two variants of the synthetic product line.
+ * Slicing modifies both trees, which is why they are created anew for every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TreesBenchmark {
+
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	public VariantGenerator.Scale scale;
+
+	private VariantGenerator generator;
+	private EntityFactory entityFactory;
+
+	private Node.Op left;
+	private Node.Op right;
+
+	@Setup(Level.Trial)
+	public void setupTrial() {
+		this.generator = new VariantGenerator(this.scale);
+		this.entityFactory = new MemEntityFactory();
+	}
+
+	@Setup(Level.Invocation)
+	public void setupInvocation() {
+		// the left tree is sequenced like the trees of associations in a repository, the right one is a freshly read variant
+		this.left = this.entityFactory.createAssociation(this.generator.createNodes(this.entityFactory, 0)).getRootNode();
+		Trees.sequence(this.left);
+		this.right = this.entityFactory.createAssociation(this.generator.createNodes(this.entityFactory, 1)).getRootNode();
+	}
+
+	@Benchmark
+	public Node.Op slice() {
+		return Trees.slice(this.left, this.right);
+	}
+
+}
@@ -0,0 +1,207 @@
+package at.jku.isse.ecco.benchmark;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.tree.Node;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Generates synthetic, reproducible variants of a text product line.
+ * <p>
+ * Every file of the product line consists of a common block of lines followed by one block of lines per feature.
+ * A variant selects a seeded random subset of the features and contains the common blocks plus the blocks of its selected features, in a fixed order.
+ * The same seed and scale always produce the same variants, so that benchmark results are comparable across runs.
+ */
+public class VariantGenerator {
+
+	public static final long DEFAULT_SEED = 42L;
+
+	/**
+	 * Predefined sizes of product lines.
+	 */
+	public enum Scale {
+		SMALL(4, 5, 10),
+		MEDIUM(8, 20, 25),
+		LARGE(12, 50, 50);
+
+		private final int features;
+		private final int files;
+		private final int linesPerBlock;
+
+		Scale(int features, int files, int linesPerBlock) {
+			this.features = features;
+			this.files = files;
+			this.linesPerBlock = linesPerBlock;
+		}
+
+		public int getFeatures() {
+			return this.features;
+		}
+
+		public int getFiles() {
+			return this.files;
+		}
+
+		public int getLinesPerBlock() {
+			return this.linesPerBlock;
+		}
+	}
+
+
+	private final long seed;
+	private final int numFeatures;
+	private final int numFiles;
+	private final int linesPerBlock;
+
+	public VariantGenerator(Scale scale) {
+		this(DEFAULT_SEED, scale);
+	}
+
+	public VariantGenerator(long seed, Scale scale) {
+		this(seed, scale.getFeatures(), scale.getFiles(), scale.getLinesPerBlock());
+	}
+
+	public VariantGenerator(long seed, int numFeatures, int numFiles, int linesPerBlock) {
+		checkArgument(numFeatures > 0);
+		checkArgument(numFiles > 0);
+		checkArgument(linesPerBlock > 0);
+
+		this.seed = seed;
+		this.numFeatures = numFeatures;
+		this.numFiles = numFiles;
+		this.linesPerBlock = linesPerBlock;
+	}
+
+
+	public int getNumFeatures() {
+		return this.numFeatures;
+	}
+
+	public int getNumFiles() {
+		return this.numFiles;
+	}
+
+	/**
+	 * Returns the features selected in the given variant. Variant 0 always selects all features.
+	 *
+	 * @param variant The index of the variant.
+	 * @return Array with one entry per feature that is true if the feature is selected.
+	 */
+	public boolean[] getSelection(int variant) {
+		boolean[] selection = new boolean[this.numFeatures];
+		if (variant == 0) {
+			Arrays.fill(selection, true);
+		} else {
+			Random random = new Random(this.seed * 31 + variant);
+			for (int i = 0; i < this.numFeatures; i++)
+				selection[i] = random.nextBoolean();
+		}
+		return selection;
+	}
+
+	/**
+	 * Creates a configuration for the given variant. Features and feature revisions are created with the given entity factory and must be mapped to the repository instances by the repository (e.g. via {@link at.jku.isse.ecco.repository.Repository.Op#addConfigurationFeatures(Configuration)}).
+	 *
+	 * @param entityFactory The entity factory.
+	 * @param variant       The index of the variant.
+	 * @return The configuration of the variant.
+	 */
+	public Configuration createConfiguration(EntityFactory entityFactory, int variant) {
+		checkNotNull(entityFactory);
+
+		boolean[] selection = this.getSelection(variant);
+		List<FeatureRevision> featureRevisions = new ArrayList<>();
+		for (int i = 0; i < this.numFeatures; i++) {
+			if (selection[i]) {
+				Feature feature = entityFactory.createFeature("F" + i, "F" + i);
+				featureRevisions.add(feature.addRevision("1"));
+			}
+		}
+		return entityFactory.createConfiguration(featureRevisions.toArray(new FeatureRevision[0]));
+	}
+
+	/**
+	 * @param file The index of the file.
+	 * @return The file name of the given file.
+	 */
+	public String getFileName(int file) {
+		return "file" + file + ".txt";
+	}
+
+	/**
+	 * Generates the lines of the given file in the given variant.
+	 *
+	 * @param variant The index of the variant.
+	 * @param file    The index of the file.
+	 * @return The lines of the file.
+	 */
+	public List<String> generateLines(int variant, int file) {
+		boolean[] selection = this.getSelection(variant);
+		List<String> lines = new ArrayList<>();
+		this.addBlock(lines, file, -1);
+		for (int i = 0; i < this.numFeatures; i++) {
+			if (selection[i])
+				this.addBlock(lines, file, i);
+		}
+		return lines;
+	}
+
+	private void addBlock(List<String> lines, int file, int feature) {
+		Random random = new Random(this.seed ^ ((long) file << 32) ^ (feature + 1));
+		for (int i = 0; i < this.linesPerBlock; i++) {
+			// tokens are seeded per block, so the same line has the same content in every variant
+			lines.add("file" + file + " feature" + feature + " line" + i + " " + Long.toHexString(random.nextLong()));
+		}
+	}
+
+	/**
+	 * Creates the artifact tree of the given variant: one ordered node per file whose children are the lines of the file.
+	 *
+	 * @param entityFactory The entity factory used for creating the nodes.
+	 * @param variant       The index of the variant.
+	 * @return The set of file nodes.
+	 */
+	public Set<Node.Op> createNodes(EntityFactory entityFactory, int variant) {
+		checkNotNull(entityFactory);
+
+		Set<Node.Op> nodes = new HashSet<>();
+		for (int file = 0; file < this.numFiles; file++) {
+			Node.Op fileNode = entityFactory.createOrderedNode(new BenchmarkArtifactData(this.getFileName(file)));
+			for (String line : this.generateLines(variant, file)) {
+				fileNode.addChild(entityFactory.createNode(new BenchmarkArtifactData(line)));
+			}
+			nodes.add(fileNode);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Writes the files of the given variant into the given directory.
+	 *
+	 * @param dir     The directory the files are written to.
+	 * @param variant The index of the variant.
+	 */
+	public void writeFiles(Path dir, int variant) {
+		checkNotNull(dir);
+
+		try {
+			Files.createDirectories(dir);
+			for (int file = 0; file < this.numFiles; file++) {
+				Files.write(dir.resolve(this.getFileName(file)), this.generateLines(variant, file));
+			}
+		} catch (IOException e) {
+			throw new EccoException("Error writing variant files.", e);
+		}
+	}
+
+}
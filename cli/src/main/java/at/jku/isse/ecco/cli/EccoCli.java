@@ -9,12 +9,15 @@ import at.jku.isse.ecco.core.DependencyGraph;
 import at.jku.isse.ecco.core.Remote;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.service.listener.EccoListener;
 import at.jku.isse.ecco.util.Trees;
 
+import java.io.PrintStream;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Map;
 
 /**
  * This class implements all the CLI commands.
@@ -23,34 +26,42 @@ public class EccoCli implements EccoListener {
 
 	private EccoService eccoService;
 
+	private final PrintStream out;
+	private final PrintStream err;
+
+	/**
+	 * Whether the service is kept open across commands (see {@link EccoDaemon}).
+	 */
+	private final boolean resident;
+
 
 	// # EVENTS ######################################
 
 	@Override
 	public void fileReadEvent(Path file, ArtifactReader reader) {
-		System.out.println("READ: " + file);
+		this.out.println("READ: " + file);
 	}
 
 	@Override
 	public void fileWriteEvent(Path file, ArtifactWriter writer) {
-		System.out.println("WRITE: " + file);
+		this.out.println("WRITE: " + file);
 	}
 
 	@Override
 	public void associationSelectedEvent(EccoService service, Association association) {
-		System.out.println("SELECTED: [" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
+		this.out.println("SELECTED: [" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
 	}
 
 	@Override
 	public void operationProgressEvent(EccoService service, String operationString, double progress) {
-		System.out.print("\r[");
+		this.out.print("\r[");
 		for (int i = 0; i < 100; i += 10) {
 			if (i < progress)
-				System.out.print("=");
+				this.out.print("=");
 			else
-				System.out.print(" ");
+				this.out.print(" ");
 		}
-		System.out.print("] " + (progress * 100.0) + "%");
+		this.out.print("] " + (progress * 100.0) + "%");
 	}
 
 
@@ -60,13 +71,42 @@ public class EccoCli implements EccoListener {
 		this.eccoService = new EccoService();
 		this.eccoService.detectRepository();
 		this.eccoService.addListener(this);
+		this.out = System.out;
+		this.err = System.err;
+		this.resident = false;
+	}
+
+	/**
+	 * Creates a CLI for a single command that uses the given, already opened service and leaves it open afterwards.
+	 * The listener of the CLI must be removed from the service after the command.
+	 *
+	 * @param eccoService The opened service.
+	 * @param out         The stream for the output of the command.
+	 * @param err         The stream for the errors of the command.
+	 */
+	public EccoCli(EccoService eccoService, PrintStream out, PrintStream err) {
+		this.eccoService = eccoService;
+		this.eccoService.addListener(this);
+		this.out = out;
+		this.err = err;
+		this.resident = true;
+	}
+
+	public EccoService getEccoService() {
+		return this.eccoService;
 	}
 
 	private void initRepo() {
 		if (!this.eccoService.repositoryDirectoryExists())
 			throw new EccoException("There is no repository at " + this.eccoService.getRepositoryDir());
 
-		this.eccoService.open();
+		if (!this.resident)
+			this.eccoService.open();
+	}
+
+	private void closeRepo() {
+		if (!this.resident)
+			this.eccoService.close();
 	}
 
 
@@ -84,13 +124,13 @@ public class EccoCli implements EccoListener {
 
 	public void init() {
 		if (this.eccoService.repositoryDirectoryExists()) {
-			System.err.println("ERROR: Repository already exists at this location.");
+			this.err.println("ERROR: Repository already exists at this location.");
 		} else {
 			if (this.eccoService.init()) {
-				System.out.println("SUCCESS: Repository initialized.");
-				this.eccoService.close();
+				this.out.println("SUCCESS: Repository initialized.");
+				this.closeRepo();
 			} else
-				System.err.println("ERROR: Error during repository initialization.");
+				this.err.println("ERROR: Error during repository initialization.");
 		}
 	}
 
@@ -120,9 +160,9 @@ public class EccoCli implements EccoListener {
 		output.append("Ignored Files:");
 		output.append("\n");
 
-		System.out.println(output.toString());
+		this.out.println(output.toString());
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void setProperty(String clientProperty, String value) {
@@ -132,7 +172,7 @@ public class EccoCli implements EccoListener {
 			case "basedir":
 				Path baseDir = Paths.get(value);
 				this.eccoService.setBaseDir(baseDir);
-				System.out.println("SUCCESS: SET baseDir=" + baseDir);
+				this.out.println("SUCCESS: SET baseDir=" + baseDir);
 				break;
 //			case "maxorder":
 //				int maxOrder = Integer.parseInt(value);
@@ -140,11 +180,11 @@ public class EccoCli implements EccoListener {
 //				System.out.println("SUCCESS: SET maxOrder=" + maxOrder);
 //				break;
 			default:
-				System.out.println("ERROR: No property named \"" + clientProperty + "\".");
+				this.out.println("ERROR: No property named \"" + clientProperty + "\".");
 				break;
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void getProperty(String clientProperty) {
@@ -152,17 +192,17 @@ public class EccoCli implements EccoListener {
 
 		switch (clientProperty.toLowerCase()) {
 			case "basedir":
-				System.out.println("SUCCESS: GET baseDir=" + this.eccoService.getBaseDir());
+				this.out.println("SUCCESS: GET baseDir=" + this.eccoService.getBaseDir());
 				break;
 //			case "maxorder":
 //				System.out.println("SUCCESS: GET maxOrder=" + this.eccoService.getMaxOrder());
 //				break;
 			default:
-				System.out.println("ERROR: No property named \"" + clientProperty + "\".");
+				this.out.println("ERROR: No property named \"" + clientProperty + "\".");
 				break;
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 //	public void addFiles(String pathString) throws EccoException {
@@ -211,7 +251,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.checkout(configurationString);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void commit() {
@@ -219,7 +259,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.commit();
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void commit(String configurationString) {
@@ -227,7 +267,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.commit(configurationString);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void fork(String remoteUriString) {
@@ -243,12 +283,12 @@ public class EccoCli implements EccoListener {
 			String hostname = pair[0];
 			int port = Integer.parseInt(pair[1]);
 			this.eccoService.fork(hostname, port);
-			this.eccoService.close();
+			this.closeRepo();
 		} else if (path != null) {
 			this.eccoService.fork(path);
-			this.eccoService.close();
+			this.closeRepo();
 		} else {
-			System.err.println("ERROR: Invalid remote address provided.");
+			this.err.println("ERROR: Invalid remote address provided.");
 		}
 	}
 
@@ -265,12 +305,12 @@ public class EccoCli implements EccoListener {
 			String hostname = pair[0];
 			int port = Integer.parseInt(pair[1]);
 			this.eccoService.fork(hostname, port, excludedFeatureVersionsString);
-			this.eccoService.close();
+			this.closeRepo();
 		} else if (path != null) {
 			this.eccoService.fork(path, excludedFeatureVersionsString);
-			this.eccoService.close();
+			this.closeRepo();
 		} else {
-			System.err.println("ERROR: Invalid remote address provided.");
+			this.err.println("ERROR: Invalid remote address provided.");
 		}
 	}
 
@@ -279,7 +319,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.pull(remoteName);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void pull(String remoteName, String excludedFeatureVersionsString) {
@@ -287,7 +327,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.pull(remoteName, excludedFeatureVersionsString);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void push(String remoteName) {
@@ -295,7 +335,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.pull(remoteName);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void push(String remoteName, String excludedFeatureVersionsString) {
@@ -303,7 +343,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.push(remoteName, excludedFeatureVersionsString);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void fetch(String remoteName) {
@@ -311,7 +351,7 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.fetch(remoteName);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void addRemote(String remoteName, String remoteUriString) {
@@ -343,17 +383,17 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.removeRemote(remoteName);
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void listRemotes() {
 		this.initRepo();
 
 		for (Remote remote : this.eccoService.getRemotes()) {
-			System.out.println(remote.getName() + ": " + remote.getAddress() + " [" + remote.getType() + "]");
+			this.out.println(remote.getName() + ": " + remote.getAddress() + " [" + remote.getType() + "]");
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void showRemote(String remoteName) {
@@ -361,31 +401,31 @@ public class EccoCli implements EccoListener {
 
 		Remote remote = this.eccoService.getRemote(remoteName);
 		if (remote != null) {
-			System.out.println(remote.getName() + ": " + remote.getAddress() + " [" + remote.getType() + "]");
+			this.out.println(remote.getName() + ": " + remote.getAddress() + " [" + remote.getType() + "]");
 
 			if (remote.getFeatures() != null) {
 				for (Feature feature : remote.getFeatures()) {
-					System.out.println(feature.toString());
+					this.out.println(feature.toString());
 					for (FeatureRevision fv : feature.getRevisions()) {
-						System.out.println("\t" + fv);
+						this.out.println("\t" + fv);
 					}
 				}
 			}
 		} else {
-			System.out.println("Remote " + remoteName + " does not exist.");
+			this.out.println("Remote " + remoteName + " does not exist.");
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void listFeatures() {
 		this.initRepo();
 
 		for (Feature feature : this.eccoService.getRepository().getFeatures()) {
-			System.out.println(feature.toString());
+			this.out.println(feature.toString());
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void showFeature(String featureName) {
@@ -393,24 +433,24 @@ public class EccoCli implements EccoListener {
 
 		for (Feature feature : this.eccoService.getRepository().getFeatures()) {
 			if (feature.getName().equals(featureName)) {
-				System.out.println(feature.toString());
+				this.out.println(feature.toString());
 				for (FeatureRevision fv : feature.getRevisions()) {
-					System.out.println("\t" + fv);
+					this.out.println("\t" + fv);
 				}
 			}
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void listTraces() {
 		this.initRepo();
 
 		for (Association association : this.eccoService.getRepository().getAssociations()) {
-			System.out.println("[" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
+			this.out.println("[" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void showTraces(String traceId) {
@@ -418,20 +458,20 @@ public class EccoCli implements EccoListener {
 
 		for (Association association : this.eccoService.getRepository().getAssociations()) {
 			if (association.getId().equals(traceId)) {
-				System.out.println("[" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
-				Trees.print(association.getRootNode());
+				this.out.println("[" + association.getId() + "] " + association.computeCondition().getModuleRevisionConditionString());
+				Trees.print(association.getRootNode(), this.out);
 			}
 		}
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void showDependencyGraph() {
 		this.initRepo();
 
-		System.out.println(new DependencyGraph(this.eccoService.getRepository().getAssociations()).getGMLString()); // TODO: do this via the repository api
+		this.out.println(new DependencyGraph(this.eccoService.getRepository().getAssociations()).getGMLString()); // TODO: do this via the repository api
 
-		this.eccoService.close();
+		this.closeRepo();
 	}
 
 	public void setRepoDir(String repoDir) {
@@ -447,7 +487,20 @@ public class EccoCli implements EccoListener {
 
 		this.eccoService.startServer(port);
 
-		this.eccoService.close();
+		this.closeRepo();
+	}
+
+	public void printMetrics() {
+		MetricsRegistry metrics = this.eccoService.getMetrics();
+
+		this.out.println("Timings:");
+		for (Map.Entry<String, MetricsRegistry.Timer> entry : metrics.getTimers().entrySet()) {
+			this.out.println("  " + entry.getKey() + ": " + entry.getValue());
+		}
+		this.out.println("Counters:");
+		for (Map.Entry<String, Long> entry : metrics.getCounters().entrySet()) {
+			this.out.println("  " + entry.getKey() + ": " + entry.getValue());
+		}
 	}
 
 }
@@ -0,0 +1,274 @@
+package at.jku.isse.ecco.cli;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.service.EccoService;
+import net.sourceforge.argparse4j.inf.ArgumentParserException;
+import net.sourceforge.argparse4j.inf.Namespace;
+
+import java.io.*;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps the service of a repository open and executes the commands of other CLI invocations for it, so that they neither have to load the plugins nor the repository.
+ * <p>
+ * The daemon listens on a Unix domain socket in the repository directory ({@link #SOCKET_FILE_NAME}), which is only accessible to users that can access the repository.
+ * CLI invocations forward their command line parameters and base directory to it if the socket exists and receive the output and exit code of the command.
+ * Commands are executed one after the other. Changes of the base directory by a command only apply to that command.
+ */
+public class EccoDaemon {
+
+	public static final Path SOCKET_FILE_NAME = Paths.get("daemon.sock");
+
+	/**
+	 * Commands that are not forwarded to the daemon, because they create repositories or run a server themselves.
+	 */
+	private static final Collection<String> LOCAL_COMMANDS = Arrays.asList("init", "fork", "server");
+
+	// frames of the response
+	private static final byte FRAME_EXIT = 0;
+	private static final byte FRAME_OUT = 1;
+	private static final byte FRAME_ERR = 2;
+
+
+	private final EccoService eccoService;
+
+	private ServerSocketChannel serverChannel = null;
+	private volatile boolean stopped = false;
+
+
+	/**
+	 * @param eccoService The service of the repository (not opened yet).
+	 */
+	public EccoDaemon(EccoService eccoService) {
+		checkNotNull(eccoService);
+
+		this.eccoService = eccoService;
+	}
+
+	public static Path getSocketFile(Path repositoryDir) {
+		return repositoryDir.resolve(SOCKET_FILE_NAME);
+	}
+
+	/**
+	 * @param command The command.
+	 * @return True if the command is executed by the daemon when one is running.
+	 */
+	public static boolean isForwarded(String command) {
+		return !LOCAL_COMMANDS.contains(command);
+	}
+
+
+	/**
+	 * Opens the repository and executes forwarded commands until the daemon is stopped.
+	 */
+	public void run() {
+		if (!this.eccoService.repositoryDirectoryExists())
+			throw new EccoException("There is no repository at " + this.eccoService.getRepositoryDir());
+
+		Path socketFile = getSocketFile(this.eccoService.getRepositoryDir());
+		if (Files.exists(socketFile)) {
+			try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile))) {
+				throw new EccoException("A daemon is already running for the repository.");
+			} catch (IOException e) {
+				// the socket is left over from a daemon that was not stopped properly
+			}
+		}
+
+		this.eccoService.open();
+		try (ServerSocketChannel serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+			Files.deleteIfExists(socketFile);
+			serverChannel.bind(UnixDomainSocketAddress.of(socketFile));
+			this.serverChannel = serverChannel;
+
+			Thread shutdownHook = new Thread(() -> {
+				try {
+					Files.deleteIfExists(socketFile);
+				} catch (IOException e) {
+					// nothing left to do
+				}
+			});
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+			System.out.println("Daemon listening on " + socketFile.toAbsolutePath());
+			while (!this.stopped) {
+				try (SocketChannel channel = serverChannel.accept()) {
+					this.handle(channel);
+				} catch (ClosedChannelException e) {
+					break;
+				} catch (IOException e) {
+					System.err.println("ERROR: " + e.getMessage());
+				}
+			}
+
+			Files.deleteIfExists(socketFile);
+			Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (IOException e) {
+			throw new EccoException("Error running daemon at " + socketFile + ".", e);
+		} finally {
+			this.eccoService.close();
+		}
+	}
+
+	/**
+	 * Stops the daemon after the current command.
+	 */
+	public void stop() {
+		this.stopped = true;
+		if (this.serverChannel != null) {
+			try {
+				this.serverChannel.close();
+			} catch (IOException e) {
+				// the daemon stops anyway
+			}
+		}
+	}
+
+	private void handle(SocketChannel channel) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+
+		Path baseDir = Paths.get(input.readUTF());
+		String[] args = new String[input.readInt()];
+		for (int i = 0; i < args.length; i++)
+			args[i] = input.readUTF();
+
+		PrintStream out = new PrintStream(new FrameOutputStream(output, FRAME_OUT), true, StandardCharsets.UTF_8);
+		PrintStream err = new PrintStream(new FrameOutputStream(output, FRAME_ERR), true, StandardCharsets.UTF_8);
+
+		int exitCode = 0;
+		Path previousBaseDir = this.eccoService.getBaseDir();
+		EccoCli cli = new EccoCli(this.eccoService, out, err);
+		try {
+			Namespace res = Main.createParser().parseArgs(args);
+
+			this.eccoService.setBaseDir(baseDir);
+			if (res.getBoolean("metrics"))
+				this.eccoService.getMetrics().reset();
+
+			if (res.getString(Main.COMMAND).equals("daemon")) {
+				out.println("SUCCESS: Daemon stopped.");
+				this.stop();
+			} else {
+				Main.execute(cli, res);
+			}
+		} catch (ArgumentParserException e) {
+			err.println("ERROR: " + e.getMessage());
+			exitCode = 1;
+		} catch (RuntimeException e) {
+			err.println("ERROR: " + e.getMessage());
+			Throwable cause = e.getCause();
+			while (cause != null) {
+				err.println("ERROR: " + cause.getMessage());
+				cause = cause.getCause();
+			}
+			exitCode = 2;
+		} finally {
+			this.eccoService.removeListener(cli);
+			this.eccoService.setBaseDir(previousBaseDir);
+		}
+
+		out.flush();
+		err.flush();
+		synchronized (output) {
+			output.writeByte(FRAME_EXIT);
+			output.writeInt(exitCode);
+			output.flush();
+		}
+	}
+
+
+	/**
+	 * Forwards the command given by the command line parameters to the daemon of the repository of the given service, if one is running, and prints its output.
+	 *
+	 * @param eccoService The (not opened) service with the repository and base directory of the command.
+	 * @param args        The command line parameters.
+	 * @return The exit code of the command, or null if no daemon is running.
+	 */
+	public static Integer forward(EccoService eccoService, String[] args) {
+		Path socketFile = getSocketFile(eccoService.getRepositoryDir());
+		if (!Files.exists(socketFile))
+			return null;
+
+		SocketChannel channel;
+		try {
+			channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile));
+		} catch (IOException e) {
+			// the daemon is not running anymore
+			return null;
+		}
+
+		// once the command was sent it must not be executed again locally
+		try (channel) {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+			output.writeUTF(eccoService.getBaseDir().toAbsolutePath().normalize().toString());
+			output.writeInt(args.length);
+			for (String arg : args)
+				output.writeUTF(arg);
+			output.flush();
+
+			DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+			while (true) {
+				byte frame = input.readByte();
+				if (frame == FRAME_EXIT) {
+					System.out.flush();
+					System.err.flush();
+					return input.readInt();
+				}
+				byte[] bytes = new byte[input.readInt()];
+				input.readFully(bytes);
+				(frame == FRAME_ERR ? System.err : System.out).write(bytes);
+			}
+		} catch (IOException e) {
+			throw new EccoException("Lost connection to the daemon of the repository.", e);
+		}
+	}
+
+
+	/**
+	 * Writes everything as frames of the given type to the response.
+	 */
+	private static class FrameOutputStream extends OutputStream {
+		private final DataOutputStream output;
+		private final byte frame;
+
+		private FrameOutputStream(DataOutputStream output, byte frame) {
+			this.output = output;
+			this.frame = frame;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.write(new byte[]{(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			synchronized (this.output) {
+				this.output.writeByte(this.frame);
+				this.output.writeInt(len);
+				this.output.write(b, off, len);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			synchronized (this.output) {
+				this.output.flush();
+			}
+		}
+	}
+
+}
@@ -21,6 +21,7 @@ public class Main {
 	public static final String FEATURE_NAME = "featureName";
 	public static final String TRACES_COMMAND = "featuresCommand";
 	public static final String TRACE_ID = "traceId";
+	public static final String DAEMON_COMMAND = "daemonCommand";
 
 
 	public static void main(String[] args) {
@@ -30,11 +31,65 @@ public class Main {
 
 		// parse arguments
 
+		ArgumentParser parser = createParser();
+
+		try {
+			Namespace res = parser.parseArgs(args);
+			System.out.println(res);
+
+			if (res.getString("repodir") != null) {
+				cli.setRepoDir(res.getString("repodir"));
+			}
+			if (res.getString("basedir") != null) {
+				cli.setBaseDir(res.getString("basedir"));
+			}
+
+			if (res.getString(COMMAND).equals("daemon") && !"stop".equals(res.getString(DAEMON_COMMAND))) {
+				new EccoDaemon(cli.getEccoService()).run();
+				return;
+			}
+
+			// let the daemon of the repository execute the command if one is running
+			if (EccoDaemon.isForwarded(res.getString(COMMAND))) {
+				Integer exitCode = EccoDaemon.forward(cli.getEccoService(), args);
+				if (exitCode != null) {
+					if (exitCode != 0)
+						System.exit(exitCode);
+					return;
+				}
+			}
+
+			execute(cli, res);
+
+		} catch (HelpScreenException e) {
+			parser.handleError(e);
+		} catch (ArgumentParserException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			System.err.flush();
+			System.exit(1);
+		} catch (EccoException e) {
+			System.err.println("ERROR: " + e.getMessage());
+			Throwable cause = e.getCause();
+			while (cause != null) {
+				System.err.println("ERROR: " + cause.getMessage());
+				cause = cause.getCause();
+			}
+			System.err.flush();
+			System.exit(2);
+		}
+
+	}
+
+	/**
+	 * @return The parser of the command line parameters.
+	 */
+	public static ArgumentParser createParser() {
 		ArgumentParser parser = ArgumentParsers.newArgumentParser("ecco").description("ECCO. A Variability-Aware / Feature-Oriented Version Control System.").version("0.1.4");
 		parser.addArgument("-v", "--version").action(Arguments.version()).help("show the version");
 
 		parser.addArgument("-r", "--repodir").help("set the repository directory to use");
 		parser.addArgument("-b", "--basedir").help("set the base directory to use");
+		parser.addArgument("-m", "--metrics").action(Arguments.storeTrue()).help("print the timings and counters of the command");
 
 		Subparsers subparsers = parser.addSubparsers().title("COMMANDs").description("List of valid commands.").help("DESCRIPTION").metavar("COMMAND").dest(COMMAND);
 
@@ -113,131 +168,121 @@ public class Main {
 		Subparser parserServer = subparsers.addParser("server").help("start a server").description("Start a server on the given port.");
 		parserServer.addArgument(REMOTE_NAME);
 
+		// daemon
+		Subparser parserDaemon = subparsers.addParser("daemon").help("start or stop a daemon").description("Start a daemon that keeps the repository at the current location loaded and executes the commands of other ecco invocations for it, or stop the running daemon.");
+		parserDaemon.addArgument(DAEMON_COMMAND).nargs("?").choices("start", "stop").setDefault("start");
 
-		// TODO: update (update working copy)?
 
+		// TODO: update (update working copy)?
 
-		try {
-			Namespace res = parser.parseArgs(args);
-			System.out.println(res);
-
-			if (res.getString("repodir") != null) {
-				cli.setRepoDir(res.getString("repodir"));
-			}
-			if (res.getString("basedir") != null) {
-				cli.setBaseDir(res.getString("basedir"));
-			}
+		return parser;
+	}
 
-			switch (res.getString(COMMAND)) {
-				case "init":
-					cli.init();
-					break;
-				case "status":
-					cli.status();
-					break;
-				case "get":
-					cli.getProperty(res.getString("name"));
-					break;
-				case "set":
-					cli.setProperty(res.getString("name"), res.getString("value"));
-					break;
-				case "checkout":
-					cli.checkout(res.getString(CONFIGURATION_STRING));
-					break;
-				case "commit":
-					if (res.getString(CONFIGURATION_STRING) != null)
-						cli.commit(res.getString(CONFIGURATION_STRING));
-					else
-						cli.commit();
-					break;
-				case "fork":
-					if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
-						cli.fork(res.getString(REMOTE_URI), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
-					else
-						cli.fork(res.getString(REMOTE_URI));
-					break;
-				case "pull":
-					if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
-						cli.pull(res.getString(REMOTE_NAME), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
-					else
-						cli.pull(res.getString(REMOTE_NAME));
-					break;
-				case "push":
-					if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
-						cli.push(res.getString(REMOTE_NAME), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
-					else
-						cli.push(res.getString(REMOTE_NAME));
-					break;
-				case "fetch":
-					cli.fetch(res.getString(REMOTE_NAME));
-					break;
-				case "remotes":
-					if (res.getString(REMOTES_COMMAND) != null) {
-						switch (res.getString(REMOTES_COMMAND)) {
-							case "add":
-								cli.addRemote(res.getString(REMOTE_NAME), res.getString(REMOTE_URI));
-								break;
-							case "remove":
-								cli.removeRemote(res.getString(REMOTE_NAME));
-								break;
-							case "list":
-								cli.listRemotes();
-								break;
-							case "show":
-								cli.showRemote(res.getString(REMOTE_NAME));
-								break;
-						}
+	/**
+	 * Executes the command given by the parsed command line parameters.
+	 *
+	 * @param cli The CLI that executes the command.
+	 * @param res The parsed command line parameters.
+	 */
+	public static void execute(EccoCli cli, Namespace res) {
+		switch (res.getString(COMMAND)) {
+			case "init":
+				cli.init();
+				break;
+			case "status":
+				cli.status();
+				break;
+			case "get":
+				cli.getProperty(res.getString("name"));
+				break;
+			case "set":
+				cli.setProperty(res.getString("name"), res.getString("value"));
+				break;
+			case "checkout":
+				cli.checkout(res.getString(CONFIGURATION_STRING));
+				break;
+			case "commit":
+				if (res.getString(CONFIGURATION_STRING) != null)
+					cli.commit(res.getString(CONFIGURATION_STRING));
+				else
+					cli.commit();
+				break;
+			case "fork":
+				if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
+					cli.fork(res.getString(REMOTE_URI), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
+				else
+					cli.fork(res.getString(REMOTE_URI));
+				break;
+			case "pull":
+				if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
+					cli.pull(res.getString(REMOTE_NAME), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
+				else
+					cli.pull(res.getString(REMOTE_NAME));
+				break;
+			case "push":
+				if (res.getString(EXCLUDED_FEATURE_VERSIONS_STRING) != null)
+					cli.push(res.getString(REMOTE_NAME), res.getString(EXCLUDED_FEATURE_VERSIONS_STRING));
+				else
+					cli.push(res.getString(REMOTE_NAME));
+				break;
+			case "fetch":
+				cli.fetch(res.getString(REMOTE_NAME));
+				break;
+			case "remotes":
+				if (res.getString(REMOTES_COMMAND) != null) {
+					switch (res.getString(REMOTES_COMMAND)) {
+						case "add":
+							cli.addRemote(res.getString(REMOTE_NAME), res.getString(REMOTE_URI));
+							break;
+						case "remove":
+							cli.removeRemote(res.getString(REMOTE_NAME));
+							break;
+						case "list":
+							cli.listRemotes();
+							break;
+						case "show":
+							cli.showRemote(res.getString(REMOTE_NAME));
+							break;
 					}
-					break;
-				case "features":
-					if (res.getString(FEATURES_COMMAND) != null) {
-						switch (res.getString(FEATURES_COMMAND)) {
-							case "list":
-								cli.listFeatures();
-								break;
-							case "show":
-								cli.showFeature(res.getString(FEATURE_NAME));
-								break;
-						}
+				}
+				break;
+			case "features":
+				if (res.getString(FEATURES_COMMAND) != null) {
+					switch (res.getString(FEATURES_COMMAND)) {
+						case "list":
+							cli.listFeatures();
+							break;
+						case "show":
+							cli.showFeature(res.getString(FEATURE_NAME));
+							break;
 					}
-					break;
-				case "traces":
-					if (res.getString(TRACES_COMMAND) != null) {
-						switch (res.getString(TRACES_COMMAND)) {
-							case "list":
-								cli.listTraces();
-								break;
-							case "show":
-								cli.showTraces(res.getString(TRACE_ID));
-								break;
-						}
+				}
+				break;
+			case "traces":
+				if (res.getString(TRACES_COMMAND) != null) {
+					switch (res.getString(TRACES_COMMAND)) {
+						case "list":
+							cli.listTraces();
+							break;
+						case "show":
+							cli.showTraces(res.getString(TRACE_ID));
+							break;
 					}
-					break;
-				case "dg":
-					cli.showDependencyGraph();
-					break;
-				case "server":
-					cli.startServer(Integer.parseInt(res.getString("port")));
-					break;
-			}
-
-		} catch (HelpScreenException e) {
-			parser.handleError(e);
-		} catch (ArgumentParserException e) {
-			System.err.println("ERROR: " + e.getMessage());
-			System.err.flush();
-			System.exit(1);
-		} catch (EccoException e) {
-			System.err.println("ERROR: " + e.getMessage());
-			Throwable cause = e.getCause();
-			while (cause != null) {
-				System.err.println("ERROR: " + cause.getMessage());
-				cause = cause.getCause();
-			}
-			System.err.flush();
-			System.exit(2);
+				}
+				break;
+			case "dg":
+				cli.showDependencyGraph();
+				break;
+			case "server":
+				cli.startServer(Integer.parseInt(res.getString("port")));
+				break;
+			case "daemon":
+				throw new EccoException("There is no daemon running for the repository.");
 		}
 
+		if (res.getBoolean("metrics")) {
+			cli.printMetrics();
+		}
 	}
 
 }
@@ -4,13 +4,10 @@ import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.adapter.ArtifactReader;
 import at.jku.isse.ecco.adapter.ArtifactWriter;
-import at.jku.isse.ecco.composition.LazyCompositionRootNode;
-import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.core.Commit;
+import at.jku.isse.ecco.core.RepositoryStatistics;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.service.listener.EccoListener;
-import at.jku.isse.ecco.module.Module;
-import at.jku.isse.ecco.repository.Repository;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -25,7 +22,6 @@ import javafx.scene.layout.FlowPane;
 
 import java.nio.file.Path;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class ChartsView extends BorderPane implements EccoListener {
 
@@ -53,30 +49,15 @@ public class ChartsView extends BorderPane implements EccoListener {
 				@Override
 				public Void call() throws EccoException {
 
-					// artifacts per depth
-					LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
-					for (Association association : ChartsView.this.service.getRepository().getAssociations()) {
-						compRootNode.addOrigNode(association.getRootNode());
-					}
-					Map<Integer, Integer> artifactsPerDepth = compRootNode.countArtifactsPerDepth();
-
-					// modules per order
-					Repository repository = ChartsView.this.service.getRepository();
-					final Map<Integer, Integer> modulesPerOrderMap = new TreeMap<>();
-					for (Association association : repository.getAssociations()) {
-						for (Module module : association.computeCondition().getModules().keySet()) {
-							//For the specified order -> If no order of this type is seen yet, it must be the first. Otherwise 1 is added to the old value
-							modulesPerOrderMap.compute(module.getOrder(), (key, oldValue) -> oldValue == null ? 1 : oldValue + 1);
-						}
-					}
+					// the statistics are maintained by the repository, so the association trees are not traversed again
+					RepositoryStatistics.Snapshot statistics = ChartsView.this.service.getStatistics();
 
 					Platform.runLater(() -> {
 						// artifacts per association
 						ChartsView.this.artifactsPerAssociationData.clear();
-						for (Association association : ChartsView.this.service.getRepository().getAssociations()) {
-							int numArtifacts = association.getRootNode().countArtifacts();
-							if (numArtifacts > 0)
-								ChartsView.this.artifactsPerAssociationData.add(new PieChart.Data("A" + association.getId(), numArtifacts));
+						for (Map.Entry<String, Integer> entry : statistics.getArtifactsPerAssociation().entrySet()) {
+							if (entry.getValue() > 0)
+								ChartsView.this.artifactsPerAssociationData.add(new PieChart.Data("A" + entry.getKey(), entry.getValue()));
 						}
 
 						// revisions per feature
@@ -89,7 +70,7 @@ public class ChartsView extends BorderPane implements EccoListener {
 
 						// artifacts per depth
 						ChartsView.this.artifactsPerDepthSeries.getData().clear();
-						for (Map.Entry<Integer, Integer> entry : artifactsPerDepth.entrySet()) {
+						for (Map.Entry<Integer, Long> entry : statistics.getArtifactsPerDepth().entrySet()) {
 							ChartsView.this.artifactsPerDepthSeries.getData().add(new XYChart.Data<>(entry.getKey(), entry.getValue()));
 						}
 
@@ -97,7 +78,7 @@ public class ChartsView extends BorderPane implements EccoListener {
 						{
 							final ObservableList<XYChart.Data<String, Number>> maxOrderData = ChartsView.this.modulesPerOrderSeries.getData();
 							maxOrderData.clear();
-							modulesPerOrderMap.forEach((key, value) -> maxOrderData.add(new XYChart.Data<>(Integer.toString(key), value)));
+							statistics.getModulesPerOrder().forEach((key, value) -> maxOrderData.add(new XYChart.Data<>(Integer.toString(key), value)));
 						}
 
 //						// artifacts per depth and order
@@ -2,7 +2,9 @@ package at.jku.isse.ecco.adapter;
 
 import at.jku.isse.ecco.service.listener.ReadListener;
 
+import java.util.Arrays;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * An ArtifactReader is responsible for transforming a particular type of artifact into an Ecco tree.
@@ -22,6 +24,29 @@ public interface ArtifactReader<I, O> {
 
 	public O read(I[] input);
 
+	/**
+	 * Reads the given input and passes the output of every input element (e.g. the plugin nodes of a file) to the given sink as soon as it is read, so that it can be processed while the remaining input is read.
+	 * Whether the output can be released after it was passed on is up to the sink.
+	 * The default implementation reads the input elements one after the other. Readers that can read several input elements more efficiently at once should override it.
+	 *
+	 * @param base  The base of the input.
+	 * @param input The input.
+	 * @param sink  The sink that is called (on the reading thread) with the output of every input element.
+	 */
+	public default void read(I base, I[] input, Consumer<? super O> sink) {
+		for (int i = 0; i < input.length; i++) {
+			sink.accept(this.read(base, Arrays.copyOfRange(input, i, i + 1)));
+		}
+	}
+
+
+	/**
+	 * Releases the resources held by the reader (e.g. worker processes of parsers). It is called when the service that uses the reader is closed, after which the reader is not used anymore.
+	 * The default implementation does nothing.
+	 */
+	public default void close() {
+	}
+
 
 	public void addListener(ReadListener listener);
 
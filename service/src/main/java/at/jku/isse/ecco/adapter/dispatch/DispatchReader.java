@@ -5,16 +5,25 @@ import at.jku.isse.ecco.adapter.ArtifactPlugin;
 import at.jku.isse.ecco.adapter.ArtifactReader;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.service.listener.ReadListener;
 import at.jku.isse.ecco.tree.Node;
 import com.google.inject.Inject;
+import com.google.inject.Injector;
 
 import javax.inject.Named;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -62,28 +71,76 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 	private List<Mapping> adapterMappings;
 
 	/**
+	 * Ignore patterns and adapter mappings compiled for classifying paths. They are compiled when they are first needed after the patterns or mappings changed.
+	 */
+	private volatile PathClassifier<Boolean> ignoreClassifier;
+	private volatile PathClassifier<ArtifactReader<Path, Set<Node.Op>>> adapterClassifier;
+
+	/**
+	 * Registry into which reading is recorded.
+	 */
+	private final MetricsRegistry metrics;
+
+	/**
+	 * Records into the default registry of the process.
+	 *
 	 * @param entityFactory The entity factory used by this reader for creating nodes and artifacts.
 	 * @param readers       The collection of readers to which should be dispatched.
 	 * @param repositoryDir The repository directory.
 	 */
-	@Inject
-	public DispatchReader(EntityFactory entityFactory, Set<ArtifactReader<Path, Set<Node.Op>>> readers, @Named("repositoryDir") Path repositoryDir) {
+	public DispatchReader(EntityFactory entityFactory, Collection<? extends ArtifactReader<Path, Set<Node.Op>>> readers, @Named("repositoryDir") Path repositoryDir) {
+		this(entityFactory, readers, repositoryDir, MetricsRegistry.getDefault());
+	}
+
+	/**
+	 * @param entityFactory The entity factory used by this reader for creating nodes and artifacts.
+	 * @param readers       The collection of readers to which should be dispatched.
+	 * @param repositoryDir The repository directory.
+	 * @param metrics       The registry into which reading is recorded.
+	 */
+	public DispatchReader(EntityFactory entityFactory, Collection<? extends ArtifactReader<Path, Set<Node.Op>>> readers, @Named("repositoryDir") Path repositoryDir, MetricsRegistry metrics) {
 		checkNotNull(entityFactory);
+		checkNotNull(metrics);
 
 		this.entityFactory = entityFactory;
 		this.repositoryDir = repositoryDir;
+		this.metrics = metrics;
 
-		this.readers = readers;
+		this.readers = new ArrayList<>(readers);
 
 		this.ignorePatterns = new HashSet<>();
 
 		this.adapterMappings = new ArrayList<>();
 
 		this.prioritizedPatterns = new HashMap<>();
+
+		// forward the parse timings reported by the readers (file read events are fired by this reader itself)
+		ReadListener parseListener = new ReadListener() {
+			@Override
+			public void fileParsedEvent(Path file, ArtifactReader reader, long durationNanos) {
+				DispatchReader.this.fireParsedEvent(file, reader, durationNanos);
+			}
+		};
+		for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers)
+			reader.addListener(parseListener);
+	}
+
+	/**
+	 * The readers of the discovered artifact plugins are only instantiated when the first file that is mapped to them in the adapters file is read.
+	 *
+	 * @param entityFactory The entity factory used by this reader for creating nodes and artifacts.
+	 * @param injector      The injector that binds the readers to which should be dispatched.
+	 * @param repositoryDir The repository directory.
+	 * @param metrics       The registry into which reading and the instantiation of the readers is recorded.
+	 */
+	@Inject
+	public DispatchReader(EntityFactory entityFactory, Injector injector, @Named("repositoryDir") Path repositoryDir, MetricsRegistry metrics) {
+		this(entityFactory, LazyArtifactReader.getReaders(injector, Arrays.asList(ArtifactPlugin.getArtifactPlugins()), metrics), repositoryDir, metrics);
 	}
 
 	public void addAdapterMappings(String pattern, ArtifactReader<Path, Set<Node.Op>> reader) {
 		this.adapterMappings.add(new Mapping(pattern, reader));
+		this.adapterClassifier = null;
 	}
 
 	public class Mapping {
@@ -158,6 +215,9 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 		} catch (IOException e) {
 			throw new EccoException("Error creating or reading adapters file.", e);
 		}
+
+		this.ignoreClassifier = null;
+		this.adapterClassifier = null;
 	}
 
 
@@ -167,19 +227,40 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	public void addIgnorePattern(String ignorePattern) {
 		this.ignorePatterns.add(ignorePattern);
+		this.ignoreClassifier = null;
 	}
 
 	public void removeIgnorePattern(String ignorePattern) {
 		this.ignorePatterns.remove(ignorePattern);
+		this.ignoreClassifier = null;
 	}
 
-	private boolean isIgnored(Path path) {
-		for (String ignorePattern : this.ignorePatterns) {
-			PathMatcher pm = FileSystems.getDefault().getPathMatcher("glob:" + ignorePattern);
-			if (pm.matches(path))
-				return true;
+	private PathClassifier<Boolean> getIgnoreClassifier() {
+		PathClassifier<Boolean> classifier = this.ignoreClassifier;
+		if (classifier == null) {
+			List<Map.Entry<String, Boolean>> patterns = new ArrayList<>();
+			for (String ignorePattern : this.ignorePatterns)
+				patterns.add(new AbstractMap.SimpleImmutableEntry<>(ignorePattern, true));
+			classifier = new PathClassifier<>(FileSystems.getDefault(), patterns);
+			this.ignoreClassifier = classifier;
+		}
+		return classifier;
+	}
+
+	private PathClassifier<ArtifactReader<Path, Set<Node.Op>>> getAdapterClassifier() {
+		PathClassifier<ArtifactReader<Path, Set<Node.Op>>> classifier = this.adapterClassifier;
+		if (classifier == null) {
+			List<Map.Entry<String, ArtifactReader<Path, Set<Node.Op>>>> patterns = new ArrayList<>();
+			for (Mapping mapping : this.adapterMappings)
+				patterns.add(new AbstractMap.SimpleImmutableEntry<>(mapping.getPattern(), mapping.getReader()));
+			classifier = new PathClassifier<>(FileSystems.getDefault(), patterns);
+			this.adapterClassifier = classifier;
 		}
-		return false;
+		return classifier;
+	}
+
+	private boolean isIgnored(Path path) {
+		return this.getIgnoreClassifier().classify(path) != null;
 	}
 
 
@@ -189,13 +270,7 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 	 */
 	private ArtifactReader<Path, Set<Node.Op>> getReaderForFile(Path base, Path file) {
 		// pick the first artifact reader whose glob matches the file
-		for (Mapping mapping : this.adapterMappings) {
-			PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + mapping.getPattern());
-			if (pathMatcher.matches(file)) {
-				return mapping.getReader();
-			}
-		}
-		return null;
+		return this.getAdapterClassifier().classify(file);
 
 //		ArtifactReader<Path, Set<Node.Op>> currentReader = null;
 //		for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers) {
@@ -211,7 +286,7 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 	}
 
 	public Set<Node.Op> readSpecificFiles(Path base, Path[] input) {
-		long startTime = System.currentTimeMillis();
+		long startTime = System.nanoTime();
 
 		// for every file in paths add all parent directories and parse the file using the appropriate plugin
 
@@ -243,7 +318,7 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 					throw new EccoException("No reader found for file " + path);
 				//long localStartTime = System.currentTimeMillis();
 				Set<Node.Op> nodes = reader.read(base, new Path[]{path});
-				//LOGGER.info(reader.getClass() + ".read(): " + (System.currentTimeMillis() - localStartTime) + "ms");
+				//LOGGER.info(reader.getPluginId() + ".read(): " + (System.currentTimeMillis() - localStartTime) + "ms");
 				if (!nodes.isEmpty()) {
 					for (Node.Op node : nodes) {
 						parentNode.addChild(node);
@@ -256,7 +331,8 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 		Set<Node.Op> nodes = new HashSet<>();
 		nodes.add(directoryNodes.get(Paths.get("")));
 
-		LOGGER.info(this.getClass() + ".readSpecificFiles(): " + (System.currentTimeMillis() - startTime) + "ms");
+		long duration = this.metrics.recordSince(MetricsRegistry.PHASE_READ, startTime);
+		LOGGER.info(this.getClass() + ".readSpecificFiles(): " + (duration / 1000000) + "ms");
 
 		return nodes;
 	}
@@ -280,8 +356,9 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 		// if the current path is still below the base directory
 		if (!relative.equals(Paths.get(""))) {
-			// proceed recursively with its parent and add it as a child to that parent
-			Node.Op parent = this.createParents(base, path.getParent(), directoryNodes);
+			// proceed recursively with its parent and add it as a child to that parent (the parent of a top level directory is the base directory)
+			Path parentPath = path.getParent() == null ? Paths.get("") : path.getParent();
+			Node.Op parent = this.createParents(base, parentPath, directoryNodes);
 			parent.addChild(directoryNode);
 		}
 
@@ -297,13 +374,43 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 	@Override
 	public Set<Node.Op> read(Path base, Path[] input) {
+		return this.readInput(base, input, null);
+	}
+
+	/**
+	 * Reads the given files like {@link #read(Path, Path[])}, but parses the files on a separate thread and passes every plugin node to the given sink as soon as it is parsed and added to the directory tree.
+	 * The sink is called on the calling thread, so that the parsed plugin nodes can be processed while parsing continues.
+	 * At most {@link #PIPELINE_CAPACITY} parsed files wait to be processed, so parsing is suspended when the sink is slower than the readers.
+	 * This only bounds the files waiting for the sink: every parsed file stays in the returned directory tree, so the memory needed is still bounded by the size of the input and not by the number of files in flight.
+	 * Listeners of the readers of the files are notified on the parsing thread.
+	 *
+	 * @param base  The base directory.
+	 * @param input The files and directories to read relative to the base directory.
+	 * @param sink  The sink to which every plugin node is passed.
+	 * @return The nodes representing the given input.
+	 */
+	public Set<Node.Op> readPipelined(Path base, Path[] input, Consumer<? super Node.Op> sink) {
+		checkNotNull(sink);
+
+		return this.readInput(base, input, sink);
+	}
+
+	/**
+	 * Maximum number of parsed files that wait to be passed to the sink in {@link #readPipelined(Path, Path[], Consumer)}.
+	 */
+	public static final int PIPELINE_CAPACITY = 64;
+
+	private static final Set<Node.Op> END_OF_INPUT = Collections.unmodifiableSet(new HashSet<>());
+
+	private Set<Node.Op> readInput(Path base, Path[] input, Consumer<? super Node.Op> sink) {
 		if (!Files.exists(base)) {
 			throw new EccoException("Base directory does not exist.");
 		} else if (!Files.isDirectory(base)) {
 			throw new EccoException("Current base directory is not a directory but a file.");
 		}
 
-		long startTime = System.currentTimeMillis();
+		MetricsRegistry metrics = this.metrics;
+		long startTime = System.nanoTime();
 
 		Set<Node.Op> nodes = new HashSet<>();
 
@@ -331,30 +438,23 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 			nodes.add(baseDirectoryNode);
 
 			// let readers read the assigned, modified files
-			for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers) {
-				ArrayList<Path> filesList = readerToFilesMap.get(reader);
-
-				if (filesList != null) {
-					Path[] pluginInput = filesList.toArray(new Path[0]);
+			if (sink == null) {
+				for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers) {
+					ArrayList<Path> filesList = readerToFilesMap.get(reader);
 
-					long localStartTime = System.currentTimeMillis();
-					Set<Node.Op> pluginNodes = reader.read(base, pluginInput);
-					LOGGER.info(reader.getClass() + ".read(): " + (System.currentTimeMillis() - localStartTime) + "ms");
-					for (Node.Op pluginNode : pluginNodes) {
-						if (!(pluginNode.getArtifact().getData() instanceof PluginArtifactData))
-							throw new EccoException("Plugin must return valid plugin nodes as root nodes in order for it to be compatible with dispatchers.");
+					if (filesList != null) {
+						Path[] pluginInput = filesList.toArray(new Path[0]);
 
-						PluginArtifactData pluginArtifactData = (PluginArtifactData) pluginNode.getArtifact().getData();
-						Path parent = pluginArtifactData.getPath().getParent();
-						if (parent == null)
-							parent = Paths.get(".").normalize();
-						Node.Op parentNode = directoryNodes.get(parent);
-						if (parentNode != null)
-							parentNode.addChild(pluginNode);
-						else
-							throw new EccoException("Plugin '" + pluginArtifactData.getPluginId() + "' returned an invalid plugin node: " + pluginNode);
+						long localStartTime = System.currentTimeMillis();
+						Set<Node.Op> pluginNodes = reader.read(base, pluginInput);
+						LOGGER.info(reader.getPluginId() + ".read(): " + (System.currentTimeMillis() - localStartTime) + "ms");
+						for (Node.Op pluginNode : pluginNodes) {
+							this.addPluginNode(pluginNode, directoryNodes, metrics);
+						}
 					}
 				}
+			} else {
+				this.readPipelined(base, readerToFilesMap, directoryNodes, sink, metrics);
 			}
 
 			// deal with unmodified files
@@ -382,78 +482,207 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 
 		}
 
-		LOGGER.info(this.getClass() + ".read(): " + (System.currentTimeMillis() - startTime) + "ms");
+		long duration = metrics.recordSince(MetricsRegistry.PHASE_READ, startTime);
+		LOGGER.info(this.getClass() + ".read(): " + (duration / 1000000) + "ms");
 
 		// return produced nodes
 		return nodes;
 	}
 
-	private Node.Op readDirectories(Path base, Path current, Properties hashes, Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> readerToFilesMap, Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> readerToUnmodifiedFilesMap, Map<Path, Node.Op> directoryNodes) {
-		Path relativeCurrent = base.relativize(current);
+	/**
+	 * Parses the files on a separate thread and adds the parsed plugin nodes to the directory tree on the calling thread.
+	 */
+	private void readPipelined(Path base, Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> readerToFilesMap, Map<Path, Node.Op> directoryNodes, Consumer<? super Node.Op> sink, MetricsRegistry metrics) {
+		BlockingQueue<Set<Node.Op>> queue = new ArrayBlockingQueue<>(PIPELINE_CAPACITY);
+		AtomicReference<RuntimeException> readerException = new AtomicReference<>();
 
-		try {
-			if (Files.isDirectory(current)) { // deal with directories
-				if (!this.isIgnored(relativeCurrent)) { // if directory is not ignored add it to directories
-					Artifact.Op<?> directoryArtifact = this.entityFactory.createArtifact(new DirectoryArtifactData(relativeCurrent.getFileName()));
-					Node.Op directoryNode = this.entityFactory.createNode(directoryArtifact);
-					directoryNodes.put(relativeCurrent, directoryNode);
-
-					this.fireReadEvent(base.relativize(current), this);
-
-					// go into sub directories
-					try (Stream<Path> filesStream = Files.list(current)) {
-						filesStream.forEach(d -> {
-							Node.Op child = this.readDirectories(base, d, hashes, readerToFilesMap, readerToUnmodifiedFilesMap, directoryNodes);
-							if (child != null)
-								directoryNode.addChild(child);
+		Thread readerThread = new Thread(() -> {
+			try {
+				for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers) {
+					ArrayList<Path> filesList = readerToFilesMap.get(reader);
+
+					if (filesList != null) {
+						long localStartTime = System.currentTimeMillis();
+						reader.read(base, filesList.toArray(new Path[0]), pluginNodes -> {
+							try {
+								queue.put(pluginNodes);
+							} catch (InterruptedException e) {
+								throw new EccoException("Reading was interrupted.", e);
+							}
 						});
+						LOGGER.info(reader.getPluginId() + ".read(): " + (System.currentTimeMillis() - localStartTime) + "ms");
 					}
-
-					return directoryNode;
 				}
-			} else { // deal with files
-				if (!this.isIgnored(relativeCurrent)) { // if file is not ignored add it to readerToFilesMap
-					Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> filesMap;
-
-					// get reader for file
-					ArtifactReader<Path, Set<Node.Op>> reader = this.getReaderForFile(base, relativeCurrent);
-
-//					// check if file was modified
-//					String hash = hashes.getProperty(relativeCurrent.toString());
-//					if (hash != null && hash.equals(EccoUtil.getSHA(base.resolve(relativeCurrent)))) { // hashes match
-//						filesMap = readerToUnmodifiedFilesMap;
-//					} else {
-//						filesMap = readerToFilesMap;
-//					}
-					// TODO: for now, always read all the files.
-					filesMap = readerToFilesMap;
-
-					// assign file to reader
-					if (reader != null) {
-						ArrayList<Path> fileList = filesMap.get(reader);
-						if (fileList == null)
-							fileList = new ArrayList<>();
-						fileList.add(relativeCurrent);
-						filesMap.put(reader, fileList);
-
-						this.fireReadEvent(relativeCurrent, reader);
-
-//						// add artifact plugin node
-//						Artifact<PluginArtifactData> pluginArtifact = this.entityFactory.createArtifact(new PluginArtifactData(reader.getPluginId(), relativeCurrent));
-//						Node pluginNode = this.entityFactory.createOrderedNode(pluginArtifact);
-//						directoryNodes.put(relativeCurrent, pluginNode);
-//
-//						return pluginNode;
+			} catch (RuntimeException e) {
+				readerException.set(e);
+			} finally {
+				// the queue may be full, but the end marker must not be lost
+				while (true) {
+					try {
+						queue.put(END_OF_INPUT);
+						break;
+					} catch (InterruptedException e) {
+						queue.clear();
 					}
+				}
+			}
+		}, "ecco-dispatch-reader");
+		readerThread.setDaemon(true);
+		readerThread.start();
 
-					return null;
+		try {
+			while (true) {
+				Set<Node.Op> pluginNodes = queue.take();
+				if (pluginNodes == END_OF_INPUT)
+					break;
+				for (Node.Op pluginNode : pluginNodes) {
+					this.addPluginNode(pluginNode, directoryNodes, metrics);
+					sink.accept(pluginNode);
 				}
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EccoException("Reading was interrupted.", e);
+		} finally {
+			// stop the reader thread in case the sink failed
+			readerThread.interrupt();
+			queue.clear();
+		}
+
+		if (readerException.get() != null)
+			throw readerException.get();
+	}
+
+	private void addPluginNode(Node.Op pluginNode, Map<Path, Node.Op> directoryNodes, MetricsRegistry metrics) {
+		if (!(pluginNode.getArtifact().getData() instanceof PluginArtifactData))
+			throw new EccoException("Plugin must return valid plugin nodes as root nodes in order for it to be compatible with dispatchers.");
+
+		metrics.increment(MetricsRegistry.COUNTER_ARTIFACTS_READ, pluginNode.countArtifacts());
+
+		PluginArtifactData pluginArtifactData = (PluginArtifactData) pluginNode.getArtifact().getData();
+		Path parent = pluginArtifactData.getPath().getParent();
+		if (parent == null)
+			parent = Paths.get(".").normalize();
+		Node.Op parentNode = directoryNodes.get(parent);
+		if (parentNode != null)
+			parentNode.addChild(pluginNode);
+		else
+			throw new EccoException("Plugin '" + pluginArtifactData.getPluginId() + "' returned an invalid plugin node: " + pluginNode);
+	}
+
+	private Node.Op readDirectories(Path base, Path current, Properties hashes, Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> readerToFilesMap, Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> readerToUnmodifiedFilesMap, Map<Path, Node.Op> directoryNodes) {
+		Path relativeCurrent = base.relativize(current);
+
+		if (this.isIgnored(relativeCurrent))
+			return null;
+
+		// TODO: for now, always read all the files. unmodified files (whose hash matches the hash in the hashes file) would be assigned to readerToUnmodifiedFilesMap.
+		Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> filesMap = readerToFilesMap;
+
+		if (!Files.isDirectory(current)) { // deal with files
+			ArtifactReader<Path, Set<Node.Op>> reader = this.getReaderForFile(base, relativeCurrent);
+			if (reader != null) {
+				filesMap.computeIfAbsent(reader, r -> new ArrayList<>()).add(relativeCurrent);
+				this.fireReadEvent(relativeCurrent, reader);
+			}
+			return null;
 		}
 
-		return null;
+		// walk the directory tree in parallel and assign the classified files to their readers afterwards
+		DirectoryScan scan = new DirectoryScan(base, current, this.getIgnoreClassifier(), this.getAdapterClassifier());
+		scan.invoke();
+		if (scan.directoryNode == null)
+			return null;
+		scan.collect(filesMap, directoryNodes);
+		return scan.directoryNode;
+	}
+
+	/**
+	 * Scans a directory: creates its node, classifies the files in it and scans its sub directories in parallel.
+	 * The results are collected afterwards in the order of the walk on the calling thread, which also notifies the listeners.
+	 */
+	private class DirectoryScan extends RecursiveTask<Node.Op> {
+		private final Path base;
+		private final Path current;
+		private final PathClassifier<Boolean> ignoreClassifier;
+		private final PathClassifier<ArtifactReader<Path, Set<Node.Op>>> adapterClassifier;
+
+		private Node.Op directoryNode = null;
+		private final List<Path> files = new ArrayList<>();
+		private final List<ArtifactReader<Path, Set<Node.Op>>> fileReaders = new ArrayList<>();
+		private final List<DirectoryScan> subScans = new ArrayList<>();
+
+		private DirectoryScan(Path base, Path current, PathClassifier<Boolean> ignoreClassifier, PathClassifier<ArtifactReader<Path, Set<Node.Op>>> adapterClassifier) {
+			this.base = base;
+			this.current = current;
+			this.ignoreClassifier = ignoreClassifier;
+			this.adapterClassifier = adapterClassifier;
+		}
+
+		@Override
+		protected Node.Op compute() {
+			Path relativeCurrent = this.base.relativize(this.current);
+
+			try (Stream<Path> filesStream = Files.list(this.current)) {
+				filesStream.forEach(child -> {
+					Path relativeChild = this.base.relativize(child);
+					if (this.ignoreClassifier.classify(relativeChild) != null)
+						return;
+					if (Files.isDirectory(child)) {
+						this.subScans.add(new DirectoryScan(this.base, child, this.ignoreClassifier, this.adapterClassifier));
+					} else {
+						ArtifactReader<Path, Set<Node.Op>> reader = this.adapterClassifier.classify(relativeChild);
+						if (reader != null) {
+							this.files.add(relativeChild);
+							this.fileReaders.add(reader);
+						}
+					}
+				});
+			} catch (IOException e) {
+				LOGGER.log(Level.WARNING, "Error reading directory " + relativeCurrent + ".", e);
+				return null;
+			}
+
+			Artifact.Op<?> directoryArtifact = entityFactory.createArtifact(new DirectoryArtifactData(relativeCurrent.getFileName()));
+			Node.Op directoryNode = entityFactory.createNode(directoryArtifact);
+
+			// go into sub directories
+			ForkJoinTask.invokeAll(this.subScans);
+			for (DirectoryScan subScan : this.subScans) {
+				if (subScan.directoryNode != null)
+					directoryNode.addChild(subScan.directoryNode);
+			}
+
+			this.directoryNode = directoryNode;
+			return directoryNode;
+		}
+
+		private void collect(Map<ArtifactReader<Path, Set<Node.Op>>, ArrayList<Path>> filesMap, Map<Path, Node.Op> directoryNodes) {
+			Path relativeCurrent = this.base.relativize(this.current);
+			directoryNodes.put(relativeCurrent, this.directoryNode);
+			fireReadEvent(relativeCurrent, DispatchReader.this);
+
+			// assign files to readers
+			for (int i = 0; i < this.files.size(); i++) {
+				filesMap.computeIfAbsent(this.fileReaders.get(i), r -> new ArrayList<>()).add(this.files.get(i));
+				fireReadEvent(this.files.get(i), this.fileReaders.get(i));
+			}
+
+			for (DirectoryScan subScan : this.subScans) {
+				if (subScan.directoryNode != null)
+					subScan.collect(filesMap, directoryNodes);
+			}
+		}
+	}
+
+
+	/**
+	 * Closes the readers to which is dispatched.
+	 */
+	@Override
+	public void close() {
+		for (ArtifactReader<Path, Set<Node.Op>> reader : this.readers)
+			reader.close();
 	}
 
 
@@ -475,4 +704,10 @@ public class DispatchReader implements ArtifactReader<Path, Set<Node.Op>> {
 		}
 	}
 
+	private void fireParsedEvent(Path path, ArtifactReader reader, long durationNanos) {
+		for (ReadListener listener : this.listeners) {
+			listener.fileParsedEvent(path, reader, durationNanos);
+		}
+	}
+
 }
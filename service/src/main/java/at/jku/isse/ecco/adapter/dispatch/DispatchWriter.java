@@ -5,6 +5,7 @@ import at.jku.isse.ecco.EccoUtil;
 import at.jku.isse.ecco.adapter.ArtifactPlugin;
 import at.jku.isse.ecco.adapter.ArtifactWriter;
 import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.service.listener.WriteListener;
 import at.jku.isse.ecco.tree.Node;
@@ -37,10 +38,13 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 
 	private Path repositoryDir;
 
+	private MetricsRegistry metrics;
+
 	@Inject
-	public DispatchWriter(Set<ArtifactWriter<Set<Node>, Path>> writers, @Named("repositoryDir") Path repositoryDir) {
+	public DispatchWriter(Set<ArtifactWriter<Set<Node>, Path>> writers, @Named("repositoryDir") Path repositoryDir, MetricsRegistry metrics) {
 		this.writers = writers;
 		this.repositoryDir = repositoryDir;
+		this.metrics = metrics;
 	}
 
 	private Collection<WriteListener> listeners = new ArrayList<WriteListener>();
@@ -92,6 +96,8 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 		}
 
 
+		long startTime = System.nanoTime();
+
 		List<Path> output = new ArrayList<>();
 
 		Properties hashes = new Properties();
@@ -112,6 +118,8 @@ public class DispatchWriter implements ArtifactWriter<Set<? extends Node>, Path>
 			this.fireWriteEvent(hashesFile, this);
 		}
 
+		this.metrics.recordSince(MetricsRegistry.PHASE_WRITE, startTime);
+
 		return output.toArray(new Path[0]);
 	}
 
@@ -0,0 +1,169 @@
+package at.jku.isse.ecco.adapter.dispatch;
+
+import at.jku.isse.ecco.adapter.ArtifactPlugin;
+import at.jku.isse.ecco.adapter.ArtifactReader;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
+import at.jku.isse.ecco.service.listener.ReadListener;
+import at.jku.isse.ecco.tree.Node;
+import com.google.inject.Binding;
+import com.google.inject.Injector;
+import com.google.inject.Provider;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.ElementSource;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reader of an artifact plugin that is only instantiated (together with the dependencies of the plugin, e.g. parsers) when it is first used to read files.
+ * Until then it is only known by the id of its plugin, which is enough to map the patterns of the adapters file to it.
+ * The time it takes to instantiate the reader is recorded as {@link MetricsRegistry#PHASE_PLUGIN_INIT}.
+ */
+class LazyArtifactReader implements ArtifactReader<Path, Set<Node.Op>> {
+
+	private static final Logger LOGGER = Logger.getLogger(LazyArtifactReader.class.getName());
+
+	private static final TypeLiteral<ArtifactReader<Path, Set<Node.Op>>> READER_TYPE = new TypeLiteral<ArtifactReader<Path, Set<Node.Op>>>() {
+	};
+
+
+	private final String pluginId;
+	private final Provider<? extends ArtifactReader<Path, Set<Node.Op>>> provider;
+	private final MetricsRegistry metrics;
+
+	private volatile ArtifactReader<Path, Set<Node.Op>> reader = null;
+
+	private final Collection<ReadListener> listeners = new ArrayList<>();
+
+
+	/**
+	 * @param pluginId The id of the plugin of the reader.
+	 * @param provider The provider that instantiates the reader.
+	 * @param metrics  The registry into which the instantiation of the reader is recorded.
+	 */
+	LazyArtifactReader(String pluginId, Provider<? extends ArtifactReader<Path, Set<Node.Op>>> provider, MetricsRegistry metrics) {
+		checkNotNull(pluginId);
+		checkNotNull(provider);
+		checkNotNull(metrics);
+
+		this.pluginId = pluginId;
+		this.provider = provider;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Returns the readers bound by the given injector without instantiating the readers of the given artifact plugins.
+	 * Readers that were not bound by the module of one of the plugins are instantiated immediately.
+	 *
+	 * @param injector        The injector.
+	 * @param artifactPlugins The artifact plugins whose readers are instantiated when they are first used.
+	 * @param metrics         The registry into which the instantiation of the readers is recorded.
+	 * @return The readers in the order in which they were bound.
+	 */
+	static List<ArtifactReader<Path, Set<Node.Op>>> getReaders(Injector injector, Collection<ArtifactPlugin> artifactPlugins, MetricsRegistry metrics) {
+		checkNotNull(injector);
+		checkNotNull(artifactPlugins);
+		checkNotNull(metrics);
+
+		Map<String, String> moduleClassNamePluginIds = new HashMap<>();
+		for (ArtifactPlugin artifactPlugin : artifactPlugins)
+			moduleClassNamePluginIds.put(artifactPlugin.getModule().getClass().getName(), artifactPlugin.getPluginId());
+
+		List<ArtifactReader<Path, Set<Node.Op>>> readers = new ArrayList<>();
+		for (Binding<ArtifactReader<Path, Set<Node.Op>>> binding : injector.findBindingsByType(READER_TYPE)) {
+			String pluginId = null;
+			if (binding.getSource() instanceof ElementSource) {
+				for (String moduleClassName : ((ElementSource) binding.getSource()).getModuleClassNames()) {
+					pluginId = moduleClassNamePluginIds.get(moduleClassName);
+					if (pluginId != null)
+						break;
+				}
+			}
+			if (pluginId != null)
+				readers.add(new LazyArtifactReader(pluginId, binding.getProvider(), metrics));
+			else
+				readers.add(binding.getProvider().get());
+		}
+		return readers;
+	}
+
+
+	private ArtifactReader<Path, Set<Node.Op>> getReader() {
+		ArtifactReader<Path, Set<Node.Op>> reader = this.reader;
+		if (reader == null) {
+			synchronized (this) {
+				reader = this.reader;
+				if (reader == null) {
+					long startTime = System.nanoTime();
+					reader = this.provider.get();
+					long duration = this.metrics.recordSince(MetricsRegistry.PHASE_PLUGIN_INIT, startTime);
+					LOGGER.info("Activated plugin " + this.pluginId + ": " + (duration / 1000000) + "ms");
+
+					for (ReadListener listener : this.listeners)
+						reader.addListener(listener);
+					this.reader = reader;
+				}
+			}
+		}
+		return reader;
+	}
+
+
+	@Override
+	public String getPluginId() {
+		return this.pluginId;
+	}
+
+	@Override
+	public Map<Integer, String[]> getPrioritizedPatterns() {
+		return this.getReader().getPrioritizedPatterns();
+	}
+
+	@Override
+	public Set<Node.Op> read(Path base, Path[] input) {
+		return this.getReader().read(base, input);
+	}
+
+	@Override
+	public Set<Node.Op> read(Path[] input) {
+		return this.getReader().read(input);
+	}
+
+	@Override
+	public void read(Path base, Path[] input, Consumer<? super Set<Node.Op>> sink) {
+		this.getReader().read(base, input, sink);
+	}
+
+	/**
+	 * Closes the reader if it was instantiated.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.reader != null)
+			this.reader.close();
+	}
+
+	@Override
+	public synchronized void addListener(ReadListener listener) {
+		this.listeners.add(listener);
+		if (this.reader != null)
+			this.reader.addListener(listener);
+	}
+
+	@Override
+	public synchronized void removeListener(ReadListener listener) {
+		this.listeners.remove(listener);
+		if (this.reader != null)
+			this.reader.removeListener(listener);
+	}
+
+	@Override
+	public String toString() {
+		return this.pluginId;
+	}
+
+}
@@ -0,0 +1,114 @@
+package at.jku.isse.ecco.adapter.dispatch;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Ordered glob patterns (see {@link FileSystem#getPathMatcher(String)}) with a value each, compiled once to classify many paths.
+ * A path is classified with the value of the first pattern that matches it.
+ * <p>
+ * The most common kinds of patterns are not matched with a path matcher:
+ * literal paths are looked up in a map, patterns of the form <code>dir/**</code> in a map of directory prefixes and patterns of the form <code>**.ext</code> in a map of file extensions.
+ * All other patterns are matched with a path matcher that is compiled once.
+ *
+ * @param <T> The type of the values.
+ */
+class PathClassifier<T> {
+
+	private static final String GLOB_CHARACTERS = "*?[]{}\\";
+
+
+	private final List<T> values = new ArrayList<>();
+
+	// index of the first pattern of each kind
+	private final Map<Path, Integer> literals = new HashMap<>();
+	private final Map<Path, Integer> prefixes = new HashMap<>();
+	private final Map<String, Integer> extensions = new HashMap<>();
+	private int matchAll = Integer.MAX_VALUE;
+
+	// remaining patterns in order
+	private final List<PathMatcher> matchers = new ArrayList<>();
+	private final List<Integer> matcherIndices = new ArrayList<>();
+
+
+	/**
+	 * @param fileSystem The file system of the paths to be classified.
+	 * @param patterns   The glob patterns and their values in the order in which they are matched.
+	 */
+	PathClassifier(FileSystem fileSystem, List<Map.Entry<String, T>> patterns) {
+		checkNotNull(fileSystem);
+		checkNotNull(patterns);
+
+		String separator = fileSystem.getSeparator();
+		for (Map.Entry<String, T> pattern : patterns) {
+			int index = this.values.size();
+			this.values.add(pattern.getValue());
+
+			String glob = pattern.getKey();
+			if (glob.equals("**")) {
+				this.matchAll = Math.min(this.matchAll, index);
+			} else if (isLiteral(glob)) {
+				this.literals.putIfAbsent(fileSystem.getPath(glob), index);
+			} else if (glob.endsWith("/**") && isLiteral(glob.substring(0, glob.length() - 3))) {
+				this.prefixes.putIfAbsent(fileSystem.getPath(glob.substring(0, glob.length() - 3)), index);
+			} else if (glob.startsWith("**.") && isLiteral(glob.substring(3)) && !glob.substring(3).contains(".") && !glob.substring(3).contains("/") && !glob.substring(3).contains(separator)) {
+				this.extensions.putIfAbsent(glob.substring(3), index);
+			} else {
+				this.matchers.add(fileSystem.getPathMatcher("glob:" + glob));
+				this.matcherIndices.add(index);
+			}
+		}
+	}
+
+	private static boolean isLiteral(String glob) {
+		for (int i = 0; i < glob.length(); i++) {
+			if (GLOB_CHARACTERS.indexOf(glob.charAt(i)) != -1)
+				return false;
+		}
+		return !glob.isEmpty();
+	}
+
+
+	/**
+	 * @param path The path relative to the base directory.
+	 * @return The value of the first pattern that matches the path, or null if no pattern matches it.
+	 */
+	T classify(Path path) {
+		int index = this.matchAll;
+
+		Integer literal = this.literals.get(path);
+		if (literal != null && literal < index)
+			index = literal;
+
+		if (!this.prefixes.isEmpty()) {
+			for (Path prefix = path.getParent(); prefix != null; prefix = prefix.getParent()) {
+				Integer prefixIndex = this.prefixes.get(prefix);
+				if (prefixIndex != null && prefixIndex < index)
+					index = prefixIndex;
+			}
+		}
+
+		if (!this.extensions.isEmpty() && path.getFileName() != null) {
+			String fileName = path.getFileName().toString();
+			int dot = fileName.lastIndexOf('.');
+			if (dot != -1) {
+				Integer extension = this.extensions.get(fileName.substring(dot + 1));
+				if (extension != null && extension < index)
+					index = extension;
+			}
+		}
+
+		// only patterns before the best match so far can change the result
+		for (int i = 0; i < this.matchers.size() && this.matcherIndices.get(i) < index; i++) {
+			if (this.matchers.get(i).matches(path))
+				index = this.matcherIndices.get(i);
+		}
+
+		return index == Integer.MAX_VALUE ? null : this.values.get(index);
+	}
+
+}
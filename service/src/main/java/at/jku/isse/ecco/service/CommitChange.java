@@ -0,0 +1,91 @@
+package at.jku.isse.ecco.service;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.Commit;
+import at.jku.isse.ecco.core.Variant;
+import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.storage.mem.core.MemVariant;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.util.IdGenerator;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The change of a commit operation: extracting the committed artifacts and adding the committed configuration as new variant if it does not exist yet.
+ * The change holds all inputs of the commit, including the id of the new variant and a seed the ids of the associations and the commit created by the extraction are derived from (see {@link IdGenerator#derive(String, Runnable)}).
+ * Applying it again to the repository state it was first applied to therefore creates the same associations and the same commit with the same ids. Only the date of the commit is the date of the new application.
+ * The associations the committed artifacts may overlap with can be given when they were collected while the artifacts were read. They are not persisted, so the change considers all associations when it is applied again.
+ */
+public class CommitChange implements TransactionStrategy.Change {
+
+    public static final long serialVersionUID = 1L;
+
+
+    private final Configuration configuration;
+    private final Set<Node.Op> nodes;
+    private final String commitMessage;
+    private final String variantId;
+    private final String idSeed;
+
+    private transient Collection<? extends Association.Op> candidates;
+    private transient Commit commit;
+
+
+    public CommitChange(Configuration configuration, Set<Node.Op> nodes, String commitMessage, String variantId) {
+        this(configuration, nodes, commitMessage, variantId, null);
+    }
+
+    /**
+     * @param candidates The associations of the repository the committed artifacts may overlap with, or null if all associations must be considered.
+     */
+    public CommitChange(Configuration configuration, Set<Node.Op> nodes, String commitMessage, String variantId, Collection<? extends Association.Op> candidates) {
+        checkNotNull(configuration);
+        checkNotNull(nodes);
+        checkNotNull(variantId);
+
+        this.configuration = configuration;
+        this.nodes = nodes;
+        this.commitMessage = commitMessage;
+        this.variantId = variantId;
+        this.idSeed = UUID.randomUUID().toString();
+        this.candidates = candidates;
+    }
+
+
+    @Override
+    public void apply(Repository.Op repository) {
+        boolean hasConfiguration = false;
+        for (Variant v : repository.getVariants()) {
+            if (v.getConfiguration().equals(this.configuration)) {
+                hasConfiguration = true;
+            }
+        }
+
+        if (this.idSeed != null)
+            IdGenerator.derive(this.idSeed, () -> this.commit = repository.extract(this.configuration, this.nodes, this.candidates));
+        else // recorded before the ids were derived
+            this.commit = repository.extract(this.configuration, this.nodes, this.candidates);
+
+        //storing new variant
+        if (!hasConfiguration) {
+            MemVariant memVariant = new MemVariant("", this.configuration, this.variantId);
+            repository.addVariant(memVariant);
+        }
+
+        this.commit.setCommitMassage(this.commitMessage);
+    }
+
+    /**
+     * @return The commit created by the last application of this change.
+     */
+    public Commit getCommit() {
+        return this.commit;
+    }
+
+}
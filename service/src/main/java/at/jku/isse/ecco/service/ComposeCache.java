@@ -0,0 +1,143 @@
+package at.jku.isse.ecco.service;
+
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.Checkout;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
+import at.jku.isse.ecco.module.ModuleRevision;
+import at.jku.isse.ecco.repository.Repository;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bounded cache of the parts of the results of composing configurations that depend on the configuration (the selected associations and the missing and surplus modules).
+ * <p>
+ * Every request returns a new checkout whose tree, order warnings and unresolved associations are composed lazily from the cached selected associations (see {@link Repository.Op#compose(Collection, boolean)}).
+ * Callers therefore cannot see each other's changes to a checkout, and the cache only refers to entities of the repository instead of keeping composed trees alive.
+ * <p>
+ * Results are keyed by the normalized configuration (the set of the ids of the features and their revisions, so that the order in which they are given does not matter) and are only valid for the repository version they were composed at.
+ * When the version changes (e.g. after a commit or merge) all results are discarded. The least recently used result is evicted when the cache is full.
+ * Hits and misses are counted as {@link MetricsRegistry#COUNTER_COMPOSE_CACHE_HITS} and {@link MetricsRegistry#COUNTER_COMPOSE_CACHE_MISSES} in the registry of the service.
+ * <p>
+ * The cache is not thread-safe; it is guarded by the service.
+ */
+class ComposeCache {
+
+    private final int capacity;
+    private final MetricsRegistry metrics;
+
+    private long version = -1;
+    private final Map<Set<List<String>>, Entry> entries;
+
+    private long hits = 0;
+    private long misses = 0;
+
+
+    /**
+     * @param capacity The maximum number of cached results.
+     * @param metrics  The registry in which hits and misses are counted.
+     */
+    ComposeCache(int capacity, MetricsRegistry metrics) {
+        checkArgument(capacity > 0, "Capacity must be positive.");
+        checkNotNull(metrics);
+
+        this.capacity = capacity;
+        this.metrics = metrics;
+        this.entries = new LinkedHashMap<Set<List<String>>, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Set<List<String>>, Entry> eldest) {
+                return this.size() > ComposeCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * The string representation of a feature revision only contains a prefix of its id, so the full ids of the feature and the revision are used.
+     */
+    private static Set<List<String>> normalize(Configuration configuration) {
+        return Arrays.stream(configuration.getFeatureRevisions())
+                .map(featureRevision -> Arrays.asList(featureRevision.getFeature().getId(), featureRevision.getId()))
+                .collect(Collectors.toSet());
+    }
+
+
+    /**
+     * Composes the given configuration, reusing the selected associations and the missing and surplus modules of a previous request for the same configuration if the repository version did not change.
+     * Results are neither cached nor returned from the cache if the version is unknown (-1).
+     *
+     * @param configuration The configuration.
+     * @param version       The current version of the repository.
+     * @param repository    The repository in the given version.
+     * @return A new checkout of the configuration.
+     */
+    Checkout get(Configuration configuration, long version, Repository.Op repository) {
+        checkNotNull(configuration);
+        checkNotNull(repository);
+
+        if (version != this.version) {
+            this.entries.clear();
+            this.version = version;
+        }
+
+        Set<List<String>> key = normalize(configuration);
+        Entry entry = version < 0 ? null : this.entries.get(key);
+        if (entry != null) {
+            this.hits++;
+            this.metrics.increment(MetricsRegistry.COUNTER_COMPOSE_CACHE_HITS);
+
+            Checkout checkout = repository.compose(entry.selectedAssociations, true);
+            checkout.setConfiguration(configuration);
+            checkout.setSurplusModules(new HashMap<>(entry.surplusModules));
+            checkout.getMissing().addAll(entry.missing);
+            return checkout;
+        }
+
+        this.misses++;
+        this.metrics.increment(MetricsRegistry.COUNTER_COMPOSE_CACHE_MISSES);
+        Checkout checkout = repository.compose(configuration);
+        if (version >= 0)
+            this.entries.put(key, new Entry(checkout));
+        return checkout;
+    }
+
+    /**
+     * Discards all results.
+     */
+    void clear() {
+        this.entries.clear();
+        this.version = -1;
+    }
+
+    /**
+     * @return The fraction of requests since the cache was created that were answered from the cache, or 0 if there were none.
+     */
+    double getHitRate() {
+        long requests = this.hits + this.misses;
+        return requests == 0 ? 0 : (double) this.hits / requests;
+    }
+
+
+    /**
+     * Copy of the parts of a checkout that depend on the configuration.
+     */
+    private static class Entry {
+
+        private final Collection<Association.Op> selectedAssociations;
+        private final Set<ModuleRevision> missing;
+        private final Map<ModuleRevision, String> surplusModules;
+
+        private Entry(Checkout checkout) {
+            this.selectedAssociations = new ArrayList<>();
+            for (Association association : checkout.getSelectedAssociations())
+                this.selectedAssociations.add((Association.Op) association);
+            this.missing = new HashSet<>(checkout.getMissing());
+            this.surplusModules = new HashMap<>(checkout.getSurplusModules());
+        }
+
+    }
+
+}
@@ -5,6 +5,7 @@ import at.jku.isse.ecco.EccoUtil;
 import at.jku.isse.ecco.adapter.ArtifactPlugin;
 import at.jku.isse.ecco.adapter.ArtifactReader;
 import at.jku.isse.ecco.adapter.ArtifactWriter;
+import at.jku.isse.ecco.adapter.dispatch.DirectoryArtifactData;
 import at.jku.isse.ecco.adapter.dispatch.DispatchModule;
 import at.jku.isse.ecco.adapter.dispatch.DispatchReader;
 import at.jku.isse.ecco.adapter.dispatch.DispatchWriter;
@@ -17,12 +18,15 @@ import at.jku.isse.ecco.dao.TransactionStrategy;
 import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.Feature;
 import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.metrics.MetricsListener;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.module.ModuleRevision;
 import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.service.listener.EccoListener;
 import at.jku.isse.ecco.service.listener.ReadListener;
 import at.jku.isse.ecco.service.listener.ServerListener;
 import at.jku.isse.ecco.service.listener.WriteListener;
+import at.jku.isse.ecco.storage.BlobStore;
 import at.jku.isse.ecco.storage.StoragePlugin;
 import at.jku.isse.ecco.storage.mem.core.MemVariant;
 import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
@@ -53,7 +57,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * A service class that gives access to high level operations like init, fork, pull, push, etc.
  */
-public class EccoService implements ProgressInputStream.ProgressListener, ProgressOutputStream.ProgressListener, ReadListener, WriteListener, Closeable {
+public class EccoService implements ProgressInputStream.ProgressListener, ProgressOutputStream.ProgressListener, ReadListener, WriteListener, MetricsListener, Closeable {
 
     private static final Logger LOGGER = Logger.getLogger(EccoService.class.getName());
 
@@ -73,6 +77,11 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
     public static final Path WARNINGS_FILE_NAME = Paths.get(".warnings");
     public static final Path HASHES_FILE_NAME = Paths.get(".hashes");
 
+    /**
+     * Maximum number of composed configurations that are cached (see {@link ComposeCache}).
+     */
+    public static final int COMPOSE_CACHE_SIZE = 16;
+
 
     private final Properties properties = new Properties();
 
@@ -187,6 +196,12 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
     private Injector injector;
 
+    private BlobStore blobStore;
+
+    private final MetricsRegistry metrics = new MetricsRegistry();
+
+    private final ComposeCache composeCache = new ComposeCache(COMPOSE_CACHE_SIZE, this.metrics);
+
     private boolean initialized = false;
 
     public boolean isInitialized() {
@@ -242,11 +257,26 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         this.fireReadEvent(file, reader);
     }
 
+    @Override
+    public void fileParsedEvent(Path file, ArtifactReader reader, long durationNanos) {
+        this.fireParsedEvent(file, reader, durationNanos);
+    }
+
     @Override
     public void fileWriteEvent(Path file, ArtifactWriter writer) {
         this.fireWriteEvent(file, writer);
     }
 
+    @Override
+    public void timingRecordedEvent(String phase, long durationNanos) {
+        this.fireTimingRecordedEvent(phase, durationNanos);
+    }
+
+    @Override
+    public void counterIncrementedEvent(String counter, long delta, long value) {
+        this.fireCounterIncrementedEvent(counter, delta, value);
+    }
+
 
     // service events
 
@@ -268,12 +298,30 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         }
     }
 
+    private void fireParsedEvent(Path path, ArtifactReader reader, long durationNanos) {
+        for (ReadListener listener : this.listeners) {
+            listener.fileParsedEvent(path, reader, durationNanos);
+        }
+    }
+
     private void fireWriteEvent(Path path, ArtifactWriter writer) {
         for (WriteListener listener : this.listeners) {
             listener.fileWriteEvent(path, writer);
         }
     }
 
+    private void fireTimingRecordedEvent(String phase, long durationNanos) {
+        for (MetricsListener listener : this.listeners) {
+            listener.timingRecordedEvent(phase, durationNanos);
+        }
+    }
+
+    private void fireCounterIncrementedEvent(String counter, long delta, long value) {
+        for (MetricsListener listener : this.listeners) {
+            listener.counterIncrementedEvent(counter, delta, value);
+        }
+    }
+
 
     // repository events
 
@@ -480,6 +528,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized void open() {
         LOGGER.info("OPEN()");
+        long startTime = System.nanoTime();
 
         if (!this.repositoryDirectoryExists()) {
             throw new EccoException("Repository does not exist.");
@@ -490,11 +539,15 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         Collection<Module> modules = this.initializeService();
 
+        this.blobStore = BlobStore.forRepository(this.repositoryDir);
+
         // create settings module
         final Module settingsModule = new AbstractModule() {
             @Override
             protected void configure() {
                 bind(Path.class).annotatedWith(Names.named("repositoryDir")).toInstance(EccoService.this.repositoryDir);
+                bind(BlobStore.class).toInstance(EccoService.this.blobStore);
+                bind(MetricsRegistry.class).toInstance(EccoService.this.metrics);
             }
         };
         modules.add(settingsModule);
@@ -513,6 +566,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         this.injector = injector;
 
         this.transactionStrategy.open();
+        this.composeCache.clear();
 
         this.repositoryDao.init();
         this.remoteDao.init();
@@ -527,11 +581,13 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         this.reader.addListener(this);
         this.writer.addListener(this);
+        this.getMetrics().addListener(this);
 
         this.initialized = true;
 
         this.fireStatusChangedEvent();
 
+        this.getMetrics().recordSince(MetricsRegistry.PHASE_OPEN, startTime);
         LOGGER.info("Repository opened.");
 
     }
@@ -546,13 +602,21 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         if (!this.initialized)
             return;
 
+        for (MappingSession mappingSession : new ArrayList<>(this.mappingSessions)) {
+            mappingSession.close();
+        }
+
         this.initialized = false;
 
         this.reader.removeListener(this);
         this.writer.removeListener(this);
+        this.getMetrics().removeListener(this);
+
+        this.reader.close();
 
         this.repositoryDao.close();
         this.remoteDao.close();
+        this.composeCache.clear();
 
         this.transactionStrategy.close();
 
@@ -676,6 +740,48 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         }
     }
 
+    /**
+     * Returns the version of the repository, which changes whenever the repository may have changed (including changes by other processes).
+     * Data derived from the repository can be cached as long as the version does not change.
+     *
+     * @return The version of the repository, or -1 if the storage plugin does not keep track of changes.
+     */
+    public synchronized long getRepositoryVersion() {
+        this.checkInitialized();
+
+        try {
+            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+            long version = this.transactionStrategy.getVersion();
+            this.transactionStrategy.end();
+            return version;
+        } catch (EccoException e) {
+            this.transactionStrategy.rollback();
+            throw new EccoException("Error when retrieving repository version.", e);
+        }
+    }
+
+    /**
+     * Returns the statistics of the associations of the repository (see {@link RepositoryStatistics}).
+     * The statistics are maintained by the repository as it changes, so only associations that were added or changed since the last call are traversed.
+     *
+     * @return The current statistics of the repository.
+     */
+    public synchronized RepositoryStatistics.Snapshot getStatistics() {
+        this.checkInitialized();
+
+        try {
+            this.repositoryDao.init();
+            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+            Repository.Op repository = this.repositoryDao.load();
+            RepositoryStatistics.Snapshot statistics = repository.getStatistics().getSnapshot(repository.getAssociations());
+            this.transactionStrategy.end();
+            return statistics;
+        } catch (EccoException e) {
+            this.transactionStrategy.rollback();
+            throw new EccoException("Error when retrieving repository statistics.", e);
+        }
+    }
+
     /**
      * Get all commit objects.
      *
@@ -986,18 +1092,13 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
 
                             // send subset repository
-                            // with size:
-                            ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
-                            ObjectOutputStream temp_oos = new ObjectOutputStream(byteOutputStream);
-                            // write object to temp_oos
-                            temp_oos.writeObject(subsetRepository);
-                            // get size of data
-                            int size = byteOutputStream.size();
-                            // send size
-                            oos.writeObject(size);
-                            // send data
-                            byteOutputStream.writeTo(sChannel.socket().getOutputStream());
-                            byteOutputStream.close();
+                            // with unknown size (-1), streamed directly to the socket instead of serializing it into memory first:
+                            // (the subset repository itself is still built completely before it is sent, as the stream keeps every written object for back references anyway)
+                            oos.writeObject(-1);
+                            oos.flush();
+                            ObjectOutputStream temp_oos = new ObjectOutputStream(new BufferedOutputStream(sChannel.socket().getOutputStream()));
+                            BlobStore.writeInlined(temp_oos, subsetRepository, this.blobStore);
+                            temp_oos.flush();
                             // without size:
                             //oos.writeObject(subsetRepository);
 
@@ -1005,7 +1106,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                         }
                         case "PUSH": { // if push, receive data
                             // retrieve repository
-                            Repository.Op subsetRepository = (Repository.Op) ois.readObject();
+                            Repository.Op subsetRepository = (Repository.Op) BlobStore.readInlined(ois, this.blobStore);
 
                             // copy it using this entity factory
                             Repository.Op copiedRepository = subsetRepository.copy(this.entityFactory);
@@ -1245,6 +1346,8 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             subsetOriginRepository = originRepository.subset(originService.parseFeatureRevisionsString(deselectedFeatureRevisionsString), originRepository.getMaxOrder(), this.entityFactory);
 
             originService.transactionStrategy.end();
+
+            this.blobStore.addReferenced(originService.blobStore, subsetOriginRepository);
         } catch (Exception e) {
             originService.transactionStrategy.rollback();
 
@@ -1316,7 +1419,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                         progressInputStream.addListener(this);
 
                         // retrieve remote repository
-                        Repository.Op subsetRepository = (Repository.Op) ois.readObject();
+                        Repository.Op subsetRepository = (Repository.Op) BlobStore.readInlined(ois, this.blobStore);
 
                         progressInputStream.removeListener(this);
 
@@ -1357,6 +1460,9 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                     throw new EccoException("Error during local pull.", e);
                 }
 
+                // copy blobs referenced by the subset repository
+                this.blobStore.addReferenced(parentService.blobStore, subsetParentRepository);
+
                 // close parent repository
                 parentService.close();
 
@@ -1416,19 +1522,14 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
                         // send subset repository
                         // without size:
                         //oos.writeObject(subsetRepository);
-                        // with size:
-                        ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
-                        ObjectOutputStream temp_oos = new ObjectOutputStream(byteOutputStream);
-                        temp_oos.writeObject(subsetRepository);
-                        // get size of data
-                        int size = byteOutputStream.size();
-                        byteOutputStream.close();
-                        // send data
+                        // with unknown size, streamed directly to the socket instead of serializing it into memory first:
+                        oos.flush();
                         ProgressOutputStream pos = new ProgressOutputStream(sChannel.socket().getOutputStream());
-                        pos.setMaxBytes(size);
                         pos.resetProgress();
                         pos.addListener(this);
-                        byteOutputStream.writeTo(pos);
+                        ObjectOutputStream temp_oos = new ObjectOutputStream(new BufferedOutputStream(pos));
+                        BlobStore.writeInlined(temp_oos, subsetRepository, this.blobStore);
+                        temp_oos.flush();
                         pos.removeListener(this);
 
                     } else {
@@ -1450,6 +1551,8 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
                 // merge into parent repository
                 try {
+                    parentService.blobStore.addReferenced(this.blobStore, subsetRepository);
+
                     parentService.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
 
                     Repository.Op parentRepository = parentService.repositoryDao.load();
@@ -1591,28 +1694,30 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         try {
             this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
 
-            Set<Node.Op> nodes = readFiles();
             Repository.Op repository = this.repositoryDao.load();
 
-            ArrayList<Variant> variants = repository.getVariants();
+            // check which associations the files may overlap with while the remaining files are parsed
+            // (the extraction itself only starts once the whole tree is read, as the commit is recorded and extracted as a whole, so the whole tree is kept in memory)
+            AssociationSignatureIndex.Candidates<Association.Op> candidates = repository.getSignatureIndex().candidates(repository.getAssociations());
+            Set<Node.Op> nodes = this.reader.readPipelined(this.baseDir, new Path[]{Paths.get("")}, candidates::addSubtree);
+            for (Node.Op node : nodes) {
+                node.traverse((Node.Op directoryNode) -> {
+                    if (directoryNode.getArtifact() != null && directoryNode.getArtifact().getData() instanceof DirectoryArtifactData)
+                        candidates.addNode(directoryNode);
+                });
+            }
 
-            long extractTime = System.currentTimeMillis();
-            Commit commit = repository.extract(configuration, nodes);
-            extractTime = System.currentTimeMillis() - extractTime;
+            // store the contents of the committed files that are kept in the blob store (reading them does not store them)
+            this.blobStore.storeAll(nodes);
 
-            //storing new variant
-            boolean hasConfiguration = false;
-            for (Variant v : variants) {
-                if (v.getConfiguration().equals(configuration)) {
-                    hasConfiguration = true;
-                }
-            }
-            if (!hasConfiguration) {
-                MemVariant memVariant = new MemVariant("", configuration, UUID.randomUUID().toString());
-                repository.addVariant(memVariant);
-            }
+            // record the commit before it is applied, as the extraction modifies the committed nodes
+            CommitChange change = new CommitChange(configuration, nodes, commitMessage, UUID.randomUUID().toString(), candidates.getCandidates());
+            this.transactionStrategy.record(change);
 
-            commit.setCommitMassage(commitMessage);
+            long extractTime = System.currentTimeMillis();
+            change.apply(repository);
+            Commit commit = change.getCommit();
+            extractTime = System.currentTimeMillis() - extractTime;
 
             this.repositoryDao.store(repository);
 
@@ -1745,7 +1850,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             String config = sb.length() > 0 ? sb.substring(1) : ""; // remove first ','
             variant.getConfiguration().setFeatureRevisions(newFeatureRevisions);
             Configuration newConfiguration = service.parseConfigurationString(config);
-            variant.setConfiguration(newConfiguration);
+            repository.updateVariant(variant, newConfiguration, variant.getName());
 
             service.repositoryDao.store(repository);
 
@@ -1784,7 +1889,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
             String config = sb.length() > 0 ? sb.substring(1) : ""; // remove first ','
             variant.getConfiguration().setFeatureRevisions(newFeatureRevisions);
             Configuration newConfiguration = service.parseConfigurationString(config);
-            variant.setConfiguration(newConfiguration);
+            repository.updateVariant(variant, newConfiguration, variant.getName());
 
             service.repositoryDao.store(repository);
 
@@ -1842,6 +1947,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
     /**
      * Composes checkout with given configuration.
+     * The selected associations and the missing and surplus modules are cached per repository version (see {@link ComposeCache}), so composing the same configuration again before the repository changes only composes a new tree from the cached associations.
      * @param configuration Configuration to be composed.
      * @return Checkout with composed artifacts.
      */
@@ -1850,8 +1956,27 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
 
         checkNotNull(configuration);
 
-        Repository.Op repository = this.repositoryDao.load();
-        return repository.compose(configuration);
+        try {
+            this.transactionStrategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+
+            Repository.Op repository = this.repositoryDao.load();
+            Checkout checkout = this.composeCache.get(configuration, this.transactionStrategy.getVersion(), repository);
+
+            this.transactionStrategy.end();
+
+            return checkout;
+        } catch (Exception e) {
+            this.transactionStrategy.rollback();
+
+            throw new EccoException("Error during compose.", e);
+        }
+    }
+
+    /**
+     * @return The fraction of compositions that were answered from the cache of composed configurations since the service was created.
+     */
+    public synchronized double getComposeCacheHitRate() {
+        return this.composeCache.getHitRate();
     }
 
     /**
@@ -1880,7 +2005,7 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
      */
     public synchronized Set<Association> getAssociations(Configuration configuration) {
         Checkout checkout = compose(configuration);
-        return checkout.getSelectedAssociations();
+        return new HashSet<>(checkout.getSelectedAssociations());
     }
 
     public synchronized Set<Node> compareArtifacts(String configurationString) {
@@ -2014,6 +2139,26 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         }
     }
 
+    private final Collection<MappingSession> mappingSessions = new ArrayList<>();
+
+    /**
+     * Starts a session that watches the base directory and maps changed files to the repository (see {@link MappingSession}).
+     * The session must be closed when it is no longer needed and is closed when this service is closed.
+     *
+     * @return The started mapping session.
+     */
+    public synchronized MappingSession startMappingSession() {
+        this.checkInitialized();
+
+        MappingSession mappingSession = new MappingSession(this);
+        this.mappingSessions.add(mappingSession);
+        return mappingSession;
+    }
+
+    synchronized void removeMappingSession(MappingSession mappingSession) {
+        this.mappingSessions.remove(mappingSession);
+    }
+
 
     // OTHERS //////////////////////////////////////////////////////////////////////////////////////////////////////////
 
@@ -2026,6 +2171,16 @@ public class EccoService implements ProgressInputStream.ProgressListener, Progre
         return new ArrayList<>(this.artifactPlugins);
     }
 
+    /**
+     * Returns the registry containing the phase timings (read, extract, slice, sequence, compose, write, load, store) and counters (e.g. number of read artifacts, partial order graph alignment sizes, loaded and stored bytes) of the operations performed so far.
+     * Every service has its own registry, which is injected into the storage and the readers and writers of the service and used by the repository it opened. Recorded values are also relayed to the registered {@link EccoListener}s while the service is open.
+     *
+     * @return The metrics registry.
+     */
+    public MetricsRegistry getMetrics() {
+        return this.metrics;
+    }
+
     /**
      * Get the injector that can be used to retrieve arbitrary artifact readers, writers, viewers, etc.
      * This is lower level functionality that should not be used unless absolutely necessary.
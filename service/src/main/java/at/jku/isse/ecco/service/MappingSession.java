@@ -0,0 +1,322 @@
+package at.jku.isse.ecco.service;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.adapter.dispatch.DirectoryArtifactData;
+import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A long-running mapping of the files in the base directory to the repository (see {@link EccoService#map(Collection)}), e.g. for highlighting traces in an editor.
+ * <p>
+ * The session watches the base directory and maps every file again after it was changed, pushing the new mapped tree to its listeners.
+ * Files are only mapped to the associations that contain them and to the associations that contain their directories (as unique nodes), which are looked up in an index of the repository snapshot of the session.
+ * This gives the same mapping as mapping the file to all associations of the repository.
+ * The snapshot and the index are replaced when the version of the repository changes.
+ * The last mapped tree of every file is kept and can be retrieved without reading the file again.
+ * <p>
+ * Sessions are created with {@link EccoService#startMappingSession()} and closed together with the service.
+ */
+public class MappingSession implements Closeable {
+
+    private static final Logger LOGGER = Logger.getLogger(MappingSession.class.getName());
+
+    /**
+     * Time to wait for further changes after a change before mapping, so that files are mapped once per save even when editors write them in several steps.
+     */
+    public static final long DEBOUNCE_MILLIS = 50;
+
+
+    public interface MappingListener {
+        /**
+         * Called (on the watching thread of the session) after a file was mapped.
+         *
+         * @param session  The session that mapped the file.
+         * @param path     The path of the file relative to the base directory.
+         * @param rootNode The root of the mapped tree of the file, or null if the file was deleted.
+         */
+        public void mappingChangedEvent(MappingSession session, Path path, RootNode rootNode);
+    }
+
+
+    private final EccoService service;
+    private final Path baseDir;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Thread watchThread;
+
+    private final Map<Path, RootNode> mappedTrees = new ConcurrentHashMap<>();
+    private final Collection<MappingListener> listeners = new CopyOnWriteArrayList<>();
+
+    // repository snapshot, the associations containing each file and each directory and the position of every association in the repository (guarded by the service)
+    private long version = -1;
+    private Repository.Op repository = null;
+    private Map<Path, List<Association.Op>> fileAssociations = null;
+    private Map<Path, List<Association.Op>> directoryAssociations = null;
+    private Map<Association.Op, Integer> associationPositions = null;
+
+    private volatile boolean closed = false;
+
+
+    MappingSession(EccoService service) {
+        checkNotNull(service);
+
+        this.service = service;
+        this.baseDir = service.getBaseDir().toAbsolutePath().normalize();
+
+        try {
+            this.watchService = this.baseDir.getFileSystem().newWatchService();
+            this.registerDirectories(this.baseDir);
+        } catch (IOException e) {
+            throw new EccoException("Error watching base directory " + this.baseDir + ".", e);
+        }
+
+        this.watchThread = new Thread(this::watch, "ecco-mapping-session");
+        this.watchThread.setDaemon(true);
+        this.watchThread.start();
+    }
+
+
+    public void addListener(MappingListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(MappingListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Returns the tree of the given file from its last mapping.
+     *
+     * @param path The path of the file relative to the base directory.
+     * @return The root of the mapped tree, or null if the file has not been mapped (yet).
+     */
+    public RootNode getMapping(Path path) {
+        return this.mappedTrees.get(path.normalize());
+    }
+
+    /**
+     * Maps the given file immediately (e.g. when it is opened in an editor) and notifies the listeners.
+     *
+     * @param path The path of the file relative to the base directory.
+     * @return The root of the mapped tree.
+     */
+    public RootNode map(Path path) {
+        checkNotNull(path);
+        checkArgument(!path.isAbsolute(), "Path must be relative to base directory.");
+        if (this.closed)
+            throw new EccoException("Mapping session is closed.");
+
+        Path file = path.normalize();
+        RootNode rootNode = this.mapFile(file);
+        this.mappedTrees.put(file, rootNode);
+        this.fireMappingChangedEvent(file, rootNode);
+        return rootNode;
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    @Override
+    public void close() {
+        if (this.closed)
+            return;
+        this.closed = true;
+
+        try {
+            this.watchService.close();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Error closing watch service of mapping session.", e);
+        }
+        this.service.removeMappingSession(this);
+    }
+
+
+    private RootNode.Op mapFile(Path file) {
+        synchronized (this.service) {
+            if (this.closed)
+                throw new EccoException("Mapping session is closed.");
+
+            this.updateSnapshot();
+
+            Set<Node.Op> nodes = this.service.getReader().readSpecificFiles(this.baseDir, new Path[]{file});
+
+            RootNode.Op rootNode = this.service.getEntityFactory().createRootNode();
+            for (Node.Op node : nodes) {
+                rootNode.addChild(node);
+            }
+
+            this.repository.map(rootNode, this.getAssociations(file));
+
+            return rootNode;
+        }
+    }
+
+    /**
+     * @return The associations containing the given file or one of its directories, in the order of the repository.
+     */
+    private List<Association.Op> getAssociations(Path file) {
+        Set<Association.Op> associations = new HashSet<>(this.fileAssociations.getOrDefault(file, Collections.emptyList()));
+        for (Path directory = file.getParent(); directory != null; directory = directory.getParent()) {
+            associations.addAll(this.directoryAssociations.getOrDefault(directory, Collections.emptyList()));
+        }
+        associations.addAll(this.directoryAssociations.getOrDefault(Paths.get(""), Collections.emptyList()));
+
+        List<Association.Op> orderedAssociations = new ArrayList<>(associations);
+        orderedAssociations.sort(Comparator.comparing(this.associationPositions::get));
+        return orderedAssociations;
+    }
+
+    /**
+     * Loads the repository again and indexes the associations by the files they contain if the repository changed since the last call.
+     */
+    private void updateSnapshot() {
+        long currentVersion = this.service.getRepositoryVersion();
+        if (this.repository != null && currentVersion >= 0 && currentVersion == this.version)
+            return;
+
+        this.repository = (Repository.Op) this.service.getRepository();
+        this.version = currentVersion;
+
+        Map<Path, List<Association.Op>> fileAssociations = new HashMap<>();
+        Map<Path, List<Association.Op>> directoryAssociations = new HashMap<>();
+        Map<Association.Op, Integer> associationPositions = new HashMap<>();
+        for (Association.Op association : this.repository.getAssociations()) {
+            associationPositions.put(association, associationPositions.size());
+            this.indexFiles(association, association.getReadOnlyRootNode(), Paths.get(""), fileAssociations, directoryAssociations);
+        }
+        this.fileAssociations = fileAssociations;
+        this.directoryAssociations = directoryAssociations;
+        this.associationPositions = associationPositions;
+    }
+
+    private void indexFiles(Association.Op association, Node.Op node, Path directory, Map<Path, List<Association.Op>> fileAssociations, Map<Path, List<Association.Op>> directoryAssociations) {
+        if (node.getArtifact() != null && node.getArtifact().getData() instanceof PluginArtifactData) {
+            Path path = ((PluginArtifactData) node.getArtifact().getData()).getPath().normalize();
+            addAssociation(fileAssociations, path, association);
+            return;
+        }
+        if (node.getArtifact() != null && node.getArtifact().getData() instanceof DirectoryArtifactData) {
+            // the directory artifact only has the name of the directory
+            directory = directory.resolve(((DirectoryArtifactData) node.getArtifact().getData()).getPath());
+            if (node.isUnique())
+                addAssociation(directoryAssociations, directory.normalize(), association);
+        }
+        for (Node.Op child : node.getChildren()) {
+            this.indexFiles(association, child, directory, fileAssociations, directoryAssociations);
+        }
+    }
+
+    private static void addAssociation(Map<Path, List<Association.Op>> associations, Path path, Association.Op association) {
+        List<Association.Op> pathAssociations = associations.computeIfAbsent(path, p -> new ArrayList<>());
+        if (!pathAssociations.contains(association))
+            pathAssociations.add(association);
+    }
+
+
+    private void watch() {
+        try {
+            while (!this.closed) {
+                Set<Path> changedFiles = new LinkedHashSet<>();
+
+                WatchKey key = this.watchService.take();
+                do {
+                    this.collectChanges(key, changedFiles);
+                    key = this.watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                } while (key != null);
+
+                for (Path file : changedFiles) {
+                    if (this.closed)
+                        return;
+                    this.remap(file);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // session closed
+        }
+    }
+
+    private void collectChanges(WatchKey key, Set<Path> changedFiles) {
+        Path directory = this.watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, so every file that was mapped before may have changed
+                changedFiles.addAll(this.mappedTrees.keySet());
+                continue;
+            }
+            if (directory == null)
+                continue;
+
+            Path child = directory.resolve((Path) event.context());
+            Path absoluteChild = this.baseDir.resolve(child);
+            if (absoluteChild.startsWith(this.service.getRepositoryDir().toAbsolutePath().normalize()))
+                continue;
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(absoluteChild)) {
+                try {
+                    this.registerDirectories(absoluteChild);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Error watching directory " + absoluteChild + ".", e);
+                }
+            } else if (!Files.isDirectory(absoluteChild)) {
+                changedFiles.add(child);
+            }
+        }
+        if (!key.reset())
+            this.watchedDirectories.remove(key);
+    }
+
+    private void remap(Path file) {
+        if (!Files.isRegularFile(this.baseDir.resolve(file))) {
+            if (this.mappedTrees.remove(file) != null)
+                this.fireMappingChangedEvent(file, null);
+            return;
+        }
+
+        try {
+            RootNode rootNode = this.mapFile(file);
+            this.mappedTrees.put(file, rootNode);
+            this.fireMappingChangedEvent(file, rootNode);
+        } catch (EccoException e) {
+            // e.g. files without a reader or files that are currently being written
+            LOGGER.log(Level.FINE, "Could not map file " + file + ".", e);
+        }
+    }
+
+    private void registerDirectories(Path directory) throws IOException {
+        Path repositoryDir = this.service.getRepositoryDir().toAbsolutePath().normalize();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs) throws IOException {
+                if (dir.toAbsolutePath().normalize().startsWith(repositoryDir))
+                    return FileVisitResult.SKIP_SUBTREE;
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(key, baseDir.relativize(dir));
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void fireMappingChangedEvent(Path path, RootNode rootNode) {
+        for (MappingListener listener : this.listeners) {
+            listener.mappingChangedEvent(this, path, rootNode);
+        }
+    }
+
+}
@@ -1,11 +1,12 @@
 package at.jku.isse.ecco.service.listener;
 
 import at.jku.isse.ecco.core.Variant;
+import at.jku.isse.ecco.metrics.MetricsListener;
 import at.jku.isse.ecco.service.EccoService;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.core.Commit;
 
-public interface EccoListener extends ReadListener, WriteListener, ServerListener {
+public interface EccoListener extends ReadListener, WriteListener, ServerListener, MetricsListener {
 
 	public default void statusChangedEvent(EccoService service) {
 		// do nothing
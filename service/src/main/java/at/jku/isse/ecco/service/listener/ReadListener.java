@@ -16,4 +16,15 @@ public interface ReadListener {
 		// do nothing
 	}
 
+	/**
+	 * Fired when a reader has parsed a file. Readers that parse files concurrently may fire it from different threads.
+	 *
+	 * @param file          The file that was parsed.
+	 * @param reader        The used reader.
+	 * @param durationNanos The time it took to parse the file in nanoseconds.
+	 */
+	public default void fileParsedEvent(Path file, ArtifactReader reader, long durationNanos) {
+		// do nothing
+	}
+
 }
@@ -0,0 +1,24 @@
+package at.jku.isse.ecco.storage;
+
+import java.io.IOException;
+
+/**
+ * Artifact data whose content is kept in a {@link BlobStore} instead of the repository database.
+ * The content is only stored in the blob store when the artifact is committed (see {@link BlobStore#storeAll(java.util.Collection)}), so that artifacts that are only read (e.g. to map or diff files) do not leave unreferenced blobs in the repository.
+ */
+public interface BlobReference {
+
+	/**
+	 * @return The key of the blob the content is stored under, or null if the content is held inline.
+	 */
+	public String getBlobKey();
+
+	/**
+	 * Stores the content in the given blob store if it is not stored yet.
+	 *
+	 * @param blobStore The blob store of the repository the artifact is committed to.
+	 * @throws IOException If the content could not be stored.
+	 */
+	public void storeBlob(BlobStore blobStore) throws IOException;
+
+}
@@ -0,0 +1,228 @@
+package at.jku.isse.ecco.storage;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.tree.Node;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Content addressed store for large artifact payloads (e.g. binary files) that are kept outside of the repository database.
+ * Every blob is stored once in the directory {@value #BLOBS_DIRNAME} of the repository, keyed by the hex digest of its content, so identical payloads of different variants share the same file.
+ * Blobs are immutable: storing a key that already exists does nothing.
+ * <p>
+ * When repositories are transferred over the network the blobs are not part of the serialized objects.
+ * Artifact data that refers to blobs can inline them while being written with {@link #writeInlined(ObjectOutputStream, Object, BlobStore)} and move them into the receiving store while being read with {@link #readInlined(ObjectInputStream, BlobStore)} (see {@link #getTransferStore()}).
+ */
+public class BlobStore {
+
+	public static final String BLOBS_DIRNAME = "blobs";
+
+	private static final ThreadLocal<BlobStore> TRANSFER_STORE = new ThreadLocal<>();
+
+
+	private final Path directory;
+
+	public BlobStore(Path directory) {
+		checkNotNull(directory);
+		this.directory = directory;
+	}
+
+	public static BlobStore forRepository(Path repositoryDir) {
+		checkNotNull(repositoryDir);
+		return new BlobStore(repositoryDir.resolve(BLOBS_DIRNAME));
+	}
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+
+	private Path getBlobPath(String key) {
+		checkNotNull(key);
+		checkArgument(!key.isEmpty() && key.chars().allMatch(c -> Character.digit(c, 16) >= 0), "Invalid blob key: %s", key);
+		return this.directory.resolve(key.substring(0, Math.min(2, key.length()))).resolve(key);
+	}
+
+	public boolean contains(String key) {
+		return Files.isRegularFile(this.getBlobPath(key));
+	}
+
+	public long size(String key) throws IOException {
+		return Files.size(this.getBlobPath(key));
+	}
+
+	/**
+	 * Stores the content of the given file under the given key unless a blob with that key already exists.
+	 *
+	 * @param key    The hex digest of the content.
+	 * @param source The file to copy.
+	 * @throws IOException If the file could not be copied.
+	 */
+	public void put(String key, Path source) throws IOException {
+		checkNotNull(source);
+		try (InputStream in = Files.newInputStream(source)) {
+			this.put(key, in);
+		}
+	}
+
+	/**
+	 * Stores the given content under the given key unless a blob with that key already exists.
+	 *
+	 * @param key     The hex digest of the content.
+	 * @param content The content.
+	 * @throws IOException If the content could not be written.
+	 */
+	public void put(String key, byte[] content) throws IOException {
+		checkNotNull(content);
+		this.put(key, new ByteArrayInputStream(content));
+	}
+
+	private void put(String key, InputStream in) throws IOException {
+		Path blobPath = this.getBlobPath(key);
+		if (Files.isRegularFile(blobPath))
+			return;
+
+		// write to a temporary file first so that concurrent readers never see partially written blobs
+		Files.createDirectories(blobPath.getParent());
+		Path tempPath = Files.createTempFile(blobPath.getParent(), key, ".tmp");
+		try {
+			Files.copy(in, tempPath, StandardCopyOption.REPLACE_EXISTING);
+			try {
+				Files.move(tempPath, blobPath, StandardCopyOption.ATOMIC_MOVE);
+			} catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+				if (!Files.isRegularFile(blobPath))
+					Files.move(tempPath, blobPath, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(tempPath);
+		}
+	}
+
+	/**
+	 * Opens the blob with the given key for reading.
+	 *
+	 * @param key The hex digest of the content.
+	 * @return Stream of the blob content that must be closed by the caller.
+	 * @throws IOException If no blob with the given key exists or it could not be opened.
+	 */
+	public InputStream open(String key) throws IOException {
+		Path blobPath = this.getBlobPath(key);
+		if (!Files.isRegularFile(blobPath))
+			throw new FileNotFoundException("Blob " + key + " does not exist in " + this.directory + ".");
+		return Files.newInputStream(blobPath);
+	}
+
+	public byte[] read(String key) throws IOException {
+		try (InputStream in = this.open(key)) {
+			return in.readAllBytes();
+		}
+	}
+
+	/**
+	 * Stores the content of all artifacts in the given trees that is not stored yet (see {@link BlobReference}).
+	 *
+	 * @param nodes The root nodes of the trees that are committed.
+	 */
+	public void storeAll(Collection<? extends Node> nodes) {
+		checkNotNull(nodes);
+		try {
+			for (Node node : nodes) {
+				node.traverse((Node n) -> {
+					if (n.getArtifact() != null && n.getArtifact().getData() instanceof BlobReference) {
+						try {
+							((BlobReference) n.getArtifact().getData()).storeBlob(this);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+				});
+			}
+		} catch (UncheckedIOException e) {
+			throw new EccoException("Error storing blobs in " + this.directory + ".", e.getCause());
+		}
+	}
+
+	/**
+	 * Copies the blobs referenced by the artifacts of the given repository from the given store, unless they already exist in this store.
+	 *
+	 * @param other      The store to copy from.
+	 * @param repository The repository whose artifacts refer to the blobs to copy (e.g. a subset repository that is merged into the repository of this store).
+	 */
+	public void addReferenced(BlobStore other, Repository repository) {
+		checkNotNull(other);
+		checkNotNull(repository);
+		if (other.directory.equals(this.directory))
+			return;
+
+		Set<String> keys = new HashSet<>();
+		for (Association association : repository.getAssociations()) {
+			if (association.getReadOnlyRootNode() == null)
+				continue;
+			association.getReadOnlyRootNode().traverse((Node n) -> {
+				if (n.getArtifact() != null && n.getArtifact().getData() instanceof BlobReference) {
+					String key = ((BlobReference) n.getArtifact().getData()).getBlobKey();
+					if (key != null)
+						keys.add(key);
+				}
+			});
+		}
+
+		for (String key : keys) {
+			try {
+				if (!this.contains(key)) {
+					try (InputStream in = other.open(key)) {
+						this.put(key, in);
+					}
+				}
+			} catch (IOException e) {
+				throw new EccoException("Error copying blob " + key + " from " + other.directory + " to " + this.directory + ".", e);
+			}
+		}
+	}
+
+
+	// TRANSFER
+
+	/**
+	 * @return The store blobs are read from (while writing) or moved to (while reading) during the current transfer on this thread, or null if there is none.
+	 */
+	public static BlobStore getTransferStore() {
+		return TRANSFER_STORE.get();
+	}
+
+	/**
+	 * Writes the given object so that artifact data referring to blobs in the given store contains their content.
+	 */
+	public static void writeInlined(ObjectOutputStream out, Object object, BlobStore source) throws IOException {
+		checkNotNull(source);
+		TRANSFER_STORE.set(source);
+		try {
+			out.writeObject(object);
+		} finally {
+			TRANSFER_STORE.remove();
+		}
+	}
+
+	/**
+	 * Reads an object written with {@link #writeInlined(ObjectOutputStream, Object, BlobStore)} and moves the inlined content into the given store.
+	 */
+	public static Object readInlined(ObjectInputStream in, BlobStore target) throws IOException, ClassNotFoundException {
+		checkNotNull(target);
+		TRANSFER_STORE.set(target);
+		try {
+			return in.readObject();
+		} finally {
+			TRANSFER_STORE.remove();
+		}
+	}
+
+}
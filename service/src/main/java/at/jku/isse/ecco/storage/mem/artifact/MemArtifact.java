@@ -6,8 +6,10 @@ import at.jku.isse.ecco.artifact.ArtifactData;
 import at.jku.isse.ecco.artifact.ArtifactReference;
 import at.jku.isse.ecco.pog.PartialOrderGraph;
 import at.jku.isse.ecco.storage.mem.pog.MemPartialOrderGraph;
+import at.jku.isse.ecco.storage.mem.tree.FrozenNode;
+import at.jku.isse.ecco.storage.mem.tree.FrozenTree;
 import at.jku.isse.ecco.tree.Node;
-import org.eclipse.collections.impl.factory.Maps;
+import at.jku.isse.ecco.util.PropertyMap;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -179,7 +181,7 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 	@Override
 	public void setReplacingArtifact(Op<?> replacingArtifact) {
 
-		if (replacingArtifact.hasReplacingArtifact()) {
+		if (replacingArtifact != null && replacingArtifact.hasReplacingArtifact()) {
 			throw new EccoException("Replacing artifact should not have a replacing artifact itself!");
 		}
 
@@ -202,9 +204,15 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 
 	private Node.Op containingNode;
 
+	/**
+	 * Returns the containing node of this artifact. If the node is part of a frozen tree (see {@link FrozenTree}), the artifact references the root of the tree and a view of its node is returned.
+	 */
 	@Override
 	public Node.Op getContainingNode() {
-		return this.containingNode;
+		Node.Op node = this.containingNode;
+		if (node instanceof FrozenNode)
+			return ((FrozenNode) node).getTree().getNode(this);
+		return node;
 	}
 
 	@Override
@@ -215,8 +223,8 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 
 	// REFERENCES
 
-	private final Collection<ArtifactReference.Op> uses = new ArrayList<>();
-	private final Collection<ArtifactReference.Op> usedBy = new ArrayList<>();
+	private Collection<ArtifactReference.Op> uses = new ArrayList<>();
+	private Collection<ArtifactReference.Op> usedBy = new ArrayList<>();
 
 	@Override
 	public Collection<ArtifactReference.Op> getUses() {
@@ -232,6 +240,8 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 	public void addUses(final ArtifactReference.Op reference) {
 		checkNotNull(reference);
 
+		if (!(this.uses instanceof ArrayList))
+			this.uses = new ArrayList<>(this.uses);
 		this.uses.add(reference);
 	}
 
@@ -239,6 +249,8 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 	public void addUsedBy(final ArtifactReference.Op reference) {
 		checkNotNull(reference);
 
+		if (!(this.usedBy instanceof ArrayList))
+			this.usedBy = new ArrayList<>(this.usedBy);
 		this.usedBy.add(reference);
 	}
 
@@ -263,6 +275,24 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 	}
 
 
+	/**
+	 * Replaces empty reference lists with the shared empty list and trims the others to their size. Adding a reference allocates a new list again.
+	 */
+	@Override
+	public void trimToSize() {
+		this.uses = trimmed(this.uses);
+		this.usedBy = trimmed(this.usedBy);
+	}
+
+	private static Collection<ArtifactReference.Op> trimmed(Collection<ArtifactReference.Op> references) {
+		if (references.isEmpty())
+			return Collections.emptyList();
+		if (references instanceof ArrayList)
+			((ArrayList<ArtifactReference.Op>) references).trimToSize();
+		return references;
+	}
+
+
 	// PROPERTIES
 
 	private transient Map<String, Object> properties = null;
@@ -270,7 +300,7 @@ public class MemArtifact<DataType extends ArtifactData> implements Artifact<Data
 	@Override
 	public Map<String, Object> getProperties() {
 		if (this.properties == null)
-			this.properties = Maps.mutable.empty();
+			this.properties = new PropertyMap();
 		return this.properties;
 	}
 
@@ -6,10 +6,13 @@ import at.jku.isse.ecco.module.Condition;
 import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.storage.mem.counter.MemAssociationCounter;
 import at.jku.isse.ecco.storage.mem.module.MemCondition;
+import at.jku.isse.ecco.storage.mem.tree.FrozenTree;
 import at.jku.isse.ecco.tree.RootNode;
 
 /**
  * Memory implementation of {@link Association}.
+ * <p>
+ * The artifact tree can be frozen into a {@link FrozenTree} with {@link #freeze()}. A frozen tree is read through views with {@link #getReadOnlyRootNode()} and thawed back into {@link at.jku.isse.ecco.storage.mem.tree.MemNode}s by {@link #getRootNode()}, which the callers may modify.
  */
 public class MemAssociation implements Association, Association.Op {
 
@@ -18,6 +21,7 @@ public class MemAssociation implements Association, Association.Op {
 
 	private String id;
 	private RootNode.Op artifactTreeRoot;
+	private FrozenTree frozenTree;
 	private AssociationCounter associationCounter;
 	private Repository.Op containingRepository;
 
@@ -27,6 +31,7 @@ public class MemAssociation implements Association, Association.Op {
 	public MemAssociation() {
 		this.id = "";
 		this.artifactTreeRoot = null;
+		this.frozenTree = null;
 		this.associationCounter = new MemAssociationCounter(this);
 		this.containingRepository = null;
 
@@ -45,16 +50,47 @@ public class MemAssociation implements Association, Association.Op {
 	}
 
 	@Override
-	public RootNode.Op getRootNode() {
-		return artifactTreeRoot;
+	public synchronized RootNode.Op getRootNode() {
+		if (this.frozenTree != null) {
+			RootNode.Op root = this.frozenTree.thaw();
+			this.frozenTree = null;
+			this.setRootNode(root);
+		}
+		return this.artifactTreeRoot;
 	}
 
 	@Override
-	public void setRootNode(final RootNode.Op root) {
+	public synchronized void setRootNode(final RootNode.Op root) {
+		this.frozenTree = null;
 		this.artifactTreeRoot = root;
 		root.setContainingAssociation(this);
 	}
 
+	@Override
+	public synchronized RootNode.Op getReadOnlyRootNode() {
+		if (this.frozenTree != null)
+			return this.frozenTree.getRoot();
+		return this.artifactTreeRoot;
+	}
+
+	/**
+	 * Encodes the artifact tree as a {@link FrozenTree}, which takes several times less memory than the nodes, and drops the nodes.
+	 */
+	@Override
+	public synchronized void freeze() {
+		if (this.artifactTreeRoot != null) {
+			this.frozenTree = new FrozenTree(this.artifactTreeRoot, this);
+			this.artifactTreeRoot = null;
+		}
+	}
+
+	/**
+	 * @return True if the artifact tree is frozen.
+	 */
+	public synchronized boolean isFrozen() {
+		return this.frozenTree != null;
+	}
+
 	@Override
 	public Repository.Op getContainingRepository() {
 		return this.containingRepository;
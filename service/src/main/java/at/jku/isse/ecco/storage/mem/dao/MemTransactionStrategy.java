@@ -1,6 +1,7 @@
 package at.jku.isse.ecco.storage.mem.dao;
 
 import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.dao.VersionCounter;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 
@@ -9,6 +10,8 @@ public class MemTransactionStrategy implements TransactionStrategy {
 
 	protected Database database;
 
+	private long version = VersionCounter.next();
+
 	@Inject
 	public MemTransactionStrategy() {
 		this.database = null;
@@ -21,16 +24,19 @@ public class MemTransactionStrategy implements TransactionStrategy {
 	@Override
 	public void open() {
 		this.database = new Database();
+		this.version = VersionCounter.next();
 	}
 
 	@Override
 	public void close() {
 		this.database = null;
+		this.version = VersionCounter.next();
 	}
 
 	@Override
 	public void begin(TRANSACTION transaction) {
-
+		if (transaction == TRANSACTION.READ_WRITE)
+			this.version = VersionCounter.next();
 	}
 
 	@Override
@@ -44,4 +50,9 @@ public class MemTransactionStrategy implements TransactionStrategy {
 		//throw new EccoException("Rollback not supported by backend.");
 	}
 
+	@Override
+	public long getVersion() {
+		return this.version;
+	}
+
 }
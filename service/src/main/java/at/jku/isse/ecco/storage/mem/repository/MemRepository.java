@@ -1,22 +1,35 @@
 package at.jku.isse.ecco.storage.mem.repository;
 
 import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.AssociationDependencyIndex;
+import at.jku.isse.ecco.core.AssociationSignatureIndex;
+import at.jku.isse.ecco.core.RepositoryStatistics;
 import at.jku.isse.ecco.core.Variant;
 import at.jku.isse.ecco.core.Commit;
 import at.jku.isse.ecco.dao.EntityFactory;
 import at.jku.isse.ecco.feature.Configuration;
 import at.jku.isse.ecco.feature.Feature;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.module.Module;
 import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
 import at.jku.isse.ecco.storage.mem.feature.MemFeature;
 import at.jku.isse.ecco.storage.mem.module.MemModule;
+import at.jku.isse.ecco.util.IdGenerator;
 import org.eclipse.collections.impl.factory.Maps;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.*;
 
 /**
  * Memory implementation of {@link Repository}.
+ * <p>
+ * Associations and variants are additionally indexed by id, variants by configuration string and features by name.
+ * The indexes are not serialized but rebuilt after deserialization.
+ * The variant indexes are also rebuilt when a lookup misses or finds a variant whose configuration was changed without {@link #updateVariant(Variant, Configuration, String)} (e.g. through the list returned by {@link #getVariants()}).
+ * The {@link AssociationDependencyIndex}, the {@link AssociationSignatureIndex} and the {@link RepositoryStatistics} are kept for the lifetime of the repository and filled lazily.
+ * The {@link MetricsRegistry} is set by the DAO that loads the repository.
  */
 public final class MemRepository implements Repository, Repository.Op {
 
@@ -29,6 +42,15 @@ public final class MemRepository implements Repository, Repository.Op {
 	private Collection<Commit> commits;
 	private int maxOrder;
 
+	private transient Map<String, Association.Op> associationIndex;
+	private transient Map<String, Variant> variantIndex;
+	private transient Map<String, Variant> configurationIndex;
+	private transient Map<String, Collection<Feature>> featureNameIndex;
+	private transient AssociationDependencyIndex dependencyIndex;
+	private transient AssociationSignatureIndex signatureIndex;
+	private transient RepositoryStatistics statistics;
+	private transient MetricsRegistry metrics;
+
 	public MemRepository() {
 		this.features = Maps.mutable.empty();
 		this.associations = new ArrayList<>();
@@ -36,6 +58,47 @@ public final class MemRepository implements Repository, Repository.Op {
 		this.modules = new ArrayList<>();
 		this.commits = new ArrayList<>();
 		this.setMaxOrder(2);
+		this.rebuildIndexes();
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.rebuildIndexes();
+	}
+
+	private void rebuildIndexes() {
+		this.associationIndex = new HashMap<>();
+		for (Association.Op association : this.associations)
+			this.associationIndex.put(association.getId(), association);
+		this.rebuildVariantIndexes();
+		this.featureNameIndex = new HashMap<>();
+		for (Feature feature : this.features.values())
+			this.featureNameIndex.computeIfAbsent(feature.getName(), name -> new ArrayList<>()).add(feature);
+		if (this.dependencyIndex == null)
+			this.dependencyIndex = new AssociationDependencyIndex();
+		if (this.signatureIndex == null)
+			this.signatureIndex = new AssociationSignatureIndex();
+		if (this.statistics == null)
+			this.statistics = new RepositoryStatistics();
+	}
+
+	private void rebuildVariantIndexes() {
+		this.variantIndex = new HashMap<>();
+		this.configurationIndex = new HashMap<>();
+		for (Variant variant : this.variants)
+			this.indexVariant(variant);
+	}
+
+	private void indexVariant(Variant variant) {
+		this.variantIndex.put(variant.getId(), variant);
+		if (variant.getConfiguration() != null)
+			this.configurationIndex.put(variant.getConfiguration().getConfigurationString(), variant);
+	}
+
+	private void unindexVariant(Variant variant) {
+		// the configuration of the variant may have been changed in place, so the old key is not necessarily its current configuration string
+		this.variantIndex.values().remove(variant);
+		this.configurationIndex.values().remove(variant);
 	}
 
 	@Override
@@ -55,33 +118,30 @@ public final class MemRepository implements Repository, Repository.Op {
 
 	@Override
 	public Variant getVariant(Configuration configuration) {
-		for (Variant v: this.variants) {
-			if(v.getConfiguration().getConfigurationString().equals(configuration.getConfigurationString())){
-				return v;
-			}
+		String configurationString = configuration.getConfigurationString();
+		Variant variant = this.configurationIndex.get(configurationString);
+		if (variant == null || variant.getConfiguration() == null || !variant.getConfiguration().getConfigurationString().equals(configurationString)) {
+			// the variant may have been added or its configuration changed without going through this repository
+			this.rebuildVariantIndexes();
+			variant = this.configurationIndex.get(configurationString);
 		}
-		return null;
+		return variant;
 	}
 
 	@Override
 	public Variant getVariant(String id) {
-		for (Variant v: this.variants) {
-			if(v.getId().equals(id)){
-				return v;
-			}
+		Variant variant = this.variantIndex.get(id);
+		if (variant == null || !id.equals(variant.getId())) {
+			// the variant may have been added or its id changed without going through this repository
+			this.rebuildVariantIndexes();
+			variant = this.variantIndex.get(id);
 		}
-		return null;
+		return variant;
 	}
 
 	@Override
 	public Association getAssociation(String id) {
-		Association assoc = null;
-		for (Association.Op association : this.getAssociations()) {
-			if (association.getId().equals(id)) {
-				assoc = association;
-			}
-		}
-		return assoc;
+		return this.associationIndex.get(id);
 	}
 
 	@Override
@@ -106,7 +166,7 @@ public final class MemRepository implements Repository, Repository.Op {
 	@Override
 	public void addCommit(final Commit commit) {
 		do {		//sets id
-			commit.setId(UUID.randomUUID().toString());
+			commit.setId(IdGenerator.newId());
 		} while(getCommits().contains(commit));		//Just to make sure no Id is given twice
 		commits.add(commit);
 	}
@@ -117,6 +177,11 @@ public final class MemRepository implements Repository, Repository.Op {
 	}
 
 
+	@Override
+	public Collection<Feature> getFeaturesByName(String name) {
+		return new ArrayList<>(this.featureNameIndex.getOrDefault(name, Collections.emptyList()));
+	}
+
 	@Override
 	public MemFeature getFeature(String id) {
 		return this.features.get(id);
@@ -137,6 +202,7 @@ public final class MemRepository implements Repository, Repository.Op {
 			return null;
 		MemFeature feature = new MemFeature(id, name);
 		this.features.put(feature.getId(), feature);
+		this.featureNameIndex.computeIfAbsent(feature.getName(), n -> new ArrayList<>()).add(feature);
 		return feature;
 	}
 
@@ -144,29 +210,41 @@ public final class MemRepository implements Repository, Repository.Op {
 	@Override
 	public void addAssociation(Association.Op association) {
 		this.associations.add(association);
+		this.associationIndex.put(association.getId(), association);
+		this.dependencyIndex.invalidate(association);
+		this.signatureIndex.invalidate(association);
+		this.statistics.invalidate(association);
 	}
 
 	@Override
 	public void addVariant(Variant variant) {
 		this.variants.add(variant);
+		this.indexVariant(variant);
 	}
 
 	@Override
 	public void removeVariant(Variant variant) {
 		this.variants.remove(variant);
+		this.unindexVariant(variant);
 	}
 
 	@Override
 	public void updateVariant(Variant variant, Configuration configuration, String name) {
 		this.variants.remove(variant);
+		this.unindexVariant(variant);
 		variant.setConfiguration(configuration);
 		variant.setName(name);
 		this.variants.add(variant);
+		this.indexVariant(variant);
 	}
 
 	@Override
 	public void removeAssociation(Association.Op association) {
 		this.associations.remove(association);
+		this.associationIndex.remove(association.getId(), association);
+		this.dependencyIndex.invalidate(association);
+		this.signatureIndex.invalidate(association);
+		this.statistics.invalidate(association);
 	}
 
 
@@ -184,6 +262,35 @@ public final class MemRepository implements Repository, Repository.Op {
 		}
 	}
 
+	@Override
+	public AssociationDependencyIndex getDependencyIndex() {
+		return this.dependencyIndex;
+	}
+
+	@Override
+	public AssociationSignatureIndex getSignatureIndex() {
+		return this.signatureIndex;
+	}
+
+	@Override
+	public RepositoryStatistics getStatistics() {
+		return this.statistics;
+	}
+
+	@Override
+	public MetricsRegistry getMetrics() {
+		return this.metrics != null ? this.metrics : MetricsRegistry.getDefault();
+	}
+
+	/**
+	 * Sets the registry into which the operations of this repository record. The registry is not serialized.
+	 *
+	 * @param metrics The metrics registry or null for the default registry of the process.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+	}
+
 	@Override
 	public EntityFactory getEntityFactory() {
 		return new MemEntityFactory();
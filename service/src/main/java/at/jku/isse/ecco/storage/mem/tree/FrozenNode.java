@@ -0,0 +1,176 @@
+package at.jku.isse.ecco.storage.mem.tree;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view of a node of a {@link FrozenTree}.
+ * <p>
+ * Views are created on demand, so the same node can be represented by different views. Like {@link MemNode} views are equal if their artifacts are equal.
+ * Every modification fails, as the tree has to be thawed first (see {@link at.jku.isse.ecco.storage.mem.core.MemAssociation#getRootNode()}).
+ */
+public class FrozenNode implements Node, Node.Op {
+
+	public static final long serialVersionUID = 1L;
+
+
+	protected final FrozenTree tree;
+
+	private final int index;
+
+
+	FrozenNode(FrozenTree tree, int index) {
+		this.tree = tree;
+		this.index = index;
+	}
+
+
+	public FrozenTree getTree() {
+		return this.tree;
+	}
+
+
+	@Override
+	public Op createNode(Artifact.Op<?> artifact) {
+		return new MemNode(artifact);
+	}
+
+
+	@Override
+	public boolean isAtomic() {
+		return this.getArtifact() != null && this.getArtifact().isAtomic();
+	}
+
+	@Override
+	public Association.Op getContainingAssociation() {
+		return this.tree.getContainingAssociation();
+	}
+
+	@Override
+	public Artifact.Op<?> getArtifact() {
+		return this.tree.getArtifact(this.index);
+	}
+
+	@Override
+	public Op getParent() {
+		int parent = this.tree.getParent(this.index);
+		return parent < 0 ? null : this.tree.node(parent);
+	}
+
+	@Override
+	public boolean isUnique() {
+		return this.tree.isUnique(this.index);
+	}
+
+	@Override
+	public List<Op> getChildren() {
+		int start = this.tree.getChildStart(this.index);
+		int end = this.tree.getChildEnd(this.index);
+		if (start == end)
+			return Collections.emptyList();
+		return new Children(this.tree, start, end);
+	}
+
+	@Override
+	public Map<String, Object> getProperties() {
+		return Collections.emptyMap();
+	}
+
+
+	@Override
+	public void setUnique(boolean unique) {
+		throw frozen();
+	}
+
+	@Override
+	public void setArtifact(Artifact.Op<?> artifact) {
+		throw frozen();
+	}
+
+	@Override
+	public void setParent(Op parent) {
+		throw frozen();
+	}
+
+	@Override
+	public void addChild(Op child) {
+		throw frozen();
+	}
+
+	@Override
+	public void addChildren(Op... children) {
+		throw frozen();
+	}
+
+	@Override
+	public void removeChild(Op child) {
+		throw frozen();
+	}
+
+	protected static EccoException frozen() {
+		return new EccoException("Frozen nodes cannot be modified. The tree must be thawed first.");
+	}
+
+
+	@Override
+	public int hashCode() {
+		return this.getArtifact() != null ? this.getArtifact().hashCode() : 0;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) return true;
+		if (other == null) return false;
+		if (!(other instanceof Node)) return false;
+
+		Node otherNode = (Node) other;
+
+		if (this.getArtifact() == null)
+			return otherNode.getArtifact() == null;
+
+		return this.getArtifact().equals(otherNode.getArtifact());
+	}
+
+
+	@Override
+	public String toString() {
+		return this.getNodeString();
+	}
+
+
+	/**
+	 * Unmodifiable list of the views of a range of nodes that share the same parent.
+	 */
+	private static final class Children extends AbstractList<Op> implements RandomAccess {
+		private final FrozenTree tree;
+		private final int start;
+		private final int end;
+
+		private Children(FrozenTree tree, int start, int end) {
+			this.tree = tree;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public Op get(int index) {
+			if (index < 0 || index >= this.size())
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.size());
+			return this.tree.node(this.start + index);
+		}
+
+		@Override
+		public int size() {
+			return this.end - this.start;
+		}
+	}
+
+}
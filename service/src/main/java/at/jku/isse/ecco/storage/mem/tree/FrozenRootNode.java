@@ -0,0 +1,42 @@
+package at.jku.isse.ecco.storage.mem.tree;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.tree.RootNode;
+
+/**
+ * Read-only view of the root node of a {@link FrozenTree}.
+ */
+public class FrozenRootNode extends FrozenNode implements RootNode, RootNode.Op {
+
+	public static final long serialVersionUID = 1L;
+
+
+	FrozenRootNode(FrozenTree tree) {
+		super(tree, 0);
+	}
+
+
+	@Override
+	public boolean isUnique() {
+		return true;
+	}
+
+	@Override
+	public boolean isAtomic() {
+		return false;
+	}
+
+
+	@Override
+	public RootNode.Op createNode(Artifact.Op<?> artifact) {
+		return new MemRootNode();
+	}
+
+
+	@Override
+	public void setContainingAssociation(Association.Op containingAssociation) {
+		throw frozen();
+	}
+
+}
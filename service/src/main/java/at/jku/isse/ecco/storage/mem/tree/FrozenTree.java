@@ -0,0 +1,212 @@
+package at.jku.isse.ecco.storage.mem.tree;
+
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.dao.Persistable;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Immutable struct-of-arrays encoding of an artifact tree of an association.
+ * <p>
+ * The nodes are numbered in breadth-first order starting with the root at index 0, so that the children of a node are stored next to each other.
+ * For every node the tree stores the index of its parent, the index of its first child (the children of node i are the nodes from {@code childStart[i]} to {@code childStart[i + 1]} exclusive), its uniqueness and its artifact in a table of artifacts.
+ * The artifacts themselves are shared with the rest of the repository, so the encoding only replaces the node objects and their lists of children.
+ * Node properties are not encoded, as they are not persisted either.
+ * <p>
+ * The artifacts whose containing node is a node of the tree reference the root view of the tree instead (see {@link at.jku.isse.ecco.storage.mem.artifact.MemArtifact#getContainingNode()}), which is resolved to the view of their node with {@link #getNode(Artifact.Op)}.
+ * Views of nodes ({@link FrozenNode}) are created on demand and cannot be modified. The tree is modified by thawing it back into {@link MemNode}s with {@link #thaw()}.
+ *
+ * @see at.jku.isse.ecco.storage.mem.core.MemAssociation#freeze()
+ */
+public class FrozenTree implements Persistable {
+
+	public static final long serialVersionUID = 1L;
+
+
+	private final Association.Op containingAssociation;
+
+	private final Artifact.Op<?>[] artifacts;
+
+	private final int[] parents;
+
+	private final int[] childStart;
+
+	private final BitSet unique;
+
+	/**
+	 * The nodes whose artifact has the node as containing node.
+	 */
+	private final BitSet containing;
+
+	private final FrozenRootNode root;
+
+	/**
+	 * Open addressing table from artifacts (by identity) to the index of their containing node plus one, created when it is first needed.
+	 */
+	private transient volatile int[] containingIndex = null;
+
+
+	/**
+	 * Encodes the tree of the given root node. The given tree is not modified, but the artifacts contained by its nodes are changed to reference the new tree.
+	 *
+	 * @param rootNode              The root of the tree to encode.
+	 * @param containingAssociation The association that contains the tree.
+	 */
+	public FrozenTree(RootNode.Op rootNode, Association.Op containingAssociation) {
+		checkNotNull(rootNode);
+
+		List<Node.Op> nodes = new ArrayList<>();
+		nodes.add(rootNode);
+		for (int i = 0; i < nodes.size(); i++)
+			nodes.addAll(nodes.get(i).getChildren());
+
+		int size = nodes.size();
+		this.containingAssociation = containingAssociation;
+		this.artifacts = new Artifact.Op<?>[size];
+		this.parents = new int[size];
+		this.childStart = new int[size + 1];
+		this.unique = new BitSet(size);
+		this.containing = new BitSet(size);
+		this.root = new FrozenRootNode(this);
+
+		this.parents[0] = -1;
+		int next = 1;
+		for (int i = 0; i < size; i++) {
+			Node.Op node = nodes.get(i);
+			this.artifacts[i] = node.getArtifact();
+			if (node.isUnique()) {
+				this.unique.set(i);
+				if (node.getArtifact() != null && node.getArtifact().getContainingNode() == node)
+					this.containing.set(i);
+			}
+
+			this.childStart[i] = next;
+			for (int c = 0; c < node.getChildren().size(); c++)
+				this.parents[next++] = i;
+		}
+		this.childStart[size] = next;
+
+		for (int i = this.containing.nextSetBit(0); i >= 0; i = this.containing.nextSetBit(i + 1))
+			this.artifacts[i].setContainingNode(this.root);
+	}
+
+
+	/**
+	 * @return The number of nodes of the tree including the root.
+	 */
+	public int size() {
+		return this.artifacts.length;
+	}
+
+	public Association.Op getContainingAssociation() {
+		return this.containingAssociation;
+	}
+
+	public FrozenRootNode getRoot() {
+		return this.root;
+	}
+
+	/**
+	 * Returns the view of the node that contains the given artifact.
+	 *
+	 * @param artifact The artifact.
+	 * @return The view of the containing node of the artifact or null if no node of this tree contains the artifact.
+	 */
+	public Node.Op getNode(Artifact.Op<?> artifact) {
+		int[] table = this.getContainingIndex();
+		int mask = table.length - 1;
+		for (int slot = mix(System.identityHashCode(artifact)) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int index = table[slot] - 1;
+			if (this.artifacts[index] == artifact)
+				return this.node(index);
+		}
+		return null;
+	}
+
+	private int[] getContainingIndex() {
+		int[] table = this.containingIndex;
+		if (table == null) {
+			table = new int[Integer.highestOneBit(Math.max(1, this.containing.cardinality()) * 2) * 2];
+			int mask = table.length - 1;
+			for (int i = this.containing.nextSetBit(0); i >= 0; i = this.containing.nextSetBit(i + 1)) {
+				int slot = mix(System.identityHashCode(this.artifacts[i])) & mask;
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+				table[slot] = i + 1;
+			}
+			this.containingIndex = table;
+		}
+		return table;
+	}
+
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+
+
+	/**
+	 * Decodes the tree into new {@link MemNode}s with lists of children of exact size and makes the artifacts contained by its nodes reference the new nodes again.
+	 * The new root node is not yet added to an association. This tree must not be used anymore afterwards.
+	 *
+	 * @return The root of the decoded tree.
+	 */
+	public MemRootNode thaw() {
+		int size = this.size();
+		MemNode[] nodes = new MemNode[size];
+		nodes[0] = new MemRootNode();
+		for (int i = 1; i < size; i++) {
+			nodes[i] = new MemNode(this.artifacts[i], this.unique.get(i), nodes[this.parents[i]]);
+			if (this.containing.get(i))
+				this.artifacts[i].setContainingNode(nodes[i]);
+		}
+		for (int i = 0; i < size; i++) {
+			int start = this.childStart[i];
+			int end = this.childStart[i + 1];
+			if (start < end) {
+				List<Node.Op> children = new ArrayList<>(end - start);
+				for (int c = start; c < end; c++)
+					children.add(nodes[c]);
+				nodes[i].setThawedChildren(children);
+			} else {
+				nodes[i].setThawedChildren(Collections.emptyList());
+			}
+		}
+		return (MemRootNode) nodes[0];
+	}
+
+
+	// node accessors used by the views
+
+	Node.Op node(int index) {
+		return index == 0 ? this.root : new FrozenNode(this, index);
+	}
+
+	Artifact.Op<?> getArtifact(int index) {
+		return this.artifacts[index];
+	}
+
+	int getParent(int index) {
+		return this.parents[index];
+	}
+
+	boolean isUnique(int index) {
+		return this.unique.get(index);
+	}
+
+	int getChildStart(int index) {
+		return this.childStart[index];
+	}
+
+	int getChildEnd(int index) {
+		return this.childStart[index + 1];
+	}
+
+}
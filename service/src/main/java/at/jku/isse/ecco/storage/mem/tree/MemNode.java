@@ -4,27 +4,66 @@ import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.artifact.Artifact;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.tree.Node;
-import org.eclipse.collections.impl.factory.Maps;
+import at.jku.isse.ecco.tree.RootNode;
+import at.jku.isse.ecco.util.PropertyMap;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Memory implementation of {@link Node}.
+ * <p>
+ * Every node caches its containing association. The cache is updated for the whole subtree whenever a node is attached to a new parent or the association of a root node changes, so that {@link #getContainingAssociation()} does not have to walk up to the root.
+ * The cache is not serialized and is filled lazily after deserialization.
+ * The cached association is published through a single volatile field holding an immutable entry, so that nodes can be read from multiple threads (e.g. by parallel streams) once the tree is not modified anymore.
+ * <p>
+ * For tests the cache can be validated against the parent pointers with {@link #setContainingAssociationValidation(boolean)} (or the system property {@value #VALIDATION_PROPERTY}).
+ * Every node is validated at most once per modification epoch, i.e. until the next tree of any node is modified.
+ * <p>
+ * {@link #trimToSize()} replaces the list of children of leaves with the shared empty list and trims the lists of all other nodes to their size.
+ * Adding a child to a trimmed leaf allocates a new list again.
+ */
 public class MemNode implements Node, Node.Op {
 
 	public static final long serialVersionUID = 1L;
 
+	public static final String VALIDATION_PROPERTY = "ecco.validateContainingAssociation";
+
+	private static volatile boolean containingAssociationValidation = Boolean.getBoolean(VALIDATION_PROPERTY);
+
+	private static final AtomicLong modificationEpoch = new AtomicLong();
+
+	public static void setContainingAssociationValidation(boolean enabled) {
+		containingAssociationValidation = enabled;
+		modificationEpoch.incrementAndGet();
+	}
+
+	public static boolean isContainingAssociationValidation() {
+		return containingAssociationValidation;
+	}
+
 
 	private boolean unique = true;
 
-	private final List<Op> children = new ArrayList<>();
+	private List<Op> children = new ArrayList<>();
 
 	private Artifact.Op<?> artifact = null;
 
 	private Op parent = null;
 
+	/**
+	 * The cached containing association, or null if it is not cached.
+	 */
+	private transient volatile CachedAssociation cachedAssociation = null;
+	private transient volatile long validatedEpoch = -1;
+
 
 	@Deprecated
 	public MemNode() {
@@ -34,6 +73,15 @@ public class MemNode implements Node, Node.Op {
 		this.artifact = artifact;
 	}
 
+	/**
+	 * Creates a node of a thawed tree (see {@link FrozenTree#thaw()}) whose children are set with {@link #setThawedChildren(List)}.
+	 */
+	MemNode(Artifact.Op<?> artifact, boolean unique, Op parent) {
+		this.artifact = artifact;
+		this.unique = unique;
+		this.parent = parent;
+	}
+
 
 	@Override
 	public Op createNode(Artifact.Op<?> artifact) {
@@ -52,10 +100,94 @@ public class MemNode implements Node, Node.Op {
 
 	@Override
 	public Association.Op getContainingAssociation() {
-		if (this.parent == null)
-			return null;
-		else
-			return this.parent.getContainingAssociation();
+		CachedAssociation cached = this.cachedAssociation;
+		if (cached == null)
+			cached = this.computeContainingAssociation();
+		if (containingAssociationValidation)
+			this.validateContainingAssociation(cached.association);
+		return cached.association;
+	}
+
+	/**
+	 * Fills the cache of this node and of all its ancestors up to the first ancestor with a valid cache.
+	 *
+	 * @return The cache entry of this node.
+	 */
+	private CachedAssociation computeContainingAssociation() {
+		Deque<MemNode> path = new ArrayDeque<>();
+		CachedAssociation cached = CachedAssociation.NONE;
+		Op current = this;
+		while (current != null) {
+			if (current instanceof RootNode || !(current instanceof MemNode)) {
+				cached = CachedAssociation.of(current.getContainingAssociation());
+				break;
+			}
+			MemNode memNode = (MemNode) current;
+			CachedAssociation ancestorCached = memNode.cachedAssociation;
+			if (ancestorCached != null) {
+				cached = ancestorCached;
+				break;
+			}
+			path.push(memNode);
+			current = memNode.parent;
+		}
+		for (MemNode memNode : path)
+			memNode.cachedAssociation = cached;
+		return cached;
+	}
+
+	private static CachedAssociation getCachedAssociation(Op node) {
+		if (node instanceof MemNode && !(node instanceof RootNode)) {
+			MemNode memNode = (MemNode) node;
+			CachedAssociation cached = memNode.cachedAssociation;
+			return cached != null ? cached : memNode.computeContainingAssociation();
+		}
+		return CachedAssociation.of(node.getContainingAssociation());
+	}
+
+	/**
+	 * Sets the cached containing association of all descendants of this node.
+	 * Subtrees whose cache already holds the given association are skipped.
+	 *
+	 * @param association The containing association of this node.
+	 */
+	protected void propagateContainingAssociation(Association.Op association) {
+		this.propagateContainingAssociation(CachedAssociation.of(association));
+	}
+
+	private void propagateContainingAssociation(CachedAssociation cached) {
+		Deque<Op> stack = new ArrayDeque<>(this.children);
+		while (!stack.isEmpty()) {
+			Op node = stack.pop();
+			if (node instanceof RootNode || !(node instanceof MemNode))
+				continue;
+			MemNode memNode = (MemNode) node;
+			CachedAssociation current = memNode.cachedAssociation;
+			if (current != null && current.association == cached.association)
+				continue;
+			memNode.cachedAssociation = cached;
+			stack.addAll(memNode.children);
+		}
+	}
+
+	protected static void incrementModificationEpoch() {
+		if (containingAssociationValidation)
+			modificationEpoch.incrementAndGet();
+	}
+
+	private void validateContainingAssociation(Association.Op association) {
+		long epoch = modificationEpoch.get();
+		if (this.validatedEpoch == epoch)
+			return;
+
+		Op current = this;
+		while (current.getParent() != null)
+			current = current.getParent();
+		Association.Op expected = current instanceof RootNode ? current.getContainingAssociation() : null;
+
+		if (expected != association)
+			throw new EccoException("Cached containing association " + association + " of node " + this + " differs from containing association " + expected + " of its root.");
+		this.validatedEpoch = epoch;
 	}
 
 
@@ -77,6 +209,14 @@ public class MemNode implements Node, Node.Op {
 	@Override
 	public void setParent(Op parent) {
 		this.parent = parent;
+
+		CachedAssociation cached = parent == null ? CachedAssociation.NONE : getCachedAssociation(parent);
+		CachedAssociation current = this.cachedAssociation;
+		if (current == null || current.association != cached.association) {
+			this.cachedAssociation = cached;
+			this.propagateContainingAssociation(cached);
+		}
+		incrementModificationEpoch();
 	}
 
 	@Override
@@ -97,6 +237,8 @@ public class MemNode implements Node, Node.Op {
 		if (this.getArtifact() != null && !this.getArtifact().isOrdered() && this.children.contains(child))
 			throw new EccoException("An equivalent child is already contained. If multiple equivalent children are allowed use an ordered node.");
 
+		if (!(this.children instanceof ArrayList))
+			this.children = new ArrayList<>(this.children);
 		this.children.add(child);
 		child.setParent(this);
 	}
@@ -123,6 +265,21 @@ public class MemNode implements Node, Node.Op {
 		return this.children;
 	}
 
+	/**
+	 * Sets the children of a node of a thawed tree without checking them or updating their parents.
+	 */
+	void setThawedChildren(List<Op> children) {
+		this.children = children;
+	}
+
+	@Override
+	public void trimToSize() {
+		if (this.children.isEmpty())
+			this.children = Collections.emptyList();
+		else if (this.children instanceof ArrayList)
+			((ArrayList<Op>) this.children).trimToSize();
+	}
+
 
 	@Override
 	public int hashCode() {
@@ -150,6 +307,24 @@ public class MemNode implements Node, Node.Op {
 	}
 
 
+	/**
+	 * Immutable entry of the cache of the containing association. Entries are shared by all nodes of a subtree.
+	 */
+	private static final class CachedAssociation {
+		private static final CachedAssociation NONE = new CachedAssociation(null);
+
+		private final Association.Op association;
+
+		private CachedAssociation(Association.Op association) {
+			this.association = association;
+		}
+
+		private static CachedAssociation of(Association.Op association) {
+			return association == null ? NONE : new CachedAssociation(association);
+		}
+	}
+
+
 	// properties
 
 	private transient Map<String, Object> properties = null;
@@ -157,7 +332,7 @@ public class MemNode implements Node, Node.Op {
 	@Override
 	public Map<String, Object> getProperties() {
 		if (this.properties == null)
-			this.properties = Maps.mutable.empty();
+			this.properties = new PropertyMap();
 		return this.properties;
 	}
 
@@ -38,6 +38,8 @@ public class MemRootNode extends MemNode implements RootNode, RootNode.Op {
 	@Override
 	public void setContainingAssociation(Association.Op containingAssociation) {
 		this.containingAssociation = containingAssociation;
+		this.propagateContainingAssociation(containingAssociation);
+		incrementModificationEpoch();
 	}
 
 	@Override
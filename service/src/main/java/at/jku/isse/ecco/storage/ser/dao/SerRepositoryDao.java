@@ -3,22 +3,30 @@ package at.jku.isse.ecco.storage.ser.dao;
 import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.dao.RepositoryDao;
 import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.repository.Repository;
 import at.jku.isse.ecco.storage.mem.dao.Database;
+import at.jku.isse.ecco.storage.mem.repository.MemRepository;
 import com.google.inject.Inject;
 
 public class SerRepositoryDao extends SerAbstractGenericDao implements RepositoryDao {
 
+	private final MetricsRegistry metrics;
+
 	@Inject
-	public SerRepositoryDao(SerTransactionStrategy transactionStrategy) {
+	public SerRepositoryDao(SerTransactionStrategy transactionStrategy, MetricsRegistry metrics) {
 		super(transactionStrategy);
+		this.metrics = metrics;
 	}
 
 	@Override
 	public Repository.Op load() {
 		final Database root = this.transactionStrategy.getDatabase();
 
-		return root.getRepository();
+		// the registry is not serialized, so it is set whenever the repository is loaded
+		MemRepository repository = (MemRepository) root.getRepository();
+		repository.setMetrics(this.metrics);
+		return repository;
 	}
 
 	@Override
@@ -2,6 +2,8 @@ package at.jku.isse.ecco.storage.ser.dao;
 
 import at.jku.isse.ecco.EccoException;
 import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.dao.VersionCounter;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
 import at.jku.isse.ecco.storage.mem.dao.Database;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -16,22 +18,51 @@ import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Stores the database as serialized snapshot file in the repository directory.
+ * <p>
+ * In the {@link Durability#SNAPSHOT} mode (default) every read/write transaction writes a new snapshot of the whole database before it ends.
+ * In the {@link Durability#LOG} mode a read/write transaction that only consists of a {@link #record(Change) recorded change} appends the change to the write-ahead log of the current snapshot instead, so that its cost does not depend on the size of the repository.
+ * After {@value #SNAPSHOT_INTERVAL_PROPERTY} (default {@value #DEFAULT_SNAPSHOT_INTERVAL}) logged changes a new snapshot is written in the background, which replaces the snapshot and its log.
+ * When the database is loaded, the changes in the log of the current snapshot are applied again.
+ * The mode is set with the system property {@value #DURABILITY_PROPERTY} ("snapshot" or "log").
+ */
 @Singleton
 public class SerTransactionStrategy implements TransactionStrategy {
 
+	private static final Logger LOGGER = Logger.getLogger(SerTransactionStrategy.class.getName());
+
+	public static final String DURABILITY_PROPERTY = "ecco.ser.durability";
+	public static final String SNAPSHOT_INTERVAL_PROPERTY = "ecco.ser.snapshotInterval";
+	public static final int DEFAULT_SNAPSHOT_INTERVAL = 32;
+
+	public enum Durability {
+		SNAPSHOT, LOG
+	}
+
 	private static final boolean DELETE_OLD_DB_FILES = true;
 	private static final boolean REUSE_DB_ACROSS_TRANSACTIONS = true;
 
 	private static final String ID_FILENAME = "id";
 	private static final String WRITELOCK_FILENAME = "write";
 	private static final String DB_FILE_SUFFIX = ".ser.zip";
+	private static final String LOG_FILE_SUFFIX = ".log";
+	// length (int) and checksum (long) preceding every log record
+	private static final int LOG_RECORD_HEADER_SIZE = 12;
 
 	// repository directory
 	private final Path repositoryDir;
@@ -55,16 +86,72 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	// write file lock
 	private FileLock writeFileLock;
 
+	private final Durability durability;
+	private final int snapshotInterval;
+	// registry into which loading and storing is recorded
+	private final MetricsRegistry metrics;
+	// number of bytes of the log of the current db file that have been applied to the loaded database object
+	private long logPosition;
+	// number of changes in the log of the current db file that have been applied to the loaded database object
+	private int loggedChanges;
+	// serialized changes recorded during the current transaction
+	private final List<byte[]> recordedChanges = new ArrayList<>();
+	// true if the current transaction modifies the database in a way that is not covered by the recorded changes
+	private boolean unrecordedChanges;
+	// replaced with a new version whenever the loaded database object is replaced or modified and when the strategy is opened or closed
+	private long version = VersionCounter.next();
+	// true while a background snapshot is written
+	private boolean snapshotRunning;
+	private ExecutorService snapshotExecutor;
+
+
+	public SerTransactionStrategy(final Path repositoryDir) {
+		this(repositoryDir, MetricsRegistry.getDefault());
+	}
 
 	@Inject
-	public SerTransactionStrategy(@Named("repositoryDir") final Path repositoryDir) {
+	public SerTransactionStrategy(@Named("repositoryDir") final Path repositoryDir, final MetricsRegistry metrics) {
+		this(repositoryDir, getDefaultDurability(), Math.max(1, Integer.getInteger(SNAPSHOT_INTERVAL_PROPERTY, DEFAULT_SNAPSHOT_INTERVAL)), metrics);
+	}
+
+	public SerTransactionStrategy(final Path repositoryDir, final Durability durability, final int snapshotInterval) {
+		this(repositoryDir, durability, snapshotInterval, MetricsRegistry.getDefault());
+	}
+
+	public SerTransactionStrategy(final Path repositoryDir, final Durability durability, final int snapshotInterval, final MetricsRegistry metrics) {
 		checkNotNull(repositoryDir);
+		checkNotNull(durability);
+		checkNotNull(metrics);
 		this.repositoryDir = repositoryDir;
+		this.metrics = metrics;
 		this.idFile = repositoryDir.resolve(ID_FILENAME);
 		this.writeLockFile = repositoryDir.resolve(WRITELOCK_FILENAME);
+		this.durability = durability;
+		this.snapshotInterval = snapshotInterval;
 		this.reset();
 	}
 
+	private static Durability getDefaultDurability() {
+		String value = System.getProperty(DURABILITY_PROPERTY);
+		if (value == null || value.isEmpty())
+			return Durability.SNAPSHOT;
+		try {
+			return Durability.valueOf(value.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new EccoException("Invalid value for " + DURABILITY_PROPERTY + ": " + value);
+		}
+	}
+
+
+	public Durability getDurability() {
+		return this.durability;
+	}
+
+	@Override
+	public synchronized long getVersion() {
+		return this.version;
+	}
+
 
 	public Database getDatabase() {
 		return this.database;
@@ -78,13 +165,20 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	@Override
 	public synchronized void open() {
 		this.reset();
+		this.version = VersionCounter.next();
 	}
 
 	@Override
 	public synchronized void close() {
 		if (this.transaction != null || this.transactionCounter != 0)
 			throw new EccoException("Error closing connection: Not all transactions have been ended.");
+		this.awaitSnapshot();
+		if (this.snapshotExecutor != null) {
+			this.snapshotExecutor.shutdown();
+			this.snapshotExecutor = null;
+		}
 		this.reset();
+		this.version = VersionCounter.next();
 	}
 
 	@Override
@@ -95,6 +189,31 @@ public class SerTransactionStrategy implements TransactionStrategy {
 	}
 
 
+	@Override
+	public synchronized void record(Change change) {
+		checkNotNull(change);
+		if (this.transaction != TRANSACTION.READ_WRITE)
+			throw new EccoException("Attempted to record change without active READ_WRITE transaction.");
+
+		if (this.durability != Durability.LOG)
+			return;
+
+		// in a nested transaction the enclosing transaction may modify the database in other ways
+		if (this.transactionCounter != 1) {
+			this.unrecordedChanges = true;
+			return;
+		}
+
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(change);
+		} catch (IOException e) {
+			throw new EccoException("Error recording change.", e);
+		}
+		this.recordedChanges.add(bos.toByteArray());
+	}
+
+
 	@Override
 	public synchronized void begin(TRANSACTION transaction) {
 		try {
@@ -153,6 +272,9 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		if (this.transaction == TRANSACTION.READ_WRITE) // nothing to do, we already have a read/write transaction going
 			return;
 
+		// the background snapshot holds the write lock
+		this.awaitSnapshot();
+
 		// obtain exclusive write lock
 		this.writeFileChannel = FileChannel.open(this.writeLockFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
 		this.writeFileLock = this.writeFileChannel.lock(0, Long.MAX_VALUE, false);
@@ -169,18 +291,59 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		if (!this.writeFileLock.isValid())
 			throw new EccoException("Lost exclusive lock on WRITE file.");
 
+		long storeStartTime = System.nanoTime();
+		long bytesStored;
+
+		if (this.durability == Durability.LOG && this.id != null && !this.recordedChanges.isEmpty() && !this.unrecordedChanges) {
+			// append the recorded changes to the log of the current db file
+			bytesStored = this.appendLog();
+		} else {
+			// serialize to new db file
+			String newId = this.writeDatabaseFile(this.database);
+			bytesStored = Files.size(this.repositoryDir.resolve(newId + DB_FILE_SUFFIX));
+			this.switchDatabaseFile(newId);
+		}
+
+		// release exclusive write lock
+		this.writeFileLock.close();
+		this.writeFileChannel.close();
+
+		this.transaction = null;
+		this.recordedChanges.clear();
+		this.unrecordedChanges = false;
+		this.version = VersionCounter.next();
+
+		this.metrics.increment(MetricsRegistry.COUNTER_BYTES_STORED, bytesStored);
+		this.metrics.recordSince(MetricsRegistry.PHASE_STORE, storeStartTime);
+
+		if (this.loggedChanges >= this.snapshotInterval && !this.snapshotRunning)
+			this.startSnapshot();
+	}
+
+
+	/**
+	 * Serializes the given database to a new db file.
+	 *
+	 * @return The id of the new db file.
+	 */
+	private String writeDatabaseFile(Database database) throws IOException {
 		// compute new random id
 		String newId = UUID.randomUUID().toString();
-		// serialize to new db file
 		Path newDbFile = this.repositoryDir.resolve(newId + DB_FILE_SUFFIX);
 		//this.serialize(this.database, newDbFile);
 		try (ZipOutputStream zos = new ZipOutputStream(Files.newOutputStream(newDbFile, StandardOpenOption.CREATE))) {
 			zos.putNextEntry(new ZipEntry("ecco.ser"));
 			try (ObjectOutputStream oos = new ObjectOutputStream(zos)) {
-				oos.writeObject(this.database);
+				oos.writeObject(database);
 			}
 		}
+		return newId;
+	}
 
+	/**
+	 * Makes the db file with the given id the current one and deletes the previous db file and its log. Requires the exclusive write lock.
+	 */
+	private void switchDatabaseFile(String newId) throws IOException {
 		// obtain exclusive lock on id file, write new id, update current id and db file, release lock
 		try (FileChannel idFileChannel = FileChannel.open(this.idFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE); FileLock idFileLock = idFileChannel.lock(0, Long.MAX_VALUE, false)) {
 			if (!idFileLock.isValid())
@@ -189,6 +352,10 @@ public class SerTransactionStrategy implements TransactionStrategy {
 			// write new id to id file
 			idFileChannel.write(ByteBuffer.wrap(newId.getBytes(Charset.defaultCharset())));
 
+			// the log of the old db file is contained in the new db file
+			if (this.id != null)
+				Files.deleteIfExists(this.repositoryDir.resolve(this.id + LOG_FILE_SUFFIX));
+
 			// delete old db file if nobody has a shared lock anymore (i.e. if we can get an exclusive lock on it)
 			if (this.dbFile != null) {
 				try (FileChannel oldDbFileChannel = FileChannel.open(this.dbFile, StandardOpenOption.WRITE); FileLock oldDbFileLock = oldDbFileChannel.lock(0, Long.MAX_VALUE, false)) {
@@ -199,16 +366,152 @@ public class SerTransactionStrategy implements TransactionStrategy {
 
 			// update id and db file
 			this.id = newId;
-			this.dbFile = newDbFile;
+			this.dbFile = this.repositoryDir.resolve(newId + DB_FILE_SUFFIX);
+			this.logPosition = 0;
+			this.loggedChanges = 0;
 
 			// release exclusive id lock automatically when exiting try block
 		}
+	}
 
-		// release exclusive write lock automatically after try block
-		this.writeFileLock.close();
-		this.writeFileChannel.close();
 
-		this.transaction = null;
+	/**
+	 * Appends the recorded changes to the log of the current db file. Requires the exclusive write lock.
+	 *
+	 * @return The number of bytes appended.
+	 */
+	private long appendLog() throws IOException {
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (DataOutputStream dos = new DataOutputStream(bos)) {
+			for (byte[] change : this.recordedChanges) {
+				CRC32 crc = new CRC32();
+				crc.update(change);
+				dos.writeInt(change.length);
+				dos.writeLong(crc.getValue());
+				dos.write(change);
+			}
+		}
+
+		try (FileChannel logFileChannel = FileChannel.open(this.repositoryDir.resolve(this.id + LOG_FILE_SUFFIX), StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+			// discard a partially written record of an interrupted transaction
+			logFileChannel.truncate(this.logPosition);
+			logFileChannel.position(this.logPosition);
+			ByteBuffer buffer = ByteBuffer.wrap(bos.toByteArray());
+			while (buffer.hasRemaining())
+				logFileChannel.write(buffer);
+			logFileChannel.force(false);
+		}
+
+		this.logPosition += bos.size();
+		this.loggedChanges += this.recordedChanges.size();
+
+		return bos.size();
+	}
+
+	/**
+	 * Applies the changes in the log of the current db file that have not been applied to the loaded database object yet.
+	 * A truncated or corrupt record ends the log, as it belongs to a transaction that did not finish.
+	 */
+	private void replayLog() throws IOException, ClassNotFoundException {
+		Path logFile = this.repositoryDir.resolve(this.id + LOG_FILE_SUFFIX);
+		if (!Files.exists(logFile))
+			return;
+
+		try (FileChannel logFileChannel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+			long size = logFileChannel.size();
+			if (size <= this.logPosition)
+				return;
+
+			logFileChannel.position(this.logPosition);
+			DataInputStream dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(logFileChannel)));
+			while (this.logPosition + LOG_RECORD_HEADER_SIZE <= size) {
+				int length = dis.readInt();
+				long checksum = dis.readLong();
+				if (length < 0 || this.logPosition + LOG_RECORD_HEADER_SIZE + length > size)
+					break;
+				byte[] record = new byte[length];
+				dis.readFully(record);
+				CRC32 crc = new CRC32();
+				crc.update(record);
+				if (crc.getValue() != checksum)
+					break;
+
+				try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(record))) {
+					Change change = (Change) ois.readObject();
+					change.apply(this.database.getRepository());
+				}
+
+				this.logPosition += LOG_RECORD_HEADER_SIZE + length;
+				this.loggedChanges++;
+				this.version = VersionCounter.next();
+			}
+		}
+	}
+
+
+	private void startSnapshot() {
+		if (this.snapshotExecutor == null) {
+			this.snapshotExecutor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "ecco-ser-snapshot");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		this.snapshotRunning = true;
+		this.snapshotExecutor.execute(this::writeSnapshot);
+	}
+
+	private synchronized void awaitSnapshot() {
+		while (this.snapshotRunning) {
+			try {
+				this.wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new EccoException("Interrupted while waiting for snapshot.", e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the loaded database (including changes logged by other processes) to a new db file that replaces the current db file and its log.
+	 * Read/write transactions of this strategy wait until the snapshot is finished, read only transactions can continue.
+	 */
+	private void writeSnapshot() {
+		try (FileChannel writeFileChannel = FileChannel.open(this.writeLockFile, StandardOpenOption.WRITE, StandardOpenOption.CREATE); FileLock writeFileLock = writeFileChannel.lock(0, Long.MAX_VALUE, false)) {
+			if (!writeFileLock.isValid())
+				throw new EccoException("Could not obtain exclusive lock on WRITE file.");
+
+			Database snapshotDatabase;
+			String snapshotId;
+			synchronized (this) {
+				if (this.database == null)
+					return;
+				this.loadDatabase();
+				if (this.loggedChanges == 0)
+					return;
+				snapshotDatabase = this.database;
+				snapshotId = this.id;
+			}
+
+			long storeStartTime = System.nanoTime();
+			String newId = this.writeDatabaseFile(snapshotDatabase);
+
+			synchronized (this) {
+				if (snapshotId.equals(this.id) && this.database == snapshotDatabase)
+					this.switchDatabaseFile(newId);
+				else
+					Files.deleteIfExists(this.repositoryDir.resolve(newId + DB_FILE_SUFFIX));
+			}
+
+			this.metrics.recordSince(MetricsRegistry.PHASE_STORE, storeStartTime);
+		} catch (Exception e) {
+			LOGGER.log(Level.WARNING, "Error writing snapshot. The changes remain in the log.", e);
+		} finally {
+			synchronized (this) {
+				this.snapshotRunning = false;
+				this.notifyAll();
+			}
+		}
 	}
 
 
@@ -220,6 +523,10 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		this.transactionCounter = 0;
 		this.writeFileChannel = null;
 		this.writeFileLock = null;
+		this.logPosition = 0;
+		this.loggedChanges = 0;
+		this.recordedChanges.clear();
+		this.unrecordedChanges = false;
 	}
 
 	private String readCurrentId() throws IOException {
@@ -237,12 +544,17 @@ public class SerTransactionStrategy implements TransactionStrategy {
 		if (Files.exists(this.idFile)) {
 			String id = this.readCurrentId();
 			// check if this.id has changed or if this.dbFile has already been loaded before. if it has then do not load it again and just reuse this.database.)
-			if (REUSE_DB_ACROSS_TRANSACTIONS && this.id != null && this.id.equals(id))
+			if (REUSE_DB_ACROSS_TRANSACTIONS && this.id != null && this.id.equals(id)) {
+				this.replayLog();
 				return;
+			}
 			this.id = id;
+			this.logPosition = 0;
+			this.loggedChanges = 0;
 
 			Path dbFile = this.repositoryDir.resolve(this.id + DB_FILE_SUFFIX);
 			if (Files.exists(dbFile)) {
+				long loadStartTime = System.nanoTime();
 				this.dbFile = dbFile;
 				try (FileChannel dbFileChannel = FileChannel.open(this.dbFile, StandardOpenOption.READ); FileLock dbFileLock = dbFileChannel.lock(0, Long.MAX_VALUE, true)) {
 					if (!dbFileLock.isValid())
@@ -256,9 +568,15 @@ public class SerTransactionStrategy implements TransactionStrategy {
 						if (e.getName().equals("ecco.ser")) {
 							ObjectInputStream ois = new ObjectInputStream(zis);
 							this.database = (Database) ois.readObject();
+							this.version = VersionCounter.next();
 							break;
 						}
 					}
+
+					this.replayLog();
+
+					this.metrics.increment(MetricsRegistry.COUNTER_BYTES_LOADED, dbFileChannel.size());
+					this.metrics.recordSince(MetricsRegistry.PHASE_LOAD, loadStartTime);
 				}
 
 				// delete db file if we can get exclusive lock and it does not match id file
@@ -278,6 +596,7 @@ public class SerTransactionStrategy implements TransactionStrategy {
 			}
 		} else {
 			this.database = new Database();
+			this.version = VersionCounter.next();
 		}
 	}
 
@@ -0,0 +1,194 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.Checkout;
+import at.jku.isse.ecco.metrics.MetricsRegistry;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.service.EccoService;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Checks that checkouts are answered from the cache of composed configurations until the repository changes and that callers do not share the returned checkouts.
+ */
+public class ComposeCacheTest {
+
+	private Path dir;
+
+	private EccoService service;
+
+
+	@BeforeMethod(alwaysRun = true)
+	public void createService() throws IOException {
+		this.dir = Files.createTempDirectory("ecco-compose");
+
+		this.service = new EccoService(this.dir.resolve("input"), this.dir.resolve("repository"));
+		this.service.init();
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void closeService() throws IOException {
+		this.service.close();
+
+		try (Stream<Path> paths = Files.walk(this.dir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new EccoException("Error deleting test directory.", e);
+				}
+			});
+		}
+	}
+
+
+	@Test(groups = {"unit", "service"})
+	public void ComposeCache_Checkout() throws IOException {
+		this.commit("A.1", "a.txt", "common\na\n");
+		this.commit("B.1", "b.txt", "common\nb\n");
+
+		// miss
+		Checkout first = this.checkout("first", "A.1");
+		Assert.assertEquals(this.service.getComposeCacheHitRate(), 0.0);
+		List<String> expected = this.describe(first);
+		Map<Path, List<String>> expectedFiles = this.files(this.dir.resolve("first"));
+		Assert.assertEquals(expectedFiles.keySet(), Collections.singleton(this.dir.resolve("first").resolve("a.txt")));
+
+		// modify the first checkout
+		first.getSelectedAssociations().clear();
+		first.getMissing().clear();
+		first.getSurplusModules().clear();
+		first.getOrderWarnings().clear();
+		first.getUnresolvedAssociations().clear();
+		first.setNode(null);
+
+		// hit, not affected by the changes to the first checkout
+		Checkout second = this.checkout("second", "A.1");
+		Assert.assertEquals(this.service.getComposeCacheHitRate(), 0.5);
+		Assert.assertNotSame(second, first);
+		Assert.assertNotNull(second.getNode());
+		Assert.assertEquals(this.describe(second), expected);
+		Assert.assertEquals(this.relativeFiles("second"), this.relativeFiles("first"));
+
+		// miss after commit
+		this.commit("C.1", "c.txt", "common\nc\n");
+		Checkout third = this.checkout("third", "A.1");
+		Assert.assertEquals(this.service.getComposeCacheHitRate(), 1.0 / 3.0);
+		Assert.assertNotEquals(this.describe(third), expected);
+		Assert.assertEquals(this.relativeFiles("third"), this.relativeFiles("first"));
+
+		// same as composing without the cache
+		this.service.close();
+		this.service.open();
+		Checkout fourth = this.checkout("fourth", "A.1");
+		Assert.assertEquals(this.describe(fourth), this.describe(third));
+	}
+
+	@Test(groups = {"unit", "service"})
+	public void ComposeCache_Metrics() throws IOException {
+		MetricsRegistry metrics = this.service.getMetrics();
+		Assert.assertNotSame(metrics, MetricsRegistry.getDefault());
+		Assert.assertSame(((Repository.Op) this.service.getRepository()).getMetrics(), metrics);
+
+		this.commit("A.1", "a.txt", "common\na\n");
+		Assert.assertNotNull(metrics.getTimer(MetricsRegistry.PHASE_READ));
+		Assert.assertNotNull(metrics.getTimer(MetricsRegistry.PHASE_EXTRACT));
+		Assert.assertNotNull(metrics.getTimer(MetricsRegistry.PHASE_STORE));
+
+		// the miss composes the configuration, the hit composes the cached associations
+		long defaultComposes = this.count(MetricsRegistry.getDefault(), MetricsRegistry.PHASE_COMPOSE);
+		this.checkout("first", "A.1");
+		this.checkout("second", "A.1");
+		Assert.assertEquals(metrics.getCounter(MetricsRegistry.COUNTER_COMPOSE_CACHE_MISSES), 1);
+		Assert.assertEquals(metrics.getCounter(MetricsRegistry.COUNTER_COMPOSE_CACHE_HITS), 1);
+		Assert.assertEquals(this.count(metrics, MetricsRegistry.PHASE_COMPOSE), 2);
+		Assert.assertEquals(this.count(MetricsRegistry.getDefault(), MetricsRegistry.PHASE_COMPOSE), defaultComposes);
+
+		// the registry is kept when the repository is loaded again and other services record into their own registries
+		this.service.close();
+		this.service.open();
+		Assert.assertSame(((Repository.Op) this.service.getRepository()).getMetrics(), metrics);
+
+		long reads = this.count(metrics, MetricsRegistry.PHASE_READ);
+		Path otherInput = Files.createDirectories(this.dir.resolve("other").resolve("input"));
+		Files.write(otherInput.resolve("b.txt"), "b\n".getBytes());
+		try (EccoService other = new EccoService(otherInput, this.dir.resolve("other").resolve("repository"))) {
+			other.init();
+			Assert.assertNotSame(other.getMetrics(), metrics);
+			other.commit("", "B.1");
+			Assert.assertEquals(this.count(other.getMetrics(), MetricsRegistry.PHASE_READ), 1);
+		}
+		Assert.assertEquals(this.count(metrics, MetricsRegistry.PHASE_READ), reads);
+	}
+
+
+	private void commit(String configurationString, String file, String content) throws IOException {
+		Path input = this.dir.resolve("input");
+		if (Files.exists(input)) {
+			try (Stream<Path> paths = Files.list(input)) {
+				for (Path path : paths.filter(path -> !path.getFileName().toString().startsWith(".")).collect(Collectors.toList()))
+					Files.delete(path);
+			}
+		} else {
+			Files.createDirectories(input);
+		}
+		Files.write(input.resolve(file), content.getBytes());
+
+		this.service.setBaseDir(input);
+		this.service.commit("", configurationString);
+	}
+
+	private Checkout checkout(String directory, String configurationString) throws IOException {
+		Path output = Files.createDirectories(this.dir.resolve(directory));
+		this.service.setBaseDir(output);
+		return this.service.checkout(configurationString);
+	}
+
+	/**
+	 * @return The ids of the selected and unresolved associations and the missing and surplus modules of the given checkout.
+	 */
+	private List<String> describe(Checkout checkout) {
+		List<String> description = new ArrayList<>();
+		for (Association association : checkout.getSelectedAssociations())
+			description.add("selected " + association.getId());
+		for (Association association : checkout.getUnresolvedAssociations())
+			description.add("unresolved " + association.getId());
+		checkout.getMissing().forEach(moduleRevision -> description.add("missing " + moduleRevision));
+		checkout.getSurplusModules().forEach((moduleRevision, id) -> description.add("surplus " + moduleRevision + " " + id));
+		description.add("configuration " + checkout.getConfiguration());
+		Collections.sort(description);
+		return description;
+	}
+
+	private long count(MetricsRegistry metrics, String phase) {
+		MetricsRegistry.Timer timer = metrics.getTimer(phase);
+		return timer == null ? 0 : timer.getCount();
+	}
+
+	private Map<Path, List<String>> files(Path directory) throws IOException {
+		Map<Path, List<String>> files = new HashMap<>();
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for (Path path : paths.filter(Files::isRegularFile).filter(path -> !path.getFileName().toString().startsWith(".")).collect(Collectors.toList()))
+				files.put(path, Files.readAllLines(path));
+		}
+		return files;
+	}
+
+	private Map<Path, List<String>> relativeFiles(String directory) throws IOException {
+		Path root = this.dir.resolve(directory);
+		Map<Path, List<String>> files = new HashMap<>();
+		this.files(root).forEach((path, lines) -> files.put(root.relativize(path), lines));
+		return files;
+	}
+
+}
@@ -0,0 +1,120 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.Artifact;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.service.MappingSession;
+import at.jku.isse.ecco.tree.Node;
+import at.jku.isse.ecco.tree.RootNode;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a mapping session maps a file to the associations it looked up like mapping the file to all associations of the repository.
+ */
+public class MappingSessionTest {
+
+	private Path dir;
+	private Path input;
+
+	private EccoService service;
+
+
+	@BeforeMethod(alwaysRun = true)
+	public void createService() throws IOException {
+		this.dir = Files.createTempDirectory("ecco-mapping");
+		this.input = Files.createDirectories(this.dir.resolve("input"));
+
+		this.service = new EccoService(this.input, this.dir.resolve("repository"));
+		this.service.init();
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void closeService() throws IOException {
+		this.service.close();
+
+		try (Stream<Path> paths = Files.walk(this.dir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new EccoException("Error deleting test directory.", e);
+				}
+			});
+		}
+	}
+
+
+	@Test(groups = {"unit", "service"})
+	public void MappingSession_Map() throws IOException, InterruptedException {
+		// the directory is unique in the association of both features, the second file only in the association of B
+		this.write("src/a.txt", "common\na\n");
+		this.service.commit("", "A.1");
+		this.write("src/a.txt", "common\nb\n");
+		this.write("src/b.txt", "common\nb\nonly b\n");
+		this.service.commit("", "B.1");
+
+		Path file = Paths.get("src", "b.txt");
+		try (MappingSession session = this.service.startMappingSession()) {
+			Assert.assertEquals(this.describe(session.map(file)), this.describe(this.service.map(Collections.singleton(file))));
+
+			BlockingQueue<Path> changes = new ArrayBlockingQueue<>(16);
+			session.addListener((mappingSession, path, rootNode) -> changes.add(path));
+
+			// edit the file and wait until the session mapped it again
+			this.write("src/b.txt", "common\na\nb\nnew\n");
+			Path changed;
+			do {
+				changed = changes.poll(10, TimeUnit.SECONDS);
+				Assert.assertNotNull(changed, "The changed file was not mapped.");
+			} while (!changed.equals(file));
+
+			String expected = this.describe(this.service.map(Collections.singleton(file)));
+			Assert.assertEquals(this.describe(session.getMapping(file)), expected);
+			Assert.assertTrue(expected.contains("src -> "), expected);
+			Assert.assertTrue(expected.contains("new -> null"), expected);
+		}
+	}
+
+
+	private void write(String file, String content) throws IOException {
+		Path path = this.input.resolve(file);
+		Files.createDirectories(path.getParent());
+		Files.write(path, content.getBytes());
+	}
+
+	/**
+	 * @return The artifacts of the given tree with the associations of the artifacts they were mapped to.
+	 */
+	private String describe(RootNode rootNode) {
+		StringBuilder sb = new StringBuilder();
+		this.describe(rootNode, "", sb);
+		return sb.toString();
+	}
+
+	private void describe(Node node, String indent, StringBuilder sb) {
+		if (node.getArtifact() != null) {
+			Optional<Artifact<?>> mapped = node.getArtifact().getProperty(Artifact.PROPERTY_MAPPED_ARTIFACT);
+			Association association = mapped.map(artifact -> artifact.getContainingNode().getContainingAssociation()).orElse(null);
+			sb.append(indent).append(node.getArtifact().getData()).append(" -> ").append(association == null ? null : association.getId()).append("\n");
+		}
+		for (Node child : node.getChildren())
+			this.describe(child, indent + "  ", sb);
+	}
+
+}
@@ -0,0 +1,268 @@
+package at.jku.isse.ecco.test;
+
+import at.jku.isse.ecco.EccoException;
+import at.jku.isse.ecco.artifact.ArtifactData;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.core.Commit;
+import at.jku.isse.ecco.dao.EntityFactory;
+import at.jku.isse.ecco.dao.TransactionStrategy;
+import at.jku.isse.ecco.feature.Configuration;
+import at.jku.isse.ecco.feature.FeatureRevision;
+import at.jku.isse.ecco.repository.Repository;
+import at.jku.isse.ecco.service.CommitChange;
+import at.jku.isse.ecco.storage.mem.dao.MemEntityFactory;
+import at.jku.isse.ecco.storage.ser.dao.SerTransactionStrategy;
+import at.jku.isse.ecco.tree.Node;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SerTransactionStrategyTest {
+
+	private static final String DB_SUFFIX = ".ser.zip";
+	private static final String LOG_SUFFIX = ".log";
+
+	private final EntityFactory ef = new MemEntityFactory();
+
+	private Path repositoryDir;
+
+
+	@BeforeMethod(alwaysRun = true)
+	public void createRepositoryDir() throws IOException {
+		this.repositoryDir = Files.createTempDirectory("ecco-ser");
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void deleteRepositoryDir() throws IOException {
+		try (Stream<Path> paths = Files.walk(this.repositoryDir)) {
+			paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					throw new EccoException("Error deleting test repository.", e);
+				}
+			});
+		}
+	}
+
+
+	@Test(groups = {"unit", "storage"})
+	public void SerTransactionStrategy_LogAppend() throws IOException {
+		SerTransactionStrategy strategy = this.openLogStrategy(100);
+
+		this.commit(strategy, "A", "x");
+		Assert.assertEquals(this.files(DB_SUFFIX).size(), 1);
+		Assert.assertTrue(this.files(LOG_SUFFIX).isEmpty());
+
+		// commits are appended to the log of the snapshot instead of writing new snapshots
+		Path dbFile = this.files(DB_SUFFIX).get(0);
+		this.commit(strategy, "B", "y");
+		long logSize = Files.size(this.logFile());
+		this.commit(strategy, "C", "z");
+
+		Assert.assertEquals(this.files(DB_SUFFIX), Collections.singletonList(dbFile));
+		Assert.assertTrue(Files.size(this.logFile()) > logSize);
+
+		strategy.close();
+	}
+
+	@Test(groups = {"unit", "storage"})
+	public void SerTransactionStrategy_Replay() {
+		SerTransactionStrategy strategy = this.openLogStrategy(100);
+		this.commit(strategy, "A", "x");
+		this.commit(strategy, "B", "y");
+		this.commit(strategy, "A", "z");
+		List<String> ids = this.ids(strategy);
+		strategy.close();
+
+		// the replayed commits create the same associations and commits with the same ids
+		Assert.assertEquals(this.loadIds(), ids);
+	}
+
+	@Test(groups = {"unit", "storage"})
+	public void SerTransactionStrategy_TornRecord() throws IOException {
+		SerTransactionStrategy strategy = this.openLogStrategy(100);
+		this.commit(strategy, "A", "x");
+		this.commit(strategy, "B", "y");
+		List<String> firstIds = this.ids(strategy);
+		long firstSize = Files.size(this.logFile());
+		this.commit(strategy, "C", "z");
+		List<String> secondIds = this.ids(strategy);
+		strategy.close();
+
+		byte[] log = Files.readAllBytes(this.logFile());
+
+		// truncated final record
+		Files.write(this.logFile(), Arrays.copyOf(log, log.length - 5));
+		Assert.assertEquals(this.loadIds(), firstIds);
+
+		// truncated header of a following record
+		byte[] torn = Arrays.copyOf(log, log.length + 7);
+		Files.write(this.logFile(), torn);
+		Assert.assertEquals(this.loadIds(), secondIds);
+
+		// corrupt final record
+		byte[] corrupt = log.clone();
+		corrupt[(int) firstSize + 20] ^= 0xFF;
+		Files.write(this.logFile(), corrupt);
+		Assert.assertEquals(this.loadIds(), firstIds);
+
+		// a commit after a torn record replaces it
+		Files.write(this.logFile(), Arrays.copyOf(log, log.length - 5));
+		strategy = this.openLogStrategy(100);
+		this.commit(strategy, "D", "w");
+		List<String> thirdIds = this.ids(strategy);
+		strategy.close();
+		Assert.assertEquals(this.loadIds(), thirdIds);
+	}
+
+	@Test(groups = {"unit", "storage"})
+	public void SerTransactionStrategy_SnapshotAndTruncate() throws IOException {
+		SerTransactionStrategy strategy = this.openLogStrategy(2);
+		this.commit(strategy, "A", "x");
+		Path dbFile = this.files(DB_SUFFIX).get(0);
+		this.commit(strategy, "B", "y");
+		this.commit(strategy, "C", "z");
+		List<String> ids = this.ids(strategy);
+		// waits for the background snapshot
+		strategy.close();
+
+		// the snapshot replaces the previous snapshot and its log
+		List<Path> dbFiles = this.files(DB_SUFFIX);
+		Assert.assertEquals(dbFiles.size(), 1);
+		Assert.assertNotEquals(dbFiles.get(0), dbFile);
+		Assert.assertTrue(this.files(LOG_SUFFIX).isEmpty());
+
+		Assert.assertEquals(this.loadIds(), ids);
+	}
+
+	@Test(groups = {"unit", "storage"})
+	public void SerTransactionStrategy_VersionAcrossOpens() throws IOException {
+		Set<Long> versions = new HashSet<>();
+
+		SerTransactionStrategy strategy = this.openLogStrategy(100);
+		this.commit(strategy, "A", "x");
+		strategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+		Assert.assertTrue(versions.add(strategy.getVersion()));
+		strategy.end();
+		strategy.close();
+
+		// the loaded state of another repository (or of the same repository opened again) never has a version seen before
+		Path otherDir = Files.createTempDirectory("ecco-ser");
+		try {
+			for (Path dir : Arrays.asList(otherDir, this.repositoryDir, otherDir)) {
+				strategy = new SerTransactionStrategy(dir, SerTransactionStrategy.Durability.LOG, 100);
+				strategy.open();
+				strategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+				Assert.assertTrue(versions.add(strategy.getVersion()));
+				strategy.end();
+				strategy.close();
+			}
+		} finally {
+			Files.deleteIfExists(otherDir);
+		}
+	}
+
+
+
+	private List<Path> files(String suffix) throws IOException {
+		try (Stream<Path> paths = Files.list(this.repositoryDir)) {
+			return paths.filter(path -> path.getFileName().toString().endsWith(suffix)).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private Path logFile() throws IOException {
+		String name = this.files(DB_SUFFIX).get(0).getFileName().toString();
+		return this.repositoryDir.resolve(name.substring(0, name.length() - DB_SUFFIX.length()) + LOG_SUFFIX);
+	}
+
+	private SerTransactionStrategy openLogStrategy(int snapshotInterval) {
+		SerTransactionStrategy strategy = new SerTransactionStrategy(this.repositoryDir, SerTransactionStrategy.Durability.LOG, snapshotInterval);
+		strategy.open();
+		return strategy;
+	}
+
+	/**
+	 * Commits a file with a common line, a line of the given feature and the given line.
+	 * The first commit of a strategy on an empty repository writes the first snapshot.
+	 */
+	private void commit(SerTransactionStrategy strategy, String feature, String line) {
+		strategy.begin(TransactionStrategy.TRANSACTION.READ_WRITE);
+		try {
+			Repository.Op repository = strategy.getDatabase().getRepository();
+
+			Node.Op file = this.ef.createNode(new LineData("file"));
+			file.addChild(this.ef.createNode(new LineData("common")));
+			file.addChild(this.ef.createNode(new LineData(feature)));
+			file.addChild(this.ef.createNode(new LineData(line)));
+			Set<Node.Op> nodes = new HashSet<>();
+			nodes.add(file);
+
+			Configuration configuration = this.ef.createConfiguration(new FeatureRevision[]{this.ef.createFeature(feature, feature).addRevision("1")});
+
+			CommitChange change = new CommitChange(configuration, nodes, "commit " + feature, UUID.randomUUID().toString());
+			strategy.record(change);
+			change.apply(repository);
+		} catch (RuntimeException e) {
+			strategy.rollback();
+			throw e;
+		}
+		strategy.end();
+	}
+
+	/**
+	 * @return The sorted ids of the associations and commits of the loaded repository.
+	 */
+	private List<String> ids(SerTransactionStrategy strategy) {
+		strategy.begin(TransactionStrategy.TRANSACTION.READ_ONLY);
+		Repository.Op repository = strategy.getDatabase().getRepository();
+		List<String> ids = new ArrayList<>();
+		for (Association association : repository.getAssociations())
+			ids.add("association " + association.getId() + " " + association.getRootNode().countArtifacts());
+		for (Commit commit : repository.getCommits())
+			ids.add("commit " + commit.getId() + " " + commit.getAssociations().size());
+		strategy.end();
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private List<String> loadIds() {
+		SerTransactionStrategy strategy = this.openLogStrategy(100);
+		List<String> ids = this.ids(strategy);
+		strategy.close();
+		return ids;
+	}
+
+
+	private static class LineData implements ArtifactData {
+		private final String line;
+
+		private LineData(String line) {
+			this.line = line;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof LineData && ((LineData) o).line.equals(this.line);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.line.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return this.line;
+		}
+	}
+
+}
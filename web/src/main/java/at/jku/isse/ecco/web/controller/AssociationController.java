@@ -4,6 +4,7 @@ import at.jku.isse.ecco.web.domain.model.ArtifactsPerDepth;
 import at.jku.isse.ecco.web.domain.model.AssociationArtifactsModel;
 import at.jku.isse.ecco.web.domain.model.AssociationModel;
 import at.jku.isse.ecco.web.domain.model.ModulesPerOrder;
+import at.jku.isse.ecco.web.domain.model.StatisticsModel;
 import at.jku.isse.ecco.web.domain.repository.AbstractRepository;
 import at.jku.isse.ecco.web.domain.repository.AssociationRepository;
 import org.slf4j.Logger;
@@ -37,6 +38,15 @@ public class AssociationController {
         return associationRepository.getAssociations();
     }
 
+    @GET
+    @Path("/statistics")
+    @Produces({MediaType.APPLICATION_JSON})
+    public StatisticsModel getStatistics() {
+        ContextResolver<AbstractRepository> featureRepositoryContextResolver = providers.getContextResolver(AbstractRepository.class, MediaType.WILDCARD_TYPE);
+        AssociationRepository associationRepository = (AssociationRepository) featureRepositoryContextResolver.getContext(AssociationRepository.class);
+        return associationRepository.getStatistics();
+    }
+
     @GET
     @Path("/numberofartifacts")
     @Produces({MediaType.APPLICATION_JSON})
@@ -0,0 +1,45 @@
+package at.jku.isse.ecco.web.controller;
+
+import at.jku.isse.ecco.web.domain.model.MetricsModel;
+import at.jku.isse.ecco.web.domain.repository.AbstractRepository;
+import at.jku.isse.ecco.web.domain.repository.MetricsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.DELETE;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.ContextResolver;
+import javax.ws.rs.ext.Providers;
+
+@Path("/metrics")
+public class MetricsController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsController.class);
+
+    @Context
+    private Configuration configuration;
+
+    @Context
+    private Providers providers;
+
+    @GET
+    @Produces({MediaType.APPLICATION_JSON})
+    public MetricsModel getMetrics() {
+        ContextResolver<AbstractRepository> metricsRepositoryContextResolver = providers.getContextResolver(AbstractRepository.class, MediaType.WILDCARD_TYPE);
+        MetricsRepository metricsRepository = (MetricsRepository) metricsRepositoryContextResolver.getContext(MetricsRepository.class);
+        return metricsRepository.getMetrics();
+    }
+
+    @DELETE
+    @Produces({MediaType.APPLICATION_JSON})
+    public MetricsModel resetMetrics() {
+        ContextResolver<AbstractRepository> metricsRepositoryContextResolver = providers.getContextResolver(AbstractRepository.class, MediaType.WILDCARD_TYPE);
+        MetricsRepository metricsRepository = (MetricsRepository) metricsRepositoryContextResolver.getContext(MetricsRepository.class);
+        return metricsRepository.resetMetrics();
+    }
+}
@@ -0,0 +1,34 @@
+package at.jku.isse.ecco.web.domain.model;
+
+import java.util.Map;
+
+public class MetricsModel {
+
+    private PhaseTimingModel[] timings;
+    private Map<String, Long> counters;
+
+    public MetricsModel() {
+
+    }
+
+    public MetricsModel(PhaseTimingModel[] timings, Map<String, Long> counters) {
+        this.timings = timings;
+        this.counters = counters;
+    }
+
+    public PhaseTimingModel[] getTimings() {
+        return timings;
+    }
+
+    public void setTimings(PhaseTimingModel[] timings) {
+        this.timings = timings;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public void setCounters(Map<String, Long> counters) {
+        this.counters = counters;
+    }
+}
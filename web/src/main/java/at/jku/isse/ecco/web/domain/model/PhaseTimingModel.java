@@ -0,0 +1,72 @@
+package at.jku.isse.ecco.web.domain.model;
+
+public class PhaseTimingModel {
+
+    private String phase;
+    private long count;
+    private long totalNanos;
+    private long meanNanos;
+    private long maxNanos;
+    private long lastNanos;
+
+    public PhaseTimingModel() {
+
+    }
+
+    public PhaseTimingModel(String phase, long count, long totalNanos, long meanNanos, long maxNanos, long lastNanos) {
+        this.phase = phase;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.meanNanos = meanNanos;
+        this.maxNanos = maxNanos;
+        this.lastNanos = lastNanos;
+    }
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return meanNanos;
+    }
+
+    public void setMeanNanos(long meanNanos) {
+        this.meanNanos = meanNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public void setMaxNanos(long maxNanos) {
+        this.maxNanos = maxNanos;
+    }
+
+    public long getLastNanos() {
+        return lastNanos;
+    }
+
+    public void setLastNanos(long lastNanos) {
+        this.lastNanos = lastNanos;
+    }
+}
@@ -0,0 +1,62 @@
+package at.jku.isse.ecco.web.domain.model;
+
+public class StatisticsModel {
+
+    private int numberOfAssociations;
+    private long numberOfArtifacts;
+    private AssociationArtifactsModel[] artifactsPerAssociation;
+    private ArtifactsPerDepth[] artifactsPerDepth;
+    private ModulesPerOrder[] modulesPerOrder;
+
+    public StatisticsModel() {
+
+    }
+
+    public StatisticsModel(int numberOfAssociations, long numberOfArtifacts, AssociationArtifactsModel[] artifactsPerAssociation, ArtifactsPerDepth[] artifactsPerDepth, ModulesPerOrder[] modulesPerOrder) {
+        this.numberOfAssociations = numberOfAssociations;
+        this.numberOfArtifacts = numberOfArtifacts;
+        this.artifactsPerAssociation = artifactsPerAssociation;
+        this.artifactsPerDepth = artifactsPerDepth;
+        this.modulesPerOrder = modulesPerOrder;
+    }
+
+    public int getNumberOfAssociations() {
+        return numberOfAssociations;
+    }
+
+    public void setNumberOfAssociations(int numberOfAssociations) {
+        this.numberOfAssociations = numberOfAssociations;
+    }
+
+    public long getNumberOfArtifacts() {
+        return numberOfArtifacts;
+    }
+
+    public void setNumberOfArtifacts(long numberOfArtifacts) {
+        this.numberOfArtifacts = numberOfArtifacts;
+    }
+
+    public AssociationArtifactsModel[] getArtifactsPerAssociation() {
+        return artifactsPerAssociation;
+    }
+
+    public void setArtifactsPerAssociation(AssociationArtifactsModel[] artifactsPerAssociation) {
+        this.artifactsPerAssociation = artifactsPerAssociation;
+    }
+
+    public ArtifactsPerDepth[] getArtifactsPerDepth() {
+        return artifactsPerDepth;
+    }
+
+    public void setArtifactsPerDepth(ArtifactsPerDepth[] artifactsPerDepth) {
+        this.artifactsPerDepth = artifactsPerDepth;
+    }
+
+    public ModulesPerOrder[] getModulesPerOrder() {
+        return modulesPerOrder;
+    }
+
+    public void setModulesPerOrder(ModulesPerOrder[] modulesPerOrder) {
+        this.modulesPerOrder = modulesPerOrder;
+    }
+}
@@ -66,16 +66,19 @@ public class ArtefactRepository extends AbstractRepository {
     public ArtefactGraphModel getArtefactgraphFromAllAssociations(int maxChildCount) {
         try {
             EccoService eccoService = this.application.getEccoService();
-            Collection<? extends Association> associationCollection = eccoService.getRepository().getAssociations();
 
-            LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
-            for (Association association : associationCollection) {
-                compRootNode.addOrigNode(association.getRootNode());
-            }
+            // the backend graph is only composed again if the repository changed
+            long version = eccoService.getRepositoryVersion();
+            if (this.application.getBackendGraph() == null || version < 0 || version != this.application.getBackendGraphVersion()) {
+                Collection<? extends Association> associationCollection = eccoService.getRepository().getAssociations();
+
+                LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
+                for (Association association : associationCollection) {
+                    compRootNode.addOrigNode(association.getRootNode());
+                }
 
-            ArtefactGraphModel backendGraph = this.parseTreeToGraph(compRootNode, null);
-            if (this.application.getBackendGraph() == null) {
-                this.application.setBackendGraph(backendGraph);
+                this.application.setBackendGraph(this.parseTreeToGraph(compRootNode, null));
+                this.application.setBackendGraphVersion(version);
             }
 
             this.generateFrontendGraphWithFilter(maxChildCount);
@@ -0,0 +1,36 @@
+package at.jku.isse.ecco.web.domain.repository;
+
+import at.jku.isse.ecco.metrics.MetricsRegistry;
+import at.jku.isse.ecco.web.domain.model.MetricsModel;
+import at.jku.isse.ecco.web.domain.model.PhaseTimingModel;
+import at.jku.isse.ecco.web.rest.EccoApplication;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+public class MetricsRepository extends AbstractRepository {
+
+    private EccoApplication application;
+
+    public MetricsRepository() {
+    }
+
+    public MetricsRepository(EccoApplication eccoApplication) {
+        this.application = eccoApplication;
+    }
+
+    public MetricsModel getMetrics() {
+        MetricsRegistry metrics = this.application.getEccoService().getMetrics();
+        ArrayList<PhaseTimingModel> timings = new ArrayList<>();
+        for (Map.Entry<String, MetricsRegistry.Timer> entry : metrics.getTimers().entrySet()) {
+            MetricsRegistry.Timer timer = entry.getValue();
+            timings.add(new PhaseTimingModel(entry.getKey(), timer.getCount(), timer.getTotalNanos(), timer.getMeanNanos(), timer.getMaxNanos(), timer.getLastNanos()));
+        }
+        return new MetricsModel(timings.toArray(new PhaseTimingModel[0]), metrics.getCounters());
+    }
+
+    public MetricsModel resetMetrics() {
+        this.application.getEccoService().getMetrics().reset();
+        return this.getMetrics();
+    }
+}
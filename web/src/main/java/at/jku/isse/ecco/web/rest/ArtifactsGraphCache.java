@@ -0,0 +1,212 @@
+package at.jku.isse.ecco.web.rest;
+
+import at.jku.isse.ecco.composition.LazyCompositionRootNode;
+import at.jku.isse.ecco.core.Association;
+import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.tree.Node;
+
+import java.util.*;
+
+/**
+ * Cache of the artifact graph composed from all associations of a repository.
+ * The composition and everything derived from it (node ids, depths and groups of children by association) are kept in a {@link Snapshot} until the repository version changes, so that subtrees can be expanded on demand with stable node ids.
+ * A new snapshot is created when the version changes, so a snapshot returned by {@link #update(EccoService, long)} stays valid for the version it was created for.
+ */
+public class ArtifactsGraphCache {
+
+	/**
+	 * A group of the artifacts below a node that are contained in the same association.
+	 */
+	public static class Group {
+		private final int id;
+		private final Node node;
+		private final Association association;
+		private final int numArtifacts;
+
+		private Group(int id, Node node, Association association, int numArtifacts) {
+			this.id = id;
+			this.node = node;
+			this.association = association;
+			this.numArtifacts = numArtifacts;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		/**
+		 * @return The node below which the artifacts of the group are.
+		 */
+		public Node getNode() {
+			return node;
+		}
+
+		public Association getAssociation() {
+			return association;
+		}
+
+		public int getNumArtifacts() {
+			return numArtifacts;
+		}
+	}
+
+
+	/**
+	 * The artifact graph of one repository version.
+	 * Nodes and groups share one id space. Ids are assigned when nodes and groups are first returned and are kept for the lifetime of the snapshot.
+	 * The composition is computed lazily and must not be traversed concurrently, so callers must synchronize on the snapshot while they use it.
+	 */
+	public static class Snapshot {
+		private final long version;
+		private final LazyCompositionRootNode rootNode;
+
+		// node or group and depth by id
+		private final List<Object> entries = new ArrayList<>();
+		private final List<Integer> depths = new ArrayList<>();
+		private final Map<Node, Integer> nodeIds = new IdentityHashMap<>();
+		private final Map<Node, List<Group>> groups = new IdentityHashMap<>();
+
+		private Snapshot(long version, LazyCompositionRootNode rootNode) {
+			this.version = version;
+			this.rootNode = rootNode;
+			this.getId(rootNode, 0);
+		}
+
+		public long getVersion() {
+			return this.version;
+		}
+
+		public Node getRootNode() {
+			return this.rootNode;
+		}
+
+		/**
+		 * Returns the id of the given node and assigns the next free id if the node does not have one yet.
+		 */
+		public int getId(Node node, int depth) {
+			Integer id = this.nodeIds.get(node);
+			if (id == null) {
+				id = this.entries.size();
+				this.entries.add(node);
+				this.depths.add(depth);
+				this.nodeIds.put(node, id);
+			}
+			return id;
+		}
+
+		/**
+		 * @return True if a node or a group has the given id.
+		 */
+		public boolean contains(int id) {
+			return id >= 0 && id < this.entries.size();
+		}
+
+		/**
+		 * @return The node with the given id, or null if there is no such node or the id belongs to a group.
+		 */
+		public Node getNode(int id) {
+			return this.contains(id) && this.entries.get(id) instanceof Node ? (Node) this.entries.get(id) : null;
+		}
+
+		/**
+		 * @return The group with the given id, or null if there is no such group or the id belongs to a node.
+		 */
+		public Group getGroup(int id) {
+			return this.contains(id) && this.entries.get(id) instanceof Group ? (Group) this.entries.get(id) : null;
+		}
+
+		public int getDepth(int id) {
+			return this.depths.get(id);
+		}
+
+		/**
+		 * Returns the artifacts in the subtree below the given node grouped by their containing association.
+		 * The groups are computed once per node.
+		 */
+		public List<Group> getGroups(Node node, int depth) {
+			List<Group> nodeGroups = this.groups.get(node);
+			if (nodeGroups == null) {
+				Map<Association, Integer> groupMap = new LinkedHashMap<>();
+				groupArtifactsByAssocRec(node, groupMap);
+
+				nodeGroups = new ArrayList<>(groupMap.size());
+				for (Map.Entry<Association, Integer> entry : groupMap.entrySet()) {
+					Group group = new Group(this.entries.size(), node, entry.getKey(), entry.getValue());
+					this.entries.add(group);
+					this.depths.add(depth + 1);
+					nodeGroups.add(group);
+				}
+				this.groups.put(node, nodeGroups);
+			}
+			return nodeGroups;
+		}
+
+		/**
+		 * @return The children of the node of the given group that contain (themselves or in their subtree) artifacts of the association of the group.
+		 */
+		public List<Node> getChildren(Group group) {
+			List<Node> children = new ArrayList<>();
+			for (Node child : group.getNode().getChildren()) {
+				if (containsAssociation(child, group.getAssociation()))
+					children.add(child);
+			}
+			return children;
+		}
+	}
+
+
+	private Snapshot snapshot = null;
+
+
+	/**
+	 * Returns the artifact graph of the repository and composes it unless the graph of the given version is cached already.
+	 * A version of -1 (unknown) always composes the graph again.
+	 *
+	 * @param service The service of the repository.
+	 * @param version The current version of the repository.
+	 * @return The graph of the given version.
+	 */
+	public synchronized Snapshot update(EccoService service, long version) {
+		if (this.snapshot != null && version >= 0 && version == this.snapshot.getVersion())
+			return this.snapshot;
+
+		LazyCompositionRootNode rootNode = new LazyCompositionRootNode();
+		for (Association association : service.getRepository().getAssociations()) {
+			rootNode.addOrigNode(association.getRootNode());
+		}
+		this.snapshot = new Snapshot(version, rootNode);
+		return this.snapshot;
+	}
+
+	/**
+	 * Discards the cached graph, e.g. when the repository is closed.
+	 */
+	public synchronized void clear() {
+		this.snapshot = null;
+	}
+
+
+	private static void groupArtifactsByAssocRec(Node eccoNode, Map<Association, Integer> groupMap) {
+		for (Node eccoChildNode : eccoNode.getChildren()) {
+			Association childContainingAssociation = getContainingAssociation(eccoChildNode);
+			if (childContainingAssociation != null)
+				groupMap.merge(childContainingAssociation, 1, Integer::sum);
+			groupArtifactsByAssocRec(eccoChildNode, groupMap);
+		}
+	}
+
+	private static boolean containsAssociation(Node eccoNode, Association association) {
+		if (getContainingAssociation(eccoNode) == association)
+			return true;
+		for (Node eccoChildNode : eccoNode.getChildren()) {
+			if (containsAssociation(eccoChildNode, association))
+				return true;
+		}
+		return false;
+	}
+
+	private static Association getContainingAssociation(Node eccoNode) {
+		return eccoNode.getArtifact() == null ? null : eccoNode.getArtifact().getContainingNode().getContainingAssociation();
+	}
+
+}
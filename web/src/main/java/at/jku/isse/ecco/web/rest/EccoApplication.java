@@ -23,8 +23,11 @@ public class EccoApplication extends ResourceConfig {
 	private final EccoService eccoService = new EccoService();
 
 	private ArtefactGraphModel backendGraph = null;
+	private long backendGraphVersion = -1;
 	private ArtefactGraphModel frontendGraph = null;
 
+	private final ArtifactsGraphCache artifactsGraphCache = new ArtifactsGraphCache();
+
 	public EccoApplication() {
 		packages(true, "at.jku.isse.ecco.web");
 		register(MultiPartFeature.class);
@@ -34,17 +37,29 @@ public class EccoApplication extends ResourceConfig {
 		return this.eccoService;
 	}
 	public void open(String baseDirectory) {
+		this.clearGraphs();
 		this.eccoService.setBaseDir(Paths.get(baseDirectory));
 		this.eccoService.setRepositoryDir(Paths.get(baseDirectory + ECCO_REPOSITORY_DIRECTORY));
 		this.eccoService.open();
 	}
 	public void init(String baseDirectory) {
+		this.clearGraphs();
 		this.eccoService.setBaseDir(Paths.get(baseDirectory));
 		this.eccoService.setRepositoryDir(Paths.get(baseDirectory + ECCO_REPOSITORY_DIRECTORY));
 		this.eccoService.init();
 	}
 	public void close() {
 		this.eccoService.close();
+		this.clearGraphs();
+	}
+
+	/**
+	 * Discards the graphs of the previously opened repository.
+	 */
+	private void clearGraphs() {
+		this.backendGraph = null;
+		this.backendGraphVersion = -1;
+		this.artifactsGraphCache.clear();
 	}
 
 	public ArtefactGraphModel getBackendGraph() {
@@ -55,6 +70,18 @@ public class EccoApplication extends ResourceConfig {
 		this.backendGraph = backendGraph;
 	}
 
+	public long getBackendGraphVersion() {
+		return backendGraphVersion;
+	}
+
+	public void setBackendGraphVersion(long backendGraphVersion) {
+		this.backendGraphVersion = backendGraphVersion;
+	}
+
+	public ArtifactsGraphCache getArtifactsGraphCache() {
+		return artifactsGraphCache;
+	}
+
 	public ArtefactGraphModel getFrontendGraph() {
 		return frontendGraph;
 	}
@@ -2,27 +2,35 @@ package at.jku.isse.ecco.web.rest.resource;
 
 import at.jku.isse.ecco.adapter.dispatch.DirectoryArtifactData;
 import at.jku.isse.ecco.adapter.dispatch.PluginArtifactData;
-import at.jku.isse.ecco.composition.LazyCompositionRootNode;
 import at.jku.isse.ecco.core.Association;
 import at.jku.isse.ecco.service.EccoService;
+import at.jku.isse.ecco.web.rest.ArtifactsGraphCache;
 import at.jku.isse.ecco.web.rest.EccoApplication;
-import at.jku.isse.ecco.web.rest.dto.ArtifactsGraphDTO;
-
-import javax.ws.rs.GET;
-import javax.ws.rs.Path;
-import javax.ws.rs.Produces;
-import javax.ws.rs.QueryParam;
-import javax.ws.rs.core.Application;
-import javax.ws.rs.core.Configuration;
-import javax.ws.rs.core.Context;
-import javax.ws.rs.core.MediaType;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 
+import javax.ws.rs.*;
+import javax.ws.rs.core.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The artifact graph composed from all associations of the repository.
+ * <p>
+ * The graph is cached per repository version (see {@link ArtifactsGraphCache}) and its node ids stay valid until the repository changes.
+ * The ids of the nodes that group the children of a node by association can be requested like the ids of artifact nodes; the group is then expanded into the children that contain artifacts of its association.
+ * Responses carry an ETag derived from the repository version and the parameters, so unchanged graphs are answered with 304 (Not Modified).
+ * The body is streamed and has the same format as {@link at.jku.isse.ecco.web.rest.dto.ArtifactsGraphDTO} (with the additional node property <code>numChildren</code>).
+ */
 @Path("/graph")
 public class GraphsResource {
 
+	private static final int DEFAULT_MAX_CHILDREN = 100;
+
+	private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
 	@Context
 	private Application application;
 
@@ -30,133 +38,219 @@ public class GraphsResource {
 	private Configuration configuration;
 
 
+	/**
+	 * Returns (a part of) the artifact graph.
+	 *
+	 * @param maxChildren Nodes with at least this many children are shown with one child per association that groups all artifacts of the subtree contained in it (default 100).
+	 * @param nodeId      Id of the node or group whose subtree is returned, or -1 for the whole graph (default).
+	 * @param depth       Number of levels below the node that are returned, or -1 for all levels (default). Nodes that are not expanded have the number of their children as <code>numChildren</code>.
+	 * @param offset      Index of the first child of the node that is returned (default 0).
+	 * @param limit       Maximum number of children of the node that are returned. If a limit is given the children of the node are paged instead of grouped by association.
+	 */
 	@GET
 	@Path("/artifacts")
 	@Produces(MediaType.APPLICATION_JSON)
-	public ArtifactsGraphDTO getArtifactsGraph(@QueryParam("maxChildren") int maxChildren) {
+	public Response getArtifactsGraph(@QueryParam("maxChildren") int maxChildren,
+									  @QueryParam("node") @DefaultValue("-1") int nodeId,
+									  @QueryParam("depth") @DefaultValue("-1") int depth,
+									  @QueryParam("offset") @DefaultValue("0") int offset,
+									  @QueryParam("limit") @DefaultValue("0") int limit,
+									  @Context Request request) {
 		if (!(this.application instanceof EccoApplication))
 			throw new RuntimeException("No or wrong application object injected.");
 
 		EccoService eccoService = ((EccoApplication) this.application).getEccoService();
-		this.service = eccoService;
+		ArtifactsGraphCache cache = ((EccoApplication) this.application).getArtifactsGraphCache();
 
-		// TODO: cache the graph somewhere (in the application? or even the service?)
+		GraphQuery query = new GraphQuery(maxChildren > 0 ? maxChildren : DEFAULT_MAX_CHILDREN, nodeId, depth < 0 ? Integer.MAX_VALUE : depth, Math.max(0, offset), limit);
 
+		long version = eccoService.getRepositoryVersion();
+		EntityTag etag = null;
+		if (version >= 0) {
+			etag = new EntityTag(Long.toHexString(version) + "-" + query);
+			Response.ResponseBuilder notModified = request.evaluatePreconditions(etag);
+			if (notModified != null)
+				return notModified.tag(etag).build();
+		}
 
-		// compute graph
-		if (maxChildren > 0)
-			this.maxChildren = maxChildren;
-		this.updateGraph();
-		return this.graph;
-	}
+		// the body is written later, from the graph of the version the etag was computed for
+		ArtifactsGraphCache.Snapshot graph = cache.update(eccoService, version);
+		if (nodeId >= 0 && !graph.contains(nodeId))
+			throw new NotFoundException("Node " + nodeId + " does not exist (anymore).");
 
+		StreamingOutput body = output -> {
+			try (JsonGenerator generator = JSON_FACTORY.createGenerator(output, JsonEncoding.UTF8)) {
+				synchronized (graph) {
+					new GraphWriter(graph, query, generator).write();
+				}
+			}
+		};
+
+		CacheControl cacheControl = new CacheControl();
+		cacheControl.setNoCache(true);
+		Response.ResponseBuilder response = Response.ok(body).cacheControl(cacheControl);
+		if (etag != null)
+			response.tag(etag);
+		return response.build();
+	}
 
-	private EccoService service;
-	private ArtifactsGraphDTO graph;
 
-	private void updateGraph() {
-		this.graph = new ArtifactsGraphDTO();
+	private static class GraphQuery {
+		private final int maxChildren;
+		private final int nodeId;
+		private final int depth;
+		private final int offset;
+		private final int limit;
 
-		this.maxSuccessorsCount = 0;
-		this.maxDepth = 0;
+		private GraphQuery(int maxChildren, int nodeId, int depth, int offset, int limit) {
+			this.maxChildren = maxChildren;
+			this.nodeId = nodeId;
+			this.depth = depth;
+			this.offset = offset;
+			this.limit = limit;
+		}
 
-		// traverse trees and add nodes
-		LazyCompositionRootNode compRootNode = new LazyCompositionRootNode();
-		for (Association association : this.service.getRepository().getAssociations()) {
-			compRootNode.addOrigNode(association.getRootNode());
+		/**
+		 * @return The depth up to which nodes are returned when the traversal starts at the given depth.
+		 */
+		private int getMaxDepth(int startDepth) {
+			return (int) Math.min((long) startDepth + this.depth, Integer.MAX_VALUE);
 		}
-		this.traverseTree(compRootNode, 0);
 
-		this.graph.setMaxNumArtifacts(this.maxSuccessorsCount);
-		this.graph.setMaxDepth(this.maxDepth);
+		@Override
+		public String toString() {
+			return this.maxChildren + "-" + this.nodeId + "-" + this.depth + "-" + this.offset + "-" + this.limit;
+		}
 	}
 
 
-	private int maxChildren = 100;
+	/**
+	 * Writes the nodes of the requested part of the graph while traversing it. The edges are collected during the traversal and written afterwards.
+	 */
+	private static class GraphWriter {
+		private final ArtifactsGraphCache.Snapshot graph;
+		private final GraphQuery query;
+		private final JsonGenerator generator;
 
-	private int maxSuccessorsCount = 0;
-	private int maxDepth = 0;
+		private final List<int[]> edges = new ArrayList<>();
+		private int numNodes = 0;
+		private int maxSuccessorsCount = 0;
+		private int maxDepth = 0;
 
-	private void groupArtifactsByAssocRec(at.jku.isse.ecco.tree.Node eccoNode, Map<Association, Integer> groupMap) {
-		for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
-			if (eccoChildNode.getArtifact() != null) {
-				Association childContainingAssociation = eccoChildNode.getArtifact().getContainingNode().getContainingAssociation();
-				if (childContainingAssociation != null) {
-					if (groupMap.containsKey(childContainingAssociation)) {
-						int groupCount = groupMap.get(childContainingAssociation);
-						groupCount++;
-						groupMap.put(childContainingAssociation, groupCount);
-					} else {
-						groupMap.put(childContainingAssociation, 1);
-					}
-				}
-			}
-			this.groupArtifactsByAssocRec(eccoChildNode, groupMap);
+		private GraphWriter(ArtifactsGraphCache.Snapshot graph, GraphQuery query, JsonGenerator generator) {
+			this.graph = graph;
+			this.query = query;
+			this.generator = generator;
 		}
-	}
-
-	private ArrayList<ArtifactsGraphDTO.NodeDTO> nodes;
-	private ArrayList<ArtifactsGraphDTO.EdgeDTO> edges;
 
-	private ArtifactsGraphDTO.NodeDTO traverseTree(at.jku.isse.ecco.tree.Node eccoNode, int depth) {
-		String assocId;
-
-		ArtifactsGraphDTO.NodeDTO graphNode = null;
-		if (eccoNode.getArtifact() != null) {
+		private void write() throws IOException {
+			this.generator.writeStartObject();
+
+			this.generator.writeArrayFieldStart("nodes");
+			ArtifactsGraphCache.Group startGroup = this.query.nodeId >= 0 ? this.graph.getGroup(this.query.nodeId) : null;
+			if (startGroup != null) {
+				this.traverseGroup(startGroup, this.graph.getDepth(this.query.nodeId));
+			} else {
+				at.jku.isse.ecco.tree.Node startNode = this.query.nodeId >= 0 ? this.graph.getNode(this.query.nodeId) : this.graph.getRootNode();
+				if (startNode != null) {
+					int startDepth = this.query.nodeId >= 0 ? this.graph.getDepth(this.query.nodeId) : 0;
+					this.traverseTree(startNode, startDepth, this.query.getMaxDepth(startDepth), true);
+				}
+			}
+			this.generator.writeEndArray();
+
+			this.generator.writeArrayFieldStart("edges");
+			for (int[] edge : this.edges) {
+				this.generator.writeStartObject();
+				this.generator.writeNumberField("source", edge[0]);
+				this.generator.writeNumberField("target", edge[1]);
+				this.generator.writeEndObject();
+			}
+			this.generator.writeEndArray();
 
-			//graphNode = this.graph.addNode(this.artifactCount);
-			graphNode = this.graph.addNode();
+			this.generator.writeNumberField("numNodes", this.numNodes);
+			this.generator.writeNumberField("maxDepth", this.maxDepth);
+			this.generator.writeNumberField("maxNumArtifacts", this.maxSuccessorsCount);
 
-			graphNode.setNumArtifacts(1);
-			graphNode.setLabel(eccoNode.toString());
-			graphNode.setDepth(depth);
-			assocId = eccoNode.getArtifact().getContainingNode().getContainingAssociation().getId();
-			graphNode.setAssociationId(assocId);
+			this.generator.writeEndObject();
+		}
 
+		private void writeNode(int id, String associationId, int numArtifacts, int depth, String label, int numChildren) throws IOException {
+			this.generator.writeStartObject();
+			this.generator.writeNumberField("id", id);
+			this.generator.writeStringField("associationId", associationId);
+			this.generator.writeNumberField("numArtifacts", numArtifacts);
+			this.generator.writeNumberField("depth", depth);
+			this.generator.writeStringField("label", label);
+			this.generator.writeNumberField("numChildren", numChildren);
+			this.generator.writeEndObject();
+
+			this.numNodes++;
 			if (this.maxDepth < depth)
 				this.maxDepth = depth;
+		}
 
-			if (eccoNode.getChildren().size() >= maxChildren) {
-				// group children by association
-				Map<Association, Integer> groupMap = new HashMap<>();
-				this.groupArtifactsByAssocRec(eccoNode, groupMap);
-				// add one child node per group
-				for (Map.Entry<Association, Integer> entry : groupMap.entrySet()) {
-					//ArtifactsGraphDTO.NodeDTO graphChildNode = this.graph.addNode(this.artifactCount);
-					ArtifactsGraphDTO.NodeDTO graphChildNode = this.graph.addNode();
+		private Integer traverseTree(at.jku.isse.ecco.tree.Node eccoNode, int depth, int maxTraversalDepth, boolean startNode) throws IOException {
+			List<? extends at.jku.isse.ecco.tree.Node> children = eccoNode.getChildren();
+			boolean expand = depth < maxTraversalDepth;
+			boolean page = startNode && this.query.limit > 0;
+			boolean group = expand && !page && children.size() >= this.query.maxChildren;
+
+			Integer graphNodeId = null;
+			if (eccoNode.getArtifact() != null) {
+				graphNodeId = this.graph.getId(eccoNode, depth);
+
+				String label = eccoNode.toString();
+				if (eccoNode.getArtifact().getData() instanceof PluginArtifactData) {
+					label = ((PluginArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+				} else if (eccoNode.getArtifact().getData() instanceof DirectoryArtifactData) {
+					label = ((DirectoryArtifactData) eccoNode.getArtifact().getData()).getPath().toString();
+				}
+				Association association = eccoNode.getArtifact().getContainingNode().getContainingAssociation();
+				this.writeNode(graphNodeId, association == null ? null : association.getId(), 1, depth, label, children.size());
 
-					graphChildNode.setLabel("[" + entry.getValue() + "]");
-					graphChildNode.setNumArtifacts(entry.getValue());
-					graphChildNode.setDepth(depth + 1);
-					graphChildNode.setAssociationId(entry.getKey().getId());
+				if (group) {
+					// group children by association
+					for (ArtifactsGraphCache.Group artifactGroup : this.graph.getGroups(eccoNode, depth)) {
+						this.writeGroup(artifactGroup, depth + 1);
 
-					if (this.maxSuccessorsCount < entry.getValue())
-						this.maxSuccessorsCount = entry.getValue();
+						if (this.maxSuccessorsCount < artifactGroup.getNumArtifacts())
+							this.maxSuccessorsCount = artifactGroup.getNumArtifacts();
 
-					ArtifactsGraphDTO.EdgeDTO edge = this.graph.addEdge(graphNode, graphChildNode);
+						this.edges.add(new int[]{graphNodeId, artifactGroup.getId()});
+					}
 				}
 			}
 
-			if (eccoNode.getArtifact().getData() instanceof PluginArtifactData) {
-				graphNode.setLabel(((PluginArtifactData) eccoNode.getArtifact().getData()).getPath().toString());
-			} else if (eccoNode.getArtifact().getData() instanceof DirectoryArtifactData) {
-				graphNode.setLabel(((DirectoryArtifactData) eccoNode.getArtifact().getData()).getPath().toString());
-			}
+			if (expand && !group)
+				this.traverseChildren(graphNodeId, children, depth + 1, maxTraversalDepth, page);
+
+			return graphNodeId;
 		}
 
+		private void writeGroup(ArtifactsGraphCache.Group artifactGroup, int depth) throws IOException {
+			this.writeNode(artifactGroup.getId(), artifactGroup.getAssociation().getId(), artifactGroup.getNumArtifacts(), depth, "[" + artifactGroup.getNumArtifacts() + "]", 0);
+		}
 
-		if (eccoNode.getChildren().size() < maxChildren) {
-			for (at.jku.isse.ecco.tree.Node eccoChildNode : eccoNode.getChildren()) {
-				ArtifactsGraphDTO.NodeDTO graphChildNode = this.traverseTree(eccoChildNode, depth + 1);
+		/**
+		 * Writes the given group and, as its children, the children of its node that contain artifacts of its association (paged like the children of a node).
+		 */
+		private void traverseGroup(ArtifactsGraphCache.Group artifactGroup, int depth) throws IOException {
+			this.writeGroup(artifactGroup, depth);
+			if (this.query.depth > 0)
+				this.traverseChildren(artifactGroup.getId(), this.graph.getChildren(artifactGroup), depth, this.query.getMaxDepth(depth - 1), this.query.limit > 0);
+		}
 
-				if (graphChildNode != null && graphNode != null) {
-					ArtifactsGraphDTO.EdgeDTO edge = this.graph.addEdge(graphNode, graphChildNode);
+		private void traverseChildren(Integer graphNodeId, List<? extends at.jku.isse.ecco.tree.Node> children, int depth, int maxTraversalDepth, boolean page) throws IOException {
+			int from = page ? Math.min(this.query.offset, children.size()) : 0;
+			int to = page ? (int) Math.min((long) from + this.query.limit, children.size()) : children.size();
+			for (at.jku.isse.ecco.tree.Node eccoChildNode : children.subList(from, to)) {
+				Integer graphChildNodeId = this.traverseTree(eccoChildNode, depth, maxTraversalDepth, false);
 
-				}
+				if (graphChildNodeId != null && graphNodeId != null)
+					this.edges.add(new int[]{graphNodeId, graphChildNodeId});
 			}
 		}
-
-		return graphNode;
 	}
 
 }